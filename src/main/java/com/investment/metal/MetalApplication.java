@@ -10,14 +10,8 @@ import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
-import kong.unirest.Unirest;
-import kong.unirest.apache.ApacheClient;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.client.config.CookieSpecs;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -53,9 +47,6 @@ public class MetalApplication {
         // Disable SSL certificate validation (temporary for RSS feed parser)
         disableSSLCheck();
 
-        // Configure HTTP client to prevent cookie warnings
-        configureHttpClient();
-
         // Start the Spring Boot application
         SpringApplication.run(MetalApplication.class, args);
     }
@@ -78,23 +69,6 @@ public class MetalApplication {
         System.setProperty("hibernate.hbm2ddl.import_files_sql_extractor", "");
     }
 
-    /**
-     * Configure HTTP client to prevent cookie warnings from AWS ALB.
-     */
-    private static void configureHttpClient() {
-        Unirest.config().httpClient(config -> {
-            RequestConfig requestConfig = RequestConfig
-                    .custom()
-                    .setCookieSpec(CookieSpecs.STANDARD)
-                    .build();
-            CloseableHttpClient closeableClient = HttpClients
-                    .custom()
-                    .setDefaultRequestConfig(requestConfig)
-                    .build();
-            return ApacheClient.builder(closeableClient).apply(config);
-        });
-    }
-
     /**
      * Update application properties file by merging current and source properties.
      * This method is called when the application is started with -update.properties argument.
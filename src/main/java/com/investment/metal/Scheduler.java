@@ -5,28 +5,37 @@ import com.investment.metal.application.service.MetalPriceService;
 import com.investment.metal.application.service.NotificationService;
 import com.investment.metal.domain.model.CurrencyType;
 import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSnapshot;
+import com.investment.metal.infrastructure.service.AdaptivePollingTrigger;
 import com.investment.metal.infrastructure.service.CurrencyService;
+import com.investment.metal.infrastructure.service.IntradayBackfillService;
+import com.investment.metal.infrastructure.service.LastKnownGoodStore;
+import com.investment.metal.infrastructure.service.PriceRetentionService;
 import com.investment.metal.infrastructure.service.RSSFeedParser;
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Scheduler configuration for automated tasks.
  * Handles periodic updates of metal prices, currency values, and notifications.
+ * Metal prices are polled at the interval chosen by the {@link AdaptivePollingTrigger}.
  */
 @Configuration
 @EnableScheduling
 @Slf4j
-public class Scheduler {
+public class Scheduler implements SchedulingConfigurer {
     
     // Scheduling intervals (in milliseconds)
-    private static final long METAL_PRICE_UPDATE_INTERVAL = 3600 * 1000; // 1 hour
     private static final long CURRENCY_UPDATE_INTERVAL = 12 * 3600 * 1000; // 12 hours
     private static final long NOTIFICATION_CHECK_INTERVAL = 3600 * 1000; // 1 hour
     
@@ -38,6 +47,10 @@ public class Scheduler {
     private final AlertsTrigger alertsTrigger;
     private final NotificationService notificationService;
     private final RSSFeedParser rssFeedParser;
+    private final IntradayBackfillService intradayBackfillService;
+    private final AdaptivePollingTrigger pollingTrigger;
+    private final LastKnownGoodStore lastKnownGoodStore;
+    private final PriceRetentionService priceRetentionService;
 
     /**
      * Constructor for Scheduler with dependency injection.
@@ -47,27 +60,50 @@ public class Scheduler {
      * @param alertsTrigger service for triggering price alerts
      * @param notificationService service for managing notifications
      * @param rssFeedParser service for parsing RSS feeds
+     * @param intradayBackfillService service storing the intraday price history of the providers
+     * @param pollingTrigger trigger choosing the interval of the metal price updates
+     * @param lastKnownGoodStore store of the latest prices and currency rates kept across restarts
+     * @param priceRetentionService service deleting the prices older than the retention window
      */
     public Scheduler(
             MetalPriceService metalPricesService,
             CurrencyService currencyService,
             AlertsTrigger alertsTrigger,
             NotificationService notificationService,
-            RSSFeedParser rssFeedParser) {
+            RSSFeedParser rssFeedParser,
+            IntradayBackfillService intradayBackfillService,
+            AdaptivePollingTrigger pollingTrigger,
+            LastKnownGoodStore lastKnownGoodStore,
+            PriceRetentionService priceRetentionService) {
         this.metalPricesService = metalPricesService;
         this.currencyService = currencyService;
         this.alertsTrigger = alertsTrigger;
         this.notificationService = notificationService;
         this.rssFeedParser = rssFeedParser;
+        this.intradayBackfillService = intradayBackfillService;
+        this.pollingTrigger = pollingTrigger;
+        this.lastKnownGoodStore = lastKnownGoodStore;
+        this.priceRetentionService = priceRetentionService;
     }
 
     /**
      * Initialize scheduler by fetching initial data.
-     * Called after dependency injection is complete.
+     * Called after dependency injection is complete. When the last known good store already holds every price
+     * and currency rate, they are served while the initial data is fetched in the background, so the startup
+     * does not wait for the providers.
      */
     @PostConstruct
     public void init() {
-        log.info("Initializing scheduler - fetching initial data");
+        if (this.lastKnownGoodStore.isComplete()) {
+            log.info("Initializing scheduler - fetching initial data in the background");
+            Thread.ofVirtual().name("scheduler-init").start(this::fetchInitialData);
+        } else {
+            log.info("Initializing scheduler - fetching initial data");
+            this.fetchInitialData();
+        }
+    }
+
+    private void fetchInitialData() {
         try {
             this.fetchCurrencyValues();
         } catch (Exception ex) {
@@ -82,33 +118,77 @@ public class Scheduler {
         }
     }
 
+    /**
+     * Register the metal price updates with the adaptive trigger, which waits the chosen interval after the end
+     * of each update.
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addTriggerTask(this::fetchMetalPrices, this.pollingTrigger);
+    }
+
     /**
      * Scheduled task to fetch metal prices from external APIs.
-     * Runs every hour to keep prices up to date.
+     * Runs at the adaptive polling interval to keep prices up to date. Not transactional: every price is saved
+     * on its own and the alert bookkeeping is persisted in short per-chunk transactions.
      */
-    @Transactional
-    @Scheduled(fixedDelay = METAL_PRICE_UPDATE_INTERVAL)
     public void fetchMetalPrices() {
         log.info("Starting scheduled metal price update");
         this.updateAllMetalPrices();
     }
 
+    /**
+     * Store the intraday chart points of the price responses just read.
+     */
+    private void backfillIntradayPrices() {
+        try {
+            int inserted = this.intradayBackfillService.backfill(EnumSet.allOf(MetalType.class));
+            log.info("Backfilled {} intraday metal prices", inserted);
+        } catch (Exception ex) {
+            log.warn("Unable to backfill intraday metal prices. Cause: {}", ex.getMessage());
+            log.debug("Intraday backfill failure", ex);
+        }
+    }
+
     /**
      * Update prices for all metal types.
-     * Fetches current prices and triggers alerts if conditions are met.
+     * Fetches the current prices of all metals in one batch, then triggers the alerts of all metals together
+     * against one shared price snapshot. The prices and the distance of the alerts to their thresholds then
+     * set the interval until the next update.
      */
     private void updateAllMetalPrices() {
-        for (MetalType type : MetalType.values()) {
+        Map<MetalType, Double> fetched;
+        try {
+            fetched = this.metalPricesService.fetchMetalPrices(EnumSet.allOf(MetalType.class));
+        } catch (Exception e) {
+            log.error("Failed to read metal prices", e);
+            return;
+        }
+        // before the new ticks are saved, so the trend buffers load the backfilled history
+        this.backfillIntradayPrices();
+        Map<MetalType, Double> metalPrices = new EnumMap<>(MetalType.class);
+        for (Map.Entry<MetalType, Double> price : fetched.entrySet()) {
+            MetalType type = price.getKey();
             try {
-                double metalPrice = this.metalPricesService.fetchMetalPrice(type);
-                this.metalPricesService.save(type, metalPrice);
-                this.alertsTrigger.triggerAlerts(type);
-                
-                log.debug("Successfully updated price for {}: {}", type, metalPrice);
+                this.metalPricesService.save(type, price.getValue());
+                metalPrices.put(type, price.getValue());
+
+                log.debug("Successfully updated price for {}: {}", type, price.getValue());
             } catch (Exception e) {
-                log.error("Failed to read metal prices for {}", type, e);
+                log.error("Failed to save metal price for {}", type, e);
             }
         }
+        if (metalPrices.isEmpty()) {
+            return;
+        }
+
+        final PriceSnapshot snapshot = this.metalPricesService.capturePriceSnapshot(metalPrices);
+        try {
+            this.alertsTrigger.triggerAlerts(snapshot);
+        } catch (Exception e) {
+            log.error("Failed to trigger alerts", e);
+        }
+        this.pollingTrigger.record(metalPrices, this.alertsTrigger.getDistanceToNextThreshold());
     }
 
     /**
@@ -126,6 +206,7 @@ public class Scheduler {
             
             // Set RON as base currency (1.0)
             currenciesValues.put(CurrencyType.RON, 1.0);
+            this.lastKnownGoodStore.recordRates(currenciesValues, System.currentTimeMillis());
             
             for (CurrencyType currency : CurrencyType.values()) {
                 Double value = currenciesValues.get(currency);
@@ -144,6 +225,21 @@ public class Scheduler {
         }
     }
 
+    /**
+     * Scheduled task to delete the metal prices older than the retention window.
+     * Runs every hour by default, in bounded chunks, so saving a price stays a single insert.
+     */
+    @Scheduled(fixedDelayString = "${service.metal.price.retention.interval-ms:3600000}")
+    public void purgeOldPrices() {
+        try {
+            int deleted = this.priceRetentionService.purge();
+            log.info("Deleted {} metal prices older than the retention window", deleted);
+        } catch (Exception ex) {
+            log.warn("Unable to delete the old metal prices. Cause: {}", ex.getMessage());
+            log.debug("Price retention failure", ex);
+        }
+    }
+
     /**
      * Scheduled task to check and process notifications.
      * Runs every hour to process pending notifications.
@@ -0,0 +1,23 @@
+package com.investment.metal.application.exception;
+
+/**
+ * Application layer exception for alert expressions that can not be parsed, type-checked or evaluated.
+ * Carries the character position where the problem was detected, or -1 when it is not positional.
+ */
+public class InvalidExpressionException extends UseCaseException {
+
+    private final int position;
+
+    public InvalidExpressionException(String message) {
+        this(message, -1);
+    }
+
+    public InvalidExpressionException(String message, int position) {
+        super(message);
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
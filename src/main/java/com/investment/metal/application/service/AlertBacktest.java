@@ -0,0 +1,248 @@
+package com.investment.metal.application.service;
+
+import com.investment.metal.application.exception.InvalidExpressionException;
+import com.investment.metal.application.service.expression.CompiledExpression;
+import com.investment.metal.application.service.expression.ExpressionNode;
+import com.investment.metal.domain.model.PriceSeries;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One replay of an alert expression over stored price history, prepared by {@link AlertBacktestService}.
+ * The history is scanned column-wise from the primitive arrays of a {@link PriceSeries}: every tick updates the
+ * indicators incrementally through {@link PriceIndicators}, and the trend functions keep the time of their last
+ * broken step, so each tick costs O(1) per window whatever the length of the range.
+ * Ticks before the start of the range only warm up the indicators. Like a live alert, the expression fires at
+ * most once per frequency interval.
+ */
+public final class AlertBacktest {
+
+    /**
+     * Receives the ticks where the alert fires, in chronological order.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param time epoch milliseconds of the tick
+         * @param price price of one kilogram in the provider currency
+         * @param profit profit of the user's position at that price
+         */
+        void onFire(long time, double price, double profit) throws IOException;
+    }
+
+    private static final Set<String> INDICATORS = Set.of("sma", "ema", "stddev", "rsi", "change");
+
+    private final CompiledExpression expression;
+
+    private final PriceSeries series;
+
+    private final long fromTime;
+
+    private final long intervalMillis;
+
+    private final double revolutOunceFactor;
+
+    private final double amount;
+
+    private final double cost;
+
+    /**
+     * @param expression the compiled alert expression
+     * @param series the history, including the warm-up ticks before the range
+     * @param fromTime epoch milliseconds of the start of the range
+     * @param intervalMillis minimum time between two firings
+     * @param revolutOunceFactor converts a provider price of one kilogram into the Revolut price of one ounce
+     * @param amount ounces held by the user
+     * @param cost what the user paid for them
+     */
+    AlertBacktest(CompiledExpression expression, PriceSeries series, long fromTime, long intervalMillis,
+                  double revolutOunceFactor, double amount, double cost) {
+        this.expression = expression;
+        this.series = series;
+        this.fromTime = fromTime;
+        this.intervalMillis = intervalMillis;
+        this.revolutOunceFactor = revolutOunceFactor;
+        this.amount = amount;
+        this.cost = cost;
+    }
+
+    /**
+     * @return number of ticks in the range
+     */
+    public int getTickCount() {
+        return series.size() - series.indexOf(fromTime);
+    }
+
+    /**
+     * Replay the expression over the range.
+     *
+     * @param listener receives every firing as soon as it is found
+     * @return number of firings
+     * @throws IOException if the listener fails
+     */
+    public int run(Listener listener) throws IOException {
+        final int size = series.size();
+        final int start = series.indexOf(fromTime);
+        final PriceIndicators indicators = new PriceIndicators(Math.max(2, size), windowDays(expression));
+        final Trend[] trends = trends(expression);
+        final ReplayFeeder feeder = new ReplayFeeder(indicators, trends);
+        long nextFireAt = Long.MIN_VALUE;
+        int fired = 0;
+        for (int i = 0; i < size; i++) {
+            final long time = series.time(i);
+            final double price = series.price(i);
+            if (!indicators.append(time, price)) {
+                continue;
+            }
+            for (Trend trend : trends) {
+                trend.append(time, price);
+            }
+            if (i < start || time < nextFireAt) {
+                continue;
+            }
+            feeder.time = time;
+            feeder.profit = price * revolutOunceFactor * amount - cost;
+            if (expression.evaluate(feeder)) {
+                listener.onFire(time, price, feeder.profit);
+                nextFireAt = time + intervalMillis;
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * @return the window lengths used by the indicator calls of the expression, the only ones worth maintaining
+     */
+    private static int[] windowDays(CompiledExpression expression) {
+        return expression.getCalls().stream()
+                .filter(call -> INDICATORS.contains(call.name()))
+                .mapToInt(call -> (int) call.args()[0])
+                .toArray();
+    }
+
+    /**
+     * @return one tracker per distinct inc/dec call of the expression
+     */
+    private static Trend[] trends(CompiledExpression expression) {
+        List<Trend> trends = new ArrayList<>();
+        for (ExpressionNode.FunctionCall call : expression.getCalls()) {
+            boolean increasing = "inc".equals(call.name());
+            if (!increasing && !"dec".equals(call.name())) {
+                continue;
+            }
+            int days = (int) call.args()[0];
+            double eps = call.args()[1];
+            if (trends.stream().noneMatch(trend -> trend.is(increasing, days, eps))) {
+                trends.add(new Trend(increasing, days, eps));
+            }
+        }
+        return trends.toArray(new Trend[0]);
+    }
+
+    /**
+     * Answers the alert functions for the tick being replayed.
+     */
+    private static final class ReplayFeeder implements ExpressionFeeder {
+
+        private final PriceIndicators indicators;
+
+        private final Trend[] trends;
+
+        private long time;
+
+        private double profit;
+
+        private ReplayFeeder(PriceIndicators indicators, Trend[] trends) {
+            this.indicators = indicators;
+            this.trends = trends;
+        }
+
+        @Override
+        public double number(String functionName, double[] args) {
+            return switch (functionName) {
+                case "profit" -> profit;
+                case "price" -> indicators.price();
+                case "sma" -> indicators.sma((int) args[0]);
+                case "ema" -> indicators.ema((int) args[0]);
+                case "stddev" -> indicators.stddev((int) args[0]);
+                case "rsi" -> indicators.rsi((int) args[0]);
+                case "change" -> indicators.change((int) args[0]);
+                default -> throw new InvalidExpressionException("Unsupported function: " + functionName);
+            };
+        }
+
+        @Override
+        public boolean condition(String functionName, double[] args) {
+            boolean increasing = "inc".equals(functionName);
+            if (!increasing && !"dec".equals(functionName)) {
+                throw new InvalidExpressionException("Unsupported function: " + functionName);
+            }
+            for (Trend trend : trends) {
+                if (trend.is(increasing, (int) args[0], args[1])) {
+                    return trend.holds(time);
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Incremental form of {@link PriceRingBuffer#isMonotonic}: remembers the time of the older tick of the
+     * latest step that moved against the direction by more than eps percent. The trend holds while that step
+     * is out of the window and the window has at least two ticks.
+     */
+    private static final class Trend {
+
+        private final boolean increasing;
+
+        private final int days;
+
+        private final double eps;
+
+        private final long span;
+
+        private long previousTime = Long.MIN_VALUE;
+
+        private double previousPrice;
+
+        private long lastButOneTime = Long.MIN_VALUE;
+
+        private long brokenAt = Long.MIN_VALUE;
+
+        private Trend(boolean increasing, int days, double eps) {
+            this.increasing = increasing;
+            this.days = days;
+            this.eps = eps;
+            this.span = TimeUnit.DAYS.toMillis(days);
+        }
+
+        private boolean is(boolean increasing, int days, double eps) {
+            return this.increasing == increasing && this.days == days && this.eps == eps;
+        }
+
+        private void append(long time, double price) {
+            if (previousTime != Long.MIN_VALUE) {
+                double tolerance = previousPrice * eps / 100.0d;
+                if (increasing ? price < previousPrice - tolerance : price > previousPrice + tolerance) {
+                    brokenAt = previousTime;
+                }
+            }
+            lastButOneTime = previousTime;
+            previousTime = time;
+            previousPrice = price;
+        }
+
+        /**
+         * @param time the time of the newest tick, already appended
+         */
+        private boolean holds(long time) {
+            long fromTime = time - span;
+            return lastButOneTime > fromTime && brokenAt <= fromTime;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.investment.metal.application.service;
+
+import com.investment.metal.application.exception.InvalidExpressionException;
+import com.investment.metal.application.service.expression.CompiledExpression;
+import com.investment.metal.domain.model.AlertFrequency;
+import com.investment.metal.domain.model.CandleSeries;
+import com.investment.metal.domain.model.MetalPurchase;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import com.investment.metal.infrastructure.service.archive.PriceArchive;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Prepares {@link AlertBacktest} replays of alert expressions over the stored price history,
+ * so users can see how often an alert would have fired before saving it.
+ * The history older than the price retention is read from the {@link PriceArchive}, the rest from the database.
+ * The part of the range that neither holds, e.g. with the archive disabled, is replayed from the closes of the
+ * finest candles of the {@link PriceRollupService} still covering it.
+ */
+@Service
+public class AlertBacktestService {
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private MetalPriceService metalPriceService;
+
+    @Autowired
+    private MetalPriceRepository metalPriceRepository;
+
+    @Autowired
+    private PriceArchive priceArchive;
+
+    @Autowired
+    private PriceRollupService priceRollupService;
+
+    /**
+     * Compile the expression and load the history of the range, plus {@link PriceTrendService#MAX_DAYS} days
+     * before it to warm up the indicators, as primitive columns.
+     *
+     * @param expression the alert expression
+     * @param metalType the metal
+     * @param frequency minimum time between two firings
+     * @param purchase the user's position in the metal, or null if the user does not own any
+     * @param from inclusive start of the range
+     * @param to exclusive end of the range
+     * @return the replay, ready to run
+     * @throws InvalidExpressionException if the expression is not valid
+     */
+    public AlertBacktest prepare(String expression, MetalType metalType, AlertFrequency frequency,
+                                 MetalPurchase purchase, LocalDateTime from, LocalDateTime to) {
+        final CompiledExpression compiled = this.alertService.compileExpression(expression);
+        final PriceSeries series = this.loadSeries(metalType, from.minusDays(PriceTrendService.MAX_DAYS), to);
+        final double amount = purchase != null ? purchase.getAmount().doubleValue() : 0;
+        final double cost = purchase != null ? purchase.getCost().doubleValue() : 0;
+        return new AlertBacktest(compiled, series,
+                toMillis(from),
+                frequency.getIntervalMillis(),
+                this.metalPriceService.getRevolutOunceFactor(metalType),
+                amount, cost);
+    }
+
+    /**
+     * Load the ticks of a range from the archive, then from the database from the end of the archive on. The
+     * ticks between the end of the archive and the first raw price, deleted by the retention without being
+     * archived, are taken from the candles.
+     */
+    PriceSeries loadSeries(MetalType metalType, LocalDateTime from, LocalDateTime to) {
+        final long end = toMillis(to);
+        long start = toMillis(from);
+        final PriceSeries.Builder series = new PriceSeries.Builder(metalType, 0);
+        final long archivedUntil = this.priceArchive.getArchivedUntil(metalType);
+        if (archivedUntil > start) {
+            append(series, this.priceArchive.findSeries(metalType, start, Math.min(end, archivedUntil)));
+            start = Math.min(end, archivedUntil);
+        }
+        if (start >= end) {
+            return series.build();
+        }
+        final PriceSeries recent = this.metalPriceRepository.findSeries(metalType, toLocal(start), to);
+        final long rawFrom = recent.size() > 0 ? recent.time(0) : end;
+        if (rawFrom > start) {
+            // no number of points is enough, so the finest resolution still covering the gap is read
+            final CandleSeries candles = this.priceRollupService.findCandles(metalType, start, rawFrom,
+                    Integer.MAX_VALUE);
+            for (int i = 0; i < candles.size(); i++) {
+                if (candles.closeTime(i) >= start && candles.closeTime(i) < rawFrom) {
+                    series.add(candles.closeTime(i), candles.close(i));
+                }
+            }
+        }
+        append(series, recent);
+        return series.build();
+    }
+
+    private static void append(PriceSeries.Builder series, PriceSeries ticks) {
+        for (int i = 0; i < ticks.size(); i++) {
+            series.add(ticks.time(i), ticks.price(i));
+        }
+    }
+
+    private static LocalDateTime toLocal(long time) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
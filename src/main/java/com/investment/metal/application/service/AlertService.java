@@ -1,7 +1,12 @@
 package com.investment.metal.application.service;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.investment.metal.MessageKey;
+import com.investment.metal.application.exception.InvalidExpressionException;
+import com.investment.metal.application.service.expression.CompiledExpression;
+import com.investment.metal.application.service.expression.ExpressionCompiler;
+import com.investment.metal.application.service.expression.ProfitThreshold;
 import com.investment.metal.domain.exception.BusinessException;
 import com.investment.metal.domain.model.AlertFrequency;
 import com.investment.metal.domain.model.MetalType;
@@ -9,6 +14,7 @@ import com.investment.metal.infrastructure.exception.ExceptionService;
 import com.investment.metal.infrastructure.persistence.entity.Alert;
 import com.investment.metal.infrastructure.persistence.entity.ExpressionFunction;
 import com.investment.metal.infrastructure.persistence.entity.ExpressionParameter;
+import com.investment.metal.infrastructure.persistence.repository.AlertPortfolio;
 import com.investment.metal.infrastructure.persistence.repository.AlertRepository;
 import com.investment.metal.infrastructure.persistence.repository.ExpressionFunctionRepository;
 import com.investment.metal.infrastructure.persistence.repository.ExpressionParameterRepository;
@@ -16,15 +22,17 @@ import com.investment.metal.infrastructure.service.MessageService;
 import jakarta.annotation.PostConstruct;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
+import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Application service for managing price alerts and mathematical expressions.
@@ -41,11 +49,6 @@ public class AlertService {
     @Autowired
     private ExceptionService exceptionService;
 
-    /**
-     * JavaScript engine for evaluating mathematical expressions in alerts
-     */
-    private final ScriptEngine engine;
-
     /**
      * Repository for managing alert data persistence
      */
@@ -70,12 +73,24 @@ public class AlertService {
     @Autowired
     private ExpressionParameterRepository parameterRepository;
 
+    /**
+     * Break-even index of the simple profit threshold alerts
+     */
+    @Autowired
+    private ProfitAlertIndex profitAlertIndex;
+
     /**
      * Service for internationalized message handling
      */
     @Autowired
     protected MessageService messageService;
 
+    /**
+     * Runs each chunk of alert bookkeeping in its own short transaction
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Cache of available expression functions for alert evaluation
      */
@@ -83,12 +98,25 @@ public class AlertService {
     private final Map<String, FunctionInfo> expressionFunctions = Maps.newLinkedHashMap();
 
     /**
-     * Initialize the alert service with JavaScript engine for expression evaluation.
-     * Sets up the script engine for mathematical expression processing.
+     * Compiler and cache of alert expressions, type-checked against the function registry
      */
-    public AlertService() {
-        ScriptEngineManager mgr = new ScriptEngineManager();
-        this.engine = mgr.getEngineByName("JavaScript");
+    private final ExpressionCompiler expressionCompiler;
+
+    /**
+     * Maximum number of alerts rescheduled in one transaction
+     */
+    private final int markCheckedChunkSize;
+
+    /**
+     * Create the alert service.
+     *
+     * @param promotionThreshold number of evaluations after which an alert expression is compiled to bytecode
+     * @param markCheckedChunkSize maximum number of alerts rescheduled in one transaction
+     */
+    public AlertService(@Value("${service.alerts.expression.promotion-threshold:1000}") long promotionThreshold,
+                        @Value("${service.alerts.evaluation.chunk-size:1000}") int markCheckedChunkSize) {
+        this.expressionCompiler = new ExpressionCompiler(expressionFunctions, promotionThreshold);
+        this.markCheckedChunkSize = Math.max(1, markCheckedChunkSize);
     }
 
     /**
@@ -120,6 +148,7 @@ public class AlertService {
                 }
                 expressionFunctions.put(functionName, info);
             }
+            expressionCompiler.invalidate();
         } catch (Exception ex) {
             expressionFunctions.clear();
             log.warn("Skipping expression function preload because the database is unavailable. The cache will remain empty until the next successful load. Cause: {}", ex.getMessage());
@@ -142,8 +171,12 @@ public class AlertService {
         alert.setMetalSymbol(metalType.getSymbol());
         alert.setExpression(expression);
         alert.setFrequency(frequency.name());
-        alert.setLastTimeChecked(new Timestamp(System.currentTimeMillis()));
+        long now = System.currentTimeMillis();
+        alert.setLastTimeChecked(new Timestamp(now));
+        alert.setNextCheckAt(new Timestamp(frequency.nextCheckAfter(now)));
+        alert.setThresholdIndexed(this.classifyProfitThreshold(expression).isPresent());
         this.alertRepository.save(alert);
+        this.profitAlertIndex.invalidate();
     }
 
     /**
@@ -156,6 +189,39 @@ public class AlertService {
         return this.alertRepository.findByMetalSymbol(metalSymbol).orElse(new ArrayList<>());
     }
 
+    /**
+     * Find the alerts on a metal that are due for a check, joined with their owners and the owners' purchases.
+     * Runs as a single indexed range query regardless of the number of users or alerts.
+     *
+     * @param metalSymbol the symbol of the metal to find alerts for
+     * @param now the current time; alerts whose next check is not after it are due
+     * @return one entry per due alert on the specified metal
+     */
+    public List<AlertPortfolio> findDuePortfoliosByMetalSymbol(String metalSymbol, Timestamp now) {
+        return this.alertRepository.findDuePortfoliosByMetalSymbol(metalSymbol, now);
+    }
+
+    /**
+     * Record that alerts were checked and schedule their next check.
+     * The alerts are persisted in chunks, each in one short transaction issuing one bulk update per frequency,
+     * so row locks are held only for the duration of a chunk.
+     *
+     * @param alerts the alerts that were evaluated
+     * @param checkedAt the time of the check
+     */
+    public void markChecked(List<Alert> alerts, long checkedAt) {
+        Timestamp checked = new Timestamp(checkedAt);
+        for (List<Alert> chunk : Lists.partition(alerts, this.markCheckedChunkSize)) {
+            Map<AlertFrequency, List<Integer>> idsByFrequency = chunk.stream()
+                    .collect(Collectors.groupingBy(Alert::getFrequency,
+                            () -> new EnumMap<>(AlertFrequency.class),
+                            Collectors.mapping(Alert::getId, Collectors.toList())));
+            this.transactionTemplate.executeWithoutResult(status -> idsByFrequency.forEach((frequency, ids) ->
+                    this.alertRepository.markChecked(ids, checked,
+                            new Timestamp(frequency.nextCheckAfter(checkedAt)))));
+        }
+    }
+
     /**
      * Create an expression evaluator for the given mathematical expression.
      * 
@@ -163,7 +229,42 @@ public class AlertService {
      * @return ExpressionEvaluator instance for the expression
      */
     public ExpressionEvaluator evaluateExpression(String expression) {
-        return new ExpressionEvaluator(expression, this.engine, getExpressionFunctions());
+        return new ExpressionEvaluator(expression, this.expressionCompiler);
+    }
+
+    /**
+     * Get the shared compiled form of an expression.
+     * Compiled expressions are cached by text, so every alert with the same expression reuses one instance.
+     *
+     * @param expression the mathematical expression to compile
+     * @return the compiled expression
+     * @throws InvalidExpressionException if the expression is not valid
+     */
+    public CompiledExpression compileExpression(String expression) {
+        return this.expressionCompiler.compile(expression);
+    }
+
+    /**
+     * Get the break-even index of the simple profit threshold alerts on a metal, rebuilt if alerts or purchases
+     * changed since it was last used. Alerts in the index are not returned by
+     * {@link #findDuePortfoliosByMetalSymbol(String, Timestamp)}.
+     *
+     * @param metalType the metal
+     * @return the index of the metal
+     */
+    ProfitThresholdIndex getProfitThresholdIndex(MetalType metalType) {
+        return this.profitAlertIndex.get(metalType, this::classifyProfitThreshold);
+    }
+
+    /**
+     * @return the threshold form of the expression, or empty if it has to go through the evaluator
+     */
+    private Optional<ProfitThreshold> classifyProfitThreshold(String expression) {
+        try {
+            return this.expressionCompiler.compile(expression).getProfitThreshold();
+        } catch (InvalidExpressionException e) {
+            return Optional.empty();
+        }
     }
 
     /**
@@ -195,6 +296,7 @@ public class AlertService {
         Optional<Alert> alert = this.alertRepository.findById(alertId);
         if (alert.isPresent()) {
             this.alertRepository.delete(alert.get());
+            this.profitAlertIndex.invalidate();
         } else {
             throw this.exceptionService
                     .createBuilder(MessageKey.INVALID_REQUEST)
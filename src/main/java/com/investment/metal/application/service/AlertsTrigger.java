@@ -1,26 +1,35 @@
 package com.investment.metal.application.service;
 
 import com.investment.metal.application.dto.UserMetalInfoDto;
+import com.investment.metal.application.exception.InvalidExpressionException;
+import com.investment.metal.application.service.expression.CompiledExpression;
 import com.investment.metal.domain.model.MetalPurchase;
 import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSnapshot;
 import com.investment.metal.infrastructure.exception.ExceptionService;
+import com.investment.metal.infrastructure.mapper.MetalPurchaseMapper;
 import com.investment.metal.infrastructure.persistence.entity.Alert;
-import com.investment.metal.infrastructure.persistence.entity.Customer;
-import com.investment.metal.infrastructure.service.AccountService;
+import com.investment.metal.infrastructure.persistence.repository.AlertPortfolio;
 import com.investment.metal.infrastructure.service.EmailService;
 import com.investment.metal.infrastructure.service.UserProfit;
 import java.sql.Timestamp;
-import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-import javax.script.ScriptException;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -30,9 +39,6 @@ public class AlertsTrigger {
     @Autowired
     protected ExceptionService exceptionService;
 
-    @Autowired
-    private AccountService accountService;
-
     @Autowired
     private com.investment.metal.application.service.MetalPriceService metalPricesService;
 
@@ -40,135 +46,248 @@ public class AlertsTrigger {
     private AlertService alertService;
 
     @Autowired
-    private PurchaseService purchaseService;
+    private PriceTrendService priceTrendService;
+
+    @Autowired
+    private MetalPurchaseMapper metalPurchaseMapper;
 
     @Autowired
     private EmailService emailService;
 
-    public void triggerAlerts(MetalType metalType) {
-        final Map<Integer, UserProfit> usersProfit = this.calculateUsersProfit(metalType);
+    /**
+     * Number of shards evaluated concurrently; 0 uses the number of processors
+     */
+    @Value("${service.alerts.evaluation.parallelism:0}")
+    private int parallelism;
 
-        final List<Alert> allAlerts = this.alertService.findAllByMetalSymbol(metalType.getSymbol());
-        for (Alert alert : allAlerts) {
-            if (this.isTimeToCheckAlert(alert)) {
-                final UserProfit userProfit = usersProfit.get(alert.getUserId());
-                this.triggerAlert(userProfit, alert);
-                alert.setLastTimeChecked(new Timestamp(System.currentTimeMillis()));
+    /**
+     * Relative price move that makes the next indexed alert hold, over all metals of the last tick
+     */
+    private volatile double distanceToNextThreshold = Double.POSITIVE_INFINITY;
+
+    /**
+     * Evaluate the due alerts of every metal in the snapshot.
+     * <ol>
+     * <li>The alerts of each metal are loaded concurrently: the simple profit thresholds that fire at this tick's
+     * price from the metal's {@link ProfitThresholdIndex}, and the other due alerts through one indexed range query
+     * that also joins their owners and positions.</li>
+     * <li>The loaded alerts are partitioned by a hash of the user id, so each user's positions are valued once and
+     * in one shard, and every shard is evaluated on its own virtual thread. The number of shards caps the
+     * parallelism.</li>
+     * <li>The shards append the evaluated alerts to a lock-free queue, which is then rescheduled with bulk updates,
+     * one short transaction per chunk.</li>
+     * </ol>
+     *
+     * @param snapshot the prices captured for this tick
+     */
+    public void triggerAlerts(PriceSnapshot snapshot) {
+        final long now = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
+        final int shardCount = this.getParallelism();
+        final List<List<AlertWork>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        final Queue<Alert> checkedAlerts = new ConcurrentLinkedQueue<>();
+        final LongAdder shardNanos = new LongAdder();
+        final DoubleAccumulator nextThreshold = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final Map<MetalType, Future<List<AlertWork>>> loads = new EnumMap<>(MetalType.class);
+            for (MetalType metalType : snapshot.getMetalTypes()) {
+                loads.put(metalType, executor.submit(() -> this.loadWork(metalType, snapshot, now, nextThreshold)));
             }
+            for (Map.Entry<MetalType, Future<List<AlertWork>>> load : loads.entrySet()) {
+                try {
+                    for (AlertWork work : load.getValue().get()) {
+                        shards.get(Math.floorMod(work.userId().hashCode(), shardCount)).add(work);
+                    }
+                } catch (ExecutionException e) {
+                    log.error("Failed to load alerts for {}", load.getKey(), e.getCause());
+                }
+            }
+
+            final List<Future<?>> evaluations = new ArrayList<>(shardCount);
+            for (List<AlertWork> shard : shards) {
+                if (!shard.isEmpty()) {
+                    evaluations.add(executor.submit(() -> this.evaluateShard(shard, snapshot, checkedAlerts, shardNanos)));
+                }
+            }
+            for (Future<?> evaluation : evaluations) {
+                try {
+                    evaluation.get();
+                } catch (ExecutionException e) {
+                    log.error("Failed to evaluate an alert shard", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Alert evaluation interrupted");
         }
 
-        this.alertService.saveAll(allAlerts);
+        this.distanceToNextThreshold = nextThreshold.get();
+
+        if (!checkedAlerts.isEmpty()) {
+            this.alertService.markChecked(new ArrayList<>(checkedAlerts), now);
+            final long wallNanos = Math.max(1, System.nanoTime() - startNanos);
+            // shard work over wall time: how many shards ran at once, not a measured speedup
+            log.info("Evaluated {} alerts in {} shards in {} ms, {} ms of shard work (concurrency {})",
+                    checkedAlerts.size(), shardCount, TimeUnit.NANOSECONDS.toMillis(wallNanos),
+                    TimeUnit.NANOSECONDS.toMillis(shardNanos.sum()),
+                    String.format("%.2f", (double) shardNanos.sum() / wallNanos));
+        }
     }
 
-    private void triggerAlert(UserProfit userProfit, Alert alert) {
-        String expression = alert.getExpression();
-        final double profit = userProfit.getProfit();
+    /**
+     * @return relative price move, as a fraction of the price, after which one more profit threshold alert
+     * holds, measured at the last evaluation; positive infinity if no indexed alert is pending
+     */
+    public double getDistanceToNextThreshold() {
+        return this.distanceToNextThreshold;
+    }
+
+    /**
+     * @return the configured number of shards, or the number of processors if not set
+     */
+    private int getParallelism() {
+        return this.parallelism > 0 ? this.parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Load the alerts of a metal that have to be handled at this tick.
+     *
+     * @param nextThreshold collects the distance to the nearest break-even price not crossed yet
+     * @return the indexed alerts that fire and the other due alerts, which still need the evaluator
+     */
+    private List<AlertWork> loadWork(MetalType metalType, PriceSnapshot snapshot, long now,
+                                     DoubleAccumulator nextThreshold) {
+        final List<AlertWork> work = new ArrayList<>();
+        final ProfitThresholdIndex index = this.alertService.getProfitThresholdIndex(metalType);
+        final double priceOunce = this.metalPricesService.getRevolutPriceOunce(metalType, snapshot);
+        for (AlertPortfolio portfolio : index.collectFiring(priceOunce, now)) {
+            work.add(new AlertWork(metalType, portfolio, true));
+        }
+        nextThreshold.accumulate(index.distanceToNextThreshold(priceOunce));
+        for (AlertPortfolio portfolio : this.alertService
+                .findDuePortfoliosByMetalSymbol(metalType.getSymbol(), new Timestamp(now))) {
+            if (index.contains(portfolio.getAlert().getId())) {
+                // Indexed since the flag was read, e.g. by a concurrent rebuild
+                continue;
+            }
+            work.add(new AlertWork(metalType, portfolio, false));
+        }
+        return work;
+    }
+
+    /**
+     * Evaluate the alerts of one shard. Runs on its own thread; the profit memo is confined to the shard.
+     */
+    private void evaluateShard(List<AlertWork> shard, PriceSnapshot snapshot, Queue<Alert> checkedAlerts,
+                               LongAdder shardNanos) {
+        final long startNanos = System.nanoTime();
+        final Map<MetalType, Map<Integer, UserProfit>> usersProfit = new EnumMap<>(MetalType.class);
         try {
-            ExpressionEvaluator eval = this.alertService.evaluateExpression(expression)
-                    .setParameters((name, params) -> {
-                        switch (name) {
-                            case "profit":
-                                return profit;
-                            case "inc":
-                                int days = Integer.parseInt(params[0].toString());
-                                double eps = Double.parseDouble(params[1].toString());
-                                return getIncremental(alert.getMetalType(), days, eps);
-                            default:
-                                return null;
-                        }
-                    });
-
-            if (eval.evaluate()) {
-                this.emailService.sendMailWithProfit(userProfit, alert);
+            for (AlertWork work : shard) {
+                final AlertPortfolio portfolio = work.portfolio();
+                final Alert alert = portfolio.getAlert();
+                final UserProfit userProfit = usersProfit
+                        .computeIfAbsent(work.metalType(), metalType -> new HashMap<>())
+                        .computeIfAbsent(work.userId(), userId -> this.calculateUserProfit(portfolio, snapshot));
+                if (work.fired()) {
+                    this.emailService.sendMailWithProfit(userProfit, alert);
+                } else {
+                    this.triggerAlert(userProfit, alert);
+                }
+                checkedAlerts.add(alert);
             }
-        } catch (ScriptException e) {
-            log.error("Invalid expression: " + expression, e);
+        } finally {
+            shardNanos.add(System.nanoTime() - startNanos);
         }
     }
 
-    private boolean getIncremental(MetalType metalType, int days, double eps) {
-        Optional<List<com.investment.metal.domain.model.MetalPrice>> pricesOp = this.metalPricesService.getMetalPriceAll(metalType);
-        boolean isInc = false;
-        if (pricesOp.isPresent()) {
-            final LocalDateTime threshold = LocalDateTime.now().minusDays(days);
-            List<com.investment.metal.domain.model.MetalPrice> prices = pricesOp.get()
-                    .stream()
-                    .filter(m -> m.getTimestamp() != null && m.getTimestamp().isAfter(threshold))
-                    .sorted(Comparator.comparing(com.investment.metal.domain.model.MetalPrice::getTimestamp))
-                    .collect(Collectors.toList());
-            double prevPrice = -Double.MAX_VALUE;
-            if (prices.size() > 1) {
-                isInc = true;
-                for (com.investment.metal.domain.model.MetalPrice price : prices) {
-                    double currentPrice = price.getPrice().doubleValue();
-                    double epsPrice = prevPrice * eps / 100.0d;
-                    if (currentPrice < prevPrice - epsPrice) {
-                        isInc = false;
-                        break;
+    private void triggerAlert(UserProfit userProfit, Alert alert) {
+        String expression = alert.getExpression();
+        final double profit = userProfit.getProfit();
+        try {
+            CompiledExpression compiled = this.alertService.compileExpression(expression);
+            boolean triggered = compiled.evaluate(new ExpressionFeeder() {
+                @Override
+                public double number(String functionName, double[] args) {
+                    MetalType metalType = alert.getMetalType();
+                    return switch (functionName) {
+                        case "profit" -> profit;
+                        case "price" -> priceTrendService.getPrice(metalType);
+                        case "sma" -> priceTrendService.getSma(metalType, (int) args[0]);
+                        case "ema" -> priceTrendService.getEma(metalType, (int) args[0]);
+                        case "stddev" -> priceTrendService.getStddev(metalType, (int) args[0]);
+                        case "rsi" -> priceTrendService.getRsi(metalType, (int) args[0]);
+                        case "change" -> priceTrendService.getChange(metalType, (int) args[0]);
+                        default -> throw new InvalidExpressionException("Unsupported function: " + functionName);
+                    };
+                }
+
+                @Override
+                public boolean condition(String functionName, double[] args) {
+                    if ("inc".equals(functionName)) {
+                        return priceTrendService.isIncreasing(alert.getMetalType(), (int) args[0], args[1]);
+                    }
+                    if ("dec".equals(functionName)) {
+                        return priceTrendService.isDecreasing(alert.getMetalType(), (int) args[0], args[1]);
                     }
-                    prevPrice = currentPrice;
+                    throw new InvalidExpressionException("Unsupported function: " + functionName);
                 }
+            });
+
+            if (triggered) {
+                this.emailService.sendMailWithProfit(userProfit, alert);
             }
+        } catch (InvalidExpressionException e) {
+            log.error("Invalid expression: " + expression, e);
         }
-        return isInc;
     }
 
     /**
-     * Calculate profit information for all users for a specific metal type.
-     * This method iterates through all users and calculates their profit/loss
-     * based on their metal purchases and current market prices.
-     * 
-     * @param metalType the type of metal to calculate profits for
-     * @return map of user ID to their profit information
+     * Calculate the profit of the alert owner's position in the alert's metal.
+     * A user without a position gets an all-zero profit.
+     *
+     * @param portfolio the alert joined with its owner and the owner's purchase
+     * @param snapshot the prices captured for this tick
+     * @return the user's profit information
      */
-    private Map<Integer, UserProfit> calculateUsersProfit(MetalType metalType) {
-        final List<Customer> allUsers = this.accountService.findAll();
-        final Map<Integer, UserProfit> usersProfit = new HashMap<>();
-        for (Customer user : allUsers) {
-            MetalPurchase metalPurchase = this.purchaseService.getPurchase(user.getId(), metalType.getSymbol());
-            double totalProfit = 0;
-            double totalCost = 0;
-            double totalCostNow = 0;
-            double totalAmount = 0;
-            if (metalPurchase != null) {
-                final UserMetalInfoDto info = this.metalPricesService.calculatesUserProfit(metalPurchase);
-                totalProfit += info.getProfit();
-                totalCost += metalPurchase.getCost().doubleValue();
-                totalAmount += metalPurchase.getAmount().doubleValue();
-                totalCostNow += info.getCostNow();
-            }
-            final UserProfit info = UserProfit.builder()
-                    .profit(totalProfit)
-                    .metalAmount(totalAmount)
-                    .originalCost(totalCost)
-                    .currentCost(totalCostNow)
-                    .user(user)
-                    .build();
-            usersProfit.put(user.getId(), info);
+    private UserProfit calculateUserProfit(AlertPortfolio portfolio, PriceSnapshot snapshot) {
+        final MetalPurchase metalPurchase = this.metalPurchaseMapper.toDomainModel(portfolio.getPurchase());
+        double totalProfit = 0;
+        double totalCost = 0;
+        double totalCostNow = 0;
+        double totalAmount = 0;
+        if (metalPurchase != null) {
+            final UserMetalInfoDto info = this.metalPricesService.calculatesUserProfit(metalPurchase, snapshot);
+            totalProfit += info.getProfit();
+            totalCost += metalPurchase.getCost().doubleValue();
+            totalAmount += metalPurchase.getAmount().doubleValue();
+            totalCostNow += info.getCostNow();
         }
-        return usersProfit;
+        return UserProfit.builder()
+                .profit(totalProfit)
+                .metalAmount(totalAmount)
+                .originalCost(totalCost)
+                .currentCost(totalCostNow)
+                .user(portfolio.getUser())
+                .build();
     }
 
     /**
-     * Check if it's time to evaluate an alert based on its frequency.
-     * Compares the time since last check against the alert's frequency setting.
-     * 
-     * @param alert the alert to check
-     * @return true if enough time has passed to check the alert again
+     * One alert to handle at this tick.
+     *
+     * @param metalType the metal of the alert
+     * @param portfolio the alert with its owner and position
+     * @param fired true if the threshold index already found that the alert holds
      */
-    private boolean isTimeToCheckAlert(Alert alert) {
-        long diff = System.currentTimeMillis() - alert.getLastTimeChecked().getTime();
-        switch (alert.getFrequency()) {
-            case HOURLY:
-                return diff > TimeUnit.HOURS.toMillis(1);
-            case DAILY:
-                return diff > TimeUnit.DAYS.toMillis(1);
-            case WEEKLY:
-                return diff > TimeUnit.DAYS.toMillis(7);
-            case MONTHLY:
-                return diff > TimeUnit.DAYS.toMillis(30);
+    private record AlertWork(MetalType metalType, AlertPortfolio portfolio, boolean fired) {
+
+        Integer userId() {
+            return portfolio.getAlert().getUserId();
         }
-        return false;
     }
 
 }
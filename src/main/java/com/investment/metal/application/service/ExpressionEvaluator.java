@@ -1,30 +1,20 @@
 package com.investment.metal.application.service;
 
-import com.google.common.collect.Maps;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import javax.script.ScriptEngine;
-import javax.script.ScriptException;
-import lombok.extern.slf4j.Slf4j;
+import com.investment.metal.application.exception.InvalidExpressionException;
+import com.investment.metal.application.service.expression.CompiledExpression;
+import com.investment.metal.application.service.expression.ExpressionCompiler;
 
-@Slf4j
 public class ExpressionEvaluator {
 
-    private static final Pattern VARIABLES_REGEXP = Pattern.compile("([a-z])\\w+");
-
     private final String expression;
 
-    private final ScriptEngine engine;
+    private final ExpressionCompiler compiler;
 
     private ExpressionFeeder expressionFeeder;
 
-    private final Map<String, FunctionInfo> functions;
-
-    public ExpressionEvaluator(String expression, ScriptEngine engine, Map<String, FunctionInfo> functions) {
+    public ExpressionEvaluator(String expression, ExpressionCompiler compiler) {
         this.expression = expression;
-        this.engine = engine;
-        this.functions = functions;
+        this.compiler = compiler;
     }
 
     public ExpressionEvaluator setParameters(ExpressionFeeder expressionFeeder) {
@@ -33,111 +23,27 @@ public class ExpressionEvaluator {
     }
 
     public String isValid() {
-        String errorMessage = null;
         try {
-            Map<String, Object[]> vars = this.getVariables();
-            if (vars.isEmpty()) {
-                errorMessage = "Missing variables";
-            } else {
-                for (Map.Entry<String, Object[]> entry : this.getVariables().entrySet()) {
-                    errorMessage = isValid(entry.getKey(), entry.getValue());
-                    if (errorMessage != null) {
-                        break;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            errorMessage = "Invalid expression: " + e.getMessage();
-        }
-        return errorMessage;
-    }
-
-    private String isValid(String var, Object[] params) {
-        String errorMessage = null;
-        final FunctionInfo funcInfo = this.functions.get(var);
-        if (funcInfo == null) {
-            errorMessage = "Undefined function: " + var;
-        } else if (params != null) {
-            int i = 0;
-            if (funcInfo.getParameters().size() != params.length) {
-                errorMessage = "Missing parameters for function: " + var;
-            } else {
-                for (FunctionParam param : funcInfo.getParameters()) {
-                    double val = Double.parseDouble(params[i++].toString());
-                    errorMessage = checkValue(val, param.getMin(), param.getMax());
-                    if (errorMessage != null) {
-                        break;
-                    }
-                }
-            }
-        }
-        return errorMessage;
-    }
-
-    private String checkValue(double val, double min, double max) {
-        if (val <= min || val >= max) {
-            return String.format("The parameter %.4f is outside of interval[%.4f, %.4f]", val, min, max);
-        } else {
+            this.compiler.compile(this.expression);
             return null;
+        } catch (InvalidExpressionException e) {
+            return e.getMessage();
+        } catch (Exception e) {
+            return "Invalid expression: " + e.getMessage();
         }
     }
 
     /**
-     * Evaluate the mathematical expression by replacing variables with actual values.
-     * This method processes the expression by substituting variables with their
-     * calculated values and then evaluates the resulting expression using JavaScript engine.
-     * 
+     * Evaluate the expression against the values supplied by the feeder.
+     * The expression is parsed and type-checked only once per distinct text; every
+     * later evaluation walks the cached compiled tree without any string processing.
+     *
      * @return true if the expression evaluates to true, false otherwise
-     * @throws ScriptException if there's an error evaluating the expression
+     * @throws InvalidExpressionException if the expression is not valid
      */
-    public boolean evaluate() throws ScriptException {
-        String filledExpression = this.expression;
-        for (Map.Entry<String, Object[]> entry : this.getVariables().entrySet()) {
-            String var = entry.getKey();
-            Object[] params = entry.getValue();
-            Object value = expressionFeeder.replace(var, params);
-            if (params == null) {
-                filledExpression = filledExpression.replace(var, value.toString());
-            } else {
-                int start = filledExpression.indexOf(var);
-                if (start >= 0) {
-                    int endPos = start + var.length();
-                    int endBracket = filledExpression.indexOf(')', endPos);
-                    if (endBracket > start && endBracket < filledExpression.length()) {
-                        String varWithParams = filledExpression.substring(start, endBracket + 1);
-                        filledExpression = filledExpression.replace(varWithParams, value.toString());
-                    }
-                }
-            }
-        }
-        return (Boolean) this.engine.eval(filledExpression);
-    }
-
-    private Map<String, Object[]> getVariables() {
-        final Map<String, Object[]> vars = Maps.newLinkedHashMap();
-        Matcher matcher = VARIABLES_REGEXP.matcher(this.expression);
-        String exp = this.expression;
-        while (matcher.find()) {
-            String var = matcher.group();
-            int varIndex = exp.indexOf(var);
-            if (varIndex >= 0) {
-                int endPos = varIndex + var.length();
-                String[] params = null;
-                if (endPos < exp.length() && exp.charAt(endPos) == '(') {
-                    int endBracket = exp.indexOf(')', endPos);
-                    if (endBracket > endPos && endBracket < exp.length()) {
-                        params = exp.substring(endPos + 1, endBracket).split(",");
-                        exp = exp.substring(endBracket + 1);
-                    } else {
-                        exp = exp.substring(endPos);
-                    }
-                } else {
-                    exp = exp.substring(endPos);
-                }
-                vars.put(var, params);
-            }
-        }
-        return vars;
+    public boolean evaluate() {
+        CompiledExpression compiled = this.compiler.compile(this.expression);
+        return compiled.evaluate(this.expressionFeeder);
     }
 
-}
\ No newline at end of file
+}
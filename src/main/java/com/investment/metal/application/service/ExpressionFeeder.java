@@ -1,7 +1,23 @@
 package com.investment.metal.application.service;
 
+/**
+ * Supplies the values of the functions referenced by a compiled alert expression.
+ * The argument arrays are owned by the compiled expression and must not be modified.
+ */
 public interface ExpressionFeeder {
 
-    Object replace(String paramName, Object ...paramValues);
+    /**
+     * @param functionName name of a numeric function, e.g. {@code profit}
+     * @param args constant arguments of the call, empty when the function has no parameters
+     * @return the current value of the function
+     */
+    double number(String functionName, double[] args);
+
+    /**
+     * @param functionName name of a boolean function, e.g. {@code inc}
+     * @param args constant arguments of the call, empty when the function has no parameters
+     * @return the current value of the function
+     */
+    boolean condition(String functionName, double[] args);
 
 }
@@ -0,0 +1,134 @@
+package com.investment.metal.application.service;
+
+/**
+ * Running statistics of the ticks of a {@link PriceRingBuffer} that fall in a sliding time window
+ * ending at the newest tick. Every tick enters and leaves the window once and each move is O(1):
+ * mean and variance use Welford's algorithm with removal, RSI keeps the running sums of gains and losses
+ * between consecutive ticks. Not thread safe, callers synchronize.
+ */
+class IndicatorWindow {
+
+    private final long span;
+
+    /**
+     * Sequence number of the oldest tick in the window
+     */
+    private long tail;
+
+    private int count;
+
+    private double mean;
+
+    private double m2;
+
+    private double gains;
+
+    private double losses;
+
+    /**
+     * @param span length of the window in milliseconds
+     */
+    IndicatorWindow(long span) {
+        this.span = span;
+    }
+
+    /**
+     * Add the newest tick of the buffer and drop the ticks that fell out of the window.
+     *
+     * @param buffer the buffer holding the ticks
+     * @param sequence sequence number of the tick just added to the buffer
+     */
+    void add(PriceRingBuffer buffer, long sequence) {
+        double price = buffer.price(sequence);
+        if (count == 0) {
+            tail = sequence;
+        } else {
+            double diff = price - buffer.price(sequence - 1);
+            if (diff > 0) {
+                gains += diff;
+            } else {
+                losses -= diff;
+            }
+        }
+        count++;
+        double delta = price - mean;
+        mean += delta / count;
+        m2 += delta * (price - mean);
+
+        long fromTime = buffer.time(sequence) - span;
+        while (count > 0 && buffer.time(tail) <= fromTime) {
+            removeTail(buffer);
+        }
+    }
+
+    /**
+     * Drop the oldest tick if the buffer is about to overwrite it.
+     */
+    void beforeOverwrite(PriceRingBuffer buffer) {
+        if (count > 0 && tail == buffer.firstSequence()) {
+            removeTail(buffer);
+        }
+    }
+
+    private void removeTail(PriceRingBuffer buffer) {
+        double price = buffer.price(tail);
+        if (count == 1) {
+            count = 0;
+            mean = 0;
+            m2 = 0;
+            gains = 0;
+            losses = 0;
+            tail++;
+            return;
+        }
+        double diff = buffer.price(tail + 1) - price;
+        if (diff > 0) {
+            gains = Math.max(0, gains - diff);
+        } else {
+            losses = Math.max(0, losses + diff);
+        }
+        count--;
+        double delta = price - mean;
+        mean -= delta / count;
+        m2 = Math.max(0, m2 - delta * (price - mean));
+        tail++;
+    }
+
+    /**
+     * @return simple moving average, or NaN if the window is empty
+     */
+    double sma() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return sample standard deviation of the prices, or NaN with less than two ticks
+     */
+    double stddev() {
+        return count < 2 ? Double.NaN : Math.sqrt(m2 / (count - 1));
+    }
+
+    /**
+     * @return relative strength index over the window (0..100), or NaN with less than two ticks
+     */
+    double rsi() {
+        if (count < 2) {
+            return Double.NaN;
+        }
+        if (losses == 0) {
+            return gains == 0 ? 50 : 100;
+        }
+        return 100 - 100 / (1 + gains / losses);
+    }
+
+    /**
+     * @return change from the oldest to the newest tick in percent, or NaN with less than two ticks
+     */
+    double change(PriceRingBuffer buffer) {
+        if (count < 2) {
+            return Double.NaN;
+        }
+        double first = buffer.price(tail);
+        return (buffer.latestPrice() - first) / first * 100.0d;
+    }
+}
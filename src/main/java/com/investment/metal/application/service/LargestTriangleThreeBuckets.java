@@ -0,0 +1,68 @@
+package com.investment.metal.application.service;
+
+import com.investment.metal.domain.model.PriceSeries;
+
+/**
+ * Downsamples a price series for charting with Largest-Triangle-Three-Buckets (Steinarsson, 2013).
+ * The first and last ticks are kept; every other output tick is the tick of its bucket forming the largest
+ * triangle with the previous output tick and the average of the next bucket, which keeps the peaks and
+ * troughs a plain stride would skip. One pass, no allocation besides the result.
+ */
+final class LargestTriangleThreeBuckets {
+
+    private LargestTriangleThreeBuckets() {
+    }
+
+    /**
+     * @param series the ticks, oldest first
+     * @param points maximum number of ticks of the result, at least 2
+     * @return the series itself if it holds at most {@code points} ticks, else {@code points} of its ticks
+     */
+    static PriceSeries downsample(PriceSeries series, int points) {
+        int size = series.size();
+        if (points < 2) {
+            throw new IllegalArgumentException("Downsampling keeps at least the first and the last tick");
+        }
+        if (size <= points) {
+            return series;
+        }
+        PriceSeries.Builder result = new PriceSeries.Builder(series.getMetalType(), points);
+        // times relative to the first tick, so the areas keep their precision
+        long origin = series.time(0);
+        double bucketSize = (double) (size - 2) / (points - 2);
+        int selected = 0;
+        result.add(series.time(0), series.price(0));
+        for (int bucket = 0; bucket < points - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            double averageTime = 0;
+            double averagePrice = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageTime += series.time(i) - origin;
+                averagePrice += series.price(i);
+            }
+            averageTime /= nextEnd - nextStart;
+            averagePrice /= nextEnd - nextStart;
+
+            double selectedTime = series.time(selected) - origin;
+            double selectedPrice = series.price(selected);
+            double largestArea = -1;
+            int next = start;
+            for (int i = start; i < end; i++) {
+                // twice the triangle area, the factor does not change the largest one
+                double area = Math.abs((selectedTime - averageTime) * (series.price(i) - selectedPrice)
+                        - (selectedTime - (series.time(i) - origin)) * (averagePrice - selectedPrice));
+                if (area > largestArea) {
+                    largestArea = area;
+                    next = i;
+                }
+            }
+            result.add(series.time(next), series.price(next));
+            selected = next;
+        }
+        result.add(series.time(size - 1), series.price(size - 1));
+        return result.build();
+    }
+}
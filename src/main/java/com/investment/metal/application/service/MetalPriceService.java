@@ -5,19 +5,21 @@ import com.investment.metal.domain.model.CurrencyType;
 import com.investment.metal.domain.model.MetalPrice;
 import com.investment.metal.domain.model.MetalPurchase;
 import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSnapshot;
 import com.investment.metal.domain.repository.MetalPriceRepository;
 import com.investment.metal.infrastructure.persistence.entity.Currency;
 import com.investment.metal.infrastructure.service.CurrencyService;
+import com.investment.metal.infrastructure.service.LatestPriceCache;
 import com.investment.metal.infrastructure.service.ResilientPriceService;
 import com.investment.metal.infrastructure.service.RevolutService;
 import com.investment.metal.infrastructure.util.Util;
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -31,16 +33,16 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class MetalPriceService {
 
-    // Threshold for cleaning up old price entries (14 days)
-    public static final long THRESHOLD_TOO_OLD_ENTITIES = TimeUnit.DAYS.toMillis(14);
-
     private final ResilientPriceService resilientPriceService;
+    private final LatestPriceCache latestPriceCache;
     private final MetalPriceRepository metalPriceRepository;
     private final RevolutService revolutService;
     private final CurrencyService currencyService;
+    private final PriceTrendService priceTrendService;
+    private final PriceRollupService priceRollupService;
 
     /**
-     * Get current price for metal type from external API.
+     * Get current price for metal type from the latest price cache.
      * 
      * @param metalType the type of metal to get price for
      * @return the current price or BigDecimal.ZERO if fetch fails
@@ -48,11 +50,11 @@ public class MetalPriceService {
     public BigDecimal getCurrentPrice(MetalType metalType) {
         try {
             log.debug("Fetching current price for metal: {} with circuit breaker protection", metalType);
-            double price = resilientPriceService.fetchPrice(metalType);
+            double price = latestPriceCache.getPrice(metalType);
             return BigDecimal.valueOf(price);
         } catch (Exception e) {
             log.error("Failed to fetch price for metal: {} - Circuit breaker state: {}", 
-                     metalType, resilientPriceService.getCircuitBreakerState(), e);
+                     metalType, resilientPriceService.getCircuitBreakerState(metalType), e);
             return BigDecimal.ZERO;
         }
     }
@@ -74,14 +76,26 @@ public class MetalPriceService {
     }
 
     /**
-     * Fetch metal price from external service.
+     * Get the metal price from the latest price cache, which calls the external service when the price is
+     * missing or stale.
      * 
      * @param metalType the type of metal to fetch price for
      * @return the current price from external API
      * @throws RuntimeException if the API call fails
      */
     public double fetchMetalPrice(MetalType metalType) {
-        return resilientPriceService.fetchPrice(metalType);
+        return latestPriceCache.getPrice(metalType);
+    }
+
+    /**
+     * Fetch the prices of several metals from the external service in one batch and refresh the latest
+     * price cache with them.
+     *
+     * @param metalTypes the types of metal to fetch prices for
+     * @return the current price of one kg of each metal, or its cached price if it could not be read
+     */
+    public Map<MetalType, Double> fetchMetalPrices(Set<MetalType> metalTypes) {
+        return latestPriceCache.refresh(metalTypes);
     }
 
     /**
@@ -95,38 +109,63 @@ public class MetalPriceService {
     }
 
     /**
-     * Get all metal prices for a specific metal type.
-     * 
-     * @param metalType the type of metal to get prices for
-     * @return optional list of metal prices
+     * Capture the prices needed to value positions in the given metals.
+     * Reads all metal prices from the latest price cache; the returned snapshot is then used for any number
+     * of purchases.
+     *
+     * @param metalTypes the metals to capture
+     * @return an immutable price snapshot
+     */
+    public PriceSnapshot capturePriceSnapshot(Collection<MetalType> metalTypes) {
+        if (metalTypes.isEmpty()) {
+            return this.capturePriceSnapshot(Map.of());
+        }
+        return this.capturePriceSnapshot(this.latestPriceCache.getPrices(EnumSet.copyOf(metalTypes)));
+    }
+
+    /**
+     * Capture a price snapshot around metal prices that were already fetched, e.g. by the scheduler tick.
+     * Only reads the currency rate and the Revolut markups; no price provider is called.
+     *
+     * @param metalPricesKg market price of one kilogram for each metal
+     * @return an immutable price snapshot
      */
-    public Optional<List<MetalPrice>> getMetalPriceAll(MetalType metalType) {
-        List<MetalPrice> prices = this.metalPriceRepository.findAllByMetalType(metalType);
-        return prices.isEmpty() ? Optional.empty() : Optional.of(prices);
+    public PriceSnapshot capturePriceSnapshot(Map<MetalType, Double> metalPricesKg) {
+        CurrencyType currencyType = this.resilientPriceService.getCurrencyType();
+        Currency currency = this.currencyService.findBySymbol(currencyType);
+
+        PriceSnapshot.Builder builder = PriceSnapshot.builder()
+                .currency(currencyType, currency.getRon());
+        metalPricesKg.forEach((metalType, priceKg) ->
+                builder.metal(metalType, priceKg, this.revolutService.getRevolutProfitFor(metalType)));
+        return builder.build();
     }
 
     /**
      * Calculate user profit for a purchase based on current market prices.
+     * Prefer {@link #calculatesUserProfit(MetalPurchase, PriceSnapshot)} when valuing several purchases.
      * 
      * @param purchase the purchase to calculate profit for
      * @return user metal info DTO with profit calculations
      */
     public UserMetalInfoDto calculatesUserProfit(MetalPurchase purchase) {
-        CurrencyType currencyType = this.resilientPriceService.getCurrencyType();
-        Currency currency = this.currencyService.findBySymbol(currencyType);
-        double currencyToRonRate = currency.getRon();
-
-        double revolutProfitPercentages = this.revolutService
-            .getRevolutProfitFor(purchase.getMetalType());
-        double metalPriceNowKg = this.resilientPriceService.fetchPrice(purchase.getMetalType());
+        return this.calculatesUserProfit(purchase, this.capturePriceSnapshot(List.of(purchase.getMetalType())));
+    }
 
+    /**
+     * Calculate user profit for a purchase from a price snapshot. Pure arithmetic, no I/O.
+     *
+     * @param purchase the purchase to calculate profit for
+     * @param snapshot the prices to value the purchase with; must contain the purchased metal
+     * @return user metal info DTO with profit calculations
+     */
+    public UserMetalInfoDto calculatesUserProfit(MetalPurchase purchase, PriceSnapshot snapshot) {
         // Calculate current value with Revolut markup
-        double revolutGoldPriceKg = metalPriceNowKg * (revolutProfitPercentages + 1) * currencyToRonRate;
-        double revolutGoldPriceOunce = revolutGoldPriceKg * Util.OUNCE;
+        double revolutPriceOunce = this.getRevolutPriceOunce(purchase.getMetalType(), snapshot);
         double amountPurchased = purchase.getAmount().doubleValue();
-        double costNowUser = revolutGoldPriceOunce * amountPurchased;
+        double costNowUser = revolutPriceOunce * amountPurchased;
         double profitRevolut = costNowUser - purchase.getCost().doubleValue();
-        
+
         return UserMetalInfoDto
                 .builder()
                 .metalSymbol(purchase.getMetalType().getSymbol())
@@ -137,6 +176,28 @@ public class MetalPriceService {
                 .build();
     }
 
+    /**
+     * Get the Revolut price of one ounce, markup included, in RON.
+     *
+     * @param metalType the metal
+     * @param snapshot the prices of the tick; must contain the metal
+     * @return the price of one ounce
+     */
+    public double getRevolutPriceOunce(MetalType metalType, PriceSnapshot snapshot) {
+        return snapshot.getRevolutPriceKg(metalType) * Util.OUNCE;
+    }
+
+    /**
+     * Get the factor that turns a provider price of one kilogram into the Revolut price of one ounce in RON,
+     * with the current Revolut markup and exchange rate. Does not fetch any metal price.
+     *
+     * @param metalType the metal
+     * @return the conversion factor
+     */
+    public double getRevolutOunceFactor(MetalType metalType) {
+        return this.getRevolutPriceOunce(metalType, this.capturePriceSnapshot(Map.of(metalType, 1d)));
+    }
+
     /**
      * Calculate Revolut price for given profit target.
      * 
@@ -151,25 +212,14 @@ public class MetalPriceService {
     }
 
     /**
-     * Save metal price to database with automatic cleanup of old entries.
+     * Save metal price to database with a single insert; old entries are deleted by the
+     * {@link com.investment.metal.infrastructure.service.PriceRetentionService}.
+     * The price is also recorded as a tick of the in-memory trend buffers and of the price candles.
      * 
      * @param metalType the type of metal
      * @param price the price to save
      */
     public void save(MetalType metalType, double price) {
-        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(THRESHOLD_TOO_OLD_ENTITIES));
-
-        List<MetalPrice> existingPrices = this.metalPriceRepository.findAllByMetalType(metalType);
-        List<MetalPrice> tooOldEntities = existingPrices.stream()
-                .filter(p -> p.getTimestamp() != null && p.getTimestamp().isBefore(cutoff))
-                .collect(Collectors.toList());
-
-        if (!tooOldEntities.isEmpty()) {
-            this.metalPriceRepository.deleteAll(tooOldEntities);
-            log.debug("Cleaned up {} old price entries for {}",
-                    tooOldEntities.size(), metalType);
-        }
-
         MetalPrice metalPrice = MetalPrice.builder()
                 .metalType(metalType)
                 .price(BigDecimal.valueOf(price))
@@ -177,6 +227,8 @@ public class MetalPriceService {
                 .build();
 
         this.metalPriceRepository.save(metalPrice);
+        this.priceTrendService.record(metalType, metalPrice.getTimestamp(), price);
+        this.priceRollupService.record(metalType, metalPrice.getTimestamp(), price);
         
         log.debug("Saved price for {}: {}", metalType, price);
     }
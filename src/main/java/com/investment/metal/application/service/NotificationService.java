@@ -4,7 +4,9 @@ import com.investment.metal.MessageKey;
 import com.investment.metal.application.dto.UserMetalInfoDto;
 import com.investment.metal.domain.exception.BusinessException;
 import com.investment.metal.domain.model.MetalPurchase;
+import com.investment.metal.domain.model.MetalType;
 import com.investment.metal.domain.model.Notification;
+import com.investment.metal.domain.model.PriceSnapshot;
 import com.investment.metal.domain.model.User;
 import com.investment.metal.domain.repository.NotificationRepository;
 import com.investment.metal.infrastructure.exception.ExceptionService;
@@ -13,10 +15,12 @@ import com.investment.metal.infrastructure.persistence.entity.Customer;
 import com.investment.metal.infrastructure.service.AccountService;
 import com.investment.metal.infrastructure.service.EmailService;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -65,12 +69,26 @@ public class NotificationService {
     }
 
     public void notifyUser(Integer userId) {
+        this.notifyUser(userId, null);
+    }
+
+    /**
+     * Send the status notification of a user.
+     *
+     * @param userId the user to notify
+     * @param snapshot prices to value the user's purchases with, or null to capture them for this user only
+     */
+    public void notifyUser(Integer userId, PriceSnapshot snapshot) {
         Customer customerEntity = this.accountService.findById(userId);
         User user = userMapper.toDomainModel(customerEntity);
-        this.notifyUser(user);
+        this.notifyUser(user, snapshot);
     }
 
     public void notifyUser(User user) {
+        this.notifyUser(user, null);
+    }
+
+    private void notifyUser(User user, PriceSnapshot snapshot) {
         List<MetalPurchase> purchases = this.purchaseService.getAllPurchase(user.getId());
         if (purchases.isEmpty()) {
             throw this.exceptionService
@@ -78,9 +96,11 @@ public class NotificationService {
                     .setArguments("The user didn't have any purchase")
                     .build();
         } else {
+            final PriceSnapshot prices = snapshot != null ? snapshot : this.metalPricesService
+                    .capturePriceSnapshot(purchases.stream().map(MetalPurchase::getMetalType).collect(Collectors.toSet()));
             Map<String, UserMetalInfoDto> userProfit = new HashMap<>();
             for (MetalPurchase purchase : purchases) {
-                final UserMetalInfoDto info = this.metalPricesService.calculatesUserProfit(purchase);
+                final UserMetalInfoDto info = this.metalPricesService.calculatesUserProfit(purchase, prices);
                 userProfit.put(info.getMetalSymbol(), info);
             }
             // Convert User domain model to Customer entity for email service
@@ -89,23 +109,35 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Send every due status notification. All users are valued against one price snapshot,
+     * captured only if at least one notification is due.
+     */
     @Transactional
     public void checkNotifications() {
-        this.notificationRepository.findAll()
+        List<Notification> dueNotifications = this.notificationRepository.findAll()
                 .stream()
                 .filter(p -> p.getFrequency() > 0)
-                .forEach(this::checkNotification);
+                .filter(this::isDue)
+                .collect(Collectors.toList());
+        if (dueNotifications.isEmpty()) {
+            return;
+        }
+        final PriceSnapshot snapshot = this.metalPricesService.capturePriceSnapshot(EnumSet.allOf(MetalType.class));
+        dueNotifications.forEach(notification -> this.checkNotification(notification, snapshot));
     }
 
-    private void checkNotification(Notification notification) {
-        if (notification.getLastTimeNotified() == null ||
-                notification.getLastTimeNotified().plusDays(notification.getFrequency()).isBefore(LocalDateTime.now())) {
-            try {
-                this.notifyUser(notification.getUserId());
-                this.save(notification.getUserId(), notification.getFrequency());
-            } catch (BusinessException e) {
-                log.error("Failed to notify user {} during scheduled notification check", notification.getUserId(), e);
-            }
+    private boolean isDue(Notification notification) {
+        return notification.getLastTimeNotified() == null ||
+                notification.getLastTimeNotified().plusDays(notification.getFrequency()).isBefore(LocalDateTime.now());
+    }
+
+    private void checkNotification(Notification notification, PriceSnapshot snapshot) {
+        try {
+            this.notifyUser(notification.getUserId(), snapshot);
+            this.save(notification.getUserId(), notification.getFrequency());
+        } catch (BusinessException e) {
+            log.error("Failed to notify user {} during scheduled notification check", notification.getUserId(), e);
         }
     }
 
@@ -0,0 +1,38 @@
+package com.investment.metal.application.service;
+
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.MetalType;
+
+/**
+ * Price history request resolved by {@link PriceHistoryService#prepare}: the tier the ticks are read from and
+ * the version of the stored rows of the range, summarized before any tick of the range is read, so a client
+ * holding the same version is answered without reading the range.
+ *
+ * @param metalType the metal
+ * @param from inclusive start of the range, in epoch milliseconds
+ * @param to exclusive end of the range, in epoch milliseconds
+ * @param points maximum number of ticks returned
+ * @param resolution resolution of the candles read, null to read the raw prices
+ * @param version version of the rows of the range, from {@link com.investment.metal.domain.model.SeriesVersion}
+ */
+public record PriceHistory(MetalType metalType, long from, long to, int points, CandleResolution resolution,
+                           String version) {
+
+    /**
+     * @return true if the ticks are read from the raw prices instead of the candles
+     */
+    public boolean isRaw() {
+        return resolution == null;
+    }
+
+    /**
+     * The range and the number of points are part of the request URL; the answer to a URL only changes with
+     * the tier and with the writes to the rows of the range, so the tag is the same on every instance and
+     * survives the writes to other ranges.
+     *
+     * @return strong entity tag of the answer
+     */
+    public String getETag() {
+        return "\"" + (isRaw() ? "raw" : resolution.name().toLowerCase()) + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,109 @@
+package com.investment.metal.application.service;
+
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.CandleSeries;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.model.SeriesVersion;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers the price charts: reads the ticks of a range from the price candles, or from the raw prices when no
+ * candle resolution holds enough points and the range is still within the raw retention, as primitive columns,
+ * and downsamples them with {@link LargestTriangleThreeBuckets}. A candle is charted as its close at the start
+ * of its bucket.
+ */
+@Service
+public class PriceHistoryService {
+
+    /**
+     * Most points a chart may request
+     */
+    public static final int MAX_POINTS = 5000;
+
+    private final MetalPriceRepository metalPriceRepository;
+
+    private final PriceRollupService priceRollupService;
+
+    private final long rawRetentionMillis;
+
+    private final LongSupplier clock;
+
+    /**
+     * @param metalPriceRepository repository of the raw prices
+     * @param priceRollupService service reading the candles
+     * @param rawRetentionMillis age after which a raw price is deleted
+     */
+    @Autowired
+    public PriceHistoryService(MetalPriceRepository metalPriceRepository, PriceRollupService priceRollupService,
+                               @Value("${service.metal.price.retention.max-age-ms}") long rawRetentionMillis) {
+        this(metalPriceRepository, priceRollupService, rawRetentionMillis, System::currentTimeMillis);
+    }
+
+    PriceHistoryService(MetalPriceRepository metalPriceRepository, PriceRollupService priceRollupService,
+                        long rawRetentionMillis, LongSupplier clock) {
+        this.metalPriceRepository = metalPriceRepository;
+        this.priceRollupService = priceRollupService;
+        this.rawRetentionMillis = rawRetentionMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Choose the tier of a range and take the version of its stored rows with one aggregate query; no tick of the
+     * range is read.
+     *
+     * @param metalType the metal
+     * @param from inclusive start of the range, in epoch milliseconds
+     * @param to exclusive end of the range, in epoch milliseconds
+     * @param points maximum number of ticks returned, between 2 and {@link #MAX_POINTS}
+     * @return the resolved request
+     */
+    public PriceHistory prepare(MetalType metalType, long from, long to, int points) {
+        if (points < 2 || points > MAX_POINTS || from >= to) {
+            throw new IllegalArgumentException("A price history needs 2 to " + MAX_POINTS + " points and from < to");
+        }
+        CandleResolution resolution = this.priceRollupService.selectResolution(from, to, points);
+        boolean rawCovers = from >= clock.getAsLong() - rawRetentionMillis;
+        if (rawCovers && resolution.bucketCount(from, to) < points) {
+            resolution = null;
+        }
+        SeriesVersion version = resolution == null
+                ? this.metalPriceRepository.findVersion(metalType, toLocal(from), toLocal(to))
+                : this.priceRollupService.findVersion(metalType, resolution, from, to);
+        return new PriceHistory(metalType, from, to, points, resolution, version.toToken());
+    }
+
+    /**
+     * Read the ticks of a prepared request and downsample them.
+     *
+     * @param history the request
+     * @return at most {@code points} ticks of the range, oldest first
+     */
+    public PriceSeries load(PriceHistory history) {
+        final PriceSeries series;
+        if (history.isRaw()) {
+            series = this.metalPriceRepository.findSeries(history.metalType(), toLocal(history.from()),
+                    toLocal(history.to()));
+        } else {
+            CandleSeries candles = this.priceRollupService.findCandles(history.metalType(), history.resolution(),
+                    history.from(), history.to());
+            PriceSeries.Builder closes = new PriceSeries.Builder(history.metalType(), candles.size());
+            for (int i = 0; i < candles.size(); i++) {
+                closes.add(candles.start(i), candles.close(i));
+            }
+            series = closes.build();
+        }
+        return LargestTriangleThreeBuckets.downsample(series, history.points());
+    }
+
+    private static LocalDateTime toLocal(long time) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,119 @@
+package com.investment.metal.application.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Price ticks of one metal with the indicators of the windows of 1 to {@link PriceTrendService#MAX_DAYS} days,
+ * maintained incrementally as ticks are appended: O(1) per window and tick.
+ * Shared by the live {@link PriceTrendService} and by {@link AlertBacktestService}, which replays stored history.
+ * Not thread safe, callers synchronize.
+ */
+class PriceIndicators {
+
+    private static final int MAX_DAYS = PriceTrendService.MAX_DAYS;
+
+    private final PriceRingBuffer buffer;
+
+    private final IndicatorWindow[] windows = new IndicatorWindow[MAX_DAYS + 1];
+
+    private final double[] ema = new double[MAX_DAYS + 1];
+
+    /**
+     * Window lengths that are maintained
+     */
+    private final int[] activeDays;
+
+    /**
+     * Maintain the indicators of every window length.
+     *
+     * @param capacity number of ticks kept in memory
+     */
+    PriceIndicators(int capacity) {
+        this(capacity, IntStream.rangeClosed(1, MAX_DAYS).toArray());
+    }
+
+    /**
+     * Maintain the indicators of some window lengths only; the others read as NaN.
+     *
+     * @param capacity number of ticks kept in memory
+     * @param days the window lengths to maintain
+     */
+    PriceIndicators(int capacity, int[] days) {
+        this.buffer = new PriceRingBuffer(capacity);
+        this.activeDays = IntStream.of(days).filter(PriceIndicators::isValid).distinct().sorted().toArray();
+        for (int window : this.activeDays) {
+            this.windows[window] = new IndicatorWindow(TimeUnit.DAYS.toMillis(window));
+        }
+    }
+
+    PriceRingBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Add a tick and update every indicator.
+     *
+     * @param time epoch milliseconds of the tick
+     * @param price the price
+     * @return false if the tick was ignored because it is not newer than the latest one
+     */
+    boolean append(long time, double price) {
+        boolean empty = buffer.size() == 0;
+        long previousTime = empty ? time : buffer.latestTime();
+        if (!empty && time <= previousTime) {
+            return false;
+        }
+        if (buffer.isFull()) {
+            for (int days : activeDays) {
+                windows[days].beforeOverwrite(buffer);
+            }
+        }
+        long sequence = buffer.add(time, price);
+        for (int days : activeDays) {
+            windows[days].add(buffer, sequence);
+            if (empty) {
+                ema[days] = price;
+            } else {
+                double alpha = 1 - Math.exp(-(double) (time - previousTime) / TimeUnit.DAYS.toMillis(days));
+                ema[days] += alpha * (price - ema[days]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the newest price, or NaN if no tick is known
+     */
+    double price() {
+        return buffer.size() == 0 ? Double.NaN : buffer.latestPrice();
+    }
+
+    double sma(int days) {
+        return isActive(days) ? windows[days].sma() : Double.NaN;
+    }
+
+    double ema(int days) {
+        return isActive(days) && buffer.size() > 0 ? ema[days] : Double.NaN;
+    }
+
+    double stddev(int days) {
+        return isActive(days) ? windows[days].stddev() : Double.NaN;
+    }
+
+    double rsi(int days) {
+        return isActive(days) ? windows[days].rsi() : Double.NaN;
+    }
+
+    double change(int days) {
+        return isActive(days) ? windows[days].change(buffer) : Double.NaN;
+    }
+
+    private boolean isActive(int days) {
+        return isValid(days) && windows[days] != null;
+    }
+
+    private static boolean isValid(int days) {
+        return days >= 1 && days <= MAX_DAYS;
+    }
+}
@@ -0,0 +1,113 @@
+package com.investment.metal.application.service;
+
+/**
+ * Fixed-capacity ring buffer of price ticks for one metal, stored in primitive arrays.
+ * Ticks must be added in chronological order; when the buffer is full the oldest tick is overwritten.
+ * Every tick gets an increasing sequence number, so windows over the buffer can keep a stable reference
+ * to their oldest tick. Not thread safe, callers synchronize.
+ */
+class PriceRingBuffer {
+
+    private final long[] times;
+
+    private final double[] prices;
+
+    /**
+     * Sequence number of the next tick
+     */
+    private long next;
+
+    PriceRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        this.times = new long[capacity];
+        this.prices = new double[capacity];
+    }
+
+    /**
+     * Append a tick. Ticks not newer than the latest one are ignored, so replaying history is harmless.
+     *
+     * @param time epoch milliseconds of the tick
+     * @param price the price
+     * @return the sequence number of the tick, or -1 if it was ignored
+     */
+    long add(long time, double price) {
+        if (next > 0 && time <= latestTime()) {
+            return -1;
+        }
+        int i = slot(next);
+        times[i] = time;
+        prices[i] = price;
+        return next++;
+    }
+
+    int size() {
+        return (int) Math.min(next, times.length);
+    }
+
+    boolean isFull() {
+        return next >= times.length;
+    }
+
+    /**
+     * @return sequence number of the oldest tick still held
+     */
+    long firstSequence() {
+        return next - size();
+    }
+
+    /**
+     * @return epoch milliseconds of the newest tick; only valid when the buffer is not empty
+     */
+    long latestTime() {
+        return time(next - 1);
+    }
+
+    /**
+     * @return the newest price; only valid when the buffer is not empty
+     */
+    double latestPrice() {
+        return price(next - 1);
+    }
+
+    long time(long sequence) {
+        return times[slot(sequence)];
+    }
+
+    double price(long sequence) {
+        return prices[slot(sequence)];
+    }
+
+    /**
+     * Check if the prices newer than {@code fromTime} never moved against the given direction by more
+     * than {@code eps} percent from one tick to the next. Walks the window once, newest to oldest.
+     *
+     * @param fromTime epoch milliseconds; only ticks strictly after it are considered
+     * @param eps tolerated move against the direction, in percent of the previous price
+     * @param increasing true to check for an increasing trend, false for a decreasing one
+     * @return true if the window holds at least two ticks and none breaks the trend
+     */
+    boolean isMonotonic(long fromTime, double eps, boolean increasing) {
+        if (size() < 2 || time(next - 2) <= fromTime) {
+            return false;
+        }
+        double current = latestPrice();
+        for (long sequence = next - 2; sequence >= firstSequence(); sequence--) {
+            if (time(sequence) <= fromTime) {
+                break;
+            }
+            double previous = price(sequence);
+            double tolerance = previous * eps / 100.0d;
+            if (increasing ? current < previous - tolerance : current > previous + tolerance) {
+                return false;
+            }
+            current = previous;
+        }
+        return true;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % times.length);
+    }
+}
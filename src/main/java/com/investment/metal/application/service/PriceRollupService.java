@@ -0,0 +1,185 @@
+package com.investment.metal.application.service;
+
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.CandleSeries;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.model.SeriesVersion;
+import com.investment.metal.domain.repository.PriceCandleRepository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rolls the stored price ticks up into open, high, low, close candles of one minute, one hour and one day, so the
+ * price history outlives the retention of the raw prices: a year of daily candles is 365 rows per metal.
+ * The candles are updated incrementally by {@link MetalPriceService#save} and the intraday backfill, with one
+ * upsert per candle and no read. Each resolution has its own retention, 0 keeping its candles forever.
+ * History queries read the coarsest resolution that still covers the range with the requested number of points.
+ */
+@Slf4j
+@Service
+public class PriceRollupService {
+
+    private final PriceCandleRepository priceCandleRepository;
+
+    private final Map<CandleResolution, Long> retentionMillis = new EnumMap<>(CandleResolution.class);
+
+    private final LongSupplier clock;
+
+    /**
+     * @param priceCandleRepository repository of the candles
+     * @param minuteRetentionMillis age after which a minute candle is deleted, 0 to keep it
+     * @param hourRetentionMillis age after which an hour candle is deleted, 0 to keep it
+     * @param dayRetentionMillis age after which a day candle is deleted, 0 to keep it
+     */
+    @Autowired
+    public PriceRollupService(PriceCandleRepository priceCandleRepository,
+                              @Value("${service.metal.price.rollup.minute.max-age-ms:2592000000}") long minuteRetentionMillis,
+                              @Value("${service.metal.price.rollup.hour.max-age-ms:63072000000}") long hourRetentionMillis,
+                              @Value("${service.metal.price.rollup.day.max-age-ms:0}") long dayRetentionMillis) {
+        this(priceCandleRepository, minuteRetentionMillis, hourRetentionMillis, dayRetentionMillis,
+                System::currentTimeMillis);
+    }
+
+    PriceRollupService(PriceCandleRepository priceCandleRepository, long minuteRetentionMillis,
+                       long hourRetentionMillis, long dayRetentionMillis, LongSupplier clock) {
+        if (minuteRetentionMillis < 0 || hourRetentionMillis < 0 || dayRetentionMillis < 0) {
+            throw new IllegalArgumentException("The candle retention cannot be negative");
+        }
+        this.priceCandleRepository = priceCandleRepository;
+        this.retentionMillis.put(CandleResolution.MINUTE, minuteRetentionMillis);
+        this.retentionMillis.put(CandleResolution.HOUR, hourRetentionMillis);
+        this.retentionMillis.put(CandleResolution.DAY, dayRetentionMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Add a price tick to its candles of every resolution.
+     * A failure is logged and not thrown, the tick is already stored as a raw price.
+     *
+     * @param metalType the metal
+     * @param timestamp the time of the tick
+     * @param price the price
+     */
+    public void record(MetalType metalType, LocalDateTime timestamp, double price) {
+        long time = timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        this.record(new PriceSeries(metalType, new long[]{time}, new double[]{price}));
+    }
+
+    /**
+     * Add the ticks of a series to their candles of every resolution, one upsert per candle.
+     * A failure is logged and not thrown, the ticks are already stored as raw prices.
+     *
+     * @param series the ticks, oldest first
+     */
+    public void record(PriceSeries series) {
+        if (series.size() == 0) {
+            return;
+        }
+        List<CandleSeries> candles = new ArrayList<>(CandleResolution.values().length);
+        for (CandleResolution resolution : CandleResolution.values()) {
+            candles.add(CandleSeries.of(series, resolution));
+        }
+        try {
+            this.priceCandleRepository.merge(candles);
+        } catch (RuntimeException e) {
+            log.warn("Failed to roll up {} prices of {}: {}", series.size(), series.getMetalType(), e.getMessage());
+            log.debug("Price rollup failure", e);
+        }
+    }
+
+    /**
+     * Load the candles of a metal in a time range, at the resolution chosen by
+     * {@link #selectResolution(long, long, int)}.
+     *
+     * @param metalType the metal
+     * @param from inclusive start of the range, in epoch milliseconds
+     * @param to exclusive end of the range, in epoch milliseconds
+     * @param points number of points the caller needs over the range
+     * @return the candles whose bucket holds a time of the range, oldest first
+     */
+    public CandleSeries findCandles(MetalType metalType, long from, long to, int points) {
+        return this.findCandles(metalType, this.selectResolution(from, to, points), from, to);
+    }
+
+    /**
+     * Load the candles of a metal in a time range at a given resolution.
+     *
+     * @param metalType the metal
+     * @param resolution the resolution of the candles
+     * @param from inclusive start of the range, in epoch milliseconds
+     * @param to exclusive end of the range, in epoch milliseconds
+     * @return the candles whose bucket holds a time of the range, oldest first
+     */
+    public CandleSeries findCandles(MetalType metalType, CandleResolution resolution, long from, long to) {
+        return this.priceCandleRepository.findCandles(metalType, resolution,
+                toLocal(resolution.bucketStart(from)), toLocal(to));
+    }
+
+    /**
+     * Summarize the candles of a metal in a time range at a given resolution, without reading them.
+     *
+     * @param metalType the metal
+     * @param resolution the resolution of the candles
+     * @param from inclusive start of the range, in epoch milliseconds
+     * @param to exclusive end of the range, in epoch milliseconds
+     * @return the version of the candles {@link #findCandles(MetalType, CandleResolution, long, long)} loads
+     */
+    public SeriesVersion findVersion(MetalType metalType, CandleResolution resolution, long from, long to) {
+        return this.priceCandleRepository.findVersion(metalType, resolution,
+                toLocal(resolution.bucketStart(from)), toLocal(to));
+    }
+
+    /**
+     * Choose the resolution answering a range: the coarsest one still holding at least {@code points} buckets
+     * over the range, or the finest one if none does, among the resolutions whose retention covers the start
+     * of the range. The caller downsamples the candles to the exact number of points.
+     *
+     * @param from inclusive start of the range, in epoch milliseconds
+     * @param to exclusive end of the range, in epoch milliseconds
+     * @param points number of points the caller needs over the range
+     * @return the resolution to read
+     */
+    public CandleResolution selectResolution(long from, long to, int points) {
+        CandleResolution[] resolutions = CandleResolution.values();
+        long now = clock.getAsLong();
+        CandleResolution selected = null;
+        for (int i = resolutions.length - 1; i >= 0; i--) {
+            CandleResolution resolution = resolutions[i];
+            if (!this.covers(resolution, from, now)) {
+                continue;
+            }
+            selected = resolution;
+            if (resolution.bucketCount(from, to) >= points) {
+                break;
+            }
+        }
+        return selected != null ? selected : resolutions[resolutions.length - 1];
+    }
+
+    /**
+     * @return age after which a candle of the resolution is deleted, 0 if it is kept forever
+     */
+    public long getRetentionMillis(CandleResolution resolution) {
+        return this.retentionMillis.get(resolution);
+    }
+
+    private boolean covers(CandleResolution resolution, long from, long now) {
+        long retention = this.getRetentionMillis(resolution);
+        return retention == 0 || resolution.bucketStart(from) >= now - retention;
+    }
+
+    private static LocalDateTime toLocal(long time) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,255 @@
+package com.investment.metal.application.service;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers the price functions of alert expressions from an in-memory ring buffer of recent price ticks per metal:
+ * the trends {@code inc(days, eps)} and {@code dec(days, eps)} and the indicators {@code price}, {@code sma(days)},
+ * {@code ema(days)}, {@code stddev(days)}, {@code rsi(days)} and {@code change(days)}.
+ * The buffers are fed by {@link MetalPriceService#save} and loaded once from the database on first use,
+ * so no query runs while alerts are evaluated. Windows are anchored at the newest tick, which makes a result
+ * depend only on the buffer content.
+ * Trend results are memoized until the next tick, so any number of alerts sharing the same (days, eps) pair
+ * cost one computation. Indicators are maintained incrementally for every window of 1 to {@link #MAX_DAYS} days
+ * as ticks arrive and published as an immutable snapshot, so reading one is an array lookup.
+ */
+@Slf4j
+@Service
+public class PriceTrendService {
+
+    /**
+     * Longest indicator window of the trend functions
+     */
+    public static final int MAX_DAYS = 14;
+
+    private final MetalPriceRepository metalPriceRepository;
+
+    /**
+     * History loaded into the buffers: the longest window, or less if the database keeps less
+     */
+    private final long historyMillis;
+
+    private final Map<MetalType, MetalTrend> trends = new EnumMap<>(MetalType.class);
+
+    public PriceTrendService(MetalPriceRepository metalPriceRepository,
+                             @Value("${service.alerts.trend.capacity:32768}") int capacity,
+                             @Value("${service.metal.price.retention.max-age-ms}") long retentionMillis) {
+        this.metalPriceRepository = metalPriceRepository;
+        this.historyMillis = Math.min(TimeUnit.DAYS.toMillis(MAX_DAYS), retentionMillis);
+        for (MetalType metalType : MetalType.values()) {
+            this.trends.put(metalType, new MetalTrend(capacity));
+        }
+    }
+
+    /**
+     * Record a new price tick.
+     *
+     * @param metalType the metal
+     * @param timestamp the time of the tick
+     * @param price the price
+     */
+    public void record(MetalType metalType, LocalDateTime timestamp, double price) {
+        MetalTrend trend = this.trends.get(metalType);
+        synchronized (trend) {
+            this.loadHistory(metalType, trend);
+            trend.append(toMillis(timestamp), price);
+        }
+    }
+
+    /**
+     * Check if the price of a metal kept increasing over the last days.
+     *
+     * @param metalType the metal
+     * @param days length of the window, counted back from the newest tick
+     * @param eps tolerated drop between two consecutive ticks, in percent
+     * @return true if the window holds at least two ticks and no tick dropped more than eps percent
+     */
+    public boolean isIncreasing(MetalType metalType, int days, double eps) {
+        return this.isMonotonic(metalType, new TrendQuery(true, days, eps));
+    }
+
+    /**
+     * Check if the price of a metal kept decreasing over the last days.
+     *
+     * @param metalType the metal
+     * @param days length of the window, counted back from the newest tick
+     * @param eps tolerated rise between two consecutive ticks, in percent
+     * @return true if the window holds at least two ticks and no tick rose more than eps percent
+     */
+    public boolean isDecreasing(MetalType metalType, int days, double eps) {
+        return this.isMonotonic(metalType, new TrendQuery(false, days, eps));
+    }
+
+    /**
+     * @return the newest price of one kilogram in the provider currency, or NaN if no tick is known
+     */
+    public double getPrice(MetalType metalType) {
+        return this.indicators(metalType).price();
+    }
+
+    /**
+     * @return simple moving average of the prices in the last days, or NaN if not available
+     */
+    public double getSma(MetalType metalType, int days) {
+        return valueAt(this.indicators(metalType).sma(), days);
+    }
+
+    /**
+     * @return time-weighted exponential moving average with a time constant of the given days, or NaN if not available
+     */
+    public double getEma(MetalType metalType, int days) {
+        return valueAt(this.indicators(metalType).ema(), days);
+    }
+
+    /**
+     * @return sample standard deviation of the prices in the last days, or NaN if not available
+     */
+    public double getStddev(MetalType metalType, int days) {
+        return valueAt(this.indicators(metalType).stddev(), days);
+    }
+
+    /**
+     * @return relative strength index (0..100) over the last days, or NaN if not available
+     */
+    public double getRsi(MetalType metalType, int days) {
+        return valueAt(this.indicators(metalType).rsi(), days);
+    }
+
+    /**
+     * @return change of the price over the last days in percent, or NaN if not available
+     */
+    public double getChange(MetalType metalType, int days) {
+        return valueAt(this.indicators(metalType).change(), days);
+    }
+
+    private Indicators indicators(MetalType metalType) {
+        MetalTrend trend = this.trends.get(metalType);
+        if (!trend.loaded) {
+            synchronized (trend) {
+                this.loadHistory(metalType, trend);
+            }
+        }
+        return trend.indicators;
+    }
+
+    private static double valueAt(double[] values, int days) {
+        return days >= 1 && days <= MAX_DAYS ? values[days] : Double.NaN;
+    }
+
+    private boolean isMonotonic(MetalType metalType, TrendQuery query) {
+        MetalTrend trend = this.trends.get(metalType);
+        Boolean cached = trend.results.get(query);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (trend) {
+            this.loadHistory(metalType, trend);
+            return trend.results.computeIfAbsent(query, q -> {
+                if (trend.buffer.size() == 0) {
+                    return false;
+                }
+                long fromTime = trend.buffer.latestTime() - TimeUnit.DAYS.toMillis(q.days());
+                return trend.buffer.isMonotonic(fromTime, q.eps(), q.increasing());
+            });
+        }
+    }
+
+    /**
+     * Fill the buffer with the stored history the first time a metal is used.
+     * A failed load is not retried: the buffer only accepts ticks newer than the ones it holds.
+     */
+    private void loadHistory(MetalType metalType, MetalTrend trend) {
+        if (trend.loaded) {
+            return;
+        }
+        try {
+            // the time column rounds to whole seconds, so the tick saved just now may be stored a second ahead
+            LocalDateTime now = LocalDateTime.now();
+            PriceSeries history = this.metalPriceRepository.findSeries(metalType,
+                    now.minus(Duration.ofMillis(historyMillis)), now.plusSeconds(1));
+            for (int i = 0; i < history.size(); i++) {
+                trend.append(history.time(i), history.price(i));
+            }
+            log.debug("Loaded {} price ticks of {} into the trend buffer", history.size(), metalType);
+        } catch (RuntimeException e) {
+            log.warn("Unable to load the price history of {}, trend functions use live ticks only", metalType, e);
+        } finally {
+            trend.loaded = true;
+        }
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record TrendQuery(boolean increasing, int days, double eps) {
+    }
+
+    /**
+     * Indicator values published after each tick. Arrays are indexed by the window length in days.
+     */
+    private record Indicators(double price, double[] sma, double[] ema, double[] stddev, double[] rsi, double[] change) {
+
+        private static final Indicators EMPTY = new Indicators(Double.NaN, nan(), nan(), nan(), nan(), nan());
+
+        private static double[] nan() {
+            double[] values = new double[MAX_DAYS + 1];
+            Arrays.fill(values, Double.NaN);
+            return values;
+        }
+    }
+
+    private static final class MetalTrend {
+
+        private final PriceIndicators state;
+
+        private final PriceRingBuffer buffer;
+
+        private final Map<TrendQuery, Boolean> results = new ConcurrentHashMap<>();
+
+        private volatile Indicators indicators = Indicators.EMPTY;
+
+        private volatile boolean loaded;
+
+        private MetalTrend(int capacity) {
+            this.state = new PriceIndicators(capacity);
+            this.buffer = this.state.buffer();
+        }
+
+        /**
+         * Add a tick, update every indicator in O(1) per window and publish their values.
+         */
+        private void append(long time, double price) {
+            if (!state.append(time, price)) {
+                return;
+            }
+            double[] sma = new double[MAX_DAYS + 1];
+            double[] ema = new double[MAX_DAYS + 1];
+            double[] stddev = new double[MAX_DAYS + 1];
+            double[] rsi = new double[MAX_DAYS + 1];
+            double[] change = new double[MAX_DAYS + 1];
+            for (int days = 0; days <= MAX_DAYS; days++) {
+                sma[days] = state.sma(days);
+                ema[days] = state.ema(days);
+                stddev[days] = state.stddev(days);
+                rsi[days] = state.rsi(days);
+                change[days] = state.change(days);
+            }
+            results.clear();
+            indicators = new Indicators(price, sma, ema, stddev, rsi, change);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.investment.metal.application.service;
+
+import com.google.common.collect.Lists;
+import com.investment.metal.application.service.expression.ProfitThreshold;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.infrastructure.persistence.entity.Alert;
+import com.investment.metal.infrastructure.persistence.entity.Purchase;
+import com.investment.metal.infrastructure.persistence.repository.AlertPortfolio;
+import com.investment.metal.infrastructure.persistence.repository.AlertRepository;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the {@link ProfitThresholdIndex} of every metal.
+ * An index is rebuilt with one query the first time it is used after {@link #invalidate()},
+ * which must be called whenever alerts or purchases change. While rebuilding, the
+ * {@code threshold_indexed} flag of the alerts is brought in line with the index, so the
+ * due-alert query of the evaluator skips them.
+ */
+@Slf4j
+@Component
+public class ProfitAlertIndex {
+
+    /**
+     * Maximum number of ids in the IN list of one bulk update
+     */
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final Map<MetalType, ProfitThresholdIndex> indexes = new EnumMap<>(MetalType.class);
+
+    private final Map<MetalType, Long> builtVersions = new EnumMap<>(MetalType.class);
+
+    /**
+     * Mark every index as stale, e.g. after an alert or a purchase changed.
+     */
+    public void invalidate() {
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * Get the index of a metal, rebuilding it if it is stale.
+     *
+     * @param metalType the metal
+     * @param classifier gives the threshold form of an expression, or empty if the expression needs the evaluator
+     * @return the current index
+     */
+    synchronized ProfitThresholdIndex get(MetalType metalType, Function<String, Optional<ProfitThreshold>> classifier) {
+        long current = this.version.get();
+        Long built = this.builtVersions.get(metalType);
+        if (built == null || built != current) {
+            this.indexes.put(metalType, this.build(metalType, classifier));
+            this.builtVersions.put(metalType, current);
+        }
+        return this.indexes.get(metalType);
+    }
+
+    private ProfitThresholdIndex build(MetalType metalType, Function<String, Optional<ProfitThreshold>> classifier) {
+        List<ProfitThresholdIndex.Entry> entries = new ArrayList<>();
+        List<Integer> indexedIds = new ArrayList<>();
+        List<Integer> evaluatedIds = new ArrayList<>();
+        for (AlertPortfolio portfolio : this.alertRepository.findPortfoliosByMetalSymbol(metalType.getSymbol())) {
+            Alert alert = portfolio.getAlert();
+            Optional<ProfitThreshold> threshold = classifier.apply(alert.getExpression());
+            if (threshold.isPresent()) {
+                entries.add(entry(portfolio, threshold.get()));
+                if (!alert.isThresholdIndexed()) {
+                    indexedIds.add(alert.getId());
+                }
+            } else if (alert.isThresholdIndexed()) {
+                evaluatedIds.add(alert.getId());
+            }
+        }
+        for (List<Integer> chunk : Lists.partition(indexedIds, UPDATE_CHUNK_SIZE)) {
+            this.alertRepository.markThresholdIndexed(chunk, true);
+        }
+        for (List<Integer> chunk : Lists.partition(evaluatedIds, UPDATE_CHUNK_SIZE)) {
+            this.alertRepository.markThresholdIndexed(chunk, false);
+        }
+        log.debug("Built profit threshold index of {} with {} alerts", metalType, entries.size());
+        return new ProfitThresholdIndex(entries);
+    }
+
+    private static ProfitThresholdIndex.Entry entry(AlertPortfolio portfolio, ProfitThreshold threshold) {
+        Purchase purchase = portfolio.getPurchase();
+        double amount = purchase != null && purchase.getAmount() != null ? purchase.getAmount() : 0;
+        double cost = purchase != null && purchase.getCost() != null ? purchase.getCost() : 0;
+        double breakEven;
+        if (amount > 0) {
+            breakEven = (threshold.threshold() + cost) / amount;
+        } else {
+            // Without metal the profit does not depend on the price: the alert always or never holds
+            boolean holds = threshold.operator().apply(-cost, threshold.threshold());
+            breakEven = holds == threshold.isAbove() ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        Alert alert = portfolio.getAlert();
+        long nextCheckAt = alert.getNextCheckAt() != null ? alert.getNextCheckAt().getTime() : 0;
+        return new ProfitThresholdIndex.Entry(portfolio, breakEven, threshold.isAbove(), threshold.isInclusive(),
+                nextCheckAt, alert.getFrequency().getIntervalMillis());
+    }
+}
@@ -0,0 +1,289 @@
+package com.investment.metal.application.service;
+
+import com.investment.metal.infrastructure.persistence.repository.AlertPortfolio;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Threshold index of the {@code profit <op> C} alerts of one metal.
+ * For a position of {@code amount} ounces bought for {@code cost}, {@code profit = price * amount - cost},
+ * so the alert holds exactly when the Revolut price of one ounce is on one side of the break-even price
+ * {@code (C + cost) / amount}. Break-even prices are kept in sorted primitive arrays, one for "above" and one
+ * for "below" alerts.
+ * A due alert that does not hold at a tick can only start holding when the price crosses its break-even price,
+ * so a tick binary-searches the break-even prices between the previous and the current price and visits only
+ * those. Alerts that are not due wait in a heap ordered by their next check and are only looked at again when
+ * their wait ends. The cost of a tick follows the crossed and the released alerts, not the alerts that hold.
+ */
+final class ProfitThresholdIndex {
+
+    static final ProfitThresholdIndex EMPTY = new ProfitThresholdIndex(List.of());
+
+    private final Side above;
+
+    private final Side below;
+
+    private final Set<Integer> alertIds;
+
+    ProfitThresholdIndex(List<Entry> entries) {
+        List<Entry> aboveEntries = new ArrayList<>();
+        List<Entry> belowEntries = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        for (Entry entry : entries) {
+            (entry.above() ? aboveEntries : belowEntries).add(entry);
+            ids.add(entry.portfolio().getAlert().getId());
+        }
+        this.above = new Side(aboveEntries, true);
+        this.below = new Side(belowEntries, false);
+        this.alertIds = Set.copyOf(ids);
+    }
+
+    /**
+     * @return true if the alert is served by this index instead of the evaluator
+     */
+    boolean contains(Integer alertId) {
+        return alertIds.contains(alertId);
+    }
+
+    int size() {
+        return alertIds.size();
+    }
+
+    /**
+     * Find the alerts whose condition holds at the given price and that are due, and schedule their next check.
+     * Ticks are expected in time order; the price of the previous tick bounds the break-even prices visited.
+     *
+     * @param priceOunce the current Revolut price of one ounce
+     * @param now epoch milliseconds of the tick
+     * @return the alerts to fire
+     */
+    synchronized List<AlertPortfolio> collectFiring(double priceOunce, long now) {
+        List<AlertPortfolio> firing = new ArrayList<>();
+        if (!Double.isNaN(priceOunce)) {
+            above.collect(priceOunce, now, firing);
+            below.collect(priceOunce, now, firing);
+        }
+        return firing;
+    }
+
+    /**
+     * Relative distance from the price to the nearest break-even price an alert has not crossed yet, i.e. how
+     * much the price has to move before one more alert holds.
+     *
+     * @param priceOunce the current Revolut price of one ounce
+     * @return the distance as a fraction of the price, or positive infinity if no alert can still fire
+     */
+    synchronized double distanceToNextThreshold(double priceOunce) {
+        if (Double.isNaN(priceOunce) || priceOunce <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double next = Math.min(above.distanceToNext(priceOunce), below.distanceToNext(priceOunce));
+        return next / priceOunce;
+    }
+
+    /**
+     * One indexed alert.
+     *
+     * @param portfolio the alert with its owner and position
+     * @param breakEven Revolut ounce price at which the condition flips; infinite if it never or always holds
+     * @param above true if the condition holds above the break-even price
+     * @param inclusive true if the condition also holds at the break-even price
+     * @param nextCheckAt epoch milliseconds of the next allowed check
+     * @param intervalMillis time between two checks
+     */
+    record Entry(AlertPortfolio portfolio, double breakEven, boolean above, boolean inclusive,
+                 long nextCheckAt, long intervalMillis) {
+    }
+
+    private static final class Side {
+
+        private final boolean above;
+
+        private final double[] breakEven;
+
+        private final boolean[] inclusive;
+
+        private final long[] nextCheckAt;
+
+        private final long[] intervalMillis;
+
+        private final AlertPortfolio[] portfolios;
+
+        /**
+         * Due alerts, which did not hold at the previous price
+         */
+        private final boolean[] armed;
+
+        /**
+         * Min-heap of the alerts that are not due, by next check
+         */
+        private final int[] waiting;
+
+        private int waitingSize;
+
+        /**
+         * Alerts whose wait ended at the current tick
+         */
+        private final int[] released;
+
+        private double previousPrice = Double.NaN;
+
+        private Side(List<Entry> entries, boolean above) {
+            Entry[] sorted = entries.toArray(new Entry[0]);
+            Arrays.sort(sorted, Comparator.comparingDouble(Entry::breakEven));
+            this.above = above;
+            this.breakEven = new double[sorted.length];
+            this.inclusive = new boolean[sorted.length];
+            this.nextCheckAt = new long[sorted.length];
+            this.intervalMillis = new long[sorted.length];
+            this.portfolios = new AlertPortfolio[sorted.length];
+            this.armed = new boolean[sorted.length];
+            this.waiting = new int[sorted.length];
+            this.released = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                this.breakEven[i] = sorted[i].breakEven();
+                this.inclusive[i] = sorted[i].inclusive();
+                this.nextCheckAt[i] = sorted[i].nextCheckAt();
+                this.intervalMillis[i] = sorted[i].intervalMillis();
+                this.portfolios[i] = sorted[i].portfolio();
+            }
+            // every alert starts waiting: the first tick releases the due ones and checks them at its price
+            for (int i = 0; i < sorted.length; i++) {
+                this.push(i);
+            }
+        }
+
+        /**
+         * Fire the released alerts that hold, then the due alerts whose break-even price lies between the previous
+         * and the current price. Due alerts hold neither before nor after, so no other alert can start holding.
+         */
+        private void collect(double price, long now, List<AlertPortfolio> firing) {
+            int count = 0;
+            while (waitingSize > 0 && nextCheckAt[waiting[0]] <= now) {
+                released[count++] = this.pop();
+            }
+            for (int i = 0; i < count; i++) {
+                int entry = released[i];
+                if (this.holds(entry, price)) {
+                    this.fire(entry, now, firing);
+                } else {
+                    armed[entry] = true;
+                }
+            }
+            if (!Double.isNaN(previousPrice) && previousPrice != price) {
+                int to = upperBound(Math.max(previousPrice, price));
+                for (int i = lowerBound(Math.min(previousPrice, price)); i < to; i++) {
+                    if (armed[i] && this.holds(i, price)) {
+                        this.fire(i, now, firing);
+                    }
+                }
+            }
+            previousPrice = price;
+        }
+
+        /**
+         * "Above" alerts hold for break-even prices below the price, "below" alerts for break-even prices above
+         * it. Equal prices hold only for inclusive alerts.
+         */
+        private boolean holds(int entry, double price) {
+            if (breakEven[entry] == price) {
+                return inclusive[entry];
+            }
+            return above ? breakEven[entry] < price : breakEven[entry] > price;
+        }
+
+        private void fire(int entry, long now, List<AlertPortfolio> firing) {
+            armed[entry] = false;
+            nextCheckAt[entry] = now + intervalMillis[entry];
+            this.push(entry);
+            firing.add(portfolios[entry]);
+        }
+
+        private void push(int entry) {
+            int child = waitingSize++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (nextCheckAt[waiting[parent]] <= nextCheckAt[entry]) {
+                    break;
+                }
+                waiting[child] = waiting[parent];
+                child = parent;
+            }
+            waiting[child] = entry;
+        }
+
+        private int pop() {
+            int first = waiting[0];
+            int last = waiting[--waitingSize];
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= waitingSize) {
+                    break;
+                }
+                if (child + 1 < waitingSize && nextCheckAt[waiting[child + 1]] < nextCheckAt[waiting[child]]) {
+                    child++;
+                }
+                if (nextCheckAt[last] <= nextCheckAt[waiting[child]]) {
+                    break;
+                }
+                waiting[parent] = waiting[child];
+                parent = child;
+            }
+            waiting[parent] = last;
+            return first;
+        }
+
+        /**
+         * "Above" alerts not holding yet are crossed by a rise to the first break-even price above the price,
+         * "below" alerts by a fall to the last one under it.
+         *
+         * @return absolute distance to that break-even price, or positive infinity if there is none
+         */
+        private double distanceToNext(double price) {
+            int next = above ? upperBound(price) : lowerBound(price) - 1;
+            if (next < 0 || next >= breakEven.length || Double.isInfinite(breakEven[next])) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return Math.abs(breakEven[next] - price);
+        }
+
+        /**
+         * @return index of the first break-even price not lower than the price
+         */
+        private int lowerBound(double price) {
+            int low = 0;
+            int high = breakEven.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (breakEven[mid] < price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return index of the first break-even price higher than the price
+         */
+        private int upperBound(double price) {
+            int low = 0;
+            int high = breakEven.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (breakEven[mid] <= price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
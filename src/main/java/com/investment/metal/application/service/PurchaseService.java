@@ -22,8 +22,11 @@ public class PurchaseService {
 
     private final PurchaseRepository purchaseRepository;
 
-    public PurchaseService(PurchaseRepository purchaseRepository) {
+    private final ProfitAlertIndex profitAlertIndex;
+
+    public PurchaseService(PurchaseRepository purchaseRepository, ProfitAlertIndex profitAlertIndex) {
         this.purchaseRepository = purchaseRepository;
+        this.profitAlertIndex = profitAlertIndex;
     }
 
     /**
@@ -51,6 +54,7 @@ public class PurchaseService {
                         .build());
 
         purchaseRepository.save(metalPurchase);
+        profitAlertIndex.invalidate();
     }
 
     /**
@@ -87,6 +91,7 @@ public class PurchaseService {
                 .build();
 
         purchaseRepository.save(updated);
+        profitAlertIndex.invalidate();
     }
 
     /**
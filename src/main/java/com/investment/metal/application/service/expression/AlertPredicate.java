@@ -0,0 +1,14 @@
+package com.investment.metal.application.service.expression;
+
+import com.investment.metal.application.service.ExpressionFeeder;
+
+/**
+ * Executable form of a compiled alert expression: either the tree interpreter
+ * or a generated class produced by {@link ExpressionBytecodeGenerator}.
+ */
+@FunctionalInterface
+public interface AlertPredicate {
+
+    boolean test(ExpressionFeeder feeder);
+
+}
@@ -0,0 +1,43 @@
+package com.investment.metal.application.service.expression;
+
+/**
+ * Binary arithmetic operators of the alert expression grammar.
+ */
+public enum ArithmeticOperator {
+    ADD("+") {
+        @Override
+        public double apply(double left, double right) {
+            return left + right;
+        }
+    },
+    SUBTRACT("-") {
+        @Override
+        public double apply(double left, double right) {
+            return left - right;
+        }
+    },
+    MULTIPLY("*") {
+        @Override
+        public double apply(double left, double right) {
+            return left * right;
+        }
+    },
+    DIVIDE("/") {
+        @Override
+        public double apply(double left, double right) {
+            return left / right;
+        }
+    };
+
+    private final String symbol;
+
+    ArithmeticOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public abstract double apply(double left, double right);
+}
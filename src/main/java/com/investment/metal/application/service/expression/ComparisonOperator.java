@@ -0,0 +1,68 @@
+package com.investment.metal.application.service.expression;
+
+/**
+ * Comparison operators of the alert expression grammar.
+ */
+public enum ComparisonOperator {
+    LT("<") {
+        @Override
+        public boolean apply(double left, double right) {
+            return left < right;
+        }
+    },
+    LE("<=") {
+        @Override
+        public boolean apply(double left, double right) {
+            return left <= right;
+        }
+    },
+    GT(">") {
+        @Override
+        public boolean apply(double left, double right) {
+            return left > right;
+        }
+    },
+    GE(">=") {
+        @Override
+        public boolean apply(double left, double right) {
+            return left >= right;
+        }
+    },
+    EQ("==") {
+        @Override
+        public boolean apply(double left, double right) {
+            return left == right;
+        }
+    },
+    NE("!=") {
+        @Override
+        public boolean apply(double left, double right) {
+            return left != right;
+        }
+    };
+
+    private final String symbol;
+
+    ComparisonOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public abstract boolean apply(double left, double right);
+
+    /**
+     * @return the operator to use when both operands are swapped, e.g. {@code a < b} is {@code b > a}
+     */
+    public ComparisonOperator mirror() {
+        return switch (this) {
+            case LT -> GT;
+            case LE -> GE;
+            case GT -> LT;
+            case GE -> LE;
+            case EQ, NE -> this;
+        };
+    }
+}
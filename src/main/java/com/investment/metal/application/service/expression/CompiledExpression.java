@@ -0,0 +1,129 @@
+package com.investment.metal.application.service.expression;
+
+import com.investment.metal.application.service.ExpressionFeeder;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parsed and type-checked alert expression.
+ * Instances are immutable and shared by every alert that uses the same expression text.
+ * Evaluation starts on the tree interpreter; once the expression has been evaluated
+ * {@code promotionThreshold} times it is promoted to a generated class.
+ */
+@Slf4j
+public final class CompiledExpression {
+
+    private final String text;
+
+    private final ExpressionNode root;
+
+    private final List<ExpressionNode.FunctionCall> calls;
+
+    private final ProfitThreshold profitThreshold;
+
+    private final long promotionThreshold;
+
+    private final ExpressionBytecodeGenerator generator;
+
+    private final AtomicBoolean promotionAttempted = new AtomicBoolean();
+
+    private volatile AlertPredicate predicate;
+
+    private volatile boolean promoted;
+
+    private volatile boolean bytecode;
+
+    /**
+     * Number of evaluations. Alert shards evaluate the same expression concurrently, so the count is striped
+     * instead of a plain field that would lose increments.
+     */
+    private final LongAdder evaluations = new LongAdder();
+
+    CompiledExpression(String text, ExpressionNode root, List<ExpressionNode.FunctionCall> calls,
+                       long promotionThreshold, ExpressionBytecodeGenerator generator) {
+        this.text = text;
+        this.root = root;
+        this.calls = List.copyOf(calls);
+        this.profitThreshold = ProfitThreshold.recognize(root).orElse(null);
+        this.promotionThreshold = promotionThreshold;
+        this.generator = generator;
+        this.predicate = root::condition;
+    }
+
+    /**
+     * Evaluate the expression, pulling the function values from the feeder.
+     *
+     * @param feeder supplier of the function values
+     * @return true if the alert condition holds
+     */
+    public boolean evaluate(ExpressionFeeder feeder) {
+        evaluations.increment();
+        if (!promoted && promotionThreshold > 0 && evaluations.sum() >= promotionThreshold) {
+            promote();
+        }
+        return predicate.test(feeder);
+    }
+
+    /**
+     * Replace the tree interpreter with a generated class. Runs at most once;
+     * if generation fails the expression stays on the interpreter.
+     */
+    void promote() {
+        if (!promotionAttempted.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.predicate = generator.generate(this);
+            this.bytecode = true;
+            log.debug("Promoted alert expression to bytecode after {} evaluations: {}", evaluations.sum(), text);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            log.warn("Bytecode generation failed for alert expression '{}', staying on the interpreter", text, e);
+        } finally {
+            this.promoted = true;
+        }
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public ExpressionNode getRoot() {
+        return root;
+    }
+
+    /**
+     * @return every function call of the expression, in source order
+     */
+    public List<ExpressionNode.FunctionCall> getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return the normalized {@code profit <op> C} form if the expression has one, so it can be served by a threshold index
+     */
+    public Optional<ProfitThreshold> getProfitThreshold() {
+        return Optional.ofNullable(profitThreshold);
+    }
+
+    /**
+     * @return number of evaluations
+     */
+    public long getEvaluationCount() {
+        return evaluations.sum();
+    }
+
+    /**
+     * @return true if the expression runs as a generated class
+     */
+    public boolean isBytecode() {
+        return bytecode;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
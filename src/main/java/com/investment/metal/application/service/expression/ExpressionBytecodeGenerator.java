@@ -0,0 +1,180 @@
+package com.investment.metal.application.service.expression;
+
+import static java.lang.constant.ConstantDescs.CD_Object;
+import static java.lang.constant.ConstantDescs.CD_String;
+import static java.lang.constant.ConstantDescs.CD_boolean;
+import static java.lang.constant.ConstantDescs.CD_double;
+import static java.lang.constant.ConstantDescs.CD_void;
+import static java.lang.constant.ConstantDescs.INIT_NAME;
+import static java.lang.constant.ConstantDescs.MTD_void;
+
+import com.investment.metal.application.service.ExpressionFeeder;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates a compiled expression tree into a hidden class implementing {@link AlertPredicate}.
+ * The whole predicate becomes one straight-line method of primitive double arithmetic, comparisons and
+ * short-circuit branches, with a direct interface call to the feeder for each function, so the JIT can
+ * inline it like hand-written code.
+ */
+class ExpressionBytecodeGenerator {
+
+    private static final ClassDesc CD_THIS = ClassDesc.of(
+            ExpressionBytecodeGenerator.class.getPackageName() + ".GeneratedAlertPredicate");
+    private static final ClassDesc CD_PREDICATE = ClassDesc.of(AlertPredicate.class.getName());
+    private static final ClassDesc CD_FEEDER = ClassDesc.of(ExpressionFeeder.class.getName());
+    private static final ClassDesc CD_ARGS = CD_double.arrayType(2);
+
+    private static final String ARGS_FIELD = "args";
+    private static final MethodTypeDesc MTD_INIT = MethodTypeDesc.of(CD_void, CD_ARGS);
+    private static final MethodTypeDesc MTD_TEST = MethodTypeDesc.of(CD_boolean, CD_FEEDER);
+    private static final MethodTypeDesc MTD_NUMBER = MethodTypeDesc.of(CD_double, CD_String, CD_double.arrayType());
+    private static final MethodTypeDesc MTD_CONDITION = MethodTypeDesc.of(CD_boolean, CD_String, CD_double.arrayType());
+
+    private static final int THIS_SLOT = 0;
+    private static final int FEEDER_SLOT = 1;
+
+    /**
+     * Generate and load the predicate class for an expression.
+     *
+     * @param expression the type-checked expression
+     * @return a new instance of the generated predicate
+     * @throws ReflectiveOperationException if the generated class can not be defined or instantiated
+     */
+    AlertPredicate generate(CompiledExpression expression) throws ReflectiveOperationException {
+        // The code handler may be replayed by the class file builder, so argument slots are assigned up front
+        List<ExpressionNode.FunctionCall> calls = expression.getCalls();
+        Map<ExpressionNode.FunctionCall, Integer> slots = new IdentityHashMap<>();
+        double[][] args = new double[calls.size()][];
+        for (int i = 0; i < args.length; i++) {
+            slots.put(calls.get(i), i);
+            args[i] = calls.get(i).args();
+        }
+
+        ExpressionNode root = expression.getRoot();
+        byte[] bytes = ClassFile.of().build(CD_THIS, cb -> cb
+                .withFlags(ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL | ClassFile.ACC_SYNTHETIC)
+                .withInterfaceSymbols(CD_PREDICATE)
+                .withField(ARGS_FIELD, CD_ARGS, ClassFile.ACC_PRIVATE | ClassFile.ACC_FINAL)
+                .withMethodBody(INIT_NAME, MTD_INIT, ClassFile.ACC_PUBLIC, code -> code
+                        .aload(THIS_SLOT)
+                        .invokespecial(CD_Object, INIT_NAME, MTD_void)
+                        .aload(THIS_SLOT)
+                        .aload(1)
+                        .putfield(CD_THIS, ARGS_FIELD, CD_ARGS)
+                        .return_())
+                .withMethodBody("test", MTD_TEST, ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL, code -> {
+                    emit(code, root, slots);
+                    code.ireturn();
+                }));
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+        try {
+            return (AlertPredicate) lookup
+                    .findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, double[][].class))
+                    .invoke((Object) args);
+        } catch (ReflectiveOperationException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ReflectiveOperationException(e);
+        }
+    }
+
+    /**
+     * Emit the code of a node, leaving a double (numbers) or an int 0/1 (conditions) on the stack.
+     */
+    private void emit(CodeBuilder code, ExpressionNode node, Map<ExpressionNode.FunctionCall, Integer> slots) {
+        switch (node) {
+            case ExpressionNode.NumberLiteral literal -> code.loadConstant(literal.value());
+            case ExpressionNode.BooleanLiteral literal -> code.loadConstant(literal.value() ? 1 : 0);
+            case ExpressionNode.FunctionCall call -> {
+                code.aload(FEEDER_SLOT)
+                        .loadConstant(call.name())
+                        .aload(THIS_SLOT)
+                        .getfield(CD_THIS, ARGS_FIELD, CD_ARGS)
+                        .loadConstant(slots.get(call))
+                        .aaload();
+                if (call.type() == ValueType.NUMBER) {
+                    code.invokeinterface(CD_FEEDER, "number", MTD_NUMBER);
+                } else {
+                    code.invokeinterface(CD_FEEDER, "condition", MTD_CONDITION);
+                }
+            }
+            case ExpressionNode.Negate negate -> {
+                emit(code, negate.operand(), slots);
+                code.dneg();
+            }
+            case ExpressionNode.Arithmetic arithmetic -> {
+                emit(code, arithmetic.left(), slots);
+                emit(code, arithmetic.right(), slots);
+                switch (arithmetic.operator()) {
+                    case ADD -> code.dadd();
+                    case SUBTRACT -> code.dsub();
+                    case MULTIPLY -> code.dmul();
+                    case DIVIDE -> code.ddiv();
+                }
+            }
+            case ExpressionNode.Comparison comparison -> emitComparison(code, comparison, slots);
+            case ExpressionNode.Not not -> {
+                emit(code, not.operand(), slots);
+                code.iconst_1().ixor();
+            }
+            case ExpressionNode.Logical logical -> {
+                Label shortCircuit = code.newLabel();
+                Label end = code.newLabel();
+                emit(code, logical.left(), slots);
+                if (logical.and()) {
+                    code.ifeq(shortCircuit);
+                } else {
+                    code.ifne(shortCircuit);
+                }
+                emit(code, logical.right(), slots);
+                code.goto_(end)
+                        .labelBinding(shortCircuit)
+                        .loadConstant(logical.and() ? 0 : 1)
+                        .labelBinding(end);
+            }
+        }
+    }
+
+    /**
+     * Emit a comparison with the same NaN semantics as the Java language:
+     * every ordered comparison with NaN is false and only != is true.
+     */
+    private void emitComparison(CodeBuilder code, ExpressionNode.Comparison comparison, Map<ExpressionNode.FunctionCall, Integer> slots) {
+        Label isFalse = code.newLabel();
+        Label end = code.newLabel();
+        emit(code, comparison.left(), slots);
+        emit(code, comparison.right(), slots);
+        if (comparison.left().type() == ValueType.BOOLEAN) {
+            if (comparison.operator() == ComparisonOperator.EQ) {
+                code.if_icmpne(isFalse);
+            } else {
+                code.if_icmpeq(isFalse);
+            }
+        } else {
+            switch (comparison.operator()) {
+                case LT -> code.dcmpg().ifge(isFalse);
+                case LE -> code.dcmpg().ifgt(isFalse);
+                case GT -> code.dcmpl().ifle(isFalse);
+                case GE -> code.dcmpl().iflt(isFalse);
+                case EQ -> code.dcmpl().ifne(isFalse);
+                case NE -> code.dcmpl().ifeq(isFalse);
+            }
+        }
+        code.iconst_1()
+                .goto_(end)
+                .labelBinding(isFalse)
+                .iconst_0()
+                .labelBinding(end);
+    }
+}
@@ -0,0 +1,81 @@
+package com.investment.metal.application.service.expression;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.investment.metal.application.exception.InvalidExpressionException;
+import com.investment.metal.application.service.FunctionInfo;
+import java.util.Map;
+
+/**
+ * Compiles alert expressions into immutable trees and caches them by expression text,
+ * so all alerts sharing an expression also share one {@link CompiledExpression}.
+ * Expressions evaluated more than the promotion threshold are moved to generated bytecode.
+ */
+public class ExpressionCompiler {
+
+    private static final long MAX_CACHED_EXPRESSIONS = 10_000;
+
+    private final Map<String, FunctionInfo> functions;
+
+    private final long promotionThreshold;
+
+    private final ExpressionBytecodeGenerator generator = new ExpressionBytecodeGenerator();
+
+    private final Cache<String, CompiledExpression> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_EXPRESSIONS)
+            .build();
+
+    /**
+     * Create a compiler that keeps every expression on the tree interpreter.
+     *
+     * @param functions registry of available functions; read on every cache miss
+     */
+    public ExpressionCompiler(Map<String, FunctionInfo> functions) {
+        this(functions, 0);
+    }
+
+    /**
+     * @param functions registry of available functions; read on every cache miss
+     * @param promotionThreshold number of evaluations after which an expression is compiled to bytecode,
+     *                           or 0 to never leave the tree interpreter
+     */
+    public ExpressionCompiler(Map<String, FunctionInfo> functions, long promotionThreshold) {
+        this.functions = functions;
+        this.promotionThreshold = Math.max(0, promotionThreshold);
+    }
+
+    /**
+     * Get the compiled form of an expression, compiling it on first use.
+     *
+     * @param expression the expression text
+     * @return the shared compiled expression
+     * @throws InvalidExpressionException if the expression is not valid
+     */
+    public CompiledExpression compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new InvalidExpressionException("Empty expression");
+        }
+        CompiledExpression compiled = cache.getIfPresent(expression);
+        if (compiled == null) {
+            ExpressionParser parser = new ExpressionParser(expression, functions);
+            ExpressionNode root = parser.parse();
+            compiled = new CompiledExpression(expression, root, parser.getCalls(), promotionThreshold, generator);
+            cache.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Drop every cached expression, e.g. after the function registry was reloaded.
+     */
+    public void invalidate() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return number of cached compiled expressions
+     */
+    public long size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,141 @@
+package com.investment.metal.application.service.expression;
+
+import com.investment.metal.application.service.ExpressionFeeder;
+
+/**
+ * Immutable node of a compiled alert expression tree.
+ * Every node has a static {@link ValueType}; the parser guarantees that only the evaluation
+ * method matching that type is ever called, so evaluation never boxes or checks types.
+ */
+public sealed interface ExpressionNode {
+
+    ValueType type();
+
+    default double number(ExpressionFeeder feeder) {
+        throw new IllegalStateException("Not a numeric node: " + this);
+    }
+
+    default boolean condition(ExpressionFeeder feeder) {
+        throw new IllegalStateException("Not a boolean node: " + this);
+    }
+
+    record NumberLiteral(double value) implements ExpressionNode {
+        @Override
+        public ValueType type() {
+            return ValueType.NUMBER;
+        }
+
+        @Override
+        public double number(ExpressionFeeder feeder) {
+            return value;
+        }
+    }
+
+    record BooleanLiteral(boolean value) implements ExpressionNode {
+        @Override
+        public ValueType type() {
+            return ValueType.BOOLEAN;
+        }
+
+        @Override
+        public boolean condition(ExpressionFeeder feeder) {
+            return value;
+        }
+    }
+
+    /**
+     * Call of a registered function with constant arguments.
+     */
+    record FunctionCall(String name, double[] args, ValueType type) implements ExpressionNode {
+        public FunctionCall {
+            args = args.clone();
+        }
+
+        @Override
+        public double[] args() {
+            return args.clone();
+        }
+
+        @Override
+        public double number(ExpressionFeeder feeder) {
+            return feeder.number(name, args);
+        }
+
+        @Override
+        public boolean condition(ExpressionFeeder feeder) {
+            return feeder.condition(name, args);
+        }
+    }
+
+    record Negate(ExpressionNode operand) implements ExpressionNode {
+        @Override
+        public ValueType type() {
+            return ValueType.NUMBER;
+        }
+
+        @Override
+        public double number(ExpressionFeeder feeder) {
+            return -operand.number(feeder);
+        }
+    }
+
+    record Arithmetic(ArithmeticOperator operator, ExpressionNode left, ExpressionNode right) implements ExpressionNode {
+        @Override
+        public ValueType type() {
+            return ValueType.NUMBER;
+        }
+
+        @Override
+        public double number(ExpressionFeeder feeder) {
+            return operator.apply(left.number(feeder), right.number(feeder));
+        }
+    }
+
+    /**
+     * Comparison of two numbers, or equality of two conditions.
+     */
+    record Comparison(ComparisonOperator operator, ExpressionNode left, ExpressionNode right) implements ExpressionNode {
+        @Override
+        public ValueType type() {
+            return ValueType.BOOLEAN;
+        }
+
+        @Override
+        public boolean condition(ExpressionFeeder feeder) {
+            if (left.type() == ValueType.BOOLEAN) {
+                boolean equal = left.condition(feeder) == right.condition(feeder);
+                return operator == ComparisonOperator.EQ ? equal : !equal;
+            }
+            return operator.apply(left.number(feeder), right.number(feeder));
+        }
+    }
+
+    record Not(ExpressionNode operand) implements ExpressionNode {
+        @Override
+        public ValueType type() {
+            return ValueType.BOOLEAN;
+        }
+
+        @Override
+        public boolean condition(ExpressionFeeder feeder) {
+            return !operand.condition(feeder);
+        }
+    }
+
+    /**
+     * Short-circuit conjunction or disjunction.
+     */
+    record Logical(boolean and, ExpressionNode left, ExpressionNode right) implements ExpressionNode {
+        @Override
+        public ValueType type() {
+            return ValueType.BOOLEAN;
+        }
+
+        @Override
+        public boolean condition(ExpressionFeeder feeder) {
+            return and
+                    ? left.condition(feeder) && right.condition(feeder)
+                    : left.condition(feeder) || right.condition(feeder);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.investment.metal.application.service.expression;
+
+import com.investment.metal.application.exception.InvalidExpressionException;
+import com.investment.metal.application.service.FunctionInfo;
+import com.investment.metal.application.service.FunctionParam;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recursive descent parser and type-checker for alert expressions.
+ * <pre>
+ * expression     := or
+ * or             := and ( '||' and )*
+ * and            := not ( '&amp;&amp;' not )*
+ * not            := '!' not | comparison
+ * comparison     := additive ( ( '&lt;' | '&lt;=' | '&gt;' | '&gt;=' | '==' | '!=' ) additive )?
+ * additive       := multiplicative ( ( '+' | '-' ) multiplicative )*
+ * multiplicative := unary ( ( '*' | '/' ) unary )*
+ * unary          := '-' unary | primary
+ * primary        := NUMBER | 'true' | 'false' | '(' expression ')' | IDENT ( '(' ( arg ( ',' arg )* )? ')' )?
+ * arg            := '-'? NUMBER
+ * </pre>
+ * Function arguments are constants so they can be checked against the parameter bounds
+ * of the function registry once, at compile time.
+ */
+class ExpressionParser {
+
+    private final String text;
+
+    private final Map<String, FunctionInfo> functions;
+
+    private final List<ExpressionNode.FunctionCall> calls = new ArrayList<>();
+
+    private int pos;
+
+    ExpressionParser(String text, Map<String, FunctionInfo> functions) {
+        this.text = text;
+        this.functions = functions;
+    }
+
+    /**
+     * Parse the whole text into a boolean expression tree.
+     *
+     * @return the root node
+     * @throws InvalidExpressionException if the text is not a valid alert expression
+     */
+    ExpressionNode parse() {
+        ExpressionNode root = parseOr();
+        skipWhitespace();
+        if (pos < text.length()) {
+            throw error("Unexpected character '" + text.charAt(pos) + "'");
+        }
+        if (calls.isEmpty()) {
+            throw new InvalidExpressionException("Missing variables");
+        }
+        expect(root, ValueType.BOOLEAN, 0);
+        return root;
+    }
+
+    /**
+     * @return the function calls found by {@link #parse()}, in source order
+     */
+    List<ExpressionNode.FunctionCall> getCalls() {
+        return calls;
+    }
+
+    private ExpressionNode parseOr() {
+        ExpressionNode left = parseAnd();
+        while (true) {
+            int start = skipWhitespace();
+            if (!accept("||")) {
+                return left;
+            }
+            ExpressionNode right = parseAnd();
+            expect(left, ValueType.BOOLEAN, start);
+            expect(right, ValueType.BOOLEAN, start);
+            left = new ExpressionNode.Logical(false, left, right);
+        }
+    }
+
+    private ExpressionNode parseAnd() {
+        ExpressionNode left = parseNot();
+        while (true) {
+            int start = skipWhitespace();
+            if (!accept("&&")) {
+                return left;
+            }
+            ExpressionNode right = parseNot();
+            expect(left, ValueType.BOOLEAN, start);
+            expect(right, ValueType.BOOLEAN, start);
+            left = new ExpressionNode.Logical(true, left, right);
+        }
+    }
+
+    private ExpressionNode parseNot() {
+        int start = skipWhitespace();
+        if (peek() == '!' && peek(1) != '=') {
+            pos++;
+            ExpressionNode operand = parseNot();
+            expect(operand, ValueType.BOOLEAN, start);
+            return new ExpressionNode.Not(operand);
+        }
+        return parseComparison();
+    }
+
+    private ExpressionNode parseComparison() {
+        ExpressionNode left = parseAdditive();
+        int start = skipWhitespace();
+        ComparisonOperator operator = acceptComparison();
+        if (operator == null) {
+            return left;
+        }
+        ExpressionNode right = parseAdditive();
+        if (left.type() != right.type()) {
+            throw error("Can not compare " + left.type() + " with " + right.type(), start);
+        }
+        if (left.type() == ValueType.BOOLEAN
+                && operator != ComparisonOperator.EQ && operator != ComparisonOperator.NE) {
+            throw error("Operator " + operator.getSymbol() + " is not defined for conditions", start);
+        }
+        return new ExpressionNode.Comparison(operator, left, right);
+    }
+
+    private ExpressionNode parseAdditive() {
+        ExpressionNode left = parseMultiplicative();
+        while (true) {
+            int start = skipWhitespace();
+            ArithmeticOperator operator;
+            if (accept("+")) {
+                operator = ArithmeticOperator.ADD;
+            } else if (accept("-")) {
+                operator = ArithmeticOperator.SUBTRACT;
+            } else {
+                return left;
+            }
+            ExpressionNode right = parseMultiplicative();
+            left = arithmetic(operator, left, right, start);
+        }
+    }
+
+    private ExpressionNode parseMultiplicative() {
+        ExpressionNode left = parseUnary();
+        while (true) {
+            int start = skipWhitespace();
+            ArithmeticOperator operator;
+            if (accept("*")) {
+                operator = ArithmeticOperator.MULTIPLY;
+            } else if (accept("/")) {
+                operator = ArithmeticOperator.DIVIDE;
+            } else {
+                return left;
+            }
+            ExpressionNode right = parseUnary();
+            left = arithmetic(operator, left, right, start);
+        }
+    }
+
+    private ExpressionNode arithmetic(ArithmeticOperator operator, ExpressionNode left, ExpressionNode right, int start) {
+        expect(left, ValueType.NUMBER, start);
+        expect(right, ValueType.NUMBER, start);
+        if (left instanceof ExpressionNode.NumberLiteral l && right instanceof ExpressionNode.NumberLiteral r) {
+            return new ExpressionNode.NumberLiteral(operator.apply(l.value(), r.value()));
+        }
+        return new ExpressionNode.Arithmetic(operator, left, right);
+    }
+
+    private ExpressionNode parseUnary() {
+        int start = skipWhitespace();
+        if (accept("-")) {
+            ExpressionNode operand = parseUnary();
+            expect(operand, ValueType.NUMBER, start);
+            if (operand instanceof ExpressionNode.NumberLiteral literal) {
+                return new ExpressionNode.NumberLiteral(-literal.value());
+            }
+            return new ExpressionNode.Negate(operand);
+        }
+        return parsePrimary();
+    }
+
+    private ExpressionNode parsePrimary() {
+        int start = skipWhitespace();
+        char c = peek();
+        if (c == '(') {
+            pos++;
+            ExpressionNode inner = parseOr();
+            skipWhitespace();
+            if (!accept(")")) {
+                throw error("Missing ')'");
+            }
+            return inner;
+        }
+        if (isDigit(c) || c == '.') {
+            return new ExpressionNode.NumberLiteral(parseNumber());
+        }
+        if (Character.isLetter(c)) {
+            String name = parseIdentifier();
+            if ("true".equals(name) || "false".equals(name)) {
+                return new ExpressionNode.BooleanLiteral(Boolean.parseBoolean(name));
+            }
+            return parseCall(name, start);
+        }
+        if (c == 0) {
+            throw error("Unexpected end of expression");
+        }
+        throw error("Unexpected character '" + c + "'");
+    }
+
+    private ExpressionNode parseCall(String name, int start) {
+        final FunctionInfo function = functions.get(name);
+        if (function == null) {
+            throw new InvalidExpressionException("Undefined function: " + name, start);
+        }
+        List<Double> args = new ArrayList<>();
+        skipWhitespace();
+        if (accept("(")) {
+            skipWhitespace();
+            if (!accept(")")) {
+                do {
+                    skipWhitespace();
+                    boolean negative = accept("-");
+                    skipWhitespace();
+                    if (!isDigit(peek()) && peek() != '.') {
+                        throw error("Function " + name + " accepts only numeric constants as parameters");
+                    }
+                    double value = parseNumber();
+                    args.add(negative ? -value : value);
+                    skipWhitespace();
+                } while (accept(","));
+                if (!accept(")")) {
+                    throw error("Missing ')' after the parameters of function " + name);
+                }
+            }
+        }
+
+        List<FunctionParam> params = function.getParameters();
+        if (params.size() != args.size()) {
+            throw new InvalidExpressionException("Missing parameters for function: " + name, start);
+        }
+        double[] values = new double[args.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = args.get(i);
+            FunctionParam param = params.get(i);
+            if (values[i] <= param.getMin() || values[i] >= param.getMax()) {
+                throw new InvalidExpressionException(String.format(
+                        "The parameter %.4f is outside of interval[%.4f, %.4f]",
+                        values[i], param.getMin(), param.getMax()), start);
+            }
+        }
+
+        ExpressionNode.FunctionCall call = new ExpressionNode.FunctionCall(
+                name, values, ValueType.ofReturnedType(function.getReturnedType()));
+        calls.add(call);
+        return call;
+    }
+
+    private ComparisonOperator acceptComparison() {
+        if (accept("<=")) {
+            return ComparisonOperator.LE;
+        }
+        if (accept(">=")) {
+            return ComparisonOperator.GE;
+        }
+        if (accept("==")) {
+            return ComparisonOperator.EQ;
+        }
+        if (accept("!=")) {
+            return ComparisonOperator.NE;
+        }
+        if (accept("<")) {
+            return ComparisonOperator.LT;
+        }
+        if (accept(">")) {
+            return ComparisonOperator.GT;
+        }
+        return null;
+    }
+
+    private double parseNumber() {
+        int start = pos;
+        while (isDigit(peek())) {
+            pos++;
+        }
+        if (peek() == '.') {
+            pos++;
+            while (isDigit(peek())) {
+                pos++;
+            }
+        }
+        String literal = text.substring(start, pos);
+        if (literal.equals(".")) {
+            throw error("Invalid number", start);
+        }
+        return Double.parseDouble(literal);
+    }
+
+    private String parseIdentifier() {
+        int start = pos;
+        while (Character.isLetterOrDigit(peek()) || peek() == '_') {
+            pos++;
+        }
+        return text.substring(start, pos);
+    }
+
+    private void expect(ExpressionNode node, ValueType type, int at) {
+        if (node.type() != type) {
+            throw error("Expected a " + type.name().toLowerCase() + " but found a " + node.type().name().toLowerCase(), at);
+        }
+    }
+
+    private boolean accept(String token) {
+        if (text.startsWith(token, pos)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private int skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private char peek() {
+        return peek(0);
+    }
+
+    private char peek(int offset) {
+        int index = pos + offset;
+        return index < text.length() ? text.charAt(index) : 0;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private InvalidExpressionException error(String message) {
+        return error(message, pos);
+    }
+
+    private InvalidExpressionException error(String message, int at) {
+        return new InvalidExpressionException(message + " at position " + at, at);
+    }
+}
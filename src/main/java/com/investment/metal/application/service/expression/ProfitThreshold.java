@@ -0,0 +1,102 @@
+package com.investment.metal.application.service.expression;
+
+import java.util.Optional;
+
+/**
+ * Normalized form {@code profit <operator> threshold} of an alert expression that is a single
+ * ordering comparison, linear in {@code profit} and without any other function.
+ * Such alerts do not need the evaluator: whether they hold only depends on where the metal price
+ * is relative to the break-even price of the user's position.
+ *
+ * @param operator one of {@link ComparisonOperator#LT}, {@link ComparisonOperator#LE},
+ *                 {@link ComparisonOperator#GT} or {@link ComparisonOperator#GE}
+ * @param threshold the profit the alert compares against
+ */
+public record ProfitThreshold(ComparisonOperator operator, double threshold) {
+
+    private static final String PROFIT = "profit";
+
+    /**
+     * @return true for {@code profit > C} and {@code profit >= C}, false for {@code profit < C} and {@code profit <= C}
+     */
+    public boolean isAbove() {
+        return operator == ComparisonOperator.GT || operator == ComparisonOperator.GE;
+    }
+
+    /**
+     * @return true if the comparison also holds at equality
+     */
+    public boolean isInclusive() {
+        return operator == ComparisonOperator.GE || operator == ComparisonOperator.LE;
+    }
+
+    /**
+     * Recognize expressions such as {@code profit > 100}, {@code 50 <= profit} or {@code profit * 2 - 10 < 0}.
+     *
+     * @param root the root of a compiled expression
+     * @return the normalized threshold, or empty if the expression has any other shape
+     */
+    static Optional<ProfitThreshold> recognize(ExpressionNode root) {
+        if (!(root instanceof ExpressionNode.Comparison comparison)
+                || comparison.left().type() != ValueType.NUMBER
+                || comparison.operator() == ComparisonOperator.EQ
+                || comparison.operator() == ComparisonOperator.NE) {
+            return Optional.empty();
+        }
+        Linear left = linear(comparison.left());
+        Linear right = linear(comparison.right());
+        if (left == null || right == null) {
+            return Optional.empty();
+        }
+        // a * profit + b <op> 0
+        double a = left.slope() - right.slope();
+        double b = left.offset() - right.offset();
+        if (a == 0 || !Double.isFinite(a) || !Double.isFinite(b)) {
+            return Optional.empty();
+        }
+        ComparisonOperator operator = a > 0 ? comparison.operator() : comparison.operator().mirror();
+        return Optional.of(new ProfitThreshold(operator, -b / a));
+    }
+
+    /**
+     * @return the node as {@code slope * profit + offset}, or null if it is not linear in profit
+     */
+    private static Linear linear(ExpressionNode node) {
+        return switch (node) {
+            case ExpressionNode.NumberLiteral literal -> new Linear(0, literal.value());
+            case ExpressionNode.FunctionCall call -> PROFIT.equals(call.name()) && call.args().length == 0
+                    ? new Linear(1, 0) : null;
+            case ExpressionNode.Negate negate -> {
+                Linear operand = linear(negate.operand());
+                yield operand == null ? null : new Linear(-operand.slope(), -operand.offset());
+            }
+            case ExpressionNode.Arithmetic arithmetic -> linear(arithmetic);
+            default -> null;
+        };
+    }
+
+    private static Linear linear(ExpressionNode.Arithmetic arithmetic) {
+        Linear left = linear(arithmetic.left());
+        Linear right = linear(arithmetic.right());
+        if (left == null || right == null) {
+            return null;
+        }
+        return switch (arithmetic.operator()) {
+            case ADD -> new Linear(left.slope() + right.slope(), left.offset() + right.offset());
+            case SUBTRACT -> new Linear(left.slope() - right.slope(), left.offset() - right.offset());
+            case MULTIPLY -> {
+                if (left.slope() != 0 && right.slope() != 0) {
+                    yield null;
+                }
+                Linear constant = left.slope() == 0 ? left : right;
+                Linear other = left.slope() == 0 ? right : left;
+                yield new Linear(other.slope() * constant.offset(), other.offset() * constant.offset());
+            }
+            case DIVIDE -> right.slope() != 0 || right.offset() == 0
+                    ? null : new Linear(left.slope() / right.offset(), left.offset() / right.offset());
+        };
+    }
+
+    private record Linear(double slope, double offset) {
+    }
+}
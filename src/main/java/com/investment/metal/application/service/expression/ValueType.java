@@ -0,0 +1,20 @@
+package com.investment.metal.application.service.expression;
+
+/**
+ * Static type of an alert expression node, resolved once at compile time.
+ */
+public enum ValueType {
+    NUMBER,
+    BOOLEAN;
+
+    /**
+     * Map the {@code returned_type} column of the {@code expressionfunction} table to a value type.
+     * Only {@code boolean} functions are conditions, everything else yields a number.
+     *
+     * @param returnedType the declared return type of a function
+     * @return the value type of a call to that function
+     */
+    public static ValueType ofReturnedType(String returnedType) {
+        return "boolean".equalsIgnoreCase(returnedType) ? BOOLEAN : NUMBER;
+    }
+}
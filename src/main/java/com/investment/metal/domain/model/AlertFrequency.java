@@ -1,14 +1,39 @@
 package com.investment.metal.domain.model;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Domain model for Alert Frequency following Domain-Driven Design principles.
  * Represents the frequency at which alerts should be checked.
  */
 public enum AlertFrequency {
-    HOURLY,
-    DAILY,
-    WEEKLY,
-    MONTHLY;
+    HOURLY(TimeUnit.HOURS.toMillis(1)),
+    DAILY(TimeUnit.DAYS.toMillis(1)),
+    WEEKLY(TimeUnit.DAYS.toMillis(7)),
+    MONTHLY(TimeUnit.DAYS.toMillis(30));
+
+    private final long intervalMillis;
+
+    AlertFrequency(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * @return time between two checks of an alert, in milliseconds
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Compute when an alert checked at the given time is due again.
+     *
+     * @param checkedAt epoch milliseconds of the check
+     * @return epoch milliseconds of the next check
+     */
+    public long nextCheckAfter(long checkedAt) {
+        return checkedAt + intervalMillis;
+    }
 
     public static AlertFrequency lookup(String value) {
         try {
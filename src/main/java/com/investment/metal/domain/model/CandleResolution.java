@@ -0,0 +1,45 @@
+package com.investment.metal.domain.model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Domain model for Candle Resolution.
+ * Width of the buckets the price ticks are rolled up into; buckets are aligned on the epoch, so the daily
+ * candles start at midnight UTC.
+ */
+public enum CandleResolution {
+    MINUTE(TimeUnit.MINUTES.toMillis(1)),
+    HOUR(TimeUnit.HOURS.toMillis(1)),
+    DAY(TimeUnit.DAYS.toMillis(1));
+
+    private final long millis;
+
+    CandleResolution(long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * @return width of a bucket, in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @param time epoch milliseconds
+     * @return epoch milliseconds of the start of the bucket holding the time
+     */
+    public long bucketStart(long time) {
+        return Math.floorDiv(time, millis) * millis;
+    }
+
+    /**
+     * @return number of buckets touched by the range [from, to)
+     */
+    public long bucketCount(long from, long to) {
+        if (to <= from) {
+            return 0;
+        }
+        return (bucketStart(to - 1) - bucketStart(from)) / millis + 1;
+    }
+}
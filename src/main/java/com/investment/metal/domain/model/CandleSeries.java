@@ -0,0 +1,201 @@
+package com.investment.metal.domain.model;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * Domain model for CandleSeries.
+ * Chronological open, high, low, close candles of one metal at one resolution, stored column-wise in primitive
+ * arrays like {@link PriceSeries}. Each candle also keeps the times of its first and last tick, so candles
+ * built from ticks arriving out of order can be merged.
+ */
+public final class CandleSeries {
+
+    @Getter
+    private final MetalType metalType;
+
+    @Getter
+    private final CandleResolution resolution;
+
+    private final long[] starts;
+
+    private final long[] openTimes;
+
+    private final double[] opens;
+
+    private final double[] highs;
+
+    private final double[] lows;
+
+    private final long[] closeTimes;
+
+    private final double[] closes;
+
+    private final int[] tickCounts;
+
+    private final int size;
+
+    private CandleSeries(Builder builder) {
+        this.metalType = builder.metalType;
+        this.resolution = builder.resolution;
+        this.size = builder.size;
+        this.starts = Arrays.copyOf(builder.starts, size);
+        this.openTimes = Arrays.copyOf(builder.openTimes, size);
+        this.opens = Arrays.copyOf(builder.opens, size);
+        this.highs = Arrays.copyOf(builder.highs, size);
+        this.lows = Arrays.copyOf(builder.lows, size);
+        this.closeTimes = Arrays.copyOf(builder.closeTimes, size);
+        this.closes = Arrays.copyOf(builder.closes, size);
+        this.tickCounts = Arrays.copyOf(builder.tickCounts, size);
+    }
+
+    /**
+     * Roll the ticks of a series up into candles.
+     *
+     * @param series the ticks, oldest first
+     * @param resolution width of the candles
+     * @return one candle per bucket holding at least one tick
+     */
+    public static CandleSeries of(PriceSeries series, CandleResolution resolution) {
+        Builder builder = new Builder(series.getMetalType(), resolution, 16);
+        for (int i = 0; i < series.size(); i++) {
+            builder.tick(series.time(i), series.price(i));
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return epoch milliseconds of the start of the bucket of the candle
+     */
+    public long start(int index) {
+        return starts[index];
+    }
+
+    public long openTime(int index) {
+        return openTimes[index];
+    }
+
+    public double open(int index) {
+        return opens[index];
+    }
+
+    public double high(int index) {
+        return highs[index];
+    }
+
+    public double low(int index) {
+        return lows[index];
+    }
+
+    public long closeTime(int index) {
+        return closeTimes[index];
+    }
+
+    public double close(int index) {
+        return closes[index];
+    }
+
+    public int tickCount(int index) {
+        return tickCounts[index];
+    }
+
+    /**
+     * Accumulates candles into a series, growing its arrays as needed.
+     */
+    public static final class Builder {
+
+        private final MetalType metalType;
+
+        private final CandleResolution resolution;
+
+        private long[] starts;
+
+        private long[] openTimes;
+
+        private double[] opens;
+
+        private double[] highs;
+
+        private double[] lows;
+
+        private long[] closeTimes;
+
+        private double[] closes;
+
+        private int[] tickCounts;
+
+        private int size;
+
+        public Builder(MetalType metalType, CandleResolution resolution, int expectedSize) {
+            this.metalType = metalType;
+            this.resolution = resolution;
+            int capacity = Math.max(16, expectedSize);
+            this.starts = new long[capacity];
+            this.openTimes = new long[capacity];
+            this.opens = new double[capacity];
+            this.highs = new double[capacity];
+            this.lows = new double[capacity];
+            this.closeTimes = new long[capacity];
+            this.closes = new double[capacity];
+            this.tickCounts = new int[capacity];
+        }
+
+        /**
+         * Append a candle; candles must be added in ascending start order.
+         */
+        public Builder add(long start, long openTime, double open, double high, double low,
+                           long closeTime, double close, int tickCount) {
+            if (size == starts.length) {
+                this.grow();
+            }
+            starts[size] = start;
+            openTimes[size] = openTime;
+            opens[size] = open;
+            highs[size] = high;
+            lows[size] = low;
+            closeTimes[size] = closeTime;
+            closes[size] = close;
+            tickCounts[size] = tickCount;
+            size++;
+            return this;
+        }
+
+        /**
+         * Add a tick to the last candle, or open a new candle when the tick falls in a later bucket.
+         * Ticks must be added in ascending time order.
+         */
+        public Builder tick(long time, double price) {
+            long start = resolution.bucketStart(time);
+            int last = size - 1;
+            if (last < 0 || starts[last] != start) {
+                return this.add(start, time, price, price, price, time, price, 1);
+            }
+            highs[last] = Math.max(highs[last], price);
+            lows[last] = Math.min(lows[last], price);
+            closeTimes[last] = time;
+            closes[last] = price;
+            tickCounts[last]++;
+            return this;
+        }
+
+        public CandleSeries build() {
+            return new CandleSeries(this);
+        }
+
+        private void grow() {
+            int capacity = starts.length * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            openTimes = Arrays.copyOf(openTimes, capacity);
+            opens = Arrays.copyOf(opens, capacity);
+            highs = Arrays.copyOf(highs, capacity);
+            lows = Arrays.copyOf(lows, capacity);
+            closeTimes = Arrays.copyOf(closeTimes, capacity);
+            closes = Arrays.copyOf(closes, capacity);
+            tickCounts = Arrays.copyOf(tickCounts, capacity);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.investment.metal.domain.model;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * Domain model for PriceSeries.
+ * Chronological price ticks of one metal stored column-wise in primitive arrays,
+ * so long histories can be scanned without one object per tick.
+ */
+public final class PriceSeries {
+
+    @Getter
+    private final MetalType metalType;
+
+    private final long[] times;
+
+    private final double[] prices;
+
+    /**
+     * @param metalType the metal
+     * @param times epoch milliseconds of the ticks, in ascending order
+     * @param prices prices of one kilogram in the provider currency
+     */
+    public PriceSeries(MetalType metalType, long[] times, double[] prices) {
+        if (times.length != prices.length) {
+            throw new IllegalArgumentException("Times and prices must have the same length");
+        }
+        this.metalType = metalType;
+        this.times = times;
+        this.prices = prices;
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    public long time(int index) {
+        return times[index];
+    }
+
+    public double price(int index) {
+        return prices[index];
+    }
+
+    /**
+     * @return index of the first tick not older than the given time, or {@link #size()} if there is none
+     */
+    public int indexOf(long time) {
+        int index = Arrays.binarySearch(times, time);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && times[index - 1] == time) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Accumulates ticks into a series, growing its arrays as needed.
+     */
+    public static final class Builder {
+
+        private final MetalType metalType;
+
+        private long[] times;
+
+        private double[] prices;
+
+        private int size;
+
+        public Builder(MetalType metalType, int expectedSize) {
+            this.metalType = metalType;
+            this.times = new long[Math.max(16, expectedSize)];
+            this.prices = new double[this.times.length];
+        }
+
+        /**
+         * Append a tick; ticks must be added in ascending time order.
+         */
+        public Builder add(long time, double price) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            times[size] = time;
+            prices[size] = price;
+            size++;
+            return this;
+        }
+
+        public PriceSeries build() {
+            return new PriceSeries(metalType, Arrays.copyOf(times, size), Arrays.copyOf(prices, size));
+        }
+    }
+}
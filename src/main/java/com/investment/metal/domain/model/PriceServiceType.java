@@ -6,5 +6,9 @@ package com.investment.metal.domain.model;
  */
 public enum PriceServiceType {
     GALMARLEY,
-    BLOOMBERG
+    BLOOMBERG,
+    /**
+     * Replays a recorded tick file instead of calling a provider, for offline load and latency tests
+     */
+    REPLAY
 }
@@ -0,0 +1,128 @@
+package com.investment.metal.domain.model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Domain model for PriceSnapshot.
+ * Immutable view of every input needed to value a position: the market price of each metal,
+ * the Revolut markup of each metal and the currency to RON rate, all captured at the same moment.
+ * One snapshot is taken per scheduler tick or per request and shared by all profit calculations,
+ * so valuing a position is pure arithmetic.
+ */
+@Getter
+public final class PriceSnapshot {
+
+    private final CurrencyType currencyType;
+
+    private final double currencyToRonRate;
+
+    private final LocalDateTime timestamp;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<MetalType, Double> metalPricesKg;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<MetalType, Double> revolutMarkups;
+
+    private PriceSnapshot(CurrencyType currencyType, double currencyToRonRate, LocalDateTime timestamp,
+                          Map<MetalType, Double> metalPricesKg, Map<MetalType, Double> revolutMarkups) {
+        this.currencyType = currencyType;
+        this.currencyToRonRate = currencyToRonRate;
+        this.timestamp = timestamp;
+        this.metalPricesKg = metalPricesKg;
+        this.revolutMarkups = revolutMarkups;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the metals captured by this snapshot
+     */
+    public Set<MetalType> getMetalTypes() {
+        return metalPricesKg.keySet();
+    }
+
+    /**
+     * Check if the snapshot holds a price for the given metal
+     */
+    public boolean contains(MetalType metalType) {
+        return metalPricesKg.containsKey(metalType);
+    }
+
+    /**
+     * Market price of one kilogram, in the currency of the price provider
+     *
+     * @throws IllegalArgumentException if the metal was not captured
+     */
+    public double getMetalPriceKg(MetalType metalType) {
+        Double price = metalPricesKg.get(metalType);
+        if (price == null) {
+            throw new IllegalArgumentException("No price captured for " + metalType);
+        }
+        return price;
+    }
+
+    /**
+     * Revolut markup over the market price, as a fraction (0.02 means 2%)
+     */
+    public double getRevolutMarkup(MetalType metalType) {
+        return revolutMarkups.getOrDefault(metalType, 0d);
+    }
+
+    /**
+     * Revolut price of one kilogram in RON: market price plus markup, converted with the captured rate
+     *
+     * @throws IllegalArgumentException if the metal was not captured
+     */
+    public double getRevolutPriceKg(MetalType metalType) {
+        return getMetalPriceKg(metalType) * (getRevolutMarkup(metalType) + 1) * currencyToRonRate;
+    }
+
+    public static final class Builder {
+
+        private final Map<MetalType, Double> metalPricesKg = new EnumMap<>(MetalType.class);
+
+        private final Map<MetalType, Double> revolutMarkups = new EnumMap<>(MetalType.class);
+
+        private CurrencyType currencyType;
+
+        private double currencyToRonRate = 1d;
+
+        private LocalDateTime timestamp;
+
+        private Builder() {
+        }
+
+        public Builder currency(CurrencyType currencyType, double currencyToRonRate) {
+            this.currencyType = currencyType;
+            this.currencyToRonRate = currencyToRonRate;
+            return this;
+        }
+
+        public Builder metal(MetalType metalType, double priceKg, double revolutMarkup) {
+            this.metalPricesKg.put(metalType, priceKg);
+            this.revolutMarkups.put(metalType, revolutMarkup);
+            return this;
+        }
+
+        public Builder timestamp(LocalDateTime timestamp) {
+            this.timestamp = timestamp;
+            return this;
+        }
+
+        public PriceSnapshot build() {
+            return new PriceSnapshot(currencyType, currencyToRonRate,
+                    timestamp != null ? timestamp : LocalDateTime.now(),
+                    Collections.unmodifiableMap(new EnumMap<>(metalPricesKg)),
+                    Collections.unmodifiableMap(new EnumMap<>(revolutMarkups)));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.investment.metal.domain.model;
+
+/**
+ * Domain model for SeriesVersion.
+ * Summary of the stored rows of a time range, read with one aggregate query instead of the rows themselves.
+ * Every write to the range changes it: an insert or a delete changes the row count, and a tick merged into a
+ * stored candle adds to the tick count. Writes outside the range leave it unchanged, and it only depends on the
+ * stored rows, so every instance computes the same one.
+ *
+ * @param rows number of rows of the range
+ * @param ticks number of ticks the rows were built from; the row count for the raw prices
+ * @param newestTime epoch milliseconds of the newest tick of the range, 0 if the range is empty
+ */
+public record SeriesVersion(long rows, long ticks, long newestTime) {
+
+    /**
+     * @return the version as a short token
+     */
+    public String toToken() {
+        return Long.toString(rows, 36) + "." + Long.toString(ticks, 36) + "." + Long.toString(newestTime, 36);
+    }
+}
@@ -2,7 +2,9 @@ package com.investment.metal.domain.repository;
 
 import com.investment.metal.domain.model.MetalPrice;
 import com.investment.metal.domain.model.MetalType;
-import java.util.List;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.model.SeriesVersion;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -10,11 +12,51 @@ import java.util.Optional;
  */
 public interface MetalPriceRepository {
 
+    /**
+     * @param metalType the metal
+     * @return the price with the newest time, read without loading the other prices of the metal
+     */
     Optional<MetalPrice> findLatestByMetalType(MetalType metalType);
 
-    List<MetalPrice> findAllByMetalType(MetalType metalType);
+
+    /**
+     * Load the price ticks of a metal in a time range, oldest first, without materializing entities.
+     *
+     * @param metalType the metal
+     * @param from inclusive start of the range
+     * @param to exclusive end of the range
+     * @return the ticks of the range
+     */
+    PriceSeries findSeries(MetalType metalType, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Summarize the price ticks of a metal in a time range without reading them.
+     *
+     * @param metalType the metal
+     * @param from inclusive start of the range
+     * @param to exclusive end of the range
+     * @return the number of ticks of the range and the time of the newest one
+     */
+    SeriesVersion findVersion(MetalType metalType, LocalDateTime from, LocalDateTime to);
 
     MetalPrice save(MetalPrice price);
 
-    void deleteAll(List<MetalPrice> prices);
+    /**
+     * Insert the ticks of a series in JDBC batches, without going through the entity manager.
+     * The caller removes the ticks that are already stored.
+     *
+     * @param series the ticks to insert
+     * @return the number of ticks inserted
+     */
+    int saveSeries(PriceSeries series);
+
+    /**
+     * Delete at most {@code limit} of the prices of a metal older than a time, with one statement.
+     *
+     * @param metalType the metal
+     * @param cutoff prices before this time are deleted
+     * @param limit maximum number of rows deleted
+     * @return the number of rows deleted
+     */
+    int deleteOlderThan(MetalType metalType, LocalDateTime cutoff, int limit);
 }
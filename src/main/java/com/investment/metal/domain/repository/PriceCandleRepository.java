@@ -0,0 +1,56 @@
+package com.investment.metal.domain.repository;
+
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.CandleSeries;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.SeriesVersion;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Domain repository abstraction for the price candles rolled up from the metal prices.
+ */
+public interface PriceCandleRepository {
+
+    /**
+     * Merge candles into the stored ones with one upsert per candle, sent in JDBC batches: a stored candle keeps
+     * the open of its earliest tick and the close of its latest one, widens its high and low and adds the tick
+     * counts; a missing candle is inserted.
+     *
+     * @param candles the candles to merge
+     */
+    void merge(Collection<CandleSeries> candles);
+
+    /**
+     * Load the candles of a metal whose bucket starts in a time range, oldest first.
+     *
+     * @param metalType the metal
+     * @param resolution the resolution of the candles
+     * @param from inclusive start of the range
+     * @param to exclusive end of the range
+     * @return the candles of the range
+     */
+    CandleSeries findCandles(MetalType metalType, CandleResolution resolution, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Summarize the candles of a metal whose bucket starts in a time range without reading them.
+     *
+     * @param metalType the metal
+     * @param resolution the resolution of the candles
+     * @param from inclusive start of the range
+     * @param to exclusive end of the range
+     * @return the number of candles of the range, their total tick count and the close time of the newest one
+     */
+    SeriesVersion findVersion(MetalType metalType, CandleResolution resolution, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Delete at most {@code limit} of the candles of a metal whose bucket starts before a time, with one statement.
+     *
+     * @param metalType the metal
+     * @param resolution the resolution of the candles
+     * @param cutoff candles starting before this time are deleted
+     * @param limit maximum number of rows deleted
+     * @return the number of rows deleted
+     */
+    int deleteOlderThan(MetalType metalType, CandleResolution resolution, LocalDateTime cutoff, int limit);
+}
@@ -1,13 +1,19 @@
 package com.investment.metal.infrastructure.config;
 
 import com.investment.metal.domain.model.PriceServiceType;
+import com.investment.metal.infrastructure.service.PriceProviderGuard;
 import com.investment.metal.infrastructure.service.price.BloombergPriceReader;
 import com.investment.metal.infrastructure.service.price.ExternalMetalPriceReader;
 import com.investment.metal.infrastructure.service.price.GalmarleyPriceReader;
+import com.investment.metal.infrastructure.service.price.HedgedPriceReader;
+import com.investment.metal.infrastructure.service.price.RecordingPriceReader;
+import com.investment.metal.infrastructure.service.price.ReplayPriceReader;
 import com.zaxxer.hikari.HikariConfig;
-import io.github.resilience4j.timelimiter.TimeLimiterConfig;
-import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -35,6 +41,54 @@ public class Config implements WebMvcConfigurer {
   @Value("${service.metal.price.host}")
   private PriceServiceType servicePriceType;
 
+  @Value("${service.metal.price.read-timeout-ms:2000}")
+  private long priceReadTimeoutMillis;
+
+  @Value("${service.metal.price.hedge.enabled:false}")
+  private boolean hedgeEnabled;
+
+  @Value("${service.metal.price.hedge.mode:FASTEST}")
+  private HedgedPriceReader.Mode hedgeMode;
+
+  @Value("${service.metal.price.hedge.delay-ms:0}")
+  private long hedgeDelayMillis;
+
+  @Value("${service.metal.price.hedge.percentile:0.95}")
+  private double hedgePercentile;
+
+  @Value("${service.metal.price.hedge.timeout-ms:2500}")
+  private long hedgeTimeoutMillis;
+
+  @Value("${service.metal.price.replay.file:}")
+  private String replayFile;
+
+  @Value("${service.metal.price.replay.speed:1}")
+  private double replaySpeed;
+
+  @Value("${service.metal.price.replay.latency:RECORDED}")
+  private ReplayPriceReader.Latency replayLatency;
+
+  @Value("${service.metal.price.replay.latency-median-ms:200}")
+  private long replayLatencyMedianMillis;
+
+  @Value("${service.metal.price.replay.latency-p99-ms:1000}")
+  private long replayLatencyP99Millis;
+
+  @Value("${service.metal.price.replay.error-rate:0}")
+  private double replayErrorRate;
+
+  @Value("${service.metal.price.replay.hang-rate:0}")
+  private double replayHangRate;
+
+  @Value("${service.metal.price.replay.seed:1}")
+  private long replaySeed;
+
+  @Value("${service.metal.price.replay.record-file:}")
+  private String recordFile;
+
+  @Value("${service.metal.price.backfill.enabled:true}")
+  private boolean backfillEnabled;
+
   @Bean
   @Primary
   @ConfigurationProperties(prefix = "spring.datasource.hikari")
@@ -42,30 +96,44 @@ public class Config implements WebMvcConfigurer {
     return new HikariConfig();
   }
 
-
-
+  /**
+   * The reader of the configured provider, or, when hedging is enabled, a {@link HedgedPriceReader} querying
+   * the configured provider first and the other providers as hedges. The replay reader is never hedged, nor
+   * used as a hedge. The reader of each provider goes through its own circuit breakers and time limiter, also
+   * when it is hedged. When a record file is configured, the reads of a live provider are recorded to it.
+   */
   @Bean
-  public TimeLimiterRegistry timeLimiter() {
-    TimeLimiterConfig config = TimeLimiterConfig.custom()
-        .cancelRunningFuture(true)
-        .timeoutDuration(Duration.ofMillis(500))
-        .build();
-
-    return TimeLimiterRegistry.of(config);
+  public ExternalMetalPriceReader createMetalPriceReader(HttpClient httpClient, PriceProviderGuard priceProviderGuard) {
+    ExternalMetalPriceReader reader = priceProviderGuard.guard(newMetalPriceReader(servicePriceType, httpClient));
+    if (servicePriceType == PriceServiceType.REPLAY) {
+      return reader;
+    }
+    if (hedgeEnabled) {
+      Map<String, ExternalMetalPriceReader> readers = new LinkedHashMap<>();
+      readers.put(servicePriceType.name(), reader);
+      for (PriceServiceType type : PriceServiceType.values()) {
+        if (type != servicePriceType && type != PriceServiceType.REPLAY) {
+          readers.put(type.name(), priceProviderGuard.guard(newMetalPriceReader(type, httpClient)));
+        }
+      }
+      reader = new HedgedPriceReader(readers, hedgeMode, hedgeDelayMillis, hedgePercentile, hedgeTimeoutMillis);
+    }
+    return recordFile.isBlank() ? reader : new RecordingPriceReader(reader, Path.of(recordFile));
   }
 
-  @Bean
-  public ExternalMetalPriceReader createMetalPriceReader() {
-    ExternalMetalPriceReader priceService = null;
-    switch (servicePriceType) {
-      case GALMARLEY:
-        priceService = new GalmarleyPriceReader();
-        break;
-      case BLOOMBERG:
-        priceService = new BloombergPriceReader();
-        break;
-    }
-    return priceService;
+  private ExternalMetalPriceReader newMetalPriceReader(PriceServiceType type, HttpClient httpClient) {
+    Duration readTimeout = Duration.ofMillis(priceReadTimeoutMillis);
+    return switch (type) {
+      case GALMARLEY -> new GalmarleyPriceReader(httpClient, readTimeout, backfillEnabled);
+      case BLOOMBERG -> new BloombergPriceReader(httpClient, readTimeout, backfillEnabled);
+      case REPLAY -> {
+        if (replayFile.isBlank()) {
+          throw new IllegalStateException("service.metal.price.replay.file is required to replay prices");
+        }
+        yield new ReplayPriceReader(Path.of(replayFile), replaySpeed, replayLatency, replayLatencyMedianMillis,
+            replayLatencyP99Millis, replayErrorRate, replayHangRate, replaySeed);
+      }
+    };
   }
 
 
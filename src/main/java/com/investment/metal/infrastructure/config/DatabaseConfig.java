@@ -55,6 +55,8 @@ public class DatabaseConfig {
         config.setValidationTimeout(3000);
         config.setConnectionTestQuery("SELECT 1");
         config.setInitializationFailTimeout(-1);
+        // send JDBC batches as multi-row inserts instead of one statement per row
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
         
         HikariDataSource dataSource = new HikariDataSource(config);
         verifyConnectionAsync(dataSource);
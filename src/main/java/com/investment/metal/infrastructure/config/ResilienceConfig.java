@@ -4,11 +4,15 @@ import io.github.resilience4j.bulkhead.BulkheadConfig;
 import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
 import io.github.resilience4j.ratelimiter.RateLimiterConfig;
 import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import io.github.resilience4j.timelimiter.TimeLimiterConfig;
 import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -19,8 +23,14 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ResilienceConfig {
 
+    /**
+     * One circuit breaker is created per (provider, metal) pair on first use; the state, calls and failure
+     * rate of each one are published as {@code resilience4j.circuitbreaker.*} metrics tagged with its name.
+     * A cancelled request, such as the loser of a hedged read, and a request refused by the request budget are
+     * neither failures nor successes.
+     */
     @Bean
-    public CircuitBreakerRegistry circuitBreakerRegistry() {
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
         CircuitBreakerConfig config = CircuitBreakerConfig.custom()
             .failureRateThreshold(50)
             .slowCallRateThreshold(50)
@@ -31,9 +41,12 @@ public class ResilienceConfig {
             .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
             .slidingWindowSize(10)
             .recordExceptions(java.io.IOException.class, java.util.concurrent.TimeoutException.class, RuntimeException.class)
+            .ignoreExceptions(java.util.concurrent.CancellationException.class, RequestNotPermitted.class)
             .build();
 
-        return CircuitBreakerRegistry.of(config);
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
     }
 
     @Bean
@@ -57,10 +70,14 @@ public class ResilienceConfig {
         return RateLimiterRegistry.of(config);
     }
 
+    /**
+     * The time limit of a price request, the longest of the price timeouts: the HTTP read timeout of the readers
+     * and the time the hedged median waits for the providers are shorter, so they end a slow request first.
+     */
     @Bean
-    public TimeLimiterRegistry timeLimiterRegistry() {
+    public TimeLimiterRegistry timeLimiterRegistry(@Value("${service.metal.price.timeout-ms:3000}") long timeoutMillis) {
         TimeLimiterConfig config = TimeLimiterConfig.custom()
-            .timeoutDuration(Duration.ofSeconds(3))  // Reduced timeout for better protection
+            .timeoutDuration(Duration.ofMillis(timeoutMillis))
             .cancelRunningFuture(true)  // Cancel running futures on timeout
             .build();
 
@@ -1,15 +1,21 @@
 package com.investment.metal.infrastructure.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.investment.metal.MessageKey;
 import com.investment.metal.application.dto.AlertDto;
 import com.investment.metal.application.dto.AlertsDto;
 import com.investment.metal.application.dto.MetalInfoDto;
 import com.investment.metal.application.dto.ProfitDto;
+import com.investment.metal.application.service.AlertBacktest;
+import com.investment.metal.application.service.AlertBacktestService;
 import com.investment.metal.application.service.AlertService;
 import com.investment.metal.application.service.FunctionInfo;
 import com.investment.metal.application.service.FunctionParam;
 import com.investment.metal.application.service.MetalPriceService;
 import com.investment.metal.application.service.NotificationService;
+import com.investment.metal.application.service.PriceHistory;
+import com.investment.metal.application.service.PriceHistoryService;
 import com.investment.metal.application.service.PurchaseService;
 import com.investment.metal.domain.dto.ExpressionFunctionDto;
 import com.investment.metal.domain.dto.ExpressionFunctionParameterDto;
@@ -21,6 +27,8 @@ import com.investment.metal.domain.model.CurrencyType;
 import com.investment.metal.domain.model.MetalPrice;
 import com.investment.metal.domain.model.MetalPurchase;
 import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.model.PriceSnapshot;
 import com.investment.metal.infrastructure.dto.AppStatusInfoDto;
 import com.investment.metal.infrastructure.dto.SimpleMessageDto;
 import com.investment.metal.infrastructure.exception.ExceptionService;
@@ -55,6 +63,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -62,15 +75,21 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST Controller for protected API endpoints that require JWT authentication.
@@ -124,6 +143,15 @@ public class ProtectedApiController {
     @Autowired
     private AlertService alertService;
 
+    @Autowired
+    private AlertBacktestService alertBacktestService;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
     private CurrencyService currencyService;
 
@@ -394,9 +422,14 @@ public class ProtectedApiController {
 
         final ProfitDto dto = new ProfitDto(user.getUsername());
         List<MetalPurchase> metalPurchases = this.purchaseService.getAllPurchase(loginEntity.getUserId());
-        metalPurchases.stream()
-                .map(this.metalPriceService::calculatesUserProfit)
-                .forEach(dto::addInfo);
+        if (!metalPurchases.isEmpty()) {
+            final PriceSnapshot snapshot = this.metalPriceService.capturePriceSnapshot(metalPurchases.stream()
+                    .map(MetalPurchase::getMetalType)
+                    .collect(Collectors.toSet()));
+            metalPurchases.stream()
+                    .map(purchase -> this.metalPriceService.calculatesUserProfit(purchase, snapshot))
+                    .forEach(dto::addInfo);
+        }
 
         return new ResponseEntity<>(dto, HttpStatus.OK);
     }
@@ -560,6 +593,173 @@ public class ProtectedApiController {
         return new ResponseEntity<>(dto, HttpStatus.OK);
     }
 
+    @RequestMapping(value = "/alerts/backtest", method = RequestMethod.POST)
+    @RateLimiter(name = "api-rate-limiter")
+    @Operation(
+            summary = "Backtest price alert",
+            description = "Replays an alert expression over the stored price history of a metal and streams every tick where it would have fired"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Firings streamed as a JSON document"),
+            @ApiResponse(responseCode = "400", description = "Invalid expression, metal symbol, frequency or range",
+                    content = @Content(schema = @Schema(implementation = SimpleMessageDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token",
+                    content = @Content(schema = @Schema(implementation = SimpleMessageDto.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> backtestAlert(
+            @Parameter(description = "Mathematical expression for the alert condition", required = true)
+            @RequestHeader("expression") final String expression,
+            @Parameter(description = "Symbol of the metal (e.g., GOLD, SILVER)", required = true)
+            @RequestHeader("metalSymbol") final String metalSymbol,
+            @Parameter(description = "Start of the range, ISO date or date-time (e.g., 2025-01-01T00:00:00)", required = true)
+            @RequestHeader("from") final String from,
+            @Parameter(description = "End of the range, ISO date or date-time; defaults to now")
+            @RequestHeader(value = "to", required = false) final String to,
+            @Parameter(description = "Alert frequency (e.g., HOURLY, DAILY); the alert fires at most once per period")
+            @RequestHeader(value = "frequency", defaultValue = "HOURLY") final String frequency
+    ) {
+        // Validate input parameters to prevent SQL injection
+        this.validationService.validateExpression(expression);
+        this.validationService.validateMetalSymbol(metalSymbol);
+        this.validationService.validateFrequency(frequency);
+
+        AlertFrequency alertFrequency = AlertFrequency.lookup(frequency);
+        this.exceptionService.check(alertFrequency == null, MessageKey.INVALID_REQUEST, "Invalid frequency header");
+        MetalType metalType = MetalType.lookup(metalSymbol);
+        this.exceptionService.check(metalType == null, MessageKey.INVALID_REQUEST, "metalSymbol header is invalid");
+        String expInvalidMessage = this.alertService.evaluateExpression(expression).isValid();
+        this.exceptionService.check(expInvalidMessage != null, MessageKey.INVALID_REQUEST, expInvalidMessage);
+        final LocalDateTime fromTime = this.parseDateTime(from, "from header");
+        final LocalDateTime toTime = to == null ? LocalDateTime.now() : this.parseDateTime(to, "to header");
+        this.exceptionService.check(!fromTime.isBefore(toTime), MessageKey.INVALID_REQUEST, "from must be before to");
+
+        Objects.requireNonNull(alertFrequency);
+        Objects.requireNonNull(metalType);
+
+        String token = Util.getTokenFromRequest(request);
+        final Login loginEntity = this.loginService.getLogin(token);
+        MetalPurchase metalPurchase = this.purchaseService.getPurchase(loginEntity.getUserId(), metalType.getSymbol());
+        final AlertBacktest backtest = this.alertBacktestService
+                .prepare(expression, metalType, alertFrequency, metalPurchase, fromTime, toTime);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator json = this.objectMapper.getFactory().createGenerator(outputStream)) {
+                json.writeStartObject();
+                json.writeStringField("metalSymbol", metalType.getSymbol());
+                json.writeStringField("expression", expression);
+                json.writeNumberField("ticks", backtest.getTickCount());
+                json.writeArrayFieldStart("firings");
+                int fired = backtest.run((time, price, profit) -> {
+                    json.writeStartObject();
+                    json.writeStringField("time", Instant.ofEpochMilli(time).toString());
+                    json.writeNumberField("price", price);
+                    json.writeNumberField("profit", profit);
+                    json.writeEndObject();
+                    json.flush();
+                });
+                json.writeEndArray();
+                json.writeNumberField("count", fired);
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @RequestMapping(value = "/prices/{symbol}", method = RequestMethod.GET)
+    @RateLimiter(name = "api-rate-limiter")
+    @Operation(
+            summary = "Get price history",
+            description = "Streams the prices of a metal in a range as a JSON array of [epoch millis, price] pairs, read from the price candles or the raw prices and downsampled to the requested number of points"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Prices streamed as a JSON array"),
+            @ApiResponse(responseCode = "304", description = "The prices of the range did not change since the version in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid metal symbol, range or number of points",
+                    content = @Content(schema = @Schema(implementation = SimpleMessageDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token",
+                    content = @Content(schema = @Schema(implementation = SimpleMessageDto.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> getPriceHistory(
+            @Parameter(description = "Symbol of the metal (e.g., AUX, AGX)", required = true)
+            @PathVariable("symbol") final String symbol,
+            @Parameter(description = "Start of the range, ISO date or date-time (e.g., 2025-01-01T00:00:00)", required = true)
+            @RequestParam("from") final String from,
+            @Parameter(description = "End of the range, ISO date or date-time; defaults to now")
+            @RequestParam(value = "to", required = false) final String to,
+            @Parameter(description = "Maximum number of prices returned, between 2 and " + PriceHistoryService.MAX_POINTS)
+            @RequestParam(value = "points", defaultValue = "500") final int points,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch
+    ) {
+        // Validate input parameters to prevent SQL injection
+        this.validationService.validateMetalSymbol(symbol);
+
+        MetalType metalType = MetalType.lookup(symbol);
+        this.exceptionService.check(metalType == null, MessageKey.INVALID_REQUEST, "symbol is invalid");
+        this.exceptionService.check(points < 2 || points > PriceHistoryService.MAX_POINTS, MessageKey.INVALID_REQUEST,
+                "points must be between 2 and " + PriceHistoryService.MAX_POINTS);
+        final LocalDateTime fromTime = this.parseDateTime(from, "from parameter");
+        final LocalDateTime toTime = to == null ? LocalDateTime.now() : this.parseDateTime(to, "to parameter");
+        this.exceptionService.check(!fromTime.isBefore(toTime), MessageKey.INVALID_REQUEST, "from must be before to");
+        Objects.requireNonNull(metalType);
+
+        String token = Util.getTokenFromRequest(request);
+        final Login loginEntity = this.loginService.getLogin(token);
+        Objects.requireNonNull(loginEntity, "The user is not logged in");
+
+        final PriceHistory history = this.priceHistoryService.prepare(metalType,
+                fromTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                toTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), points);
+        final String eTag = history.getETag();
+        // the backfill and the candle merges can still change old ranges, so every load is revalidated
+        final CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+
+        final PriceSeries prices = this.priceHistoryService.load(history);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator json = this.objectMapper.getFactory().createGenerator(outputStream)) {
+                json.writeStartArray();
+                for (int i = 0; i < prices.size(); i++) {
+                    json.writeStartArray();
+                    json.writeNumber(prices.time(i));
+                    json.writeNumber(prices.price(i));
+                    json.writeEndArray();
+                }
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(body);
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LocalDateTime parseDateTime(String value, String name) {
+        try {
+            return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw this.exceptionService
+                    .createBuilder(MessageKey.INVALID_REQUEST)
+                    .setArguments(name + " is not an ISO date or date-time")
+                    .build();
+        }
+    }
+
     @RequestMapping(value = "/revolutAlert", method = RequestMethod.GET)
     @Transactional(noRollbackFor = NoRollbackBusinessException.class)
     @Operation(
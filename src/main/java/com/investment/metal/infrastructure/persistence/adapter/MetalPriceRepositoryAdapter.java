@@ -2,43 +2,75 @@ package com.investment.metal.infrastructure.persistence.adapter;
 
 import com.investment.metal.domain.model.MetalPrice;
 import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.model.SeriesVersion;
 import com.investment.metal.domain.repository.MetalPriceRepository;
 import com.investment.metal.infrastructure.mapper.MetalPriceMapper;
 import com.investment.metal.infrastructure.persistence.repository.MetalPriceJpaRepository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Domain repository adapter backed by {@link MetalPriceJpaRepository}.
+ * Domain repository adapter backed by {@link MetalPriceJpaRepository}; bulk inserts use plain JDBC batches
+ * because the identity ids of the entity disable the batching of Hibernate, and old prices are deleted with
+ * bounded set-based statements instead of entity by entity.
  */
 @Component
 public class MetalPriceRepositoryAdapter implements MetalPriceRepository {
 
+    private static final String INSERT_PRICE = "insert into metalprices (metal_symbol, price, time) values (?, ?, ?)";
+    private static final String FIND_VERSION =
+            "select count(*), max(time) from metalprices where metal_symbol = ? and time >= ? and time < ?";
+    private static final String DELETE_OLDER_THAN = "delete from metalprices where metal_symbol = ? and time < ? limit ?";
+
+    /**
+     * Rows sent to the database per batch
+     */
+    private static final int BATCH_SIZE = 500;
+
     private final MetalPriceJpaRepository metalPriceJpaRepository;
     private final MetalPriceMapper metalPriceMapper;
+    private final JdbcTemplate jdbcTemplate;
 
     public MetalPriceRepositoryAdapter(MetalPriceJpaRepository metalPriceJpaRepository,
-                                       MetalPriceMapper metalPriceMapper) {
+                                       MetalPriceMapper metalPriceMapper,
+                                       JdbcTemplate jdbcTemplate) {
         this.metalPriceJpaRepository = metalPriceJpaRepository;
         this.metalPriceMapper = metalPriceMapper;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
     public Optional<MetalPrice> findLatestByMetalType(MetalType metalType) {
-        return metalPriceJpaRepository.findByMetalSymbol(metalType.getSymbol())
-                .flatMap(list -> list.stream().findFirst())
+        return metalPriceJpaRepository.findFirstByMetalSymbolOrderByTimeDescIdDesc(metalType.getSymbol())
                 .map(metalPriceMapper::toDomain);
     }
 
     @Override
-    public List<MetalPrice> findAllByMetalType(MetalType metalType) {
-        return metalPriceJpaRepository.findByMetalSymbol(metalType.getSymbol())
-                .orElseGet(List::of)
-                .stream()
-                .map(metalPriceMapper::toDomain)
-                .collect(Collectors.toList());
+    public PriceSeries findSeries(MetalType metalType, LocalDateTime from, LocalDateTime to) {
+        List<Object[]> rows = metalPriceJpaRepository.findTimesAndPrices(metalType.getSymbol(),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        PriceSeries.Builder series = new PriceSeries.Builder(metalType, rows.size());
+        for (Object[] row : rows) {
+            series.add(((Timestamp) row[0]).getTime(), ((Number) row[1]).doubleValue());
+        }
+        return series.build();
+    }
+
+    @Override
+    public SeriesVersion findVersion(MetalType metalType, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.queryForObject(FIND_VERSION, (resultSet, row) -> {
+            Timestamp newest = resultSet.getTimestamp(2);
+            return new SeriesVersion(resultSet.getLong(1), resultSet.getLong(1), newest == null ? 0 : newest.getTime());
+        }, metalType.getSymbol(), Timestamp.valueOf(from), Timestamp.valueOf(to));
     }
 
     @Override
@@ -48,10 +80,39 @@ public class MetalPriceRepositoryAdapter implements MetalPriceRepository {
     }
 
     @Override
-    public void deleteAll(List<MetalPrice> prices) {
-        var entities = prices.stream()
-                .map(metalPriceMapper::toEntity)
-                .collect(Collectors.toList());
-        metalPriceJpaRepository.deleteAll(entities);
+    @Transactional
+    public int saveSeries(PriceSeries series) {
+        final String symbol = series.getMetalType().getSymbol();
+        int inserted = 0;
+        for (int offset = 0; offset < series.size(); offset += BATCH_SIZE) {
+            final int start = offset;
+            final int count = Math.min(BATCH_SIZE, series.size() - offset);
+            int[] rows = jdbcTemplate.batchUpdate(INSERT_PRICE, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setString(1, symbol);
+                    statement.setDouble(2, series.price(start + i));
+                    statement.setTimestamp(3, new Timestamp(series.time(start + i)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return count;
+                }
+            });
+            // with rewritten batches the driver reports SUCCESS_NO_INFO instead of a row count
+            for (int row : rows) {
+                inserted += row == PreparedStatement.SUCCESS_NO_INFO ? 1 : row;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Runs in its own transaction unless the caller has one, so the rows it locks are released at once.
+     */
+    @Override
+    public int deleteOlderThan(MetalType metalType, LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_OLDER_THAN, metalType.getSymbol(), Timestamp.valueOf(cutoff), limit);
     }
 }
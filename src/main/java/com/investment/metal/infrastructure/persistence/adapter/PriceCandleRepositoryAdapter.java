@@ -0,0 +1,126 @@
+package com.investment.metal.infrastructure.persistence.adapter;
+
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.CandleSeries;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.SeriesVersion;
+import com.investment.metal.domain.repository.PriceCandleRepository;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Domain repository adapter storing the price candles with plain JDBC: the candles are merged with
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} on the (metal_symbol, resolution, bucket_start) primary key, so
+ * a tick updates its candles without reading them first.
+ */
+@Component
+public class PriceCandleRepositoryAdapter implements PriceCandleRepository {
+
+    // MySQL applies the assignments from left to right: open and close are compared to the times before update
+    private static final String MERGE_CANDLE = """
+            insert into price_candles (metal_symbol, resolution, bucket_start, open_time, open_price, high_price,
+                low_price, close_time, close_price, tick_count)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            on duplicate key update
+                open_price = if(values(open_time) < open_time, values(open_price), open_price),
+                open_time = least(open_time, values(open_time)),
+                high_price = greatest(high_price, values(high_price)),
+                low_price = least(low_price, values(low_price)),
+                close_price = if(values(close_time) >= close_time, values(close_price), close_price),
+                close_time = greatest(close_time, values(close_time)),
+                tick_count = tick_count + values(tick_count)""";
+    private static final String FIND_CANDLES = """
+            select bucket_start, open_time, open_price, high_price, low_price, close_time, close_price, tick_count
+            from price_candles
+            where metal_symbol = ? and resolution = ? and bucket_start >= ? and bucket_start < ?
+            order by bucket_start""";
+    private static final String FIND_VERSION = """
+            select count(*), coalesce(sum(tick_count), 0), max(close_time)
+            from price_candles
+            where metal_symbol = ? and resolution = ? and bucket_start >= ? and bucket_start < ?""";
+    private static final String DELETE_OLDER_THAN =
+            "delete from price_candles where metal_symbol = ? and resolution = ? and bucket_start < ? limit ?";
+
+    /**
+     * Rows sent to the database per batch
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PriceCandleRepositoryAdapter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void merge(Collection<CandleSeries> candles) {
+        List<Object[]> rows = new ArrayList<>();
+        for (CandleSeries series : candles) {
+            for (int i = 0; i < series.size(); i++) {
+                rows.add(new Object[]{
+                        series.getMetalType().getSymbol(),
+                        series.getResolution().name(),
+                        new Timestamp(series.start(i)),
+                        new Timestamp(series.openTime(i)),
+                        series.open(i),
+                        series.high(i),
+                        series.low(i),
+                        new Timestamp(series.closeTime(i)),
+                        series.close(i),
+                        series.tickCount(i)
+                });
+            }
+        }
+        for (int offset = 0; offset < rows.size(); offset += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(MERGE_CANDLE, rows.subList(offset, Math.min(rows.size(), offset + BATCH_SIZE)));
+        }
+    }
+
+    @Override
+    public CandleSeries findCandles(MetalType metalType, CandleResolution resolution,
+                                    LocalDateTime from, LocalDateTime to) {
+        CandleSeries.Builder candles = new CandleSeries.Builder(metalType, resolution, 256);
+        jdbcTemplate.query(FIND_CANDLES, (RowCallbackHandler) resultSet -> addCandle(candles, resultSet),
+                metalType.getSymbol(), resolution.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return candles.build();
+    }
+
+    @Override
+    public SeriesVersion findVersion(MetalType metalType, CandleResolution resolution,
+                                     LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.queryForObject(FIND_VERSION, (resultSet, row) -> {
+            Timestamp newest = resultSet.getTimestamp(3);
+            return new SeriesVersion(resultSet.getLong(1), resultSet.getLong(2), newest == null ? 0 : newest.getTime());
+        }, metalType.getSymbol(), resolution.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Runs in its own transaction unless the caller has one, so the rows it locks are released at once.
+     */
+    @Override
+    public int deleteOlderThan(MetalType metalType, CandleResolution resolution, LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_OLDER_THAN, metalType.getSymbol(), resolution.name(),
+                Timestamp.valueOf(cutoff), limit);
+    }
+
+    private static void addCandle(CandleSeries.Builder candles, ResultSet resultSet) throws SQLException {
+        candles.add(resultSet.getTimestamp(1).getTime(),
+                resultSet.getTimestamp(2).getTime(),
+                resultSet.getDouble(3),
+                resultSet.getDouble(4),
+                resultSet.getDouble(5),
+                resultSet.getTimestamp(6).getTime(),
+                resultSet.getDouble(7),
+                resultSet.getInt(8));
+    }
+}
@@ -32,6 +32,15 @@ public class Alert {
     @Column(name = "last_time_checked")
     private Timestamp lastTimeChecked;
 
+    @Column(name = "next_check_at")
+    private Timestamp nextCheckAt;
+
+    /**
+     * True if the alert is a simple profit threshold served by the threshold index instead of the evaluator
+     */
+    @Column(name = "threshold_indexed")
+    private boolean thresholdIndexed;
+
     public AlertFrequency getFrequency() {
         return AlertFrequency.valueOf(this.frequency);
     }
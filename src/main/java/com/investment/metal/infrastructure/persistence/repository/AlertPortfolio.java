@@ -0,0 +1,26 @@
+package com.investment.metal.infrastructure.persistence.repository;
+
+import com.investment.metal.infrastructure.persistence.entity.Alert;
+import com.investment.metal.infrastructure.persistence.entity.Customer;
+import com.investment.metal.infrastructure.persistence.entity.Purchase;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One alert joined with its owner and the owner's position in the alert's metal,
+ * as loaded by {@link AlertRepository#findDuePortfoliosByMetalSymbol}.
+ */
+@Getter
+@AllArgsConstructor
+public class AlertPortfolio {
+
+    private final Alert alert;
+
+    private final Customer user;
+
+    /**
+     * The user's purchase of the alert's metal, or null if the user does not own any
+     */
+    private final Purchase purchase;
+
+}
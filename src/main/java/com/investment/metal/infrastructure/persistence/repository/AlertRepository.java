@@ -1,10 +1,15 @@
 package com.investment.metal.infrastructure.persistence.repository;
 
 import com.investment.metal.infrastructure.persistence.entity.Alert;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface AlertRepository extends JpaRepository<Alert, Integer> {
@@ -15,4 +20,41 @@ public interface AlertRepository extends JpaRepository<Alert, Integer> {
 
     Optional<List<Alert>> findByMetalSymbol(String metalSymbol);
 
+    /**
+     * Load every alert on a metal together with its owner and the owner's purchase of that metal
+     * in a single round trip.
+     */
+    @Query("select new com.investment.metal.infrastructure.persistence.repository.AlertPortfolio(a, c, p) "
+            + "from Alert a join Customer c on c.id = a.userId "
+            + "left join Purchase p on p.userId = a.userId and p.metalSymbol = a.metalSymbol "
+            + "where a.metalSymbol = ?1")
+    List<AlertPortfolio> findPortfoliosByMetalSymbol(String metalSymbol);
+
+    /**
+     * Load the alerts on a metal that are due for a check, together with their owners and the owners'
+     * purchases of that metal, in a single round trip. Served by the (metal_symbol, next_check_at) index;
+     * users without due alerts on the metal are not touched. Alerts served by the profit threshold index are skipped.
+     */
+    @Query("select new com.investment.metal.infrastructure.persistence.repository.AlertPortfolio(a, c, p) "
+            + "from Alert a join Customer c on c.id = a.userId "
+            + "left join Purchase p on p.userId = a.userId and p.metalSymbol = a.metalSymbol "
+            + "where a.metalSymbol = ?1 and a.nextCheckAt <= ?2 and a.thresholdIndexed = false")
+    List<AlertPortfolio> findDuePortfoliosByMetalSymbol(String metalSymbol, Timestamp now);
+
+    /**
+     * Record a check of the given alerts and schedule the next one, without loading them.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Alert a set a.lastTimeChecked = ?2, a.nextCheckAt = ?3 where a.id in ?1")
+    int markChecked(Collection<Integer> alertIds, Timestamp checkedAt, Timestamp nextCheckAt);
+
+    /**
+     * Flag alerts as served, or no longer served, by the profit threshold index.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Alert a set a.thresholdIndexed = ?2 where a.id in ?1")
+    int markThresholdIndexed(Collection<Integer> alertIds, boolean indexed);
+
 }
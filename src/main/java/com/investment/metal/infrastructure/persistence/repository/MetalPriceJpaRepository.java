@@ -1,6 +1,7 @@
 package com.investment.metal.infrastructure.persistence.repository;
 
 import com.investment.metal.infrastructure.persistence.entity.MetalPrice;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,7 +11,16 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface MetalPriceJpaRepository extends JpaRepository<MetalPrice, Integer> {
 
-    @Query("select t from MetalPrice t where t.metalSymbol=?1 order by t.id desc")
-    Optional<List<MetalPrice>> findByMetalSymbol(String symbol);
+    /**
+     * @return the newest price of a metal, read from the end of the (metal_symbol, time) index
+     */
+    Optional<MetalPrice> findFirstByMetalSymbolOrderByTimeDescIdDesc(String symbol);
+
+    /**
+     * @return (time, price) pairs of a metal in [from, to), oldest first, as scalar rows instead of entities
+     */
+    @Query("select t.time, t.price from MetalPrice t where t.metalSymbol = ?1 and t.time >= ?2 and t.time < ?3 "
+            + "order by t.time")
+    List<Object[]> findTimesAndPrices(String symbol, Timestamp from, Timestamp to);
 
 }
@@ -1,6 +1,7 @@
 package com.investment.metal.infrastructure.service;
 
 import com.investment.metal.MessageKey;
+import com.investment.metal.application.service.ProfitAlertIndex;
 import com.investment.metal.domain.exception.BusinessException;
 import com.investment.metal.infrastructure.exception.ExceptionService;
 import com.investment.metal.infrastructure.persistence.entity.Alert;
@@ -48,6 +49,9 @@ public class AccountService {
     @Autowired
     private ExceptionService exceptionService;
 
+    @Autowired
+    private ProfitAlertIndex profitAlertIndex;
+
     public Customer registerNewUser(String username, String password, String email) throws BusinessException {
         Optional<Customer> customerOp = this.customerRepository.findByUsername(username);
         if (customerOp.isPresent()) {
@@ -147,6 +151,7 @@ public class AccountService {
         // Delete all purchases for this user
         Optional<List<Purchase>> userPurchases = purchaseRepository.findByUserId(userId);
         userPurchases.ifPresent(purchases -> purchaseRepository.deleteAll(purchases));
+        this.profitAlertIndex.invalidate();
 
         // Delete notification preferences for this user
         notificationRepository.deleteByUserId(userId);
@@ -0,0 +1,266 @@
+package com.investment.metal.infrastructure.service;
+
+import com.investment.metal.domain.model.MetalType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedules the metal price updates at an interval that follows the market instead of a fixed hour.
+ * After every update the realised volatility of each metal is estimated as an exponentially weighted average
+ * of its squared log returns per hour; the interval is then the time in which the most volatile metal is
+ * expected to move by the target move, so volatile days are polled more often and flat markets less.
+ * <ul>
+ *   <li>When a profit alert is close to its threshold, the interval also stays short enough for the price to
+ *   move {@link #THRESHOLD_SIGMAS} standard deviations less than the distance to it.</li>
+ *   <li>Between the Friday close and the Sunday open of the spot market, the interval is the ceiling, or
+ *   the time left until the open.</li>
+ *   <li>The interval stays between the floor and the ceiling, and never gets shorter than the request budget
+ *   per hour of the price providers allows.</li>
+ * </ul>
+ * The current interval, the volatility and the reason of the last decision are published as gauges.
+ */
+@Slf4j
+@Component
+public class AdaptivePollingTrigger implements Trigger {
+
+    /**
+     * What the current interval is based on
+     */
+    public enum Reason {
+        /**
+         * No volatility estimate yet, the base interval is used
+         */
+        BASE,
+        /**
+         * Shortened by the realised volatility
+         */
+        VOLATILE,
+        /**
+         * Lengthened because the prices barely move
+         */
+        FLAT,
+        /**
+         * Shortened because an alert is close to its threshold
+         */
+        NEAR_THRESHOLD,
+        /**
+         * The spot market is closed for the weekend
+         */
+        MARKET_CLOSED,
+        /**
+         * Raised to stay within the request budget of a provider
+         */
+        BUDGET
+    }
+
+    /**
+     * Weight of the newest squared return in the volatility estimate
+     */
+    static final double EWMA_WEIGHT = 0.3;
+
+    /**
+     * Standard deviations of the price move kept between two updates and the nearest alert threshold
+     */
+    static final double THRESHOLD_SIGMAS = 2;
+
+    private static final double MILLIS_PER_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Weekly close and open of the spot metal market, in UTC
+     */
+    private static final DayOfWeek CLOSE_DAY = DayOfWeek.FRIDAY;
+    private static final LocalTime CLOSE_TIME = LocalTime.of(21, 0);
+    private static final DayOfWeek OPEN_DAY = DayOfWeek.SUNDAY;
+    private static final LocalTime OPEN_TIME = LocalTime.of(22, 0);
+
+    private final long baseMillis;
+
+    private final long floorMillis;
+
+    private final long ceilingMillis;
+
+    private final double targetMove;
+
+    /**
+     * Shortest interval the budgets allow, see {@link PriceRequestBudget#getShortestIntervalMillis()}
+     */
+    private final long budgetMillis;
+
+    private final Clock clock;
+
+    private final Map<MetalType, Double> lastPrices = new EnumMap<>(MetalType.class);
+
+    private final Map<MetalType, Long> lastTimes = new EnumMap<>(MetalType.class);
+
+    /**
+     * Squared log return per hour of each metal, exponentially weighted
+     */
+    private final Map<MetalType, Double> variances = new EnumMap<>(MetalType.class);
+
+    private volatile long intervalMillis;
+
+    private volatile Reason reason = Reason.BASE;
+
+    private volatile double volatility = Double.NaN;
+
+    /**
+     * @param baseMillis interval used until the volatility is known
+     * @param floorMillis shortest interval
+     * @param ceilingMillis longest interval
+     * @param targetMove relative price move expected between two updates, e.g. 0.005 for 0.5%
+     * @param budget request budgets of the price providers
+     * @param meterRegistry registry of the gauges
+     */
+    @Autowired
+    public AdaptivePollingTrigger(@Value("${service.metal.price.polling.base-ms:3600000}") long baseMillis,
+                                  @Value("${service.metal.price.polling.floor-ms:300000}") long floorMillis,
+                                  @Value("${service.metal.price.polling.ceiling-ms:14400000}") long ceilingMillis,
+                                  @Value("${service.metal.price.polling.target-move:0.005}") double targetMove,
+                                  PriceRequestBudget budget,
+                                  MeterRegistry meterRegistry) {
+        this(baseMillis, floorMillis, ceilingMillis, targetMove, budget.getShortestIntervalMillis(), meterRegistry,
+                Clock.systemUTC());
+    }
+
+    AdaptivePollingTrigger(long baseMillis, long floorMillis, long ceilingMillis, double targetMove,
+                           long budgetMillis, MeterRegistry meterRegistry, Clock clock) {
+        if (floorMillis <= 0 || ceilingMillis < floorMillis) {
+            throw new IllegalArgumentException("The polling interval needs 0 < floor <= ceiling");
+        }
+        this.baseMillis = baseMillis;
+        this.floorMillis = floorMillis;
+        this.ceilingMillis = ceilingMillis;
+        this.targetMove = targetMove;
+        this.budgetMillis = budgetMillis;
+        this.clock = clock;
+        this.decide(clock.millis(), Double.POSITIVE_INFINITY);
+
+        Gauge.builder("metal.price.polling.interval", this, trigger -> trigger.intervalMillis)
+                .baseUnit("milliseconds")
+                .description("Current interval between two metal price updates")
+                .register(meterRegistry);
+        Gauge.builder("metal.price.polling.volatility", this, trigger -> trigger.volatility)
+                .description("Realised hourly volatility of the most volatile metal")
+                .register(meterRegistry);
+        for (Reason value : Reason.values()) {
+            Gauge.builder("metal.price.polling.reason", this, trigger -> trigger.reason == value ? 1 : 0)
+                    .tag("reason", value.name())
+                    .description("1 for the reason of the current polling interval")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Update the volatility with the prices of an update and choose the next interval.
+     *
+     * @param prices the prices of one kg read by the update
+     * @param distanceToNextThreshold relative move after which one more alert holds, infinite if none
+     */
+    public synchronized void record(Map<MetalType, Double> prices, double distanceToNextThreshold) {
+        long now = clock.millis();
+        for (Map.Entry<MetalType, Double> price : prices.entrySet()) {
+            MetalType metalType = price.getKey();
+            Double previous = lastPrices.get(metalType);
+            long elapsed = previous == null ? 0 : now - lastTimes.get(metalType);
+            if (previous != null && previous > 0 && price.getValue() > 0 && elapsed > 0) {
+                double logReturn = Math.log(price.getValue() / previous);
+                double variance = logReturn * logReturn / (elapsed / MILLIS_PER_HOUR);
+                variances.merge(metalType, variance,
+                        (old, sample) -> (1 - EWMA_WEIGHT) * old + EWMA_WEIGHT * sample);
+            }
+            lastPrices.put(metalType, price.getValue());
+            lastTimes.put(metalType, now);
+        }
+        volatility = variances.values().stream()
+                .mapToDouble(Math::sqrt)
+                .max()
+                .orElse(Double.NaN);
+        this.decide(now, distanceToNextThreshold);
+        log.info("Next metal price update in {} s ({}, hourly volatility {})",
+                TimeUnit.MILLISECONDS.toSeconds(intervalMillis), reason, volatility);
+    }
+
+    @Override
+    public Instant nextExecution(TriggerContext triggerContext) {
+        Instant last = triggerContext.lastCompletion();
+        return (last != null ? last : clock.instant()).plusMillis(intervalMillis);
+    }
+
+    /**
+     * @return the current interval between two updates
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * @return what the current interval is based on
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    private void decide(long now, double distanceToNextThreshold) {
+        long interval;
+        Reason decision;
+        long untilOpen = untilMarketOpen(now);
+        if (untilOpen > 0) {
+            interval = Math.min(ceilingMillis, untilOpen);
+            decision = Reason.MARKET_CLOSED;
+        } else if (Double.isNaN(volatility)) {
+            interval = baseMillis;
+            decision = Reason.BASE;
+        } else {
+            double hours = volatility > 0 ? Math.pow(targetMove / volatility, 2) : Double.POSITIVE_INFINITY;
+            decision = hours * MILLIS_PER_HOUR < baseMillis ? Reason.VOLATILE : Reason.FLAT;
+            if (volatility > 0 && distanceToNextThreshold < Double.POSITIVE_INFINITY) {
+                double thresholdHours = Math.pow(distanceToNextThreshold / (THRESHOLD_SIGMAS * volatility), 2);
+                if (thresholdHours < hours) {
+                    hours = thresholdHours;
+                    decision = Reason.NEAR_THRESHOLD;
+                }
+            }
+            interval = (long) Math.min(hours * MILLIS_PER_HOUR, ceilingMillis);
+        }
+        interval = Math.max(interval, floorMillis);
+        if (interval < budgetMillis) {
+            interval = budgetMillis;
+            decision = Reason.BUDGET;
+        }
+        intervalMillis = interval;
+        reason = decision;
+    }
+
+    /**
+     * @return time left until the spot market opens again, 0 while it is open
+     */
+    static long untilMarketOpen(long now) {
+        ZonedDateTime time = Instant.ofEpochMilli(now).atZone(ZoneOffset.UTC);
+        DayOfWeek day = time.getDayOfWeek();
+        boolean closed = day == DayOfWeek.SATURDAY
+                || (day == CLOSE_DAY && !time.toLocalTime().isBefore(CLOSE_TIME))
+                || (day == OPEN_DAY && time.toLocalTime().isBefore(OPEN_TIME));
+        if (!closed) {
+            return 0;
+        }
+        ZonedDateTime open = time.with(TemporalAdjusters.nextOrSame(OPEN_DAY)).with(OPEN_TIME);
+        return Duration.between(time, open).toMillis();
+    }
+}
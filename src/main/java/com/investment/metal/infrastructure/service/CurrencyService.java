@@ -10,6 +10,8 @@ import org.springframework.stereotype.Service;
 /**
  * Infrastructure service for managing currency exchange rates.
  * Handles currency data persistence and retrieval.
+ * Rates are read from the {@link LastKnownGoodStore} when it knows them, so valuing a position needs no database
+ * query for the currency.
  */
 @Service
 public class CurrencyService extends AbstractService {
@@ -17,13 +19,24 @@ public class CurrencyService extends AbstractService {
     @Autowired
     private CurrencyJpaRepository currencyRepository;
 
+    @Autowired
+    private LastKnownGoodStore lastKnownGoodStore;
+
     /**
      * Find currency by symbol.
      * 
      * @param type the currency type to find
-     * @return the currency entity or null if not found
+     * @return the currency entity or null if not found; a rate read from the last known good store has no id
+     * and no time
      */
     public Currency findBySymbol(CurrencyType type) {
+        Double rate = this.lastKnownGoodStore.getRate(type);
+        if (rate != null) {
+            Currency currency = new Currency();
+            currency.setSymbol(type.name());
+            currency.setRon(rate);
+            return currency;
+        }
         return this.currencyRepository.findBySymbol(type.name());
     }
 
@@ -34,7 +47,7 @@ public class CurrencyService extends AbstractService {
      * @param value the exchange rate value
      */
     public void save(CurrencyType currencyType, double value) {
-        Currency curr = this.findBySymbol(currencyType);
+        Currency curr = this.currencyRepository.findBySymbol(currencyType.name());
         if (curr == null) {
             curr = new Currency();
         }
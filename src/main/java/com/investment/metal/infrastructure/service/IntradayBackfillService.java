@@ -0,0 +1,152 @@
+package com.investment.metal.infrastructure.service;
+
+import com.investment.metal.application.service.PriceRollupService;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import com.investment.metal.infrastructure.service.price.ExternalMetalPriceReader;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stores the intraday chart points the price providers return along with the latest price, so the price history
+ * has minute-level resolution instead of one tick per scheduler run.
+ * Each run takes the series the price reader kept from the responses of the last price update, so the history
+ * costs no request of its own. It keeps at most one point per spacing interval, drops the intervals that already
+ * hold a stored tick and inserts the rest in JDBC batches. Runs are idempotent, so the
+ * overlapping series of consecutive runs are stored once. The inserted points are rolled up into the price candles.
+ * Points older than the price retention are not stored, so the backfill does not re-insert purged rows.
+ */
+@Slf4j
+@Service
+public class IntradayBackfillService {
+
+    private final ExternalMetalPriceReader priceReader;
+
+    private final MetalPriceRepository metalPriceRepository;
+
+    private final PriceRollupService priceRollupService;
+
+    private final boolean enabled;
+
+    private final long spacingMillis;
+
+    private final long retentionMillis;
+
+    private final LongSupplier clock;
+
+    @Autowired
+    public IntradayBackfillService(ExternalMetalPriceReader priceReader,
+                                   MetalPriceRepository metalPriceRepository,
+                                   PriceRollupService priceRollupService,
+                                   @Value("${service.metal.price.backfill.enabled:true}") boolean enabled,
+                                   @Value("${service.metal.price.backfill.spacing-ms:60000}") long spacingMillis,
+                                   @Value("${service.metal.price.retention.max-age-ms}") long retentionMillis) {
+        this(priceReader, metalPriceRepository, priceRollupService, enabled, spacingMillis, retentionMillis,
+                System::currentTimeMillis);
+    }
+
+    IntradayBackfillService(ExternalMetalPriceReader priceReader, MetalPriceRepository metalPriceRepository,
+                            PriceRollupService priceRollupService, boolean enabled, long spacingMillis,
+                            long retentionMillis, LongSupplier clock) {
+        this.priceReader = priceReader;
+        this.metalPriceRepository = metalPriceRepository;
+        this.priceRollupService = priceRollupService;
+        this.enabled = enabled;
+        this.spacingMillis = spacingMillis;
+        this.retentionMillis = retentionMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Store the missing points of the intraday series the price reader kept for the metals.
+     * A metal whose series cannot be stored is skipped; the next response covers its points again.
+     *
+     * @param metalTypes the metals to backfill
+     * @return the number of points inserted
+     */
+    public int backfill(Set<MetalType> metalTypes) {
+        if (!enabled) {
+            return 0;
+        }
+        int inserted = 0;
+        for (MetalType metalType : metalTypes) {
+            try {
+                int stored = this.store(priceReader.takeSeries(metalType));
+                log.debug("Backfilled {} intraday prices of {}", stored, metalType);
+                inserted += stored;
+            } catch (RuntimeException e) {
+                log.warn("Failed to backfill the intraday prices of {}: {}", metalType, e.getMessage());
+                log.debug("Intraday backfill failure", e);
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Store the points of a series whose interval holds no stored tick yet.
+     *
+     * @param series the points read from the provider, oldest first
+     * @return the number of points inserted
+     */
+    int store(PriceSeries series) {
+        long cutoff = clock.getAsLong() - retentionMillis;
+        int first = series.indexOf(cutoff);
+        if (first == series.size()) {
+            return 0;
+        }
+        // both series are ascending: one merge pass finds the occupied intervals
+        long from = bucketStart(toSeconds(series.time(first)));
+        long to = bucketStart(toSeconds(series.time(series.size() - 1))) + Math.max(spacingMillis, 1000);
+        PriceSeries stored = metalPriceRepository.findSeries(series.getMetalType(), toLocal(from), toLocal(to));
+        PriceSeries.Builder missing = new PriceSeries.Builder(series.getMetalType(), series.size() - first);
+        int next = 0;
+        long lastBucket = Long.MIN_VALUE;
+        for (int i = first; i < series.size(); i++) {
+            long time = toSeconds(series.time(i));
+            long bucket = bucket(time);
+            while (next < stored.size() && bucket(stored.time(next)) < bucket) {
+                next++;
+            }
+            boolean occupied = bucket == lastBucket
+                    || (next < stored.size() && bucket(stored.time(next)) == bucket);
+            if (!occupied) {
+                missing.add(time, series.price(i));
+                lastBucket = bucket;
+            }
+        }
+        PriceSeries points = missing.build();
+        if (points.size() == 0) {
+            return 0;
+        }
+        int inserted = metalPriceRepository.saveSeries(points);
+        priceRollupService.record(points);
+        return inserted;
+    }
+
+    private long bucket(long time) {
+        return spacingMillis > 0 ? Math.floorDiv(time, spacingMillis) : time;
+    }
+
+    private long bucketStart(long time) {
+        return spacingMillis > 0 ? bucket(time) * spacingMillis : time;
+    }
+
+    /**
+     * The time column keeps whole seconds, compare the points as they will be stored
+     */
+    private static long toSeconds(long time) {
+        return Math.floorDiv(time, 1000) * 1000;
+    }
+
+    private static LocalDateTime toLocal(long time) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    }
+}
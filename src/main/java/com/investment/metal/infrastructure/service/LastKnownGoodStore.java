@@ -0,0 +1,290 @@
+package com.investment.metal.infrastructure.service;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Latest price of every metal and latest rate of every currency, kept in memory and persisted to a small
+ * memory-mapped file, so a restarted instance serves prices before the first provider or database read. Only a
+ * file on a persistent volume survives the instance; no file is configured by default.
+ * <p>
+ * The file has a fixed layout: a header, then two slots of which the one with the highest valid sequence is
+ * current. A slot holds its sequence and the CRC-32C of its content, then one entry per metal
+ * (price, read time, source) and one per currency (rate, read time), in the order of the enum constants.
+ * A write fills the older slot and writes its sequence and checksum last, so a write interrupted by a crash
+ * leaves a slot whose checksum does not match and the previous one is read instead.
+ * A file written for other enum sizes or another layout version is ignored and overwritten.
+ * <p>
+ * Reads never touch the file: it is read once when the store is created.
+ */
+@Slf4j
+@Service
+public class LastKnownGoodStore {
+
+    private static final int MAGIC = 0x4D4C4B47;
+
+    /**
+     * Bump when the layout changes, or when metal or currency constants are reordered
+     */
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int SLOT_HEADER_SIZE = 16;
+
+    private static final int METAL_ENTRY_SIZE = 24;
+
+    private static final int CURRENCY_ENTRY_SIZE = 16;
+
+    private static final MetalType[] METALS = MetalType.values();
+
+    private static final CurrencyType[] CURRENCIES = CurrencyType.values();
+
+    private static final PriceQuote.Source[] SOURCES = PriceQuote.Source.values();
+
+    static final int CONTENT_SIZE = METALS.length * METAL_ENTRY_SIZE + CURRENCIES.length * CURRENCY_ENTRY_SIZE;
+
+    static final int SLOT_SIZE = SLOT_HEADER_SIZE + CONTENT_SIZE;
+
+    static final int FILE_SIZE = HEADER_SIZE + 2 * SLOT_SIZE;
+
+    /**
+     * Mapped file, null if the store is not persisted
+     */
+    private final MappedByteBuffer file;
+
+    /**
+     * Immutable content of the current slot, replaced on every write
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param path the file of the store; empty keeps the values in memory only
+     */
+    @Autowired
+    public LastKnownGoodStore(@Value("${service.metal.price.last-known-good.path:}") String path) {
+        this(path == null || path.isBlank() ? null : Path.of(path));
+    }
+
+    LastKnownGoodStore(Path path) {
+        MappedByteBuffer mapped = null;
+        Snapshot loaded = Snapshot.EMPTY;
+        if (path != null) {
+            try {
+                mapped = map(path);
+                loaded = read(mapped);
+                log.info("Loaded {} metal prices and {} currency rates from {}",
+                        loaded.quotes().size(), loaded.rates().size(), path);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Last known good prices are kept in memory only, unable to map {}: {}",
+                        path, e.getMessage());
+                mapped = null;
+            }
+        }
+        this.file = mapped;
+        this.snapshot = loaded;
+    }
+
+    /**
+     * @param metalType the type of metal
+     * @return the last price read of the metal, or null if none is known
+     */
+    public PriceQuote getQuote(MetalType metalType) {
+        return snapshot.quotes().get(metalType);
+    }
+
+    /**
+     * @return the last price read of every metal that has one
+     */
+    public Map<MetalType, PriceQuote> getQuotes() {
+        return snapshot.quotes();
+    }
+
+    /**
+     * @param currencyType the currency
+     * @return the last rate of the currency in RON, or null if none is known
+     */
+    public Double getRate(CurrencyType currencyType) {
+        Rate rate = snapshot.rates().get(currencyType);
+        return rate == null ? null : rate.value();
+    }
+
+    /**
+     * @return true if a price of every metal and a rate of every currency is known
+     */
+    public boolean isComplete() {
+        Snapshot current = snapshot;
+        return current.quotes().size() == METALS.length && current.rates().size() == CURRENCIES.length;
+    }
+
+    /**
+     * Record the quotes of a price update. Quotes without a price are ignored, and so are fallback quotes of
+     * metals that already have a price, since the fallback price is at best as recent.
+     *
+     * @param quotes the quotes read
+     */
+    public synchronized void recordQuotes(Map<MetalType, PriceQuote> quotes) {
+        Snapshot current = snapshot;
+        Map<MetalType, PriceQuote> updated = new EnumMap<>(MetalType.class);
+        updated.putAll(current.quotes());
+        boolean changed = false;
+        for (Map.Entry<MetalType, PriceQuote> quote : quotes.entrySet()) {
+            PriceQuote value = quote.getValue();
+            if (value == null || !value.isAvailable()
+                    || (value.source() == PriceQuote.Source.FALLBACK && updated.containsKey(quote.getKey()))) {
+                continue;
+            }
+            updated.put(quote.getKey(), value);
+            changed = true;
+        }
+        if (changed) {
+            this.write(new Snapshot(current.sequence() + 1, updated, current.rates()));
+        }
+    }
+
+    /**
+     * Record the currency rates of a currency update.
+     *
+     * @param rates rate of each currency in RON
+     * @param time epoch milliseconds of the update
+     */
+    public synchronized void recordRates(Map<CurrencyType, Double> rates, long time) {
+        Snapshot current = snapshot;
+        Map<CurrencyType, Rate> updated = new EnumMap<>(CurrencyType.class);
+        updated.putAll(current.rates());
+        boolean changed = false;
+        for (Map.Entry<CurrencyType, Double> rate : rates.entrySet()) {
+            if (rate.getValue() != null && rate.getValue() > 0) {
+                updated.put(rate.getKey(), new Rate(rate.getValue(), time));
+                changed = true;
+            }
+        }
+        if (changed) {
+            this.write(new Snapshot(current.sequence() + 1, current.quotes(), updated));
+        }
+    }
+
+    private void write(Snapshot next) {
+        snapshot = next;
+        if (file == null) {
+            return;
+        }
+        try {
+            ByteBuffer content = ByteBuffer.allocate(CONTENT_SIZE);
+            for (MetalType metalType : METALS) {
+                PriceQuote quote = next.quotes().get(metalType);
+                content.putDouble(quote == null ? 0 : quote.price())
+                        .putLong(quote == null ? 0 : quote.fetchedAt())
+                        .put((byte) (quote == null ? 0 : quote.source().ordinal()))
+                        .put(new byte[METAL_ENTRY_SIZE - 17]);
+            }
+            for (CurrencyType currencyType : CURRENCIES) {
+                Rate rate = next.rates().get(currencyType);
+                content.putDouble(rate == null ? 0 : rate.value())
+                        .putLong(rate == null ? 0 : rate.time());
+            }
+            content.flip();
+            int slot = HEADER_SIZE + (int) (next.sequence() & 1) * SLOT_SIZE;
+            file.put(slot + SLOT_HEADER_SIZE, content, 0, CONTENT_SIZE);
+            file.force(slot + SLOT_HEADER_SIZE, CONTENT_SIZE);
+            // the slot becomes valid only once its sequence and checksum are written
+            file.putLong(slot, next.sequence());
+            file.putInt(slot + 8, checksum(next.sequence(), content));
+            file.force(slot, SLOT_HEADER_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("Unable to persist the last known good prices: {}", e.getMessage());
+            log.debug("Last known good store failure", e);
+        }
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean compatible = channel.size() == FILE_SIZE;
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            compatible &= mapped.getInt(0) == MAGIC && mapped.getInt(4) == VERSION
+                    && mapped.getShort(8) == METALS.length && mapped.getShort(10) == CURRENCIES.length;
+            if (!compatible) {
+                mapped.put(0, new byte[FILE_SIZE]);
+                mapped.putInt(0, MAGIC)
+                        .putInt(4, VERSION)
+                        .putShort(8, (short) METALS.length)
+                        .putShort(10, (short) CURRENCIES.length);
+                mapped.force();
+            }
+            return mapped;
+        }
+    }
+
+    /**
+     * @return the content of the valid slot with the highest sequence
+     */
+    static Snapshot read(ByteBuffer file) {
+        Snapshot current = Snapshot.EMPTY;
+        for (int slot = HEADER_SIZE; slot < FILE_SIZE; slot += SLOT_SIZE) {
+            long sequence = file.getLong(slot);
+            ByteBuffer content = file.slice(slot + SLOT_HEADER_SIZE, CONTENT_SIZE);
+            if (sequence <= current.sequence() || file.getInt(slot + 8) != checksum(sequence, content)) {
+                continue;
+            }
+            Map<MetalType, PriceQuote> quotes = new EnumMap<>(MetalType.class);
+            for (MetalType metalType : METALS) {
+                double price = content.getDouble();
+                long fetchedAt = content.getLong();
+                int source = content.get();
+                content.position(content.position() + METAL_ENTRY_SIZE - 17);
+                if (price > 0 && source >= 0 && source < SOURCES.length) {
+                    quotes.put(metalType, new PriceQuote(price, fetchedAt, SOURCES[source]));
+                }
+            }
+            Map<CurrencyType, Rate> rates = new EnumMap<>(CurrencyType.class);
+            for (CurrencyType currencyType : CURRENCIES) {
+                double value = content.getDouble();
+                long time = content.getLong();
+                if (value > 0) {
+                    rates.put(currencyType, new Rate(value, time));
+                }
+            }
+            current = new Snapshot(sequence, quotes, rates);
+        }
+        return current;
+    }
+
+    private static int checksum(long sequence, ByteBuffer content) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(content.duplicate().rewind());
+        return (int) crc.getValue();
+    }
+
+    record Rate(double value, long time) {
+    }
+
+    record Snapshot(long sequence, Map<MetalType, PriceQuote> quotes, Map<CurrencyType, Rate> rates) {
+
+        static final Snapshot EMPTY = new Snapshot(0, Map.of(), Map.of());
+
+        Snapshot {
+            quotes = quotes.isEmpty() ? Map.of() : Collections.unmodifiableMap(quotes);
+            rates = rates.isEmpty() ? Map.of() : Collections.unmodifiableMap(rates);
+        }
+    }
+}
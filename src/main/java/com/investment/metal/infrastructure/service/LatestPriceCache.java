@@ -0,0 +1,175 @@
+package com.investment.metal.infrastructure.service;
+
+import com.investment.metal.domain.model.MetalType;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Latest price of every metal in front of {@link ResilientPriceService}, so profit requests and notifications
+ * do not call the price provider each time.
+ * <ul>
+ *   <li>a price younger than the TTL is served from memory;</li>
+ *   <li>a stale price is still served while one background refresh reads the new one;</li>
+ *   <li>a missing price is loaded, and concurrent callers missing the same metal wait for the same request.</li>
+ * </ul>
+ * At most one provider request per metal is in flight, so upstream traffic stays around one call per metal
+ * per TTL whatever the request rate; a refresh over the {@link PriceRequestBudget} of the provider is not sent
+ * and keeps the cached price for another TTL.
+ * The cache starts with the prices of the {@link LastKnownGoodStore}, so when the store is persisted they are
+ * served at once after a restart and refreshed in the background as any stale price; every read is recorded in
+ * the store.
+ */
+@Slf4j
+@Service
+public class LatestPriceCache {
+
+    private final ResilientPriceService resilientPriceService;
+
+    private final LastKnownGoodStore lastKnownGoodStore;
+
+    private final long ttlMillis;
+
+    private final LongSupplier clock;
+
+    private final Map<MetalType, PriceQuote> quotes = new ConcurrentHashMap<>();
+
+    private final Map<MetalType, CompletableFuture<PriceQuote>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LatestPriceCache(ResilientPriceService resilientPriceService,
+                            LastKnownGoodStore lastKnownGoodStore,
+                            @Value("${service.metal.price.cache.ttl-ms:60000}") long ttlMillis) {
+        this(resilientPriceService, lastKnownGoodStore, ttlMillis, System::currentTimeMillis);
+    }
+
+    LatestPriceCache(ResilientPriceService resilientPriceService, long ttlMillis, LongSupplier clock) {
+        this(resilientPriceService, new LastKnownGoodStore((Path) null), ttlMillis, clock);
+    }
+
+    LatestPriceCache(ResilientPriceService resilientPriceService, LastKnownGoodStore lastKnownGoodStore,
+                     long ttlMillis, LongSupplier clock) {
+        this.resilientPriceService = resilientPriceService;
+        this.lastKnownGoodStore = lastKnownGoodStore;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.quotes.putAll(lastKnownGoodStore.getQuotes());
+    }
+
+    /**
+     * @param metalType the type of metal
+     * @return the latest price of one kg of the metal, 0 if it is not known
+     */
+    public double getPrice(MetalType metalType) {
+        return getPrices(EnumSet.of(metalType)).get(metalType);
+    }
+
+    /**
+     * Get the latest prices, loading the missing ones in one batch and refreshing the stale ones in the
+     * background.
+     *
+     * @param metalTypes the types of metal
+     * @return the latest price of one kg of each metal, 0 if it is not known
+     */
+    public Map<MetalType, Double> getPrices(Set<MetalType> metalTypes) {
+        final long now = clock.getAsLong();
+        final Map<MetalType, Double> prices = new EnumMap<>(MetalType.class);
+        final Set<MetalType> missing = EnumSet.noneOf(MetalType.class);
+        final Set<MetalType> stale = EnumSet.noneOf(MetalType.class);
+        for (MetalType metalType : metalTypes) {
+            PriceQuote quote = quotes.get(metalType);
+            if (quote == null) {
+                missing.add(metalType);
+            } else {
+                prices.put(metalType, quote.price());
+                if (now - quote.fetchedAt() >= ttlMillis && !inFlight.containsKey(metalType)) {
+                    stale.add(metalType);
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            Thread.ofVirtual().name("price-refresh").start(() -> load(stale));
+        }
+        if (!missing.isEmpty()) {
+            load(missing).forEach((metalType, quote) -> prices.put(metalType, join(quote).price()));
+        }
+        return prices;
+    }
+
+    /**
+     * Read the prices from the provider now, e.g. on the scheduler tick, sharing the requests already in flight.
+     *
+     * @param metalTypes the types of metal
+     * @return the price of one kg of each metal, 0 if it is not known
+     */
+    public Map<MetalType, Double> refresh(Set<MetalType> metalTypes) {
+        final Map<MetalType, Double> prices = new EnumMap<>(MetalType.class);
+        load(metalTypes).forEach((metalType, quote) -> prices.put(metalType, join(quote).price()));
+        return prices;
+    }
+
+    /**
+     * Join the requests in flight and read the other metals in one batch on the calling thread.
+     */
+    private Map<MetalType, CompletableFuture<PriceQuote>> load(Set<MetalType> metalTypes) {
+        final Map<MetalType, CompletableFuture<PriceQuote>> futures = new EnumMap<>(MetalType.class);
+        final Set<MetalType> owned = EnumSet.noneOf(MetalType.class);
+        for (MetalType metalType : metalTypes) {
+            CompletableFuture<PriceQuote> future = new CompletableFuture<>();
+            CompletableFuture<PriceQuote> existing = inFlight.putIfAbsent(metalType, future);
+            if (existing == null) {
+                owned.add(metalType);
+                futures.put(metalType, future);
+            } else {
+                futures.put(metalType, existing);
+            }
+        }
+        if (!owned.isEmpty()) {
+            fetch(owned);
+        }
+        return futures;
+    }
+
+    private void fetch(Set<MetalType> metalTypes) {
+        Map<MetalType, PriceQuote> fetched = Map.of();
+        RuntimeException failure = null;
+        try {
+            fetched = resilientPriceService.fetchQuotes(metalTypes);
+        } catch (RuntimeException e) {
+            log.error("Failed to refresh prices for {}", metalTypes, e);
+            failure = e;
+        }
+        lastKnownGoodStore.recordQuotes(fetched);
+        for (MetalType metalType : metalTypes) {
+            PriceQuote quote = fetched.get(metalType);
+            if (quote != null && quote.isAvailable()) {
+                quotes.put(metalType, quote);
+            }
+            CompletableFuture<PriceQuote> future = inFlight.remove(metalType);
+            if (quote != null) {
+                future.complete(quote);
+            } else {
+                future.completeExceptionally(failure != null ? failure
+                        : new IllegalStateException("No price read for " + metalType.getSymbol()));
+            }
+        }
+    }
+
+    private static PriceQuote join(CompletableFuture<PriceQuote> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
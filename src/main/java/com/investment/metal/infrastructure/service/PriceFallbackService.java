@@ -5,7 +5,6 @@ import com.investment.metal.domain.model.MetalType;
 import com.investment.metal.domain.repository.MetalPriceRepository;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,6 +12,8 @@ import org.springframework.stereotype.Service;
 /**
  * Fallback service for providing cached metal prices when external APIs are unavailable.
  * Implements fallback strategy for circuit breaker scenarios.
+ * The price of the {@link LastKnownGoodStore} is used first, which needs no database query; the latest stored
+ * price only when the store does not know the metal.
  */
 @Service
 @Slf4j
@@ -21,6 +22,8 @@ public class PriceFallbackService {
 
     private final MetalPriceRepository metalPriceRepository;
 
+    private final LastKnownGoodStore lastKnownGoodStore;
+
     /**
      * Get the most recent cached price for a metal type.
      * This serves as a fallback when external APIs are unavailable.
@@ -29,6 +32,11 @@ public class PriceFallbackService {
      * @return the most recent cached price, or 0.0 if no cached data available
      */
     public double getCachedPrice(MetalType metalType) {
+        PriceQuote quote = lastKnownGoodStore.getQuote(metalType);
+        if (quote != null) {
+            log.info("Using last known good price for {}: {}", metalType, quote.price());
+            return quote.price();
+        }
         return metalPriceRepository.findLatestByMetalType(metalType)
                 .map(price -> {
                     double value = price.getPrice().doubleValue();
@@ -48,8 +56,8 @@ public class PriceFallbackService {
      * @return true if cached data is available, false otherwise
      */
     public boolean hasCachedPrice(MetalType metalType) {
-        List<MetalPrice> prices = metalPriceRepository.findAllByMetalType(metalType);
-        return !prices.isEmpty();
+        return lastKnownGoodStore.getQuote(metalType) != null
+                || metalPriceRepository.findLatestByMetalType(metalType).isPresent();
     }
 
     /**
@@ -59,6 +67,10 @@ public class PriceFallbackService {
      * @return age in milliseconds, or -1 if no cached data available
      */
     public long getCachedPriceAge(MetalType metalType) {
+        PriceQuote quote = lastKnownGoodStore.getQuote(metalType);
+        if (quote != null) {
+            return System.currentTimeMillis() - quote.fetchedAt();
+        }
         return metalPriceRepository.findLatestByMetalType(metalType)
                 .map(MetalPrice::getTimestamp)
                 .map(timestamp -> Duration.between(timestamp, LocalDateTime.now()).toMillis())
@@ -0,0 +1,163 @@
+package com.investment.metal.infrastructure.service;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.infrastructure.service.price.ExternalMetalPriceReader;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Protects the requests of every price provider on their own: each (provider, metal) pair has its own circuit
+ * breaker, named {@code price-api.<provider>.<metal>}, around the time limiter of the request. The readers of
+ * the providers are wrapped before they are hedged, so a hedged read still calls each provider through its own
+ * breaker: a failing provider stops being queried while the others keep answering, and its slowness or failures
+ * never open the breaker of another provider. Each request also takes a permit of the provider's
+ * {@link PriceRequestBudget}, so hedged requests count against the budget too.
+ */
+@Service
+@RequiredArgsConstructor
+public class PriceProviderGuard {
+    private static final String CIRCUIT_BREAKER_PREFIX = "price-api.";
+    private static final String TIME_LIMITER_NAME = "price-api";
+
+    /**
+     * Only fires the time limits, the requests themselves never block a thread
+     */
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("price-api-timeout").daemon().factory());
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final TimeLimiterRegistry timeLimiterRegistry;
+
+    private final PriceRequestBudget priceRequestBudget;
+
+    /**
+     * Names of the guarded providers
+     */
+    private final Set<String> providers = new CopyOnWriteArraySet<>();
+
+    /**
+     * @param reader the reader of one price provider
+     * @return the reader whose requests go through the circuit breaker of their metal, the request budget
+     * and the time limiter
+     */
+    public ExternalMetalPriceReader guard(ExternalMetalPriceReader reader) {
+        providers.add(reader.getName());
+        return new GuardedReader(reader);
+    }
+
+    /**
+     * Get the state of a metal: the least degraded state of its circuit breakers, since the metal can be read
+     * while any provider still answers for it.
+     *
+     * @param metalType the metal
+     * @return the state of the metal's most available provider, closed if no provider is guarded
+     */
+    public CircuitBreaker.State getCircuitBreakerState(MetalType metalType) {
+        CircuitBreaker.State best = null;
+        for (String provider : providers) {
+            CircuitBreaker.State state = circuitBreakerRegistry
+                    .circuitBreaker(circuitBreakerName(provider, metalType)).getState();
+            if (best == null || severity(state) < severity(best)) {
+                best = state;
+            }
+        }
+        return best != null ? best : CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * @return name of the circuit breaker of the (provider, metal) pair
+     */
+    static String circuitBreakerName(String provider, MetalType metalType) {
+        return CIRCUIT_BREAKER_PREFIX + provider + "." + metalType.name();
+    }
+
+    /**
+     * @return how degraded a circuit breaker state is: open, then half open, then closed
+     */
+    static int severity(CircuitBreaker.State state) {
+        return switch (state) {
+            case OPEN, FORCED_OPEN -> 2;
+            case HALF_OPEN -> 1;
+            default -> 0;
+        };
+    }
+
+    private final class GuardedReader implements ExternalMetalPriceReader {
+
+        private final ExternalMetalPriceReader reader;
+
+        /**
+         * Budget of the provider, null if it has none
+         */
+        private final RateLimiter rateLimiter;
+
+        private GuardedReader(ExternalMetalPriceReader reader) {
+            this.reader = reader;
+            this.rateLimiter = priceRequestBudget.getRateLimiter(reader.getName());
+        }
+
+        /**
+         * Compose the time limiter and the circuit breaker around the request: a request slower than the time
+         * limit is aborted and recorded as a failure by the circuit breaker. Cancelling the returned future
+         * aborts the request too, which is not recorded: the request did not fail, its answer was not needed.
+         * A request over the budget is not sent and fails with {@link RequestNotPermitted}, which is not a
+         * failure of the provider either; an open circuit breaker spends no budget.
+         */
+        @Override
+        public CompletableFuture<Double> fetchPriceAsync(MetalType metalType) {
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry
+                    .circuitBreaker(circuitBreakerName(reader.getName(), metalType));
+            TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(TIME_LIMITER_NAME);
+            AtomicReference<CompletableFuture<Double>> request = new AtomicReference<>();
+            CompletableFuture<Double> price = circuitBreaker
+                    .executeCompletionStage(() -> {
+                        if (rateLimiter != null && !rateLimiter.acquirePermission()) {
+                            return CompletableFuture.failedFuture(RequestNotPermitted.createRequestNotPermitted(rateLimiter));
+                        }
+                        return timeLimiter.executeCompletionStage(TIMEOUT_SCHEDULER, () -> {
+                            CompletableFuture<Double> sent = reader.fetchPriceAsync(metalType);
+                            request.set(sent);
+                            return sent;
+                        });
+                    })
+                    .toCompletableFuture();
+            price.whenComplete((read, error) -> {
+                CompletableFuture<Double> sent = request.get();
+                if (price.isCompletedExceptionally() && sent != null) {
+                    sent.cancel(true);
+                }
+            });
+            return price;
+        }
+
+        @Override
+        public PriceSeries takeSeries(MetalType metalType) {
+            return reader.takeSeries(metalType);
+        }
+
+        @Override
+        public String getName() {
+            return reader.getName();
+        }
+
+        @Override
+        public CurrencyType getCurrencyType() {
+            return reader.getCurrencyType();
+        }
+    }
+}
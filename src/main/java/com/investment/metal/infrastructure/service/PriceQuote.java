@@ -0,0 +1,29 @@
+package com.investment.metal.infrastructure.service;
+
+/**
+ * A metal price as read by {@link ResilientPriceService}, with the time it was read and where it comes from.
+ *
+ * @param price price of one kg of the metal in the provider currency, 0 if no price is known
+ * @param fetchedAt epoch milliseconds of the read
+ * @param source where the price comes from
+ */
+public record PriceQuote(double price, long fetchedAt, Source source) {
+
+    public enum Source {
+        /**
+         * Read from the external price provider
+         */
+        PROVIDER,
+        /**
+         * The latest stored price, used while the provider is unavailable
+         */
+        FALLBACK
+    }
+
+    /**
+     * @return true if the quote holds a usable price
+     */
+    public boolean isAvailable() {
+        return price > 0;
+    }
+}
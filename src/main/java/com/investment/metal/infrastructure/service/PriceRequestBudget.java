@@ -0,0 +1,95 @@
+package com.investment.metal.infrastructure.service;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceServiceType;
+import com.investment.metal.infrastructure.service.price.HedgedPriceReader;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maximum requests per hour of each price provider.
+ * The budget is enforced where the requests are sent: every request of a provider, whether it comes from the
+ * scheduler, a background refresh of the price cache or a hedge, takes a permit of the provider's rate limiter,
+ * and a request over the budget fails at once, so the caller serves its fallback price. The permits of an hour
+ * are handed out one batch of all metals at a time, so the budget cannot be spent in the first minutes of the
+ * hour. The shortest polling interval is derived from the same budgets, so the scheduled updates alone stay
+ * within them.
+ */
+@Component
+public class PriceRequestBudget {
+
+    private static final long MILLIS_PER_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final Map<String, RateLimiter> rateLimiters = new HashMap<>();
+
+    private final long shortestIntervalMillis;
+
+    /**
+     * @param budgets maximum requests per hour by price provider name
+     * @param host the configured price provider
+     * @param hedgeEnabled whether the other providers are queried too
+     * @param hedgeMode how the other providers are queried
+     * @throws IllegalArgumentException if a budget names an unknown provider or is not positive
+     */
+    @Autowired
+    public PriceRequestBudget(@Value("#{${service.metal.price.polling.budget-per-hour:{:}}}") Map<String, Integer> budgets,
+                              @Value("${service.metal.price.host}") PriceServiceType host,
+                              @Value("${service.metal.price.hedge.enabled:false}") boolean hedgeEnabled,
+                              @Value("${service.metal.price.hedge.mode:FASTEST}") HedgedPriceReader.Mode hedgeMode) {
+        int metals = MetalType.values().length;
+        long shortest = 0;
+        for (Map.Entry<String, Integer> budget : budgets.entrySet()) {
+            PriceServiceType provider = provider(budget.getKey());
+            if (budget.getValue() == null || budget.getValue() <= 0) {
+                throw new IllegalArgumentException("Invalid request budget of " + budget.getKey());
+            }
+            // one batch of all metals per period keeps the hour within the budget
+            long periodMillis = (long) Math.ceil((double) MILLIS_PER_HOUR * metals / budget.getValue());
+            rateLimiters.put(provider.name(), RateLimiter.of("price-api." + provider.name(), RateLimiterConfig.custom()
+                    .limitForPeriod(metals)
+                    .limitRefreshPeriod(Duration.ofMillis(periodMillis))
+                    .timeoutDuration(Duration.ZERO)
+                    .build()));
+            boolean polled = provider == host || (hedgeEnabled && hedgeMode == HedgedPriceReader.Mode.MEDIAN
+                    && host != PriceServiceType.REPLAY && provider != PriceServiceType.REPLAY);
+            if (polled) {
+                shortest = Math.max(shortest, periodMillis);
+            }
+        }
+        this.shortestIntervalMillis = shortest;
+    }
+
+    /**
+     * @param provider name of the price provider
+     * @return the rate limiter of the provider's budget, or null if it has none
+     */
+    public RateLimiter getRateLimiter(String provider) {
+        return rateLimiters.get(provider);
+    }
+
+    /**
+     * @return the shortest interval at which the scheduled updates send no provider more requests per hour
+     * than its budget: the configured provider gets one request per metal, and with the median of the hedged
+     * providers every other provider too; the hedges of the fastest mode are only bounded by the rate limiters
+     */
+    public long getShortestIntervalMillis() {
+        return shortestIntervalMillis;
+    }
+
+    private static PriceServiceType provider(String name) {
+        try {
+            return PriceServiceType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Request budget of unknown price provider " + name + ", expected one of "
+                    + Arrays.toString(PriceServiceType.values()), e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.investment.metal.infrastructure.service;
+
+import com.investment.metal.application.service.PriceRollupService;
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import com.investment.metal.domain.repository.PriceCandleRepository;
+import com.investment.metal.infrastructure.service.archive.PriceArchiveCompactor;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deletes the prices older than the retention window, off the price update path.
+ * Each metal is purged with bounded {@code DELETE ... WHERE time < ? LIMIT ?} statements served by the
+ * (metal_symbol, time) index, each in its own short transaction, until a statement deletes fewer rows than
+ * the chunk size; the rows are never loaded. The prices are moved to the price archive first, and the prices of a
+ * metal whose archiving failed are kept until a later run archives them.
+ * The price candles are purged the same way, with the retention of their resolution in {@link PriceRollupService}.
+ */
+@Slf4j
+@Service
+public class PriceRetentionService {
+
+    private final MetalPriceRepository metalPriceRepository;
+
+    private final PriceCandleRepository priceCandleRepository;
+
+    private final PriceRollupService priceRollupService;
+
+    private final PriceArchiveCompactor priceArchiveCompactor;
+
+    private final long retentionMillis;
+
+    private final int chunkSize;
+
+    private final LongSupplier clock;
+
+    /**
+     * @param metalPriceRepository repository of the prices
+     * @param priceCandleRepository repository of the price candles
+     * @param priceRollupService service holding the retention of the candles
+     * @param priceArchiveCompactor compactor archiving the prices before they are deleted
+     * @param retentionMillis age after which a price is deleted
+     * @param chunkSize maximum rows deleted by one statement
+     */
+    @Autowired
+    public PriceRetentionService(MetalPriceRepository metalPriceRepository,
+                                 PriceCandleRepository priceCandleRepository,
+                                 PriceRollupService priceRollupService,
+                                 PriceArchiveCompactor priceArchiveCompactor,
+                                 @Value("${service.metal.price.retention.max-age-ms}") long retentionMillis,
+                                 @Value("${service.metal.price.retention.chunk-size:5000}") int chunkSize) {
+        this(metalPriceRepository, priceCandleRepository, priceRollupService, priceArchiveCompactor,
+                retentionMillis, chunkSize, System::currentTimeMillis);
+    }
+
+    PriceRetentionService(MetalPriceRepository metalPriceRepository, PriceCandleRepository priceCandleRepository,
+                          PriceRollupService priceRollupService, PriceArchiveCompactor priceArchiveCompactor,
+                          long retentionMillis, int chunkSize, LongSupplier clock) {
+        if (retentionMillis <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("The price retention needs a positive age and chunk size");
+        }
+        this.metalPriceRepository = metalPriceRepository;
+        this.priceCandleRepository = priceCandleRepository;
+        this.priceRollupService = priceRollupService;
+        this.priceArchiveCompactor = priceArchiveCompactor;
+        this.retentionMillis = retentionMillis;
+        this.chunkSize = chunkSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Delete the prices of every metal older than the retention window, then the candles older than the
+     * retention of their resolution. A metal whose purge fails is skipped; the next run retries it.
+     *
+     * @return the number of prices and candles deleted
+     */
+    public int purge() {
+        long now = clock.getAsLong();
+        LocalDateTime cutoff = toLocal(now - retentionMillis);
+        int total = 0;
+        for (MetalType metalType : MetalType.values()) {
+            try {
+                priceArchiveCompactor.compact(metalType, cutoff);
+            } catch (RuntimeException e) {
+                log.warn("Keeping the old prices of {}, unable to archive them: {}", metalType, e.getMessage());
+                log.debug("Price archive failure", e);
+                continue;
+            }
+            total += this.purge(metalType, "prices", cutoff,
+                    () -> metalPriceRepository.deleteOlderThan(metalType, cutoff, chunkSize));
+        }
+        for (CandleResolution resolution : CandleResolution.values()) {
+            long candleRetention = priceRollupService.getRetentionMillis(resolution);
+            if (candleRetention == 0) {
+                continue;
+            }
+            LocalDateTime candleCutoff = toLocal(now - candleRetention);
+            for (MetalType metalType : MetalType.values()) {
+                total += this.purge(metalType, resolution + " candles", candleCutoff,
+                        () -> priceCandleRepository.deleteOlderThan(metalType, resolution, candleCutoff, chunkSize));
+            }
+        }
+        return total;
+    }
+
+    private int purge(MetalType metalType, String rows, LocalDateTime cutoff, IntSupplier deleteChunk) {
+        int deleted = 0;
+        try {
+            int chunk;
+            do {
+                chunk = deleteChunk.getAsInt();
+                deleted += chunk;
+            } while (chunk >= chunkSize);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete the old {} {}: {}", metalType, rows, e.getMessage());
+            log.debug("Price retention failure", e);
+        }
+        if (deleted > 0) {
+            log.debug("Deleted {} {} {} older than {}", deleted, metalType, rows, cutoff);
+        }
+        return deleted;
+    }
+
+    private static LocalDateTime toLocal(long time) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    }
+}
@@ -1,14 +1,21 @@
 package com.investment.metal.infrastructure.service;
 
 import com.investment.metal.domain.model.CurrencyType;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -21,24 +28,54 @@ import org.w3c.dom.NodeList;
 @Component
 public class RSSFeedParser {
 
+  private final HttpClient httpClient;
+
+  private final Duration readTimeout;
+
+  public RSSFeedParser(HttpClient httpClient, @Value("${service.http.read-timeout-ms:5000}") long readTimeoutMillis) {
+    this.httpClient = httpClient;
+    this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+  }
+
   public Map<CurrencyType, Double> readFeed(String feedUrl) throws IOException {
     try {
-      // Fetch and parse the XML document
-      Document doc = fetchXmlDocument(feedUrl);
-      return getExchangeRate(doc);
-    } catch (Exception e) {
-      throw new IOException("Can not read from RSS FEED " + feedUrl);
+      return readFeedAsync(feedUrl).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading RSS FEED " + feedUrl, e);
+    } catch (ExecutionException e) {
+      throw new IOException("Can not read from RSS FEED " + feedUrl, e.getCause());
     }
   }
 
-  private static Document fetchXmlDocument(String url) throws Exception {
-    URL bnrUrl = new URL(url);
-    URLConnection connection = bnrUrl.openConnection();
-    try (InputStream inputStream = connection.getInputStream()) {
-      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      DocumentBuilder builder = factory.newDocumentBuilder();
-      return builder.parse(inputStream);
-    }
+  /**
+   * Read the feed through the shared non-blocking HTTP client.
+   *
+   * @param feedUrl the feed to read
+   * @return completes with the exchange rates of the feed
+   */
+  public CompletableFuture<Map<CurrencyType, Double>> readFeedAsync(String feedUrl) {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(feedUrl))
+        .timeout(readTimeout)
+        .GET()
+        .build();
+    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+        .thenApply(response -> {
+          if (response.statusCode() / 100 != 2) {
+            throw new CompletionException(new IOException("HTTP " + response.statusCode() + " from " + feedUrl));
+          }
+          try {
+            return getExchangeRate(parseXmlDocument(response.body()));
+          } catch (Exception e) {
+            throw new CompletionException(e);
+          }
+        });
+  }
+
+  private static Document parseXmlDocument(byte[] content) throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    DocumentBuilder builder = factory.newDocumentBuilder();
+    return builder.parse(new ByteArrayInputStream(content));
   }
 
   private static Map<CurrencyType, Double> getExchangeRate(Document doc) {
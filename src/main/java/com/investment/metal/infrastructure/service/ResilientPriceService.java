@@ -4,23 +4,36 @@ import com.investment.metal.domain.model.CurrencyType;
 import com.investment.metal.domain.model.MetalType;
 import com.investment.metal.infrastructure.service.price.ExternalMetalPriceReader;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
  * Resilient wrapper service for external price API calls.
- * Implements circuit breaker pattern to handle external API failures gracefully.
+ * The requests of every (provider, metal) pair go through their own circuit breaker and time limiter, applied
+ * by the {@link PriceProviderGuard} around each provider reader, so an instrument failing at the provider only
+ * opens its own breaker: the other metals keep being read, and a batch only falls back for the metals that
+ * failed. A failed metal falls back to the last price served for it, then to the latest stored price.
+ * With hedging the last price is the one of the hedged read, not one per provider: a provider that fails is
+ * already replaced by the others, so its own last price would never be served.
  */
 @Service
 @Slf4j
 public class ResilientPriceService {
-    private static final String CIRCUIT_BREAKER_NAME = "price-api";
+    /**
+     * Runs the fallbacks, which read the database, off the HTTP client and timeout threads
+     */
+    private static final Executor FALLBACK_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
 
     @Autowired
-    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private PriceProviderGuard priceProviderGuard;
 
     @Autowired
     private ExternalMetalPriceReader priceReader;
@@ -29,33 +42,74 @@ public class ResilientPriceService {
     private PriceFallbackService fallbackService;
 
     /**
-     * Fetch price with circuit breaker protection.
-     * 
-     * @param metalType the type of metal to fetch price for
-     * @return the current price of the metal
-     * @throws RuntimeException if the circuit breaker is open or API call fails
+     * Last price read from the provider, by metal
+     */
+    private final Map<MetalType, PriceQuote> lastKnownGood = new ConcurrentHashMap<>();
+
+    /**
+     * Fetch the prices of several metals in one batch with circuit breaker protection.
+     * Each metal is one call of its own circuit breaker; metals the provider could not read fall back to their
+     * cached price, the others are not affected.
+     *
+     * @param metalTypes the types of metal to fetch prices for
+     * @return the current price of each metal, or its fallback price
      */
-    public double fetchPrice(MetalType metalType) {
-        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER_NAME);
-        
-        log.info("Fetching price for {} with circuit breaker state: {}", 
-                   metalType, circuitBreaker.getState());
-
-        try {
-            return circuitBreaker.executeSupplier(() -> {
-                try {
-                    double price = priceReader.fetchPrice(metalType);
-                    log.info("Successfully fetched price for {}: {}", metalType, price);
-                    return price;
-                } catch (Exception e) {
-                    log.error("Failed to fetch price for {}", metalType, e);
-                    throw e;
-                }
-            });
-        } catch (Exception e) {
-            log.warn("Circuit breaker protection triggered for {}. Attempting fallback to cached price.", metalType);
-            return getFallbackPrice(metalType);
+    public Map<MetalType, Double> fetchPrices(Set<MetalType> metalTypes) {
+        Map<MetalType, Double> prices = new EnumMap<>(MetalType.class);
+        fetchQuotes(metalTypes).forEach((metalType, quote) -> prices.put(metalType, quote.price()));
+        return prices;
+    }
+
+    /**
+     * Same as {@link #fetchPrices(Set)}, but tells when each price was read and whether it comes from
+     * the provider or from the fallback.
+     *
+     * @param metalTypes the types of metal to fetch prices for
+     * @return the quote of each metal; its price is 0 if neither the provider nor the fallback knows it
+     */
+    public Map<MetalType, PriceQuote> fetchQuotes(Set<MetalType> metalTypes) {
+        return fetchQuotesAsync(metalTypes).join();
+    }
+
+    /**
+     * Fetch the quotes of several metals without blocking: the request of each metal goes through the time
+     * limiter and the circuit breaker of its (provider, metal) pair, so a slow or failing metal costs the batch
+     * at most the time limit, and nothing once its breaker is open. Metals that could not be read fall back to
+     * their cached price.
+     *
+     * @param metalTypes the types of metal to fetch prices for
+     * @return completes with the quote of each metal; its price is 0 if neither the provider nor the fallback
+     * knows it
+     */
+    public CompletableFuture<Map<MetalType, PriceQuote>> fetchQuotesAsync(Set<MetalType> metalTypes) {
+        Map<MetalType, CompletableFuture<PriceQuote>> requests = new EnumMap<>(MetalType.class);
+        for (MetalType metalType : metalTypes) {
+            requests.put(metalType, fetchQuoteAsync(metalType));
         }
+        return CompletableFuture.allOf(requests.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<MetalType, PriceQuote> quotes = new EnumMap<>(MetalType.class);
+                    requests.forEach((metalType, quote) -> quotes.put(metalType, quote.join()));
+                    return quotes;
+                });
+    }
+
+    /**
+     * @return completes with the quote of the metal, from the provider or the fallback; never fails
+     */
+    private CompletableFuture<PriceQuote> fetchQuoteAsync(MetalType metalType) {
+        return priceReader.fetchPriceAsync(metalType)
+                .handleAsync((price, error) -> {
+                    long now = System.currentTimeMillis();
+                    if (error == null && price != null) {
+                        log.info("Successfully fetched price for {}: {}", metalType, price);
+                        PriceQuote quote = new PriceQuote(price, now, PriceQuote.Source.PROVIDER);
+                        lastKnownGood.put(metalType, quote);
+                        return quote;
+                    }
+                    log.warn("Price request of {} failed. Attempting fallback to cached price.", metalType, error);
+                    return new PriceQuote(getFallbackPrice(metalType), now, PriceQuote.Source.FALLBACK);
+                }, FALLBACK_EXECUTOR);
     }
 
     /**
@@ -65,6 +119,12 @@ public class ResilientPriceService {
      * @return cached price or 0.0 if no cached data available
      */
     private double getFallbackPrice(MetalType metalType) {
+        PriceQuote lastQuote = lastKnownGood.get(metalType);
+        if (lastQuote != null) {
+            log.info("Using last known good price for {}: {} (age: {} ms)",
+                       metalType, lastQuote.price(), System.currentTimeMillis() - lastQuote.fetchedAt());
+            return lastQuote.price();
+        }
         if (fallbackService.hasCachedPrice(metalType)) {
             double cachedPrice = fallbackService.getCachedPrice(metalType);
             long age = fallbackService.getCachedPriceAge(metalType);
@@ -78,13 +138,14 @@ public class ResilientPriceService {
     }
 
     /**
-     * Fetch price asynchronously with circuit breaker protection.
+     * Fetch price asynchronously with circuit breaker and time limiter protection.
+     * No thread waits on the provider: the reader request is non-blocking, and a timeout cancels it.
      * 
      * @param metalType the type of metal to fetch price for
-     * @return CompletableFuture containing the price
+     * @return CompletableFuture containing the price, or the fallback price if the provider failed
      */
     public CompletableFuture<Double> fetchPriceAsync(MetalType metalType) {
-        return CompletableFuture.supplyAsync(() -> fetchPrice(metalType));
+        return fetchQuoteAsync(metalType).thenApply(PriceQuote::price);
     }
 
     /**
@@ -97,22 +158,38 @@ public class ResilientPriceService {
     }
 
     /**
-     * Check if the circuit breaker is currently open.
+     * Check if the circuit breaker of any metal is currently open.
      * 
-     * @return true if circuit breaker is open, false otherwise
+     * @return true if a circuit breaker is open, false otherwise
      */
     public boolean isCircuitBreakerOpen() {
-        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER_NAME);
-        return circuitBreaker.getState() == CircuitBreaker.State.OPEN;
+        return getCircuitBreakerState() == CircuitBreaker.State.OPEN;
     }
 
     /**
-     * Get the current circuit breaker state.
+     * Get the most degraded state of the circuit breakers of all metals: open, then half open, then closed.
      * 
-     * @return the current state of the circuit breaker
+     * @return the current state of the least available metal
      */
     public CircuitBreaker.State getCircuitBreakerState() {
-        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER_NAME);
-        return circuitBreaker.getState();
+        CircuitBreaker.State worst = CircuitBreaker.State.CLOSED;
+        for (MetalType metalType : MetalType.values()) {
+            CircuitBreaker.State state = getCircuitBreakerState(metalType);
+            if (PriceProviderGuard.severity(state) > PriceProviderGuard.severity(worst)) {
+                worst = state;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Get the current circuit breaker state of one metal: with hedging, the state of the provider that is
+     * the most available for it.
+     *
+     * @param metalType the metal
+     * @return the current state of its circuit breakers
+     */
+    public CircuitBreaker.State getCircuitBreakerState(MetalType metalType) {
+        return priceProviderGuard.getCircuitBreakerState(metalType);
     }
 }
@@ -0,0 +1,304 @@
+package com.investment.metal.infrastructure.service.archive;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Immutable file of the price archive, holding consecutive ticks of one metal compressed as in Gorilla
+ * (Pelkonen et al., VLDB 2015), and read through a read-only memory mapping.
+ * <p>
+ * The header holds the number of ticks, the first and last time, the first price, the time unit and a CRC-32C
+ * of the header and the payload. The payload is a bit stream: for each tick after the first one, the delta-of-delta of
+ * its time in time units, then the XOR of its price with the previous price.
+ * <ul>
+ *   <li>The time unit is the greatest common divisor of the time deltas, a second for the stored prices, so a
+ *   regular series costs one bit per time: a zero delta-of-delta. Other values take 9 to 68 bits.</li>
+ *   <li>An unchanged price costs one bit. Otherwise the meaningful bits of the XOR are written, inside the
+ *   leading and trailing zero window of the previous price when they fit, or after a new window.</li>
+ * </ul>
+ */
+final class ArchiveSegment {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x4D504153;
+
+    /**
+     * Bump when the layout changes
+     */
+    private static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 56;
+
+    private final Path path;
+
+    private final ByteBuffer buffer;
+
+    private final int size;
+
+    private final long firstTime;
+
+    private final long lastTime;
+
+    private final long unit;
+
+    private final double firstPrice;
+
+    private ArchiveSegment(Path path, ByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.firstTime = buffer.getLong(16);
+        this.lastTime = buffer.getLong(24);
+        this.unit = buffer.getLong(32);
+        this.firstPrice = buffer.getDouble(40);
+    }
+
+    /**
+     * Map a segment file and check its header and checksum.
+     *
+     * @param path the segment file
+     * @return the segment
+     * @throws IOException if the file cannot be mapped or is not a valid segment
+     */
+    static ArchiveSegment open(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an archive segment of version " + VERSION + ": " + path);
+        }
+        int words = buffer.getInt(12);
+        if (buffer.getInt(8) < 1 || buffer.capacity() != HEADER_SIZE + (long) words * Long.BYTES
+                || buffer.getInt(48) != checksum(buffer)) {
+            throw new IOException("Corrupted archive segment " + path);
+        }
+        return new ArchiveSegment(path, buffer);
+    }
+
+    /**
+     * Write the ticks of a series to a new segment file, through a temporary file moved in place, so a
+     * segment file is always complete; an existing file of the same name is replaced.
+     *
+     * @param path the segment file
+     * @param series the ticks, oldest first, at least one
+     * @return the segment, mapped from the file
+     * @throws IOException if the file cannot be written
+     */
+    static ArchiveSegment write(Path path, PriceSeries series) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer content = encode(series);
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    /**
+     * @param series the ticks, oldest first, at least one
+     * @return the content of the segment file
+     */
+    static ByteBuffer encode(PriceSeries series) {
+        int count = series.size();
+        if (count == 0) {
+            throw new IllegalArgumentException("A segment holds at least one tick");
+        }
+        long unit = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = series.time(i) - series.time(i - 1);
+            if (delta < 0) {
+                throw new IllegalArgumentException("The ticks of a segment must be in ascending time order");
+            }
+            unit = gcd(unit, delta);
+        }
+        unit = Math.max(unit, 1);
+
+        BitWriter bits = new BitWriter(count / 16);
+        long previousDelta = 0;
+        long previousBits = Double.doubleToRawLongBits(series.price(0));
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = (series.time(i) - series.time(i - 1)) / unit;
+            writeDeltaOfDelta(bits, delta - previousDelta);
+            previousDelta = delta;
+
+            long priceBits = Double.doubleToRawLongBits(series.price(i));
+            long xor = priceBits ^ previousBits;
+            previousBits = priceBits;
+            if (xor == 0) {
+                bits.writeBit(false);
+                continue;
+            }
+            bits.writeBit(true);
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                bits.writeBit(false);
+                bits.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                bits.writeBit(true);
+                bits.write(leading, 5);
+                bits.write(meaningful - 1, 6);
+                bits.write(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        long[] words = bits.toWords();
+
+        ByteBuffer content = ByteBuffer.allocate(HEADER_SIZE + words.length * Long.BYTES);
+        content.putInt(0, MAGIC);
+        content.putInt(4, VERSION);
+        content.putInt(8, count);
+        content.putInt(12, words.length);
+        content.putLong(16, series.time(0));
+        content.putLong(24, series.time(count - 1));
+        content.putLong(32, unit);
+        content.putDouble(40, series.price(0));
+        for (int i = 0; i < words.length; i++) {
+            content.putLong(HEADER_SIZE + i * Long.BYTES, words[i]);
+        }
+        content.putInt(48, checksum(content));
+        return content;
+    }
+
+    /**
+     * Decode the ticks of the segment in a time range.
+     *
+     * @param from inclusive start of the range, in epoch milliseconds
+     * @param to exclusive end of the range, in epoch milliseconds
+     * @param series the builder the ticks are appended to
+     */
+    void read(long from, long to, PriceSeries.Builder series) {
+        if (lastTime < from || firstTime >= to) {
+            return;
+        }
+        long time = firstTime;
+        double price = firstPrice;
+        if (time >= from) {
+            series.add(time, price);
+        }
+        BitReader bits = new BitReader(buffer, HEADER_SIZE);
+        long delta = 0;
+        long priceBits = Double.doubleToRawLongBits(price);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < size; i++) {
+            delta += readDeltaOfDelta(bits);
+            time += delta * unit;
+            if (time >= to) {
+                return;
+            }
+            if (bits.readBit()) {
+                if (bits.readBit()) {
+                    leading = (int) bits.read(5);
+                    int meaningful = (int) bits.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                priceBits ^= bits.read(64 - leading - trailing) << trailing;
+            }
+            if (time >= from) {
+                series.add(time, Double.longBitsToDouble(priceBits));
+            }
+        }
+    }
+
+    /**
+     * @return all the ticks of the segment
+     */
+    PriceSeries readAll(MetalType metalType) {
+        PriceSeries.Builder series = new PriceSeries.Builder(metalType, size);
+        this.read(Long.MIN_VALUE, Long.MAX_VALUE, series);
+        return series.build();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long firstTime() {
+        return firstTime;
+    }
+
+    long lastTime() {
+        return lastTime;
+    }
+
+    /**
+     * @return bytes of the segment file
+     */
+    long bytes() {
+        return buffer.capacity();
+    }
+
+    private static void writeDeltaOfDelta(BitWriter bits, long value) {
+        if (value == 0) {
+            bits.write(0b0, 1);
+        } else if (value >= -63 && value <= 64) {
+            bits.write(0b10, 2);
+            bits.write(value + 63, 7);
+        } else if (value >= -255 && value <= 256) {
+            bits.write(0b110, 3);
+            bits.write(value + 255, 9);
+        } else if (value >= -2047 && value <= 2048) {
+            bits.write(0b1110, 4);
+            bits.write(value + 2047, 12);
+        } else {
+            bits.write(0b1111, 4);
+            bits.write(value, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader bits) {
+        if (!bits.readBit()) {
+            return 0;
+        }
+        if (!bits.readBit()) {
+            return bits.read(7) - 63;
+        }
+        if (!bits.readBit()) {
+            return bits.read(9) - 255;
+        }
+        if (!bits.readBit()) {
+            return bits.read(12) - 2047;
+        }
+        return bits.read(64);
+    }
+
+    private static int checksum(ByteBuffer content) {
+        // the header up to the checksum, then the payload
+        CRC32C crc = new CRC32C();
+        crc.update(content.slice(0, 48));
+        crc.update(content.slice(HEADER_SIZE, content.capacity() - HEADER_SIZE));
+        return (int) crc.getValue();
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long next = a % b;
+            a = b;
+            b = next;
+        }
+        return a;
+    }
+}
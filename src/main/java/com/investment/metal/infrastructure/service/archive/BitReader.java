@@ -0,0 +1,54 @@
+package com.investment.metal.infrastructure.service.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a stream of bits written by {@link BitWriter} from a buffer, one 64-bit word at a time.
+ */
+final class BitReader {
+
+    private final ByteBuffer buffer;
+
+    private int position;
+
+    private long current;
+
+    /**
+     * Bits of {@link #current} not read yet, at its high end
+     */
+    private int available;
+
+    /**
+     * @param buffer the buffer holding the words, big-endian
+     * @param offset byte offset of the first word
+     */
+    BitReader(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    /**
+     * @param bits number of bits, between 1 and 64
+     * @return the next bits, in the low end of the value
+     */
+    long read(int bits) {
+        if (bits <= available) {
+            long value = current >>> (64 - bits);
+            current = bits == 64 ? 0 : current << bits;
+            available -= bits;
+            return value;
+        }
+        long high = available == 0 ? 0 : current >>> (64 - available);
+        int rest = bits - available;
+        current = buffer.getLong(position);
+        position += Long.BYTES;
+        long low = current >>> (64 - rest);
+        current = rest == 64 ? 0 : current << rest;
+        available = 64 - rest;
+        return rest == 64 ? low : (high << rest) | low;
+    }
+
+    boolean readBit() {
+        return this.read(1) != 0;
+    }
+}
@@ -0,0 +1,74 @@
+package com.investment.metal.infrastructure.service.archive;
+
+import java.util.Arrays;
+
+/**
+ * Growable stream of bits, packed most significant bit first into 64-bit words.
+ */
+final class BitWriter {
+
+    private long[] words;
+
+    private int size;
+
+    private long current;
+
+    /**
+     * Bits of {@link #current} already written
+     */
+    private int used;
+
+    BitWriter(int expectedWords) {
+        this.words = new long[Math.max(16, expectedWords)];
+    }
+
+    /**
+     * Append the low bits of a value.
+     *
+     * @param value the bits, in its low end
+     * @param bits number of bits, between 1 and 64
+     */
+    void write(long value, int bits) {
+        if (bits < 64) {
+            value &= (1L << bits) - 1;
+        }
+        int free = 64 - used;
+        if (bits <= free) {
+            current |= value << (free - bits);
+            used += bits;
+            if (used == 64) {
+                this.flush();
+            }
+        } else {
+            int rest = bits - free;
+            current |= value >>> rest;
+            this.flush();
+            current = value << (64 - rest);
+            used = rest;
+        }
+    }
+
+    void writeBit(boolean bit) {
+        this.write(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * @return the words written, the last one padded with zero bits
+     */
+    long[] toWords() {
+        long[] result = Arrays.copyOf(words, size + (used > 0 ? 1 : 0));
+        if (used > 0) {
+            result[size] = current;
+        }
+        return result;
+    }
+
+    private void flush() {
+        if (size == words.length) {
+            words = Arrays.copyOf(words, size * 2);
+        }
+        words[size++] = current;
+        current = 0;
+        used = 0;
+    }
+}
@@ -0,0 +1,272 @@
+package com.investment.metal.infrastructure.service.archive;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Append-only archive of the price ticks that left the metalprices table, one directory of
+ * {@link ArchiveSegment} files per metal, named after the time of their first tick.
+ * A segment takes a few bits per tick instead of a database row, and is read through a memory mapping, so
+ * scanning years of ticks for a backtest decodes them from the page cache without a query.
+ * <p>
+ * Ticks are appended in time order by {@link PriceArchiveCompactor}, without decoding what is already archived:
+ * <ul>
+ *   <li>the new ticks are written to chunk segments of {@code chunkTicks} ticks, the rest to a tail segment, the
+ *   only one rewritten by the next append, so an append costs at most a chunk besides its own ticks;</li>
+ *   <li>once the chunks hold {@code segment-ticks} ticks, they are merged into one full segment, so a metal keeps
+ *   few files and every tick is rewritten at most twice.</li>
+ * </ul>
+ * A merge replaces the file of its first chunk, then deletes the others; a chunk left by an interrupted merge is
+ * covered by the merged segment and deleted when the archive is opened. Reads use the segment list published by
+ * the last append and never wait for an append.
+ */
+@Slf4j
+@Service
+public class PriceArchive {
+
+    /**
+     * Directory of the archive, null if it is disabled
+     */
+    private final Path directory;
+
+    /**
+     * Chunks a full segment is merged from
+     */
+    static final int CHUNKS_PER_SEGMENT = 64;
+
+    private final int segmentTicks;
+
+    private final int chunkTicks;
+
+    /**
+     * Immutable segment lists of the metals, oldest first, replaced on every append
+     */
+    private volatile Map<MetalType, List<ArchiveSegment>> segments;
+
+    /**
+     * @param path directory of the archive; empty disables it
+     * @param segmentTicks ticks of a full segment, merged from the chunks
+     */
+    @Autowired
+    public PriceArchive(@Value("${service.metal.price.archive.path:}") String path,
+                        @Value("${service.metal.price.archive.segment-ticks:65536}") int segmentTicks) {
+        this(path == null || path.isBlank() ? null : Path.of(path), segmentTicks,
+                Math.max(1, segmentTicks / CHUNKS_PER_SEGMENT));
+    }
+
+    PriceArchive(Path directory, int segmentTicks, int chunkTicks) {
+        if (chunkTicks <= 0 || segmentTicks < chunkTicks) {
+            throw new IllegalArgumentException("An archive segment holds a positive number of ticks, at least a chunk");
+        }
+        this.segmentTicks = segmentTicks;
+        this.chunkTicks = chunkTicks;
+        Map<MetalType, List<ArchiveSegment>> loaded = new EnumMap<>(MetalType.class);
+        Path opened = directory;
+        if (directory != null) {
+            try {
+                for (MetalType metalType : MetalType.values()) {
+                    loaded.put(metalType, load(directory.resolve(metalType.getSymbol())));
+                }
+                log.info("Opened the price archive {}", directory);
+            } catch (IOException | RuntimeException e) {
+                log.warn("The price archive is disabled, unable to open {}: {}", directory, e.getMessage());
+                loaded.clear();
+                opened = null;
+            }
+        }
+        for (MetalType metalType : MetalType.values()) {
+            loaded.putIfAbsent(metalType, List.of());
+        }
+        this.directory = opened;
+        this.segments = loaded;
+    }
+
+    /**
+     * @return true if the archive stores ticks
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Append ticks to the archive of their metal. Ticks not newer than the last archived one are ignored.
+     *
+     * @param series the ticks, oldest first
+     * @return the number of ticks appended
+     * @throws UncheckedIOException if a segment cannot be written; the reads keep the previous segments
+     */
+    public synchronized int append(PriceSeries series) {
+        if (directory == null) {
+            return 0;
+        }
+        MetalType metalType = series.getMetalType();
+        List<ArchiveSegment> current = segments.get(metalType);
+        ArchiveSegment last = current.isEmpty() ? null : current.getLast();
+        int first = last == null ? 0 : series.indexOf(last.lastTime() + 1);
+        int appended = series.size() - first;
+        if (appended == 0) {
+            return 0;
+        }
+        List<ArchiveSegment> updated = new ArrayList<>(current);
+        // only the tail is rewritten with the new ticks
+        PriceSeries.Builder pending = new PriceSeries.Builder(metalType, chunkTicks);
+        int pendingSize = 0;
+        if (last != null && last.size() < chunkTicks) {
+            PriceSeries tail = last.readAll(metalType);
+            for (int i = 0; i < tail.size(); i++) {
+                pending.add(tail.time(i), tail.price(i));
+            }
+            pendingSize = tail.size();
+            updated.removeLast();
+        }
+        try {
+            Path metalDirectory = Files.createDirectories(directory.resolve(metalType.getSymbol()));
+            for (int i = first; i < series.size(); i++) {
+                pending.add(series.time(i), series.price(i));
+                if (++pendingSize == chunkTicks) {
+                    updated.add(write(metalDirectory, pending.build()));
+                    pending = new PriceSeries.Builder(metalType, chunkTicks);
+                    pendingSize = 0;
+                }
+            }
+            ArchiveSegment tail = pendingSize > 0 ? write(metalDirectory, pending.build()) : null;
+            merge(metalType, metalDirectory, updated);
+            if (tail != null) {
+                updated.add(tail);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to archive the prices of " + metalType.getSymbol(), e);
+        }
+        Map<MetalType, List<ArchiveSegment>> published = new EnumMap<>(segments);
+        published.put(metalType, Collections.unmodifiableList(updated));
+        this.segments = published;
+        return appended;
+    }
+
+    /**
+     * Decode the archived ticks of a metal in a time range, reading only the segments overlapping it.
+     *
+     * @param metalType the metal
+     * @param from inclusive start of the range, in epoch milliseconds
+     * @param to exclusive end of the range, in epoch milliseconds
+     * @return the ticks of the range, oldest first
+     */
+    public PriceSeries findSeries(MetalType metalType, long from, long to) {
+        List<ArchiveSegment> current = segments.get(metalType);
+        int expected = 0;
+        for (ArchiveSegment segment : current) {
+            if (segment.lastTime() >= from && segment.firstTime() < to) {
+                expected += segment.size();
+            }
+        }
+        PriceSeries.Builder series = new PriceSeries.Builder(metalType, expected);
+        for (ArchiveSegment segment : current) {
+            segment.read(from, to, series);
+        }
+        return series.build();
+    }
+
+    /**
+     * The raw prices keep whole seconds, so the prices from this time on are never in the archive.
+     *
+     * @param metalType the metal
+     * @return start of the second after the last archived tick, or {@link Long#MIN_VALUE} if none is archived
+     */
+    public long getArchivedUntil(MetalType metalType) {
+        List<ArchiveSegment> current = segments.get(metalType);
+        if (current.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+        return Math.floorDiv(current.getLast().lastTime(), 1000) * 1000 + 1000;
+    }
+
+    /**
+     * Merge the chunks after the last full segment into full segments, as long as they hold enough ticks.
+     *
+     * @param segments the segments of the metal without the tail, updated in place
+     */
+    private void merge(MetalType metalType, Path metalDirectory, List<ArchiveSegment> segments) throws IOException {
+        int start = segments.size();
+        while (start > 0 && segments.get(start - 1).size() < segmentTicks) {
+            start--;
+        }
+        while (true) {
+            int end = start;
+            int ticks = 0;
+            while (end < segments.size() && ticks < segmentTicks) {
+                ticks += segments.get(end++).size();
+            }
+            if (ticks < segmentTicks) {
+                return;
+            }
+            List<ArchiveSegment> chunks = new ArrayList<>(segments.subList(start, end));
+            PriceSeries.Builder merged = new PriceSeries.Builder(metalType, ticks);
+            for (ArchiveSegment chunk : chunks) {
+                chunk.read(Long.MIN_VALUE, Long.MAX_VALUE, merged);
+            }
+            // replaces the file of the first chunk
+            ArchiveSegment full = write(metalDirectory, merged.build());
+            for (ArchiveSegment chunk : chunks.subList(1, chunks.size())) {
+                Files.deleteIfExists(chunk.path());
+            }
+            segments.subList(start, end).clear();
+            segments.add(start++, full);
+        }
+    }
+
+    private static ArchiveSegment write(Path metalDirectory, PriceSeries series) throws IOException {
+        return ArchiveSegment.write(metalDirectory.resolve(series.time(0) + ArchiveSegment.SUFFIX), series);
+    }
+
+    /**
+     * Open the segments of a metal, skipping the invalid ones and the leftovers of an interrupted append.
+     */
+    private static List<ArchiveSegment> load(Path metalDirectory) throws IOException {
+        if (!Files.isDirectory(metalDirectory)) {
+            return List.of();
+        }
+        List<ArchiveSegment> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(metalDirectory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(ArchiveSegment.SUFFIX + ".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(ArchiveSegment.SUFFIX)) {
+                    try {
+                        loaded.add(ArchiveSegment.open(file));
+                    } catch (IOException e) {
+                        log.warn("Skipping the archive segment {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+        }
+        loaded.sort(Comparator.comparingLong(ArchiveSegment::firstTime)
+                .thenComparing(Comparator.comparingInt(ArchiveSegment::size).reversed()));
+        List<ArchiveSegment> kept = new ArrayList<>(loaded.size());
+        for (ArchiveSegment segment : loaded) {
+            if (!kept.isEmpty() && segment.lastTime() <= kept.getLast().lastTime()) {
+                // a chunk already merged into the previous segment by an interrupted merge
+                log.info("Deleting the merged archive segment {}", segment.path());
+                Files.deleteIfExists(segment.path());
+            } else {
+                kept.add(segment);
+            }
+        }
+        return Collections.unmodifiableList(kept);
+    }
+}
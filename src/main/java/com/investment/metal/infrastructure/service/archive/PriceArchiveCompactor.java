@@ -0,0 +1,58 @@
+package com.investment.metal.infrastructure.service.archive;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves the aged prices of the metalprices table to the {@link PriceArchive} before the price retention deletes
+ * them. Each run reads the prices between the end of the archive and the retention cutoff as primitive columns
+ * and appends them, so a price is archived once whatever the number of runs.
+ * A price inserted later than an archived price, e.g. by the intraday backfill, is not archived.
+ */
+@Slf4j
+@Service
+public class PriceArchiveCompactor {
+
+    private final PriceArchive priceArchive;
+
+    private final MetalPriceRepository metalPriceRepository;
+
+    public PriceArchiveCompactor(PriceArchive priceArchive, MetalPriceRepository metalPriceRepository) {
+        this.priceArchive = priceArchive;
+        this.metalPriceRepository = metalPriceRepository;
+    }
+
+    /**
+     * Archive the prices of a metal older than a time that are not archived yet.
+     * Does nothing if the archive is disabled.
+     *
+     * @param metalType the metal
+     * @param cutoff the prices before this time are archived
+     * @return the number of prices archived
+     * @throws RuntimeException if the prices cannot be read or archived; they must not be deleted then
+     */
+    public int compact(MetalType metalType, LocalDateTime cutoff) {
+        if (!priceArchive.isEnabled()) {
+            return 0;
+        }
+        long archivedUntil = priceArchive.getArchivedUntil(metalType);
+        LocalDateTime from = archivedUntil == Long.MIN_VALUE
+                ? LocalDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault())
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(archivedUntil), ZoneId.systemDefault());
+        if (!from.isBefore(cutoff)) {
+            return 0;
+        }
+        PriceSeries aged = metalPriceRepository.findSeries(metalType, from, cutoff);
+        int archived = priceArchive.append(aged);
+        if (archived > 0) {
+            log.debug("Archived {} prices of {} older than {}", archived, metalType, cutoff);
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,128 @@
+package com.investment.metal.infrastructure.service.price;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Base class of the price readers that need one HTTP request per metal.
+ * Requests go through the shared non-blocking {@link HttpClient}, so no thread waits on the provider; a batch
+ * fetch sends the requests of all metals at once and costs about the latency of the slowest request.
+ * When the series is kept, the readers also read the chart points of the response in the pass reading the
+ * price and hand them to {@link #keepSeries(MetalType, PriceSeries)}; {@link #takeSeries(MetalType)} then serves
+ * them without another request.
+ */
+public abstract class AbstractHttpPriceReader implements ExternalMetalPriceReader {
+
+    private final HttpClient httpClient;
+
+    private final Duration readTimeout;
+
+    private final boolean keepSeries;
+
+    /**
+     * Chart points of the last response read for each metal, until they are taken
+     */
+    private final Map<MetalType, PriceSeries> series = new ConcurrentHashMap<>();
+
+    /**
+     * @param httpClient the shared HTTP client
+     * @param readTimeout time to wait for the response once the request is sent
+     * @param keepSeries whether the price reads also keep the chart points of the response
+     */
+    protected AbstractHttpPriceReader(HttpClient httpClient, Duration readTimeout, boolean keepSeries) {
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+        this.keepSeries = keepSeries;
+    }
+
+    /**
+     * @param metalType the metal
+     * @return the request reading the price of the metal
+     */
+    protected abstract HttpRequest.Builder request(MetalType metalType);
+
+    /**
+     * @param metalType the metal
+     * @param content body of the response
+     * @return the price of one kg of the metal
+     * @throws RuntimeException if the content is not a valid price response
+     */
+    protected abstract double parse(MetalType metalType, String content);
+
+    /**
+     * Consumes the body of a successful response. The default buffers it as a string for
+     * {@link #parse(MetalType, String)}; readers can stream it instead.
+     *
+     * @param metalType the metal
+     * @return the subscriber reading the price from the body
+     */
+    protected HttpResponse.BodySubscriber<Double> subscriber(MetalType metalType) {
+        return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                content -> this.parse(metalType, content));
+    }
+
+    /**
+     * @return true if the price reads also keep the chart points of the response
+     */
+    protected final boolean isKeepingSeries() {
+        return keepSeries;
+    }
+
+    /**
+     * Keep the chart points read with a price until they are taken, if the series is kept.
+     *
+     * @param metalType the metal
+     * @param points the points of the response, oldest first, priced like {@link #parse(MetalType, String)}
+     */
+    protected final void keepSeries(MetalType metalType, PriceSeries points) {
+        if (keepSeries && points.size() > 0) {
+            series.put(metalType, points);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Double> fetchPriceAsync(MetalType metalType) {
+        return this.send(metalType, () -> this.subscriber(metalType));
+    }
+
+    /**
+     * @return the chart points of the last price response of the metal, read by the price request itself
+     */
+    @Override
+    public PriceSeries takeSeries(MetalType metalType) {
+        PriceSeries points = series.remove(metalType);
+        return points != null ? points : new PriceSeries(metalType, new long[0], new double[0]);
+    }
+
+    private <T> CompletableFuture<T> send(MetalType metalType, Supplier<HttpResponse.BodySubscriber<T>> subscriber) {
+        final HttpRequest request = this.request(metalType).timeout(readTimeout).GET().build();
+        final CompletableFuture<HttpResponse<T>> response = httpClient.sendAsync(request,
+                info -> info.statusCode() / 100 == 2
+                        ? subscriber.get()
+                        : HttpResponse.BodySubscribers.replacing(null));
+        final CompletableFuture<T> body = response.thenApply(received -> {
+            if (received.statusCode() / 100 != 2) {
+                throw new RuntimeException("HTTP " + received.statusCode() + " reading the price of "
+                        + metalType.getSymbol() + " from " + request.uri().getHost());
+            }
+            return received.body();
+        });
+        // cancelling the price, e.g. on a time limiter timeout or by a hedged request, aborts the exchange
+        body.whenComplete((read, error) -> {
+            if (body.isCancelled()) {
+                response.cancel(true);
+            }
+        });
+        return body;
+    }
+}
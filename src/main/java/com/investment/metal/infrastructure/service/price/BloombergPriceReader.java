@@ -2,17 +2,20 @@ package com.investment.metal.infrastructure.service.price;
 
 import com.investment.metal.domain.model.CurrencyType;
 import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceServiceType;
 import com.investment.metal.infrastructure.util.Util;
-import kong.unirest.HttpResponse;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
 import kong.unirest.JsonNode;
-import kong.unirest.Unirest;
 import kong.unirest.json.JSONArray;
 
 /**
  * Price reader implementation for Bloomberg API.
  * Fetches precious metal prices from Bloomberg's intraday API endpoint.
  */
-public class BloombergPriceReader implements ExternalMetalPriceReader {
+public class BloombergPriceReader extends AbstractHttpPriceReader {
 
     private static final String BLOOMBERG_API_BASE_URL = 
         "https://www.bloomberg.com/markets2/api/intraday/";
@@ -20,18 +23,27 @@ public class BloombergPriceReader implements ExternalMetalPriceReader {
         "%3ACUR?days=1&interval=1&volumeInterval=15";
 
     /**
-     * Fetch current price for the specified metal type from Bloomberg API.
-     * 
+     * @param httpClient the shared HTTP client
+     * @param readTimeout time to wait for the response once the request is sent
+     * @param keepSeries whether the price reads also keep the chart points of the response
+     */
+    public BloombergPriceReader(HttpClient httpClient, Duration readTimeout, boolean keepSeries) {
+        super(httpClient, readTimeout, keepSeries);
+    }
+
+    /**
+     * The intraday endpoint serves one ticker per request, so a batch fetch sends the requests of all metals
+     * concurrently.
+     *
      * @param metalType the type of metal to fetch price for
-     * @return the current price of the metal per ounce
-     * @throws RuntimeException if the API call fails or returns invalid data
+     * @return the request reading the intraday prices of the metal
      */
     @Override
-    public double fetchPrice(MetalType metalType) {
+    protected HttpRequest.Builder request(MetalType metalType) {
         String metalSymbol = getSymbol(metalType);
         String apiUrl = BLOOMBERG_API_BASE_URL + metalSymbol + BLOOMBERG_API_PARAMS;
 
-        HttpResponse<String> response = Unirest.get(apiUrl)
+        return HttpRequest.newBuilder(URI.create(apiUrl))
                 .header("authority", "www.bloomberg.com")
                 .header("user-agent", "Chrome" + System.currentTimeMillis())
                 .header("dnt", "1")
@@ -41,10 +53,20 @@ public class BloombergPriceReader implements ExternalMetalPriceReader {
                 .header("sec-fetch-dest", "empty")
                 .header("referer", "https://www.bloomberg.com/quote/" + metalSymbol + ":CUR")
                 .header("accept-language", "ro,en;q=0.9,en-GB;q=0.8")
-                .header("if-none-match", "W/\"cafe-Gz5oVOGo7YERbAPvVFIFwfcYPL0\"")
-                .asString();
+                .header("if-none-match", "W/\"cafe-Gz5oVOGo7YERbAPvVFIFwfcYPL0\"");
+    }
 
-        String jsonContent = response.getBody();
+    /**
+     * Read the newest intraday price from the Bloomberg response. When the series is kept, every point of the
+     * intraday {@code price} array, one per minute of the day, is read from the same JSON tree.
+     *
+     * @param metalType the type of metal the response is for
+     * @param jsonContent the response body
+     * @return the current price of the metal per ounce
+     * @throws RuntimeException if the response is not valid
+     */
+    @Override
+    protected double parse(MetalType metalType, String jsonContent) {
         JsonNode node = new JsonNode(jsonContent);
         JSONArray array = node.getArray()
                              .getJSONObject(0)
@@ -52,6 +74,9 @@ public class BloombergPriceReader implements ExternalMetalPriceReader {
         
         double price = array.getJSONObject(array.length() - 1)
                            .getDouble("value");
+        if (isKeepingSeries()) {
+            keepSeries(metalType, ChartPoints.read(metalType, array, Util.OUNCE));
+        }
 
         // Convert to price per ounce
         return price / Util.OUNCE;
@@ -72,6 +97,11 @@ public class BloombergPriceReader implements ExternalMetalPriceReader {
         };
     }
 
+    @Override
+    public String getName() {
+        return PriceServiceType.BLOOMBERG.name();
+    }
+
     /**
      * Get the currency type for this price reader.
      * 
@@ -0,0 +1,139 @@
+package com.investment.metal.infrastructure.service.price;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import kong.unirest.json.JSONArray;
+import kong.unirest.json.JSONObject;
+
+/**
+ * Reads the intraday chart points of a provider response into a {@link PriceSeries}.
+ * A point is an object with a time, under one of {@link #TIME_KEYS}, and a price, under one of
+ * {@link #PRICE_KEYS}; the providers name them differently ({@code dateTime}/{@code value} for Bloomberg,
+ * {@code time}/{@code price} for Galmarley, whose points {@link LatestPriceParser} streams).
+ * Times may be epoch seconds, epoch milliseconds or ISO-8601 strings, without offset meaning UTC.
+ * Points without a usable time or a positive price are skipped.
+ */
+final class ChartPoints {
+
+    private static final String[] TIME_KEYS = {"dateTime", "time", "timestamp", "date"};
+
+    private static final String[] PRICE_KEYS = {"value", "price", "close"};
+
+    /**
+     * Epoch values below this are seconds (year 5138), above it milliseconds (year 1973)
+     */
+    private static final long MAX_EPOCH_SECONDS = 100_000_000_000L;
+
+    private ChartPoints() {
+    }
+
+    /**
+     * @param metalType the metal of the response
+     * @param points the chart points
+     * @param divisor the provider price is divided by it, as the latest price of the same response is
+     * @return the valid points in ascending time order; of points with the same time the last one is kept
+     */
+    static PriceSeries read(MetalType metalType, JSONArray points, double divisor) {
+        long[] times = new long[points.length()];
+        double[] prices = new double[points.length()];
+        int size = 0;
+        for (int i = 0; i < points.length(); i++) {
+            JSONObject point = points.optJSONObject(i);
+            if (point == null) {
+                continue;
+            }
+            String timeKey = key(point, TIME_KEYS);
+            String priceKey = key(point, PRICE_KEYS);
+            if (timeKey == null || priceKey == null) {
+                continue;
+            }
+            long time = toMillis(point.opt(timeKey));
+            double price = point.optDouble(priceKey, Double.NaN) / divisor;
+            if (time == Long.MIN_VALUE || !Double.isFinite(price) || price <= 0) {
+                continue;
+            }
+            times[size] = time;
+            prices[size] = price;
+            size++;
+        }
+        return of(metalType, times, prices, size);
+    }
+
+    /**
+     * @param metalType the metal of the points
+     * @param times epoch milliseconds of the points, in the order of the response
+     * @param prices prices of the points
+     * @param size number of points
+     * @return the points in ascending time order; of points with the same time the last one is kept
+     */
+    static PriceSeries of(MetalType metalType, long[] times, double[] prices, int size) {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = times[i - 1] <= times[i];
+        }
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, i -> i);
+        if (!sorted) {
+            // stable, so the last of several points with the same time stays last
+            Arrays.sort(order, Comparator.comparingLong(i -> times[i]));
+        }
+        PriceSeries.Builder series = new PriceSeries.Builder(metalType, size);
+        for (int i = 0; i < size; i++) {
+            int index = order[i];
+            if (i + 1 < size && times[order[i + 1]] == times[index]) {
+                continue;
+            }
+            series.add(times[index], prices[index]);
+        }
+        return series.build();
+    }
+
+    private static String key(JSONObject point, String[] candidates) {
+        for (String candidate : candidates) {
+            if (point.has(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the epoch milliseconds of a time value, or {@link Long#MIN_VALUE} if it is not a time
+     */
+    static long toMillis(Object value) {
+        if (value instanceof Number number) {
+            long epoch = number.longValue();
+            return Math.abs(epoch) < MAX_EPOCH_SECONDS ? epoch * 1000 : epoch;
+        }
+        if (!(value instanceof String text) || text.isBlank()) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return toMillis(Long.parseLong(text.trim()));
+        } catch (NumberFormatException ignored) {
+            // not an epoch value
+        }
+        try {
+            return Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // no Z suffix
+        }
+        try {
+            return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // no offset
+        }
+        try {
+            return LocalDateTime.parse(text).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
@@ -2,17 +2,118 @@ package com.investment.metal.infrastructure.service.price;
 
 import com.investment.metal.domain.model.CurrencyType;
 import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 public interface ExternalMetalPriceReader {
 
+    /**
+     * Read the price without blocking the calling thread. Cancelling the returned future aborts the request.
+     *
+     * @param metalType type of metal
+     * @return completes with the price of one kg of metal
+     */
+    CompletableFuture<Double> fetchPriceAsync(MetalType metalType);
+
     /**
      * @param metalType type of metal
      * @return Returns the price of one kg of metal
      */
-    double fetchPrice(MetalType metalType);
+    default double fetchPrice(MetalType metalType) {
+        return await(this.fetchPriceAsync(metalType), metalType.getSymbol());
+    }
+
+    /**
+     * Fetch the prices of several metals in as few round trips as the provider allows.
+     * The default sends the requests of all metals at once, so the batch takes about as long as the slowest one.
+     *
+     * @param metalTypes types of metal
+     * @return completes with the price of one kg of each metal that could be read, metals that failed are
+     * missing; completes exceptionally if no price could be read
+     */
+    default CompletableFuture<Map<MetalType, Double>> fetchPricesAsync(Set<MetalType> metalTypes) {
+        Map<MetalType, CompletableFuture<Double>> futures = new EnumMap<>(MetalType.class);
+        for (MetalType metalType : metalTypes) {
+            futures.put(metalType, this.fetchPriceAsync(metalType));
+        }
+        CompletableFuture<Map<MetalType, Double>> prices = CompletableFuture
+                .allOf(futures.values().toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> {
+                    Map<MetalType, Double> read = new EnumMap<>(MetalType.class);
+                    Throwable failure = null;
+                    for (Map.Entry<MetalType, CompletableFuture<Double>> future : futures.entrySet()) {
+                        if (future.getValue().isCompletedExceptionally()) {
+                            failure = future.getValue().exceptionNow();
+                        } else {
+                            read.put(future.getKey(), future.getValue().resultNow());
+                        }
+                    }
+                    if (read.isEmpty() && failure != null) {
+                        throw failure instanceof CompletionException completion ? completion
+                                : new CompletionException(failure);
+                    }
+                    return read;
+                });
+        prices.whenComplete((read, error) -> {
+            if (prices.isCancelled()) {
+                futures.values().forEach(future -> future.cancel(true));
+            }
+        });
+        return prices;
+    }
+
+    /**
+     * @param metalTypes types of metal
+     * @return the price of one kg of each metal that could be read; metals that failed are missing
+     * @throws RuntimeException if no price could be read
+     */
+    default Map<MetalType, Double> fetchPrices(Set<MetalType> metalTypes) {
+        return await(this.fetchPricesAsync(metalTypes), metalTypes.toString());
+    }
+
+    /**
+     * Take every intraday point of the last price response read for a metal, not only the latest one, so the
+     * history costs no request of its own. The points are taken once; a newer response replaces the points not
+     * taken yet, which it covers.
+     * The default serves no history: readers of providers without a chart series return an empty series.
+     *
+     * @param metalType type of metal
+     * @return the points of the last provider response, oldest first, in the unit of {@link #fetchPrice};
+     * empty if none was read since the last call
+     */
+    default PriceSeries takeSeries(MetalType metalType) {
+        return new PriceSeries(metalType, new long[0], new double[0]);
+    }
+
+    /**
+     * @return name of the price provider, which keys its circuit breakers
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
 
     /**
      * @return Returns the currency type of the metal price
      */
     CurrencyType getCurrencyType();
+
+    /**
+     * Wait for a request; interrupting the waiting thread cancels it.
+     */
+    private static <T> T await(CompletableFuture<T> future, String what) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching the price of " + what, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        }
+    }
 }
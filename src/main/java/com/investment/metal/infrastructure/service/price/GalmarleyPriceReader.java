@@ -2,15 +2,27 @@ package com.investment.metal.infrastructure.service.price;
 
 import com.investment.metal.domain.model.CurrencyType;
 import com.investment.metal.domain.model.MetalType;
-import kong.unirest.HttpResponse;
-import kong.unirest.JsonNode;
-import kong.unirest.Unirest;
+import com.investment.metal.domain.model.PriceServiceType;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
 
 /**
  * Price reader implementation for Galmarley API.
  * Fetches precious metal prices from Galmarley's JSONP API endpoint.
  */
-public class GalmarleyPriceReader implements ExternalMetalPriceReader {
+public class GalmarleyPriceReader extends AbstractHttpPriceReader {
 
     private static final String GALMARLEY_API_URL = 
         "https://www.galmarley.com/prices/prices.json?callback=jQuery341049419930235311216_1598937200774" +
@@ -18,17 +30,30 @@ public class GalmarleyPriceReader implements ExternalMetalPriceReader {
         "&interval=5&batch=Update&_=1598937201386";
 
     /**
-     * Fetch current price for the specified metal type from Galmarley API.
-     * 
+     * Parsers kept for the next responses, enough for a batch of every metal
+     */
+    private final BlockingQueue<LatestPriceParser> parsers = new ArrayBlockingQueue<>(8);
+
+    /**
+     * @param httpClient the shared HTTP client
+     * @param readTimeout time to wait for the response once the request is sent
+     * @param keepSeries whether the price reads also keep the chart points of the response
+     */
+    public GalmarleyPriceReader(HttpClient httpClient, Duration readTimeout, boolean keepSeries) {
+        super(httpClient, readTimeout, keepSeries);
+    }
+
+    /**
+     * Galmarley serves one security per request, so a batch fetch sends the requests of all metals concurrently.
+     *
      * @param metalType the type of metal to fetch price for
-     * @return the current price of the metal
-     * @throws RuntimeException if the API call fails or returns invalid data
+     * @return the request reading the latest price of the metal
      */
     @Override
-    public double fetchPrice(MetalType metalType) {
-        HttpResponse<String> response = Unirest.get(GALMARLEY_API_URL)
-                .queryString("securityId", metalType.getSymbol())
-                .header("Connection", "keep-alive")
+    protected HttpRequest.Builder request(MetalType metalType) {
+        URI uri = URI.create(GALMARLEY_API_URL + "&securityId="
+                + URLEncoder.encode(metalType.getSymbol(), StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri)
                 .header("User-Agent", "Mozilla/" + System.currentTimeMillis())
                 .header("DNT", "1")
                 .header("Accept", "*/*")
@@ -37,34 +62,54 @@ public class GalmarleyPriceReader implements ExternalMetalPriceReader {
                 .header("Sec-Fetch-Dest", "script")
                 .header("Referer", "https://www.bullionvault.com/silver-price-chart.do")
                 .header("Accept-Language", "ro,en;q=0.9,en-GB;q=0.8")
-                .header("Content-Type", "application/json")
-                .asString();
-        
-        String content = response.getBody();
+                .header("Content-Type", "application/json");
+    }
+
+    /**
+     * Stream the body through a pooled {@link LatestPriceParser} and stop reading once the latest price is
+     * found. When the series is kept, the parser also reads the {@code chartPoints} array in the same pass and
+     * stops once both are read; the body is never buffered.
+     *
+     * @param metalType the type of metal the response is for
+     * @return the subscriber reading the current price of the metal
+     */
+    @Override
+    protected HttpResponse.BodySubscriber<Double> subscriber(MetalType metalType) {
+        return new LatestPriceSubscriber(metalType);
+    }
+
+    /**
+     * Read the latest price from a complete JSONP response of the Galmarley API.
+     *
+     * @param metalType the type of metal the response is for
+     * @param content the response body
+     * @return the current price of the metal
+     * @throws RuntimeException if the response is empty or invalid
+     */
+    @Override
+    protected double parse(MetalType metalType, String content) {
         if (content == null || content.trim().isEmpty()) {
             throw new RuntimeException(
                 "Empty response from Galmarley API for " + metalType.getSymbol()
             );
         }
-        
-        // Parse JSONP response format: callback(data)
-        int p1 = content.indexOf("(");
-        int p2 = content.lastIndexOf(")");
-        
-        if (p1 >= 0 && p2 > p1) {
-            String jsonContent = content.substring(p1 + 1, p2);
-            JsonNode node = new JsonNode(jsonContent);
-            return node.getObject()
-                      .getJSONObject("latestPrice")
-                      .getDouble("price");
-        } else {
-            String errorMessage = String.format(
-                "Invalid response format from Galmarley API for %s. Response: %s",
-                metalType.getSymbol(),
-                content.substring(0, Math.min(200, content.length()))
-            );
-            throw new RuntimeException(errorMessage);
+        LatestPriceParser parser = acquireParser();
+        try {
+            if (parser.feed(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8))) || parser.finish()) {
+                keepSeries(metalType, parser.chartPoints(metalType));
+                return parser.price();
+            }
+        } catch (IllegalStateException e) {
+            throw invalidResponse(metalType, e);
+        } finally {
+            releaseParser(parser);
         }
+        throw invalidResponse(metalType, null);
+    }
+
+    @Override
+    public String getName() {
+        return PriceServiceType.GALMARLEY.name();
     }
 
     /**
@@ -76,4 +121,108 @@ public class GalmarleyPriceReader implements ExternalMetalPriceReader {
     public CurrencyType getCurrencyType() {
         return CurrencyType.USD;
     }
+
+    private LatestPriceParser acquireParser() {
+        LatestPriceParser parser = parsers.poll();
+        return parser != null ? parser : new LatestPriceParser(isKeepingSeries());
+    }
+
+    private void releaseParser(LatestPriceParser parser) {
+        parser.reset();
+        parsers.offer(parser);
+    }
+
+    private static RuntimeException invalidResponse(MetalType metalType, Throwable cause) {
+        return new RuntimeException(
+            "Invalid response format from Galmarley API for " + metalType.getSymbol()
+                + ": latestPrice.price not found", cause);
+    }
+
+    /**
+     * Feeds the body buffers to a parser as they arrive and cancels the rest of the body once the price
+     * is read; with HTTP/2 this only resets the stream, the connection stays in the pool.
+     */
+    private final class LatestPriceSubscriber implements HttpResponse.BodySubscriber<Double> {
+
+        private final MetalType metalType;
+
+        private final CompletableFuture<Double> price = new CompletableFuture<>();
+
+        private LatestPriceParser parser;
+
+        private Flow.Subscription subscription;
+
+        private LatestPriceSubscriber(MetalType metalType) {
+            this.metalType = metalType;
+        }
+
+        @Override
+        public CompletionStage<Double> getBody() {
+            return price;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.parser = acquireParser();
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (price.isDone()) {
+                return;
+            }
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    if (parser.feed(buffer)) {
+                        subscription.cancel();
+                        keepSeries(metalType, parser.chartPoints(metalType));
+                        complete(parser.price(), null);
+                        return;
+                    }
+                }
+            } catch (IllegalStateException e) {
+                subscription.cancel();
+                complete(Double.NaN, invalidResponse(metalType, e));
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            complete(Double.NaN, throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (price.isDone()) {
+                return;
+            }
+            try {
+                if (parser.finish()) {
+                    keepSeries(metalType, parser.chartPoints(metalType));
+                    complete(parser.price(), null);
+                    return;
+                }
+            } catch (IllegalStateException e) {
+                complete(Double.NaN, invalidResponse(metalType, e));
+                return;
+            }
+            complete(Double.NaN, invalidResponse(metalType, null));
+        }
+
+        private void complete(double value, Throwable error) {
+            if (parser != null) {
+                releaseParser(parser);
+                parser = null;
+            }
+            if (error != null) {
+                price.completeExceptionally(error);
+            } else {
+                price.complete(value);
+            }
+        }
+    }
 }
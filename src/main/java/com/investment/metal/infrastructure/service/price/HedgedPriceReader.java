@@ -0,0 +1,307 @@
+package com.investment.metal.infrastructure.service.price;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Price reader that asks several providers for the same price, so one slow provider does not slow down every
+ * price refresh.
+ * <ul>
+ *   <li>{@link Mode#FASTEST}: queries the primary provider and, if it has not answered within the hedge delay
+ *   or failed, the next provider too. The first valid price wins and the other requests are cancelled.</li>
+ *   <li>{@link Mode#MEDIAN}: queries all providers at once and returns the median of the valid prices received
+ *   within the timeout, which filters out a provider serving a wrong price.</li>
+ * </ul>
+ * Each provider keeps a {@link LatencyHistogram}; unless a fixed delay is configured, the hedge delay is the
+ * configured percentile of the primary provider latency. The requests are the futures of the providers, so no
+ * thread waits for them; a request that lost the race is cancelled, which aborts its HTTP exchange.
+ */
+@Slf4j
+public class HedgedPriceReader implements ExternalMetalPriceReader {
+
+    public enum Mode {
+        FASTEST,
+        MEDIAN
+    }
+
+    /**
+     * Samples the primary provider needs before its percentile is trusted as hedge delay
+     */
+    static final int MIN_SAMPLES = 20;
+
+    /**
+     * Hedge delay used until enough latencies of the primary provider are known
+     */
+    static final long DEFAULT_DELAY_MILLIS = 1000;
+
+    private final List<Provider> providers = new ArrayList<>();
+
+    private final Mode mode;
+
+    private final long hedgeDelayMillis;
+
+    private final double quantile;
+
+    private final long timeoutMillis;
+
+    private final String name;
+
+    /**
+     * @param readers the providers by name, the primary provider first
+     * @param mode how the answers of the providers are combined
+     * @param hedgeDelayMillis fixed hedge delay, or 0 to derive it from the latencies of the primary provider
+     * @param quantile latency quantile of the primary provider used as hedge delay, between 0 and 1
+     * @param timeoutMillis time the median mode waits for the providers
+     * @throws IllegalArgumentException if the providers are missing or do not use the same currency
+     */
+    public HedgedPriceReader(Map<String, ExternalMetalPriceReader> readers, Mode mode,
+                             long hedgeDelayMillis, double quantile, long timeoutMillis) {
+        if (readers.isEmpty()) {
+            throw new IllegalArgumentException("At least one price provider is required");
+        }
+        for (Map.Entry<String, ExternalMetalPriceReader> reader : readers.entrySet()) {
+            this.providers.add(new Provider(reader.getKey(), reader.getValue(), new LatencyHistogram()));
+        }
+        CurrencyType currencyType = this.providers.getFirst().reader().getCurrencyType();
+        if (this.providers.stream().anyMatch(provider -> provider.reader().getCurrencyType() != currencyType)) {
+            throw new IllegalArgumentException("All price providers must use the same currency");
+        }
+        this.mode = mode;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        this.quantile = quantile;
+        this.timeoutMillis = timeoutMillis;
+        this.name = String.join("+", readers.keySet());
+    }
+
+    /**
+     * Compose the requests of the providers without blocking a thread: the hedge and the median deadline are
+     * scheduled on {@link CompletableFuture#delayedExecutor}. Cancelling the returned future cancels the requests
+     * in flight.
+     */
+    @Override
+    public CompletableFuture<Double> fetchPriceAsync(MetalType metalType) {
+        return new Race(metalType).start();
+    }
+
+    /**
+     * Take the series of every provider that answered, so none is left for a later call, and keep the one of
+     * the first provider in order that has points.
+     */
+    @Override
+    public PriceSeries takeSeries(MetalType metalType) {
+        PriceSeries series = null;
+        for (Provider provider : providers) {
+            PriceSeries read = provider.reader().takeSeries(metalType);
+            if (series == null && read.size() > 0) {
+                series = read;
+            }
+        }
+        return series != null ? series : new PriceSeries(metalType, new long[0], new double[0]);
+    }
+
+    /**
+     * @return the names of the providers joined by '+', the primary provider first
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CurrencyType getCurrencyType() {
+        return providers.getFirst().reader().getCurrencyType();
+    }
+
+    /**
+     * @return the delay after which the next provider is queried
+     */
+    long hedgeDelayMillis() {
+        if (hedgeDelayMillis > 0) {
+            return hedgeDelayMillis;
+        }
+        LatencyHistogram latencies = providers.getFirst().latencies();
+        return latencies.count() < MIN_SAMPLES ? DEFAULT_DELAY_MILLIS : latencies.percentile(quantile);
+    }
+
+    static double median(double[] values, int count) {
+        double[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int middle = count / 2;
+        return count % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static boolean isValid(double price) {
+        return Double.isFinite(price) && price > 0;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static RuntimeException asRuntimeException(Throwable cause) {
+        return cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+    }
+
+    private record Provider(String name, ExternalMetalPriceReader reader, LatencyHistogram latencies) {
+    }
+
+    private record Attempt(Provider provider, long startNanos) {
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * The requests of one price read. The callbacks of the requests, the hedge timer and the median deadline run
+     * on different threads, so the state is guarded by the race itself.
+     */
+    private final class Race {
+
+        private final MetalType metalType;
+
+        private final CompletableFuture<Double> price = new CompletableFuture<>();
+
+        private final Map<CompletableFuture<Double>, Attempt> pending = new HashMap<>();
+
+        private final double[] prices = new double[providers.size()];
+
+        private int count;
+
+        private int next;
+
+        private RuntimeException failure;
+
+        private Race(MetalType metalType) {
+            this.metalType = metalType;
+        }
+
+        private synchronized CompletableFuture<Double> start() {
+            price.whenComplete((read, error) -> cancelPending());
+            if (mode == Mode.MEDIAN) {
+                while (next < providers.size()) {
+                    send(providers.get(next++));
+                }
+                CompletableFuture.runAsync(this::expire,
+                        CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS));
+            } else {
+                sendNext();
+            }
+            return price;
+        }
+
+        /**
+         * Query the next provider and schedule the hedge to the one after it.
+         */
+        private void sendNext() {
+            if (price.isDone() || next >= providers.size()) {
+                return;
+            }
+            Provider provider = providers.get(next++);
+            if (next > 1) {
+                log.info("Hedging the price request of {} to {}", metalType, provider.name());
+            }
+            send(provider);
+            if (next < providers.size()) {
+                int hedged = next;
+                CompletableFuture.runAsync(() -> hedge(hedged),
+                        CompletableFuture.delayedExecutor(hedgeDelayMillis(), TimeUnit.MILLISECONDS));
+            }
+        }
+
+        private void send(Provider provider) {
+            CompletableFuture<Double> request;
+            try {
+                request = provider.reader().fetchPriceAsync(metalType);
+            } catch (RuntimeException e) {
+                request = CompletableFuture.failedFuture(e);
+            }
+            pending.put(request, new Attempt(provider, System.nanoTime()));
+            CompletableFuture<Double> sent = request;
+            request.whenComplete((read, error) -> answered(sent, read, error));
+        }
+
+        /**
+         * The hedge delay before provider {@code index} elapsed; nothing to do if a failure already sent its
+         * request or a price was read.
+         */
+        private synchronized void hedge(int index) {
+            if (next == index) {
+                sendNext();
+            }
+        }
+
+        private synchronized void answered(CompletableFuture<Double> request, Double read, Throwable error) {
+            Attempt attempt = pending.remove(request);
+            if (attempt == null) {
+                // cancelled once the race was decided
+                return;
+            }
+            if (error == null && read != null && isValid(read)) {
+                attempt.provider().latencies().record(attempt.elapsedMillis());
+                if (mode == Mode.FASTEST) {
+                    price.complete(read);
+                    return;
+                }
+                prices[count++] = read;
+            } else {
+                failure = error != null ? asRuntimeException(unwrap(error))
+                        : new RuntimeException("Invalid price " + read + " of " + metalType.getSymbol()
+                        + " from " + attempt.provider().name());
+                log.warn("Price provider {} failed for {}: {}", attempt.provider().name(), metalType,
+                        failure.getMessage());
+                if (mode == Mode.FASTEST) {
+                    // do not wait for the hedge delay once the provider in flight has failed
+                    sendNext();
+                }
+            }
+            if (pending.isEmpty() && next >= providers.size()) {
+                finish();
+            }
+        }
+
+        private synchronized void expire() {
+            if (!price.isDone()) {
+                log.warn("Price providers {} did not answer for {} within {} ms",
+                        pending.values().stream().map(attempt -> attempt.provider().name()).toList(),
+                        metalType, timeoutMillis);
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (count > 0) {
+                price.complete(median(prices, count));
+            } else {
+                price.completeExceptionally(failure != null ? failure
+                        : new RuntimeException("No price provider answered for " + metalType.getSymbol()));
+            }
+        }
+
+        /**
+         * Cancel the requests still running, without interrupting any thread. Their latency is at least the time
+         * they ran, which is recorded so a provider that always loses does not look faster than it is.
+         */
+        private synchronized void cancelPending() {
+            List<Map.Entry<CompletableFuture<Double>, Attempt>> losers = new ArrayList<>(pending.entrySet());
+            pending.clear();
+            for (Map.Entry<CompletableFuture<Double>, Attempt> loser : losers) {
+                if (loser.getKey().cancel(true)) {
+                    Attempt attempt = loser.getValue();
+                    attempt.provider().latencies().record(attempt.elapsedMillis());
+                }
+            }
+        }
+    }
+}
+
@@ -0,0 +1,72 @@
+package com.investment.metal.infrastructure.service.price;
+
+/**
+ * Latency histogram of one price provider, with four logarithmic buckets per doubling of the latency
+ * (about 19% relative error) from 1 ms to about 65 s.
+ * Once {@link #DECAY_COUNT} samples are recorded all buckets are halved, so the percentiles follow the recent
+ * behaviour of the provider instead of its whole history.
+ */
+class LatencyHistogram {
+
+    private static final int BUCKETS_PER_DOUBLING = 4;
+
+    private static final int BUCKETS = 16 * BUCKETS_PER_DOUBLING;
+
+    static final int DECAY_COUNT = 1024;
+
+    private final long[] counts = new long[BUCKETS];
+
+    private long total;
+
+    /**
+     * @param millis the latency of one request
+     */
+    synchronized void record(long millis) {
+        counts[bucket(millis)]++;
+        if (++total >= DECAY_COUNT) {
+            total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] >>= 1;
+                total += counts[i];
+            }
+        }
+    }
+
+    /**
+     * @return number of samples the percentiles are computed from
+     */
+    synchronized long count() {
+        return total;
+    }
+
+    /**
+     * @param quantile the quantile, between 0 and 1
+     * @return the upper bound of the bucket holding the quantile in milliseconds, or -1 if nothing was recorded
+     */
+    synchronized long percentile(double quantile) {
+        if (total == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private static int bucket(long millis) {
+        if (millis <= 1) {
+            return 0;
+        }
+        int bucket = (int) (Math.log(millis) / Math.log(2) * BUCKETS_PER_DOUBLING);
+        return Math.min(BUCKETS - 1, bucket);
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(2, (double) (bucket + 1) / BUCKETS_PER_DOUBLING));
+    }
+}
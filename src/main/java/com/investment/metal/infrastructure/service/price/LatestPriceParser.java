@@ -0,0 +1,448 @@
+package com.investment.metal.infrastructure.service.price;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental tokenizer reading {@code latestPrice.price} from a Galmarley JSONP response as its bytes arrive.
+ * It skips the callback prefix up to the opening parenthesis, then only tracks the nesting depth and the keys
+ * of the objects it walks through: no string, tree or copy of the body is built, values nested below the
+ * objects of interest (the chart points) are skipped by a tight loop that only matches brackets and quotes,
+ * and feeding stops as soon as the price is read.
+ * A parser created to read the chart points also reads {@code time} and {@code price} of every object of the
+ * top-level {@code chartPoints} array in the same pass, and stops once both the price and the array are read.
+ * Instances are reused across responses after {@link #reset()}; not thread safe.
+ */
+final class LatestPriceParser {
+
+    private static final byte[] LATEST_PRICE = "latestPrice".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] PRICE = "price".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] CHART_POINTS = "chartPoints".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TIME = "time".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int PREFIX = 0;
+    private static final int JSON = 1;
+    private static final int STRING = 2;
+    private static final int ESCAPE = 3;
+    private static final int VALUE = 4;
+    private static final int NUMBER = 5;
+    private static final int STRING_VALUE = 6;
+    private static final int SKIP = 7;
+    private static final int SKIP_STRING = 8;
+    private static final int SKIP_ESCAPE = 9;
+    private static final int DONE = 10;
+
+    private static final int LATEST_PRICE_VALUE = 0;
+    private static final int POINT_TIME_VALUE = 1;
+    private static final int POINT_PRICE_VALUE = 2;
+
+    /**
+     * Keys longer than this are never compared, so they are not kept
+     */
+    private final byte[] scratch = new byte[32];
+
+    private int length;
+
+    private boolean overflow;
+
+    private int state;
+
+    private int depth;
+
+    /**
+     * A string was just closed and may be a key if a colon follows
+     */
+    private boolean pendingString;
+
+    /**
+     * The last key of the top-level object is latestPrice
+     */
+    private boolean latestPriceKey;
+
+    /**
+     * Depth of the latestPrice object while inside it, -1 otherwise
+     */
+    private int latestPriceDepth;
+
+    private double price;
+
+    /**
+     * Whether the chart points are read too
+     */
+    private final boolean readChartPoints;
+
+    /**
+     * The last key of the top-level object is chartPoints
+     */
+    private boolean chartPointsKey;
+
+    /**
+     * Depth of the chartPoints array while inside it, -1 otherwise
+     */
+    private int chartPointsDepth;
+
+    private boolean chartPointsRead;
+
+    /**
+     * Which value is read: the latest price, or the time or the price of a chart point
+     */
+    private int target;
+
+    private long pointTime;
+
+    private double pointPrice;
+
+    private long[] times = new long[0];
+
+    private double[] prices = new double[0];
+
+    private int size;
+
+    LatestPriceParser() {
+        this(false);
+    }
+
+    /**
+     * @param readChartPoints whether the chart points are read too
+     */
+    LatestPriceParser(boolean readChartPoints) {
+        this.readChartPoints = readChartPoints;
+        reset();
+    }
+
+    void reset() {
+        state = PREFIX;
+        depth = 0;
+        length = 0;
+        overflow = false;
+        pendingString = false;
+        latestPriceKey = false;
+        latestPriceDepth = -1;
+        price = Double.NaN;
+        chartPointsKey = false;
+        chartPointsDepth = -1;
+        chartPointsRead = false;
+        size = 0;
+    }
+
+    /**
+     * Consume the next bytes of the response.
+     *
+     * @param buffer the bytes; its position is moved past the consumed bytes
+     * @return true once the price, and the chart points if they are read, are read: the rest of the response is
+     * not needed
+     * @throws IllegalStateException if the price is not a number
+     */
+    boolean feed(ByteBuffer buffer) {
+        while (state != DONE && buffer.hasRemaining()) {
+            byte c = buffer.get();
+            switch (state) {
+                case PREFIX -> {
+                    if (c == '(') {
+                        state = JSON;
+                    } else if (c == '{') {
+                        // plain JSON without callback
+                        state = JSON;
+                        depth = 1;
+                    }
+                }
+                case JSON -> json(c);
+                case STRING -> {
+                    if (c == '\\') {
+                        state = ESCAPE;
+                    } else if (c == '"') {
+                        state = JSON;
+                        pendingString = true;
+                    } else {
+                        append(c);
+                    }
+                }
+                case ESCAPE -> {
+                    // keys with escapes never match
+                    overflow = true;
+                    state = STRING;
+                }
+                case VALUE -> {
+                    if (c == '"') {
+                        length = 0;
+                        overflow = false;
+                        state = STRING_VALUE;
+                    } else if (isNumber(c)) {
+                        length = 0;
+                        overflow = false;
+                        append(c);
+                        state = NUMBER;
+                    } else if (target == LATEST_PRICE_VALUE) {
+                        if (!isWhitespace(c)) {
+                            throw new IllegalStateException("latestPrice.price is not a number");
+                        }
+                    } else if (!isWhitespace(c)) {
+                        // a chart point without a usable value is skipped
+                        state = JSON;
+                        json(c);
+                    }
+                }
+                case NUMBER -> {
+                    if (isNumber(c)) {
+                        append(c);
+                    } else {
+                        finishValue();
+                        if (state == JSON) {
+                            json(c);
+                        }
+                    }
+                }
+                case STRING_VALUE -> {
+                    if (c == '"') {
+                        finishValue();
+                    } else {
+                        append(c);
+                    }
+                }
+                case SKIP -> skip(c, buffer);
+                case SKIP_STRING -> skipString(c, buffer);
+                case SKIP_ESCAPE -> state = SKIP_STRING;
+                default -> throw new IllegalStateException("Unexpected parser state " + state);
+            }
+        }
+        return state == DONE;
+    }
+
+    /**
+     * Signal the end of the response.
+     *
+     * @return true if the price was read
+     */
+    boolean finish() {
+        if (state == NUMBER) {
+            finishValue();
+        }
+        return !Double.isNaN(price);
+    }
+
+    /**
+     * @return the price read, NaN until {@link #feed} returned true
+     */
+    double price() {
+        return price;
+    }
+
+    /**
+     * @param metalType the metal of the response
+     * @return the chart points read, in ascending time order; empty if they are not read or the array did not
+     * end before the response
+     */
+    PriceSeries chartPoints(MetalType metalType) {
+        if (!chartPointsRead) {
+            return new PriceSeries(metalType, new long[0], new double[0]);
+        }
+        return ChartPoints.of(metalType, times, prices, size);
+    }
+
+    private void json(byte c) {
+        switch (c) {
+            case '"' -> {
+                length = 0;
+                overflow = false;
+                state = STRING;
+            }
+            case ':' -> {
+                if (pendingString) {
+                    key();
+                }
+                pendingString = false;
+            }
+            case '{', '[' -> {
+                if (c == '{' && depth == 1 && latestPriceKey) {
+                    latestPriceDepth = 2;
+                } else if (c == '[' && depth == 1 && chartPointsKey && readChartPoints && !chartPointsRead) {
+                    chartPointsDepth = 2;
+                } else if (c == '{' && depth == chartPointsDepth) {
+                    pointTime = Long.MIN_VALUE;
+                    pointPrice = Double.NaN;
+                }
+                depth++;
+                pendingString = false;
+                if (depth > interestingDepth()) {
+                    state = SKIP;
+                }
+            }
+            case '}', ']' -> {
+                if (c == '}' && chartPointsDepth > 0 && depth == chartPointsDepth + 1) {
+                    addPoint();
+                }
+                depth--;
+                if (depth < latestPriceDepth) {
+                    latestPriceDepth = -1;
+                }
+                if (depth < chartPointsDepth) {
+                    chartPointsDepth = -1;
+                    chartPointsRead = true;
+                    if (isComplete()) {
+                        state = DONE;
+                    }
+                }
+                pendingString = false;
+            }
+            default -> {
+                if (!isWhitespace(c)) {
+                    pendingString = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Skip a nested value up to its closing bracket; only brackets and strings change the depth.
+     */
+    private void skip(byte c, ByteBuffer buffer) {
+        final int limit = interestingDepth();
+        int nesting = depth;
+        byte next = c;
+        while (true) {
+            if (next == '"') {
+                depth = nesting;
+                state = SKIP_STRING;
+                return;
+            } else if (next == '{' || next == '[') {
+                nesting++;
+            } else if (next == '}' || next == ']') {
+                if (--nesting <= limit) {
+                    depth = nesting;
+                    state = JSON;
+                    return;
+                }
+            }
+            if (!buffer.hasRemaining()) {
+                depth = nesting;
+                return;
+            }
+            next = buffer.get();
+        }
+    }
+
+    private void skipString(byte c, ByteBuffer buffer) {
+        byte next = c;
+        while (true) {
+            if (next == '"') {
+                state = SKIP;
+                return;
+            } else if (next == '\\') {
+                if (!buffer.hasRemaining()) {
+                    state = SKIP_ESCAPE;
+                    return;
+                }
+                buffer.get();
+            }
+            if (!buffer.hasRemaining()) {
+                return;
+            }
+            next = buffer.get();
+        }
+    }
+
+    /**
+     * @return depth of the object whose keys matter: inside latestPrice, inside a chart point, or the top-level
+     * object
+     */
+    private int interestingDepth() {
+        if (latestPriceDepth > 0) {
+            return latestPriceDepth;
+        }
+        return chartPointsDepth > 0 ? chartPointsDepth + 1 : 1;
+    }
+
+    private void key() {
+        if (depth == 1) {
+            latestPriceKey = is(LATEST_PRICE);
+            chartPointsKey = is(CHART_POINTS);
+        } else if (depth == latestPriceDepth && Double.isNaN(price) && is(PRICE)) {
+            value(LATEST_PRICE_VALUE);
+        } else if (chartPointsDepth > 0 && depth == chartPointsDepth + 1) {
+            if (is(TIME)) {
+                value(POINT_TIME_VALUE);
+            } else if (is(PRICE)) {
+                value(POINT_PRICE_VALUE);
+            }
+        }
+    }
+
+    private void value(int target) {
+        this.target = target;
+        state = VALUE;
+    }
+
+    private void finishValue() {
+        final String text = overflow || length == 0 ? null : new String(scratch, 0, length, StandardCharsets.US_ASCII);
+        state = JSON;
+        switch (target) {
+            case LATEST_PRICE_VALUE -> {
+                if (text == null) {
+                    throw new IllegalStateException("latestPrice.price is not a number");
+                }
+                try {
+                    price = Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("latestPrice.price is not a number", e);
+                }
+                if (isComplete()) {
+                    state = DONE;
+                }
+            }
+            case POINT_TIME_VALUE -> pointTime = text == null ? Long.MIN_VALUE : ChartPoints.toMillis(text);
+            default -> {
+                try {
+                    pointPrice = text == null ? Double.NaN : Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    pointPrice = Double.NaN;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true once nothing more is read from the response
+     */
+    private boolean isComplete() {
+        return !Double.isNaN(price) && (!readChartPoints || chartPointsRead);
+    }
+
+    private void addPoint() {
+        if (pointTime == Long.MIN_VALUE || !Double.isFinite(pointPrice) || pointPrice <= 0) {
+            return;
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, Math.max(64, size * 2));
+            prices = Arrays.copyOf(prices, times.length);
+        }
+        times[size] = pointTime;
+        prices[size] = pointPrice;
+        size++;
+    }
+
+    private void append(byte c) {
+        if (length < scratch.length) {
+            scratch[length++] = c;
+        } else {
+            overflow = true;
+        }
+    }
+
+    private boolean is(byte[] key) {
+        return !overflow && Arrays.equals(scratch, 0, length, key, 0, key.length);
+    }
+
+    private static boolean isNumber(byte c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
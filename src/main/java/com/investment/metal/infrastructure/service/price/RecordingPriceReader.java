@@ -0,0 +1,108 @@
+package com.investment.metal.infrastructure.service.price;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Price reader appending every price read of another reader to a {@link TickFile}, with its latency and
+ * whether it failed, for {@link ReplayPriceReader}. A read cancelled before it answered, e.g. by the time limiter,
+ * is recorded as a failure after the time it ran.
+ */
+@Slf4j
+public class RecordingPriceReader implements ExternalMetalPriceReader, AutoCloseable {
+
+    private final ExternalMetalPriceReader delegate;
+
+    private final BufferedWriter writer;
+
+    /**
+     * @param delegate the reader whose reads are recorded
+     * @param file the tick file, created or appended to
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public RecordingPriceReader(ExternalMetalPriceReader delegate, Path file) {
+        this.delegate = delegate;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            boolean created = Files.notExists(file) || Files.size(file) == 0;
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (created) {
+                this.writeLine(TickFile.header(delegate.getCurrencyType()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the tick file " + file, e);
+        }
+        log.info("Recording the price reads of {} to {}", delegate.getName(), file);
+    }
+
+    /**
+     * @return the read of the recorded reader; cancelling it cancels that read
+     */
+    @Override
+    public CompletableFuture<Double> fetchPriceAsync(MetalType metalType) {
+        final long time = System.currentTimeMillis();
+        final long started = System.nanoTime();
+        CompletableFuture<Double> price = delegate.fetchPriceAsync(metalType);
+        price.whenComplete((read, error) -> {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            this.record(new TickFile.Tick(time, metalType,
+                    error == null && read != null ? read : Double.NaN, latency));
+        });
+        return price;
+    }
+
+    @Override
+    public PriceSeries takeSeries(MetalType metalType) {
+        return delegate.takeSeries(metalType);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CurrencyType getCurrencyType() {
+        return delegate.getCurrencyType();
+    }
+
+    /**
+     * Close the tick file, and the recorded reader if it holds resources.
+     */
+    @Override
+    public synchronized void close() throws Exception {
+        writer.close();
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void record(TickFile.Tick tick) {
+        try {
+            this.writeLine(TickFile.format(tick));
+        } catch (IOException e) {
+            log.warn("Unable to record the price read of {}: {}", tick.metalType(), e.getMessage());
+        }
+    }
+
+    private synchronized void writeLine(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+        // flushed per line, so the recording of a killed instance stays usable
+        writer.flush();
+    }
+}
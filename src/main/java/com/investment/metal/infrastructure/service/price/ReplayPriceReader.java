@@ -0,0 +1,223 @@
+package com.investment.metal.infrastructure.service.price;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceServiceType;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Price reader replaying a {@link TickFile} recorded by {@link RecordingPriceReader}, so the scheduler and the
+ * profit requests can be load tested offline and reproducibly.
+ * <ul>
+ *   <li>With a positive speed the recording is replayed against the clock, {@code speed} times faster than it
+ *   was recorded, and starts over at its end; a read returns the latest tick of the metal.</li>
+ *   <li>With speed 0 every read of a metal returns its next tick, whatever the time.</li>
+ * </ul>
+ * Each read is answered after the injected latency: none, the recorded latency, or drawn from a log-normal
+ * distribution with the given median and 99th percentile. Recorded failures fail again, and on top of them
+ * a share of the reads fails or never completes, until cancelled e.g. by the time limiter. The draws use
+ * a seeded generator, so a run with the same reads replays the same latencies and failures.
+ */
+@Slf4j
+public class ReplayPriceReader implements ExternalMetalPriceReader {
+
+    public enum Latency {
+        /**
+         * Answer at once
+         */
+        NONE,
+        /**
+         * Wait the latency recorded with the tick
+         */
+        RECORDED,
+        /**
+         * Wait a log-normal latency of the configured median and 99th percentile
+         */
+        LOGNORMAL
+    }
+
+    /**
+     * Standard normal quantile of 0.99
+     */
+    private static final double Z_99 = 2.3263;
+
+    private final Map<MetalType, TickFile.Tick[]> ticks = new EnumMap<>(MetalType.class);
+
+    private final Map<MetalType, AtomicInteger> cursors = new EnumMap<>(MetalType.class);
+
+    private final CurrencyType currencyType;
+
+    private final double speed;
+
+    private final Latency latency;
+
+    private final double latencyMu;
+
+    private final double latencySigma;
+
+    private final double errorRate;
+
+    private final double hangRate;
+
+    private final Random random;
+
+    private final LongSupplier clock;
+
+    private final long firstTime;
+
+    private final long span;
+
+    private final long start;
+
+    /**
+     * @param file the recorded tick file
+     * @param speed how many times faster than recorded the ticks are replayed, 0 to return the next tick on
+     * every read
+     * @param latency the latency injected before each answer
+     * @param latencyMedianMillis median of the log-normal latency
+     * @param latencyP99Millis 99th percentile of the log-normal latency
+     * @param errorRate share of the reads failing, between 0 and 1
+     * @param hangRate share of the reads never completing, between 0 and 1
+     * @param seed seed of the latency and failure draws
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file holds no tick or a setting is invalid
+     */
+    public ReplayPriceReader(Path file, double speed, Latency latency, long latencyMedianMillis,
+                             long latencyP99Millis, double errorRate, double hangRate, long seed) {
+        this(read(file), speed, latency, latencyMedianMillis, latencyP99Millis, errorRate, hangRate, seed,
+                System::currentTimeMillis);
+        log.info("Replaying the prices of {} from {} at speed {}", ticks.keySet(), file, speed);
+    }
+
+    ReplayPriceReader(TickFile.Content content, double speed, Latency latency, long latencyMedianMillis,
+                      long latencyP99Millis, double errorRate, double hangRate, long seed, LongSupplier clock) {
+        if (content.ticks().isEmpty()) {
+            throw new IllegalArgumentException("The tick file holds no tick");
+        }
+        if (speed < 0 || errorRate < 0 || hangRate < 0 || errorRate + hangRate > 1) {
+            throw new IllegalArgumentException("The replay needs speed >= 0 and 0 <= error + hang rate <= 1");
+        }
+        if (latency == Latency.LOGNORMAL && (latencyMedianMillis <= 0 || latencyP99Millis < latencyMedianMillis)) {
+            throw new IllegalArgumentException("The log-normal latency needs 0 < median <= 99th percentile");
+        }
+        Map<MetalType, List<TickFile.Tick>> byMetal = new EnumMap<>(MetalType.class);
+        for (TickFile.Tick tick : content.ticks()) {
+            byMetal.computeIfAbsent(tick.metalType(), metalType -> new ArrayList<>()).add(tick);
+        }
+        byMetal.forEach((metalType, series) -> {
+            series.sort(Comparator.comparingLong(TickFile.Tick::time));
+            ticks.put(metalType, series.toArray(TickFile.Tick[]::new));
+            cursors.put(metalType, new AtomicInteger());
+        });
+        this.currencyType = content.currencyType();
+        this.speed = speed;
+        this.latency = latency;
+        this.latencyMu = latency == Latency.LOGNORMAL ? Math.log(latencyMedianMillis) : 0;
+        this.latencySigma = latency == Latency.LOGNORMAL
+                ? Math.log((double) latencyP99Millis / latencyMedianMillis) / Z_99 : 0;
+        this.errorRate = errorRate;
+        this.hangRate = hangRate;
+        this.random = new Random(seed);
+        this.clock = clock;
+        this.firstTime = content.ticks().stream().mapToLong(TickFile.Tick::time).min().orElseThrow();
+        this.span = content.ticks().stream().mapToLong(TickFile.Tick::time).max().orElseThrow() - firstTime + 1;
+        this.start = clock.getAsLong();
+    }
+
+    @Override
+    public CompletableFuture<Double> fetchPriceAsync(MetalType metalType) {
+        final TickFile.Tick tick;
+        try {
+            tick = this.next(metalType);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        double draw = random.nextDouble();
+        if (draw < hangRate) {
+            return new CompletableFuture<>();
+        }
+        boolean failure = tick.isFailure() || draw < hangRate + errorRate;
+        long delay = this.latencyMillis(tick);
+        Executor executor = delay > 0 ? CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS) : Runnable::run;
+        CompletableFuture<Double> price = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (failure) {
+                price.completeExceptionally(new RuntimeException("Replayed failure reading the price of "
+                        + metalType.getSymbol()));
+            } else {
+                price.complete(tick.price());
+            }
+        });
+        return price;
+    }
+
+    @Override
+    public String getName() {
+        return PriceServiceType.REPLAY.name();
+    }
+
+    @Override
+    public CurrencyType getCurrencyType() {
+        return currencyType;
+    }
+
+    /**
+     * @return the tick answering the current read of the metal
+     */
+    TickFile.Tick next(MetalType metalType) {
+        TickFile.Tick[] series = ticks.get(metalType);
+        if (series == null) {
+            throw new IllegalStateException("No recorded price of " + metalType.getSymbol());
+        }
+        if (speed == 0) {
+            return series[Math.floorMod(cursors.get(metalType).getAndIncrement(), series.length)];
+        }
+        long elapsed = (long) ((clock.getAsLong() - start) * speed);
+        long time = firstTime + Math.floorMod(elapsed, span);
+        // the latest tick at the replay time; before the first one of the metal, the last one of the previous loop
+        int low = 0;
+        int high = series.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (series[middle].time() <= time) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return series[high >= 0 ? high : series.length - 1];
+    }
+
+    private long latencyMillis(TickFile.Tick tick) {
+        return switch (latency) {
+            case NONE -> 0;
+            case RECORDED -> tick.latencyMillis();
+            case LOGNORMAL -> Math.round(Math.exp(latencyMu + latencySigma * random.nextGaussian()));
+        };
+    }
+
+    private static TickFile.Content read(Path file) {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return TickFile.read(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the tick file " + file, e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.investment.metal.infrastructure.service.price;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Text format of the price reads recorded by {@link RecordingPriceReader} and replayed by
+ * {@link ReplayPriceReader}: one read per line, {@code time,metal,price,latency-ms}, with the epoch milliseconds
+ * of the read, the name of the metal, the price of one kg, empty for a failed read, and the time the read took.
+ * Lines starting with {@code #} are comments; the header comment names the currency of the prices.
+ * <pre>
+ * # metal-investment ticks currency=USD
+ * 1700000000000,GOLD,64012.55,183
+ * 1700000000000,SILVER,,5000
+ * </pre>
+ */
+final class TickFile {
+
+    private static final String CURRENCY_KEY = "currency=";
+
+    private TickFile() {
+    }
+
+    /**
+     * One recorded read
+     *
+     * @param time epoch milliseconds of the read
+     * @param metalType the metal
+     * @param price price of one kg, NaN if the read failed
+     * @param latencyMillis time the read took
+     */
+    record Tick(long time, MetalType metalType, double price, long latencyMillis) {
+
+        boolean isFailure() {
+            return Double.isNaN(price);
+        }
+    }
+
+    /**
+     * The ticks of a file and the currency of their prices
+     *
+     * @param currencyType currency of the prices, USD if the file does not name one
+     * @param ticks the ticks in the order of the file
+     */
+    record Content(CurrencyType currencyType, List<Tick> ticks) {
+    }
+
+    /**
+     * @return the header line of a file with prices in the currency
+     */
+    static String header(CurrencyType currencyType) {
+        return "# metal-investment ticks " + CURRENCY_KEY + currencyType.name();
+    }
+
+    /**
+     * @return the line of a tick
+     */
+    static String format(Tick tick) {
+        return tick.time() + "," + tick.metalType().name() + ","
+                + (tick.isFailure() ? "" : Double.toString(tick.price())) + "," + tick.latencyMillis();
+    }
+
+    /**
+     * @param reader the content of a tick file
+     * @return the ticks of the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a valid tick
+     */
+    static Content read(Reader reader) throws IOException {
+        CurrencyType currencyType = CurrencyType.USD;
+        List<Tick> ticks = new ArrayList<>();
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        int number = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            number++;
+            line = line.strip();
+            if (line.startsWith("#")) {
+                int currency = line.indexOf(CURRENCY_KEY);
+                if (currency >= 0) {
+                    currencyType = CurrencyType.valueOf(line.substring(currency + CURRENCY_KEY.length())
+                            .strip().toUpperCase(Locale.ROOT));
+                }
+                continue;
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            try {
+                if (fields.length != 4) {
+                    throw new IllegalArgumentException("expected time,metal,price,latency-ms");
+                }
+                double price = fields[2].isBlank() ? Double.NaN : Double.parseDouble(fields[2].strip());
+                ticks.add(new Tick(Long.parseLong(fields[0].strip()),
+                        MetalType.valueOf(fields[1].strip().toUpperCase(Locale.ROOT)),
+                        price,
+                        Long.parseLong(fields[3].strip())));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid tick on line " + number + ": " + e.getMessage(), e);
+            }
+        }
+        return new Content(currencyType, ticks);
+    }
+}
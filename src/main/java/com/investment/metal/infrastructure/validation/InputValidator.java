@@ -18,8 +18,8 @@ public class InputValidator {
     private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_]{3,50}$");
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");;
     private static final Pattern METAL_SYMBOL_PATTERN = Pattern.compile("^[A-Z]{2,20}$");
-    private static final Pattern EXPRESSION_PATTERN = Pattern.compile("^[a-zA-Z0-9+\\-*/().\\s]+$");
-    private static final Pattern FREQUENCY_PATTERN = Pattern.compile("^(DAILY|WEEKLY|MONTHLY)$");
+    private static final Pattern EXPRESSION_PATTERN = Pattern.compile("^[a-zA-Z0-9+\\-*/().,<>=!&|\\s]+$");
+    private static final Pattern FREQUENCY_PATTERN = Pattern.compile("^(HOURLY|DAILY|WEEKLY|MONTHLY)$");
     private static final Pattern REASON_PATTERN = Pattern.compile("^[a-zA-Z0-9\\s.,!?-]{1,200}$");
     private static final Pattern SQL_INJECTION_PATTERN = Pattern.compile(
         "(?i)(\\b(?:select|update|delete|insert|drop|union|alter|truncate|exec|execute)\\b|--|;|/\\*|\\*/|(?:'|\")\\s*(?:or|and)\\b|\\b(?:or|and)\\b\\s*\\d+\\s*=\\s*\\d+|\\b(?:or|and)\\b\\s*'[^']*'\\s*=\\s*'[^']*')",
@@ -0,0 +1,121 @@
+package com.investment.metal.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.CandleSeries;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import com.investment.metal.infrastructure.service.archive.PriceArchive;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for AlertBacktestService.
+ * Tests which stores the replayed history is read from.
+ */
+@ExtendWith(MockitoExtension.class)
+class AlertBacktestServiceTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private static final long START = TimeUnit.DAYS.toMillis(20_000);
+
+    @Mock
+    private MetalPriceRepository metalPriceRepository;
+
+    @Mock
+    private PriceArchive priceArchive;
+
+    @Mock
+    private PriceRollupService priceRollupService;
+
+    @InjectMocks
+    private AlertBacktestService alertBacktestService;
+
+    @Test
+    void testCandlesFillTheRangeNeitherArchivedNorStored() {
+        when(priceArchive.getArchivedUntil(MetalType.GOLD)).thenReturn(Long.MIN_VALUE);
+        when(metalPriceRepository.findSeries(eq(MetalType.GOLD), any(), any()))
+                .thenReturn(series(new long[]{START + 10 * HOUR, START + 11 * HOUR}, 10, 11));
+        CandleSeries candles = new CandleSeries.Builder(MetalType.GOLD, CandleResolution.HOUR, 3)
+                .add(START, START + 1, 1, 1, 1, START + 1, 1, 1)
+                .add(START + HOUR, START + HOUR, 2, 2, 2, START + HOUR + 5, 2, 1)
+                .build();
+        when(priceRollupService.findCandles(MetalType.GOLD, START, START + 10 * HOUR, Integer.MAX_VALUE))
+                .thenReturn(candles);
+
+        PriceSeries loaded = alertBacktestService.loadSeries(MetalType.GOLD, toLocal(START), toLocal(START + 12 * HOUR));
+
+        assertArrayEquals(new long[]{START + 1, START + HOUR + 5, START + 10 * HOUR, START + 11 * HOUR},
+                times(loaded));
+        assertArrayEquals(new double[]{1, 2, 10, 11}, prices(loaded));
+    }
+
+    @Test
+    void testArchiveCoveringTheRangeReadsNothingElse() {
+        when(priceArchive.getArchivedUntil(MetalType.GOLD)).thenReturn(START + 20 * HOUR);
+        when(priceArchive.findSeries(MetalType.GOLD, START, START + 12 * HOUR))
+                .thenReturn(series(new long[]{START, START + HOUR}, 1, 2));
+
+        PriceSeries loaded = alertBacktestService.loadSeries(MetalType.GOLD, toLocal(START), toLocal(START + 12 * HOUR));
+
+        assertArrayEquals(new long[]{START, START + HOUR}, times(loaded));
+        verifyNoInteractions(metalPriceRepository, priceRollupService);
+    }
+
+    @Test
+    void testStoredPricesFromTheEndOfTheArchive() {
+        when(priceArchive.getArchivedUntil(MetalType.GOLD)).thenReturn(START + 2 * HOUR);
+        when(priceArchive.findSeries(MetalType.GOLD, START, START + 2 * HOUR))
+                .thenReturn(series(new long[]{START, START + HOUR}, 1, 2));
+        when(metalPriceRepository.findSeries(MetalType.GOLD, toLocal(START + 2 * HOUR), toLocal(START + 4 * HOUR)))
+                .thenReturn(series(new long[]{START + 2 * HOUR, START + 3 * HOUR}, 3, 4));
+
+        PriceSeries loaded = alertBacktestService.loadSeries(MetalType.GOLD, toLocal(START), toLocal(START + 4 * HOUR));
+
+        assertArrayEquals(new double[]{1, 2, 3, 4}, prices(loaded));
+        verify(priceRollupService, never())
+                .findCandles(any(), anyLong(), anyLong(), anyInt());
+    }
+
+    private static PriceSeries series(long[] times, double... prices) {
+        return new PriceSeries(MetalType.GOLD, times, prices);
+    }
+
+    private static long[] times(PriceSeries series) {
+        long[] times = new long[series.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = series.time(i);
+        }
+        return times;
+    }
+
+    private static double[] prices(PriceSeries series) {
+        double[] prices = new double[series.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = series.price(i);
+        }
+        return prices;
+    }
+
+    private static LocalDateTime toLocal(long time) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    }
+}
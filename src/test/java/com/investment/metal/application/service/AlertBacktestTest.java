@@ -0,0 +1,89 @@
+package com.investment.metal.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.investment.metal.application.service.expression.ExpressionCompiler;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for AlertBacktest.
+ * Tests the replay of alert expressions over a price series.
+ */
+class AlertBacktestTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private ExpressionCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, FunctionInfo> functions = new LinkedHashMap<>();
+        FunctionInfo profit = new FunctionInfo("profit");
+        profit.setReturnedType("void");
+        functions.put("profit", profit);
+        FunctionInfo inc = new FunctionInfo("inc");
+        inc.setReturnedType("boolean");
+        inc.addParam(FunctionParam.builder().name("days").min(0).max(15).build());
+        inc.addParam(FunctionParam.builder().name("eps").min(-1).max(10).build());
+        functions.put("inc", inc);
+        compiler = new ExpressionCompiler(functions);
+    }
+
+    @Test
+    void testProfitAlertFiresOncePerInterval() throws IOException {
+        PriceSeries series = series(HOUR, 90, 110, 120, 95, 130);
+
+        assertEquals(List.of(HOUR, 2 * HOUR, 4 * HOUR), run("profit > 0", series, 0, HOUR));
+        assertEquals(List.of(HOUR), run("profit > 0", series, 0, TimeUnit.DAYS.toMillis(1)));
+        assertEquals(List.of(4 * HOUR), run("profit > 0", series, 3 * HOUR, HOUR));
+    }
+
+    @Test
+    void testTrendMatchesRingBuffer() throws IOException {
+        Random random = new Random(7);
+        double[] prices = new double[500];
+        double price = 1000;
+        for (int i = 0; i < prices.length; i++) {
+            price *= 1 + (random.nextDouble() - 0.5) / 100;
+            prices[i] = price;
+        }
+        PriceSeries series = series(HOUR / 2, prices);
+
+        PriceRingBuffer buffer = new PriceRingBuffer(prices.length);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < series.size(); i++) {
+            buffer.add(series.time(i), series.price(i));
+            if (buffer.isMonotonic(series.time(i) - TimeUnit.DAYS.toMillis(1), 0.2, true)) {
+                expected.add(series.time(i));
+            }
+        }
+
+        assertEquals(expected, run("inc(1, 0.2)", series, 0, 1));
+    }
+
+    private List<Long> run(String expression, PriceSeries series, long from, long interval) throws IOException {
+        AlertBacktest backtest = new AlertBacktest(compiler.compile(expression), series, from, interval, 1, 1, 100);
+        List<Long> firings = new ArrayList<>();
+        int count = backtest.run((time, price, profit) -> firings.add(time));
+        assertEquals(firings.size(), count);
+        return firings;
+    }
+
+    private static PriceSeries series(long step, double... prices) {
+        PriceSeries.Builder builder = new PriceSeries.Builder(MetalType.GOLD, prices.length);
+        for (int i = 0; i < prices.length; i++) {
+            builder.add(i * step, prices[i]);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.investment.metal.application.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.investment.metal.application.service.expression.CompiledExpression;
+import com.investment.metal.application.service.expression.ExpressionCompiler;
+import com.investment.metal.domain.model.AlertFrequency;
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSnapshot;
+import com.investment.metal.infrastructure.mapper.MetalPurchaseMapper;
+import com.investment.metal.infrastructure.persistence.entity.Alert;
+import com.investment.metal.infrastructure.persistence.entity.Customer;
+import com.investment.metal.infrastructure.persistence.repository.AlertPortfolio;
+import com.investment.metal.infrastructure.service.EmailService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Measures one alert tick of {@link AlertsTrigger} with a single shard against one shard per processor.
+ * The services around the trigger are stub-only mocks, so the time is the loading, sharding and evaluation of the
+ * due alerts. The speedup is the ratio of the two scores and only means something on a many-core machine.
+ * Not part of the unit test run; start it with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertsTriggerBenchmark {
+
+    private static final String EXPRESSION = "profit * 1.05 - 20 > 100 && profit < 500 || profit < -50";
+
+    @Param({"10000", "100000"})
+    private int alerts;
+
+    /**
+     * Number of shards; 0 uses the number of processors
+     */
+    @Param({"1", "0"})
+    private int parallelism;
+
+    private AlertsTrigger alertsTrigger;
+
+    private PriceSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        Map<String, FunctionInfo> functions = new LinkedHashMap<>();
+        FunctionInfo profit = new FunctionInfo("profit");
+        profit.setReturnedType("void");
+        functions.put("profit", profit);
+        CompiledExpression compiled = new ExpressionCompiler(functions).compile(EXPRESSION);
+
+        List<AlertPortfolio> portfolios = new ArrayList<>(alerts);
+        for (int i = 0; i < alerts; i++) {
+            Customer user = new Customer();
+            user.setId(i / 4);
+            Alert alert = new Alert();
+            alert.setId(i);
+            alert.setUserId(user.getId());
+            alert.setMetalSymbol(MetalType.GOLD.getSymbol());
+            alert.setExpression(EXPRESSION);
+            alert.setFrequency(AlertFrequency.DAILY.name());
+            portfolios.add(new AlertPortfolio(alert, user, null));
+        }
+
+        AlertService alertService = mock(AlertService.class, withSettings().stubOnly());
+        when(alertService.getProfitThresholdIndex(MetalType.GOLD)).thenReturn(ProfitThresholdIndex.EMPTY);
+        when(alertService.findDuePortfoliosByMetalSymbol(eq(MetalType.GOLD.getSymbol()), any()))
+                .thenReturn(portfolios);
+        when(alertService.compileExpression(anyString())).thenReturn(compiled);
+
+        alertsTrigger = new AlertsTrigger();
+        ReflectionTestUtils.setField(alertsTrigger, "alertService", alertService);
+        ReflectionTestUtils.setField(alertsTrigger, "metalPricesService",
+                mock(MetalPriceService.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(alertsTrigger, "priceTrendService",
+                mock(PriceTrendService.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(alertsTrigger, "metalPurchaseMapper",
+                mock(MetalPurchaseMapper.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(alertsTrigger, "emailService",
+                mock(EmailService.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(alertsTrigger, "parallelism", parallelism);
+
+        snapshot = PriceSnapshot.builder()
+                .currency(CurrencyType.USD, 4.5)
+                .metal(MetalType.GOLD, 70000d, 0.02)
+                .build();
+    }
+
+    @Benchmark
+    public void triggerAlerts() {
+        alertsTrigger.triggerAlerts(snapshot);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AlertsTriggerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.investment.metal.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.investment.metal.application.service.expression.ExpressionCompiler;
+import com.investment.metal.domain.model.AlertFrequency;
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSnapshot;
+import com.investment.metal.infrastructure.mapper.MetalPurchaseMapper;
+import com.investment.metal.infrastructure.persistence.entity.Alert;
+import com.investment.metal.infrastructure.persistence.entity.Customer;
+import com.investment.metal.infrastructure.persistence.repository.AlertPortfolio;
+import com.investment.metal.infrastructure.service.EmailService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for AlertsTrigger.
+ * Tests that the sharded evaluation handles every due alert exactly once and reschedules them together.
+ */
+@ExtendWith(MockitoExtension.class)
+class AlertsTriggerTest {
+
+    @Mock
+    private MetalPriceService metalPricesService;
+
+    @Mock
+    private AlertService alertService;
+
+    @Mock
+    private PriceTrendService priceTrendService;
+
+    @Mock
+    private MetalPurchaseMapper metalPurchaseMapper;
+
+    @Mock
+    private EmailService emailService;
+
+    @InjectMocks
+    private AlertsTrigger alertsTrigger;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEvaluatesEveryDueAlertOnce() {
+        Map<String, FunctionInfo> functions = new LinkedHashMap<>();
+        FunctionInfo profit = new FunctionInfo("profit");
+        profit.setReturnedType("void");
+        functions.put("profit", profit);
+        ExpressionCompiler compiler = new ExpressionCompiler(functions);
+
+        List<AlertPortfolio> portfolios = new ArrayList<>();
+        for (int userId = 1; userId <= 50; userId++) {
+            Customer user = new Customer();
+            user.setId(userId);
+            for (int i = 0; i < 2; i++) {
+                Alert alert = new Alert();
+                alert.setId(userId * 10 + i);
+                alert.setUserId(userId);
+                alert.setMetalSymbol(MetalType.GOLD.getSymbol());
+                alert.setExpression("profit >= 0");
+                alert.setFrequency(AlertFrequency.DAILY.name());
+                portfolios.add(new AlertPortfolio(alert, user, null));
+            }
+        }
+        when(alertService.getProfitThresholdIndex(MetalType.GOLD)).thenReturn(ProfitThresholdIndex.EMPTY);
+        when(alertService.findDuePortfoliosByMetalSymbol(eq(MetalType.GOLD.getSymbol()), any()))
+                .thenReturn(portfolios);
+        when(alertService.compileExpression(anyString())).thenAnswer(call -> compiler.compile(call.getArgument(0)));
+
+        PriceSnapshot snapshot = PriceSnapshot.builder()
+                .currency(CurrencyType.USD, 4.5)
+                .metal(MetalType.GOLD, 70000d, 0.02)
+                .build();
+        alertsTrigger.triggerAlerts(snapshot);
+
+        verify(emailService, times(100)).sendMailWithProfit(any(), any());
+        ArgumentCaptor<List<Alert>> checked = ArgumentCaptor.forClass(List.class);
+        verify(alertService).markChecked(checked.capture(), anyLong());
+        Set<Integer> checkedIds = new HashSet<>();
+        checked.getValue().forEach(alert -> checkedIds.add(alert.getId()));
+        assertEquals(100, checked.getValue().size());
+        assertEquals(100, checkedIds.size());
+    }
+}
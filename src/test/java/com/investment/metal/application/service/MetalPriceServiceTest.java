@@ -0,0 +1,114 @@
+package com.investment.metal.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.investment.metal.application.dto.UserMetalInfoDto;
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalPurchase;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSnapshot;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import com.investment.metal.infrastructure.persistence.entity.Currency;
+import com.investment.metal.infrastructure.service.CurrencyService;
+import com.investment.metal.infrastructure.service.LatestPriceCache;
+import com.investment.metal.infrastructure.service.ResilientPriceService;
+import com.investment.metal.infrastructure.service.RevolutService;
+import com.investment.metal.infrastructure.util.Util;
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for MetalPriceService.
+ * Tests price snapshot capture and profit calculations from a snapshot.
+ */
+@ExtendWith(MockitoExtension.class)
+class MetalPriceServiceTest {
+
+    @Mock
+    private ResilientPriceService resilientPriceService;
+
+    @Mock
+    private LatestPriceCache latestPriceCache;
+
+    @Mock
+    private MetalPriceRepository metalPriceRepository;
+
+    @Mock
+    private RevolutService revolutService;
+
+    @Mock
+    private CurrencyService currencyService;
+
+    @Mock
+    private PriceTrendService priceTrendService;
+
+    @Mock
+    private PriceRollupService priceRollupService;
+
+    @InjectMocks
+    private MetalPriceService metalPriceService;
+
+    @BeforeEach
+    void setUp() {
+        Currency usd = new Currency();
+        usd.setRon(4.5);
+        when(resilientPriceService.getCurrencyType()).thenReturn(CurrencyType.USD);
+        when(currencyService.findBySymbol(CurrencyType.USD)).thenReturn(usd);
+    }
+
+    @Test
+    void testCaptureFetchesEachMetalOnce() {
+        when(latestPriceCache.getPrices(EnumSet.of(MetalType.GOLD, MetalType.SILVER)))
+                .thenReturn(Map.of(MetalType.GOLD, 70000d, MetalType.SILVER, 900d));
+        when(revolutService.getRevolutProfitFor(any())).thenReturn(0.02);
+
+        PriceSnapshot snapshot = metalPriceService.capturePriceSnapshot(EnumSet.of(MetalType.GOLD, MetalType.SILVER));
+
+        assertEquals(EnumSet.of(MetalType.GOLD, MetalType.SILVER), snapshot.getMetalTypes());
+        assertEquals(70000d * 1.02 * 4.5, snapshot.getRevolutPriceKg(MetalType.GOLD), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getMetalPriceKg(MetalType.PLATINUM));
+        verify(latestPriceCache, times(1)).getPrices(any());
+        verify(resilientPriceService, never()).fetchPrices(any());
+        verify(resilientPriceService, never()).fetchPrice(any());
+    }
+
+    @Test
+    void testProfitFromSnapshotDoesNoIo() {
+        when(revolutService.getRevolutProfitFor(MetalType.GOLD)).thenReturn(0.0);
+        PriceSnapshot snapshot = metalPriceService.capturePriceSnapshot(Map.of(MetalType.GOLD, 70000d));
+        verify(resilientPriceService, never()).fetchPrice(any());
+        verify(resilientPriceService, never()).fetchPrices(any());
+        verify(latestPriceCache, never()).getPrices(any());
+
+        MetalPurchase purchase = MetalPurchase.builder()
+                .userId(1)
+                .metalType(MetalType.GOLD)
+                .amount(BigDecimal.valueOf(2))
+                .cost(BigDecimal.valueOf(1000))
+                .build();
+        for (int i = 0; i < 3; i++) {
+            UserMetalInfoDto info = metalPriceService.calculatesUserProfit(purchase, snapshot);
+
+            double costNow = 70000d * 4.5 * Util.OUNCE * 2;
+            assertEquals(costNow, info.getCostNow(), 1e-9);
+            assertEquals(costNow - 1000, info.getProfit(), 1e-9);
+        }
+        verify(currencyService, times(1)).findBySymbol(CurrencyType.USD);
+        verify(revolutService, times(1)).getRevolutProfitFor(MetalType.GOLD);
+        verifyNoMoreInteractions(revolutService, currencyService);
+    }
+}
@@ -0,0 +1,127 @@
+package com.investment.metal.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.CandleSeries;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.model.SeriesVersion;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for PriceHistoryService and LargestTriangleThreeBuckets.
+ * Tests the choice between the raw prices and the candles, the entity tag and the downsampling.
+ */
+@ExtendWith(MockitoExtension.class)
+class PriceHistoryServiceTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Mock
+    private MetalPriceRepository metalPriceRepository;
+
+    @Mock
+    private PriceRollupService priceRollupService;
+
+    @Test
+    void testReadsTheRawPricesWhenNoCandleHoldsEnoughPoints() {
+        long from = NOW - HOUR;
+        when(priceRollupService.selectResolution(from, NOW, 500)).thenReturn(CandleResolution.MINUTE);
+        PriceSeries.Builder ticks = new PriceSeries.Builder(MetalType.GOLD, 1000);
+        for (int i = 0; i < 1000; i++) {
+            ticks.add(from + i * 3000L, 64_000 + i % 7);
+        }
+        when(metalPriceRepository.findSeries(eq(MetalType.GOLD), any(), any())).thenReturn(ticks.build());
+        when(metalPriceRepository.findVersion(eq(MetalType.GOLD), any(), any()))
+                .thenReturn(new SeriesVersion(1000, 1000, from + 999 * 3000L));
+
+        PriceHistory history = service().prepare(MetalType.GOLD, from, NOW, 500);
+        PriceSeries prices = service().load(history);
+
+        assertTrue(history.isRaw());
+        assertEquals("\"raw-rs.rs." + Long.toString(from + 999 * 3000L, 36) + "\"", history.getETag());
+        assertEquals(500, prices.size());
+        assertEquals(from, prices.time(0));
+        assertEquals(from + 999 * 3000L, prices.time(499));
+    }
+
+    @Test
+    void testReadsTheCandleClosesOfLongRanges() {
+        long from = NOW - 365 * 24 * HOUR;
+        long to = NOW - 24 * HOUR;
+        when(priceRollupService.selectResolution(from, to, 500)).thenReturn(CandleResolution.HOUR);
+        CandleSeries candles = new CandleSeries.Builder(MetalType.SILVER, CandleResolution.HOUR, 2)
+                .add(from, from + 10, 800, 810, 790, from + 20, 805, 2)
+                .add(from + HOUR, from + HOUR, 805, 805, 805, from + HOUR, 805, 1)
+                .build();
+        when(priceRollupService.findCandles(MetalType.SILVER, CandleResolution.HOUR, from, to)).thenReturn(candles);
+        when(priceRollupService.findVersion(MetalType.SILVER, CandleResolution.HOUR, from, to))
+                .thenReturn(new SeriesVersion(2, 3, from + HOUR));
+
+        PriceHistory history = service().prepare(MetalType.SILVER, from, to, 500);
+        PriceSeries prices = service().load(history);
+
+        assertEquals(CandleResolution.HOUR, history.resolution());
+        assertEquals("\"hour-2.3." + Long.toString(from + HOUR, 36) + "\"", history.getETag());
+        assertEquals(2, prices.size());
+        assertEquals(from + HOUR, prices.time(1));
+        assertEquals(805, prices.price(0));
+    }
+
+    @Test
+    void testETagFollowsTheRowsOfTheRangeOnly() {
+        long from = NOW - 48 * HOUR;
+        long to = NOW - 24 * HOUR;
+        when(priceRollupService.selectResolution(from, to, 500)).thenReturn(CandleResolution.MINUTE);
+        SeriesVersion stored = new SeriesVersion(1440, 5000, to - 1000);
+        // e.g. the backfill merging a point into a candle of the range
+        SeriesVersion merged = new SeriesVersion(1440, 5001, to - 1000);
+        when(priceRollupService.findVersion(MetalType.GOLD, CandleResolution.MINUTE, from, to))
+                .thenReturn(stored, stored, merged);
+
+        String before = service().prepare(MetalType.GOLD, from, to, 500).getETag();
+        // another instance, or the same one after the ticks saved after the range
+        String again = service().prepare(MetalType.GOLD, from, to, 500).getETag();
+        String after = service().prepare(MetalType.GOLD, from, to, 500).getETag();
+
+        assertEquals(before, again);
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    void testDownsamplingKeepsTheSpikes() {
+        PriceSeries.Builder ticks = new PriceSeries.Builder(MetalType.PLATINUM, 10_000);
+        for (int i = 0; i < 10_000; i++) {
+            ticks.add(NOW + i * 60_000L, i == 4321 ? 1200 : i == 8765 ? 600 : 900);
+        }
+
+        PriceSeries prices = LargestTriangleThreeBuckets.downsample(ticks.build(), 50);
+
+        assertEquals(50, prices.size());
+        boolean high = false;
+        boolean low = false;
+        for (int i = 0; i < prices.size(); i++) {
+            assertTrue(i == 0 || prices.time(i) > prices.time(i - 1));
+            high |= prices.price(i) == 1200;
+            low |= prices.price(i) == 600;
+        }
+        assertTrue(high && low);
+    }
+
+    private PriceHistoryService service() {
+        return new PriceHistoryService(metalPriceRepository, priceRollupService, 14 * 24 * HOUR, () -> NOW);
+    }
+}
@@ -0,0 +1,92 @@
+package com.investment.metal.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.CandleSeries;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.repository.PriceCandleRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for PriceRollupService.
+ * Tests the roll up of ticks into candles of every resolution and the choice of the resolution of a range.
+ */
+@ExtendWith(MockitoExtension.class)
+class PriceRollupServiceTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    // midnight UTC
+    private static final long NOW = 19_700 * DAY;
+
+    @Mock
+    private PriceCandleRepository priceCandleRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRollsTicksUpIntoCandlesOfEveryResolution() {
+        long minute = TimeUnit.MINUTES.toMillis(1);
+        PriceSeries ticks = new PriceSeries(MetalType.GOLD,
+                new long[]{NOW, NOW + 20_000, NOW + 40_000, NOW + minute + 5_000},
+                new double[]{100, 104, 98, 101});
+
+        service().record(ticks);
+
+        ArgumentCaptor<Collection<CandleSeries>> merged = ArgumentCaptor.forClass(Collection.class);
+        verify(priceCandleRepository).merge(merged.capture());
+        List<CandleSeries> candles = List.copyOf(merged.getValue());
+        assertEquals(CandleResolution.values().length, candles.size());
+        CandleSeries minutes = candles.get(CandleResolution.MINUTE.ordinal());
+        assertEquals(2, minutes.size());
+        assertEquals(NOW, minutes.start(0));
+        assertEquals(100, minutes.open(0));
+        assertEquals(104, minutes.high(0));
+        assertEquals(98, minutes.low(0));
+        assertEquals(98, minutes.close(0));
+        assertEquals(NOW + 40_000, minutes.closeTime(0));
+        assertEquals(3, minutes.tickCount(0));
+        assertEquals(NOW + minute, minutes.start(1));
+        CandleSeries days = candles.get(CandleResolution.DAY.ordinal());
+        assertEquals(1, days.size());
+        assertEquals(101, days.close(0));
+        assertEquals(4, days.tickCount(0));
+    }
+
+    @Test
+    void testFailingMergeIsNotThrown() {
+        doThrow(new RuntimeException("Deadlock found")).when(priceCandleRepository).merge(any());
+
+        service().record(new PriceSeries(MetalType.SILVER, new long[]{NOW}, new double[]{800}));
+    }
+
+    @Test
+    void testSelectsTheCoarsestResolutionCoveringTheRangeWithEnoughPoints() {
+        PriceRollupService service = service();
+
+        // a year: 365 days are not enough for 500 points, 8760 hours are
+        assertEquals(CandleResolution.HOUR, service.selectResolution(NOW - 365 * DAY, NOW, 500));
+        assertEquals(CandleResolution.DAY, service.selectResolution(NOW - 365 * DAY, NOW, 300));
+        // a day: only the minutes hold 500 points
+        assertEquals(CandleResolution.MINUTE, service.selectResolution(NOW - DAY, NOW, 500));
+        // three years: the hours are deleted after two years, the days are the finest resolution left
+        assertEquals(CandleResolution.DAY, service.selectResolution(NOW - 3 * 365 * DAY, NOW, 5000));
+        // two months: the minutes are deleted after 30 days
+        assertEquals(CandleResolution.HOUR, service.selectResolution(NOW - 60 * DAY, NOW, 100_000));
+    }
+
+    private PriceRollupService service() {
+        return new PriceRollupService(priceCandleRepository, 30 * DAY, 730 * DAY, 0, () -> NOW);
+    }
+}
@@ -0,0 +1,134 @@
+package com.investment.metal.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for PriceTrendService.
+ * Tests the inc/dec trend queries over the in-memory price ticks.
+ */
+@ExtendWith(MockitoExtension.class)
+class PriceTrendServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    private static final long RETENTION = TimeUnit.DAYS.toMillis(14);
+
+    @Mock
+    private MetalPriceRepository metalPriceRepository;
+
+    private PriceTrendService priceTrendService;
+
+    @BeforeEach
+    void setUp() {
+        priceTrendService = new PriceTrendService(metalPriceRepository, 16, RETENTION);
+    }
+
+    @Test
+    void testIncreasingWithinWindow() {
+        givenGoldHistory();
+
+        assertTrue(priceTrendService.isIncreasing(MetalType.GOLD, 3, 0));
+        assertFalse(priceTrendService.isIncreasing(MetalType.GOLD, 5, 0));
+        assertFalse(priceTrendService.isDecreasing(MetalType.GOLD, 3, 0));
+    }
+
+    @Test
+    void testNewTickInvalidatesMemoizedResults() {
+        givenGoldHistory();
+        assertTrue(priceTrendService.isIncreasing(MetalType.GOLD, 3, 0));
+
+        priceTrendService.record(MetalType.GOLD, NOW, 103.5);
+
+        assertFalse(priceTrendService.isIncreasing(MetalType.GOLD, 3, 0));
+        assertTrue(priceTrendService.isIncreasing(MetalType.GOLD, 3, 0.5));
+        verify(metalPriceRepository, times(1)).findSeries(eq(MetalType.GOLD), any(), any());
+    }
+
+    @Test
+    void testDecreasing() {
+        givenGoldHistory();
+        priceTrendService.record(MetalType.GOLD, NOW, 90);
+        priceTrendService.record(MetalType.GOLD, NOW.plusHours(1), 85);
+
+        assertTrue(priceTrendService.isDecreasing(MetalType.GOLD, 1, 0));
+        assertFalse(priceTrendService.isDecreasing(MetalType.GOLD, 3, 0));
+    }
+
+    @Test
+    void testNeedsAtLeastTwoTicks() {
+        when(metalPriceRepository.findSeries(eq(MetalType.SILVER), any(), any()))
+                .thenReturn(new PriceSeries(MetalType.SILVER, new long[0], new double[0]));
+        priceTrendService.record(MetalType.SILVER, NOW, 30);
+
+        assertFalse(priceTrendService.isIncreasing(MetalType.SILVER, 14, 0));
+        assertFalse(priceTrendService.isDecreasing(MetalType.SILVER, 14, 0));
+    }
+
+    @Test
+    void testIndicators() {
+        givenGoldHistory();
+
+        assertEquals(104, priceTrendService.getPrice(MetalType.GOLD), 1e-9);
+        assertEquals(102, priceTrendService.getSma(MetalType.GOLD, 3), 1e-9);
+        assertEquals(2, priceTrendService.getStddev(MetalType.GOLD, 3), 1e-9);
+        assertEquals(4, priceTrendService.getChange(MetalType.GOLD, 3), 1e-9);
+        assertEquals(100, priceTrendService.getRsi(MetalType.GOLD, 3), 1e-9);
+        assertEquals(104, priceTrendService.getSma(MetalType.GOLD, 1), 1e-9);
+        assertTrue(Double.isNaN(priceTrendService.getStddev(MetalType.GOLD, 1)));
+
+        priceTrendService.record(MetalType.GOLD, NOW, 100);
+
+        // window of 3 days is now 102, 104, 100: gains 2, losses 4
+        assertEquals(102, priceTrendService.getSma(MetalType.GOLD, 3), 1e-9);
+        assertEquals(100 - 100 / (1 + 2.0 / 4.0), priceTrendService.getRsi(MetalType.GOLD, 3), 1e-9);
+        assertEquals((100 - 102) / 102.0 * 100, priceTrendService.getChange(MetalType.GOLD, 3), 1e-9);
+        double ema = priceTrendService.getEma(MetalType.GOLD, 3);
+        assertTrue(ema > 100 && ema < 110);
+    }
+
+    @Test
+    void testIndicatorsDropTicksOverwrittenInTheBuffer() {
+        when(metalPriceRepository.findSeries(eq(MetalType.SILVER), any(), any()))
+                .thenReturn(new PriceSeries(MetalType.SILVER, new long[0], new double[0]));
+        PriceTrendService small = new PriceTrendService(metalPriceRepository, 2, RETENTION);
+        small.record(MetalType.SILVER, NOW, 10);
+        small.record(MetalType.SILVER, NOW.plusHours(1), 20);
+        small.record(MetalType.SILVER, NOW.plusHours(2), 30);
+
+        assertEquals(25, small.getSma(MetalType.SILVER, 14), 1e-9);
+        assertEquals(50, small.getChange(MetalType.SILVER, 14), 1e-9);
+        assertTrue(Double.isNaN(small.getSma(MetalType.SILVER, 0)));
+    }
+
+    private void givenGoldHistory() {
+        // stored history, oldest first like the repository returns it
+        when(metalPriceRepository.findSeries(eq(MetalType.GOLD), any(), any())).thenReturn(new PriceSeries(
+                MetalType.GOLD,
+                new long[]{millis(NOW.minusDays(5)), millis(NOW.minusDays(3)), millis(NOW.minusDays(2)),
+                        millis(NOW.minusDays(1))},
+                new double[]{110, 100, 102, 104}));
+    }
+
+    private static long millis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
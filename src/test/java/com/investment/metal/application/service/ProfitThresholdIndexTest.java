@@ -0,0 +1,95 @@
+package com.investment.metal.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.infrastructure.persistence.entity.Alert;
+import com.investment.metal.infrastructure.persistence.repository.AlertPortfolio;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ProfitThresholdIndex.
+ * Tests which alerts fire around their break-even prices and how firing reschedules them.
+ */
+class ProfitThresholdIndexTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void testCollectsAlertsOnTheSatisfiedSide() {
+        ProfitThresholdIndex index = new ProfitThresholdIndex(List.of(
+                entry(1, 100, true, false),
+                entry(2, 200, true, true),
+                entry(3, 100, false, true),
+                entry(4, 200, false, false),
+                entry(5, Double.NEGATIVE_INFINITY, true, false),
+                entry(6, Double.POSITIVE_INFINITY, true, false)));
+
+        assertEquals(Set.of(1, 2, 5), firingIds(index, 200, 0));
+        assertEquals(Set.of(3, 4, 5), firingIds(index, 100, HOUR));
+        assertEquals(Set.of(3, 4, 5), firingIds(index, 50, 2 * HOUR));
+        assertTrue(index.contains(6));
+        assertFalse(index.contains(7));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    void testFiredAlertsWaitForTheirInterval() {
+        ProfitThresholdIndex index = new ProfitThresholdIndex(List.of(entry(1, 100, true, false)));
+
+        assertEquals(Set.of(1), firingIds(index, 150, 0));
+        assertEquals(Set.of(), firingIds(index, 150, HOUR - 1));
+        assertEquals(Set.of(1), firingIds(index, 150, HOUR));
+        assertEquals(Set.of(), firingIds(index, Double.NaN, 3 * HOUR));
+    }
+
+    @Test
+    void testDueAlertsFireWhenThePriceCrossesThem() {
+        ProfitThresholdIndex index = new ProfitThresholdIndex(List.of(
+                entry(1, 110, true, false),
+                entry(2, 90, false, true),
+                entry(3, 130, true, true)));
+
+        assertEquals(Set.of(), firingIds(index, 100, 0));
+        assertEquals(Set.of(1), firingIds(index, 120, 1));
+        // the alert at 110 still holds but waits for its interval, the one at 130 is crossed
+        assertEquals(Set.of(3), firingIds(index, 130, 2));
+        assertEquals(Set.of(2), firingIds(index, 90, 3));
+        // a rise back above 110 does not fire the alert before its interval ends
+        assertEquals(Set.of(), firingIds(index, 115, HOUR));
+        assertEquals(Set.of(1), firingIds(index, 115, HOUR + 1));
+        assertEquals(Set.of(), firingIds(index, 115, HOUR + 2));
+    }
+
+    @Test
+    void testDistanceToNextThreshold() {
+        ProfitThresholdIndex index = new ProfitThresholdIndex(List.of(
+                entry(1, 110, true, false),
+                entry(2, 90, true, false),
+                entry(3, 95, false, false),
+                entry(4, Double.POSITIVE_INFINITY, true, false)));
+
+        // at 100 the above alert at 90 already holds: the next ones need a rise to 110 or a fall to 95
+        assertEquals(0.05, index.distanceToNextThreshold(100), 1e-12);
+        assertEquals(25.0 / 120, index.distanceToNextThreshold(120), 1e-12);
+        assertEquals(Double.POSITIVE_INFINITY, ProfitThresholdIndex.EMPTY.distanceToNextThreshold(100));
+        assertEquals(Double.POSITIVE_INFINITY, index.distanceToNextThreshold(Double.NaN));
+    }
+
+    private static Set<Integer> firingIds(ProfitThresholdIndex index, double price, long now) {
+        return index.collectFiring(price, now).stream()
+                .map(portfolio -> portfolio.getAlert().getId())
+                .collect(Collectors.toSet());
+    }
+
+    private static ProfitThresholdIndex.Entry entry(int id, double breakEven, boolean above, boolean inclusive) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        return new ProfitThresholdIndex.Entry(new AlertPortfolio(alert, null, null), breakEven, above, inclusive,
+                0, HOUR);
+    }
+}
@@ -0,0 +1,106 @@
+package com.investment.metal.application.service.expression;
+
+import com.investment.metal.application.service.ExpressionFeeder;
+import com.investment.metal.application.service.FunctionInfo;
+import com.investment.metal.application.service.FunctionParam;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the tree interpreter with the generated bytecode tier on a typical alert expression.
+ * Not part of the unit test run; start it with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertExpressionBenchmark {
+
+    private static final String EXPRESSION = "profit * 1.05 - 20 > 100 && inc(3, 0.5) || !dec(7, 2) && profit < -50";
+
+    @Param({"10000", "100000", "1000000"})
+    private int evaluations;
+
+    private CompiledExpression interpreted;
+
+    private CompiledExpression bytecode;
+
+    private final ProfitFeeder feeder = new ProfitFeeder();
+
+    @Setup
+    public void setUp() {
+        Map<String, FunctionInfo> functions = new LinkedHashMap<>();
+        FunctionInfo profit = new FunctionInfo("profit");
+        profit.setReturnedType("void");
+        functions.put("profit", profit);
+        for (String name : new String[]{"inc", "dec"}) {
+            FunctionInfo info = new FunctionInfo(name);
+            info.setReturnedType("boolean");
+            info.addParam(FunctionParam.builder().name("days").min(1).max(14).build());
+            info.addParam(FunctionParam.builder().name("eps").min(0).max(10).build());
+            functions.put(name, info);
+        }
+        interpreted = new ExpressionCompiler(functions).compile(EXPRESSION);
+        bytecode = new ExpressionCompiler(functions, 1).compile(EXPRESSION);
+        bytecode.evaluate(feeder);
+        if (!bytecode.isBytecode()) {
+            throw new IllegalStateException("Expression was not promoted to bytecode");
+        }
+    }
+
+    @Benchmark
+    public void treeInterpreter(Blackhole blackhole) {
+        run(interpreted, blackhole);
+    }
+
+    @Benchmark
+    public void generatedBytecode(Blackhole blackhole) {
+        run(bytecode, blackhole);
+    }
+
+    private void run(CompiledExpression expression, Blackhole blackhole) {
+        for (int i = 0; i < evaluations; i++) {
+            feeder.profit = (i % 400) - 200;
+            blackhole.consume(expression.evaluate(feeder));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AlertExpressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static final class ProfitFeeder implements ExpressionFeeder {
+
+        private double profit;
+
+        @Override
+        public double number(String functionName, double[] args) {
+            return profit;
+        }
+
+        @Override
+        public boolean condition(String functionName, double[] args) {
+            return "inc".equals(functionName) ? profit > 0 : profit < 0;
+        }
+    }
+}
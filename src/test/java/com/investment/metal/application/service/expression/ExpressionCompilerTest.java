@@ -0,0 +1,136 @@
+package com.investment.metal.application.service.expression;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.application.exception.InvalidExpressionException;
+import com.investment.metal.application.service.ExpressionFeeder;
+import com.investment.metal.application.service.FunctionInfo;
+import com.investment.metal.application.service.FunctionParam;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ExpressionCompiler.
+ * Tests parsing, type-checking, caching and evaluation of alert expressions.
+ */
+class ExpressionCompilerTest {
+
+    private Map<String, FunctionInfo> functions;
+
+    private ExpressionCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        functions = new LinkedHashMap<>();
+        FunctionInfo profit = new FunctionInfo("profit");
+        profit.setReturnedType("void");
+        functions.put("profit", profit);
+        for (String name : new String[]{"inc", "dec"}) {
+            FunctionInfo info = new FunctionInfo(name);
+            info.setReturnedType("boolean");
+            info.addParam(FunctionParam.builder().name("days").min(0).max(15).build());
+            info.addParam(FunctionParam.builder().name("eps").min(-1).max(10).build());
+            functions.put(name, info);
+        }
+        compiler = new ExpressionCompiler(functions);
+    }
+
+    @Test
+    void testEvaluateProfitComparison() {
+        CompiledExpression expression = compiler.compile("profit > 100");
+
+        assertTrue(expression.evaluate(feeder(150, false, false)));
+        assertFalse(expression.evaluate(feeder(50, false, false)));
+    }
+
+    @Test
+    void testEvaluateBooleanOperatorsAndPrecedence() {
+        CompiledExpression expression = compiler.compile("profit * 2 - 10 >= 90 && inc(3, 0.5) || !dec(2,1)");
+
+        assertTrue(expression.evaluate(feeder(50, true, true)));
+        assertFalse(expression.evaluate(feeder(49, true, true)));
+        assertTrue(expression.evaluate(feeder(0, false, false)));
+    }
+
+    @Test
+    void testFunctionArgumentsAreConstants() {
+        CompiledExpression expression = compiler.compile("inc(3, 0.5)");
+
+        ExpressionNode.FunctionCall call = expression.getCalls().get(0);
+        assertEquals("inc", call.name());
+        assertArrayEquals(new double[]{3, 0.5}, call.args());
+    }
+
+    @Test
+    void testCompiledExpressionsAreCachedByText() {
+        assertSame(compiler.compile("profit < -5"), compiler.compile("profit < -5"));
+        assertEquals(1, compiler.size());
+    }
+
+    @Test
+    void testRejectsInvalidExpressions() {
+        assertThrows(InvalidExpressionException.class, () -> compiler.compile("price > 100"));
+        assertThrows(InvalidExpressionException.class, () -> compiler.compile("profit + 1"));
+        assertThrows(InvalidExpressionException.class, () -> compiler.compile("inc(3) && profit > 0"));
+        assertThrows(InvalidExpressionException.class, () -> compiler.compile("inc(20, 1)"));
+        assertThrows(InvalidExpressionException.class, () -> compiler.compile("inc(3, 1) > 2"));
+        assertThrows(InvalidExpressionException.class, () -> compiler.compile("(profit > 1"));
+        assertThrows(InvalidExpressionException.class, () -> compiler.compile("1 > 0"));
+    }
+
+    @Test
+    void testPromotedExpressionMatchesInterpreter() {
+        String text = "profit * 2 - 10 >= 90 && inc(3, 0.5) || !dec(2,1) && profit != 7";
+        CompiledExpression interpreted = compiler.compile(text);
+        CompiledExpression promoted = new ExpressionCompiler(functions, 1).compile(text);
+
+        for (double profit : new double[]{-1, 0, 7, 49, 50, Double.NaN}) {
+            for (boolean inc : new boolean[]{true, false}) {
+                for (boolean dec : new boolean[]{true, false}) {
+                    ExpressionFeeder feeder = feeder(profit, inc, dec);
+                    assertEquals(interpreted.evaluate(feeder), promoted.evaluate(feeder),
+                            "profit=" + profit + ", inc=" + inc + ", dec=" + dec);
+                }
+            }
+        }
+        assertTrue(promoted.isBytecode());
+        assertFalse(interpreted.isBytecode());
+    }
+
+    @Test
+    void testRecognizesProfitThresholds() {
+        assertEquals(new ProfitThreshold(ComparisonOperator.GT, 100),
+                compiler.compile("profit > 100").getProfitThreshold().orElseThrow());
+        assertEquals(new ProfitThreshold(ComparisonOperator.LE, 50),
+                compiler.compile("50 >= profit").getProfitThreshold().orElseThrow());
+        assertEquals(new ProfitThreshold(ComparisonOperator.GE, 50),
+                compiler.compile("profit * 2 - 10 >= 90").getProfitThreshold().orElseThrow());
+        assertEquals(new ProfitThreshold(ComparisonOperator.LT, -20),
+                compiler.compile("-profit / 2 > 10").getProfitThreshold().orElseThrow());
+
+        assertTrue(compiler.compile("profit == 100").getProfitThreshold().isEmpty());
+        assertTrue(compiler.compile("profit * profit > 100").getProfitThreshold().isEmpty());
+        assertTrue(compiler.compile("profit > 100 && inc(3, 0.5)").getProfitThreshold().isEmpty());
+    }
+
+    private static ExpressionFeeder feeder(double profit, boolean inc, boolean dec) {
+        return new ExpressionFeeder() {
+            @Override
+            public double number(String functionName, double[] args) {
+                return profit;
+            }
+
+            @Override
+            public boolean condition(String functionName, double[] args) {
+                return "inc".equals(functionName) ? inc : dec;
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.investment.metal.infrastructure.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.investment.metal.application.service.AlertBacktest;
+import com.investment.metal.application.service.AlertBacktestService;
+import com.investment.metal.application.service.AlertService;
+import com.investment.metal.application.service.ExpressionEvaluator;
+import com.investment.metal.application.service.PurchaseService;
+import com.investment.metal.domain.model.AlertFrequency;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.infrastructure.exception.ExceptionService;
+import com.investment.metal.infrastructure.persistence.entity.Login;
+import com.investment.metal.infrastructure.service.LoginService;
+import com.investment.metal.infrastructure.validation.InputValidator;
+import com.investment.metal.infrastructure.validation.ValidationService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for the ProtectedApiController backtest endpoint headers.
+ */
+class ProtectedApiControllerBacktestTest {
+
+    private static final String EXPRESSION = "profit > 10";
+
+    private MockMvc mockMvc;
+    private AlertBacktestService alertBacktestService;
+
+    @BeforeEach
+    void setUp() {
+        ExceptionService exceptionService = mock(ExceptionService.class);
+        ValidationService validationService = new ValidationService();
+        ReflectionTestUtils.setField(validationService, "inputValidator", new InputValidator());
+        ReflectionTestUtils.setField(validationService, "exceptionService", exceptionService);
+
+        AlertService alertService = mock(AlertService.class);
+        when(alertService.evaluateExpression(EXPRESSION)).thenReturn(mock(ExpressionEvaluator.class));
+        Login login = new Login();
+        login.setUserId(1);
+        LoginService loginService = mock(LoginService.class);
+        when(loginService.getLogin(anyString())).thenReturn(login);
+        alertBacktestService = mock(AlertBacktestService.class);
+        when(alertBacktestService.prepare(anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(mock(AlertBacktest.class));
+
+        ProtectedApiController controller = new ProtectedApiController();
+        ReflectionTestUtils.setField(controller, "validationService", validationService);
+        ReflectionTestUtils.setField(controller, "exceptionService", exceptionService);
+        ReflectionTestUtils.setField(controller, "alertService", alertService);
+        ReflectionTestUtils.setField(controller, "loginService", loginService);
+        ReflectionTestUtils.setField(controller, "purchaseService", mock(PurchaseService.class));
+        ReflectionTestUtils.setField(controller, "alertBacktestService", alertBacktestService);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "request", mock(HttpServletRequest.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void testBacktestWithoutFrequencyHeaderUsesHourly() throws Exception {
+        mockMvc.perform(post("/api/private/alerts/backtest")
+                        .header("expression", EXPRESSION)
+                        .header("metalSymbol", MetalType.GOLD.getSymbol())
+                        .header("from", "2025-01-01")
+                        .header("to", "2025-02-01"))
+                .andExpect(status().isOk());
+
+        verify(alertBacktestService).prepare(eq(EXPRESSION), eq(MetalType.GOLD), eq(AlertFrequency.HOURLY),
+                any(), any(), any());
+    }
+
+    @Test
+    void testBacktestWithFrequencyHeader() throws Exception {
+        mockMvc.perform(post("/api/private/alerts/backtest")
+                        .header("expression", EXPRESSION)
+                        .header("metalSymbol", MetalType.GOLD.getSymbol())
+                        .header("from", "2025-01-01")
+                        .header("to", "2025-02-01")
+                        .header("frequency", "WEEKLY"))
+                .andExpect(status().isOk());
+
+        verify(alertBacktestService).prepare(eq(EXPRESSION), eq(MetalType.GOLD), eq(AlertFrequency.WEEKLY),
+                any(), any(), any());
+    }
+}
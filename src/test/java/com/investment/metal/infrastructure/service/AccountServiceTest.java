@@ -8,6 +8,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.investment.metal.application.service.ProfitAlertIndex;
 import com.investment.metal.domain.exception.BusinessException;
 import com.investment.metal.infrastructure.exception.ExceptionService;
 import com.investment.metal.infrastructure.persistence.entity.Alert;
@@ -57,6 +58,9 @@ class AccountServiceTest {
     @Mock
     private LoginService loginService;
 
+    @Mock
+    private ProfitAlertIndex profitAlertIndex;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -122,6 +126,7 @@ class AccountServiceTest {
         verify(notificationRepository).deleteByUserId(userId);
         verify(loginService).invalidateAllUserSessions(userId);
         verify(customerRepository).delete(testUser);
+        verify(profitAlertIndex).invalidate();
     }
 
     @Test
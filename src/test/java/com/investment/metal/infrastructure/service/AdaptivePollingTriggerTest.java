@@ -0,0 +1,144 @@
+package com.investment.metal.infrastructure.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.domain.model.MetalType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for AdaptivePollingTrigger.
+ * Tests how volatility, alert thresholds, market hours and budgets set the polling interval.
+ */
+class AdaptivePollingTriggerTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private static final long FLOOR = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long CEILING = 4 * HOUR;
+
+    /**
+     * Wednesday 2024-01-10 12:00 UTC, market open
+     */
+    private static final long WEDNESDAY = Instant.parse("2024-01-10T12:00:00Z").toEpochMilli();
+
+    private final MutableClock clock = new MutableClock(WEDNESDAY);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testBaseIntervalUntilVolatilityIsKnown() {
+        AdaptivePollingTrigger trigger = trigger(0);
+
+        trigger.record(Map.of(MetalType.GOLD, 2000.0), Double.POSITIVE_INFINITY);
+
+        assertEquals(HOUR, trigger.getIntervalMillis());
+        assertEquals(AdaptivePollingTrigger.Reason.BASE, trigger.getReason());
+        assertEquals(HOUR, meterRegistry.get("metal.price.polling.interval").gauge().value());
+        assertEquals(1, meterRegistry.get("metal.price.polling.reason").tag("reason", "BASE").gauge().value());
+    }
+
+    @Test
+    void testVolatileMarketShortensAndFlatMarketLengthensTheInterval() {
+        AdaptivePollingTrigger trigger = trigger(0);
+        trigger.record(Map.of(MetalType.GOLD, 2000.0), Double.POSITIVE_INFINITY);
+
+        // a 2% move in one hour is four times the target move
+        clock.advance(HOUR);
+        trigger.record(Map.of(MetalType.GOLD, 2040.0), Double.POSITIVE_INFINITY);
+        assertEquals(AdaptivePollingTrigger.Reason.VOLATILE, trigger.getReason());
+        assertEquals(FLOOR, trigger.getIntervalMillis());
+
+        for (int i = 0; i < 15; i++) {
+            clock.advance(trigger.getIntervalMillis());
+            trigger.record(Map.of(MetalType.GOLD, 2040.0), Double.POSITIVE_INFINITY);
+        }
+        assertEquals(AdaptivePollingTrigger.Reason.FLAT, trigger.getReason());
+        assertEquals(CEILING, trigger.getIntervalMillis());
+    }
+
+    @Test
+    void testNearThresholdShortensTheInterval() {
+        AdaptivePollingTrigger trigger = trigger(0);
+        trigger.record(Map.of(MetalType.SILVER, 25.0), Double.POSITIVE_INFINITY);
+        // about 0.1% per hour: the target move alone would wait the ceiling
+        clock.advance(HOUR);
+        trigger.record(Map.of(MetalType.SILVER, 25.025), Double.POSITIVE_INFINITY);
+        assertEquals(CEILING, trigger.getIntervalMillis());
+
+        clock.advance(HOUR);
+        trigger.record(Map.of(MetalType.SILVER, 25.05), 0.001);
+
+        assertEquals(AdaptivePollingTrigger.Reason.NEAR_THRESHOLD, trigger.getReason());
+        assertTrue(trigger.getIntervalMillis() < HOUR);
+    }
+
+    @Test
+    void testClosedMarketWaitsForTheOpen() {
+        AdaptivePollingTrigger trigger = trigger(0);
+        // Sunday 20:00 UTC, two hours before the open
+        clock.set(Instant.parse("2024-01-14T20:00:00Z").toEpochMilli());
+
+        trigger.record(Map.of(MetalType.GOLD, 2000.0), Double.POSITIVE_INFINITY);
+
+        assertEquals(AdaptivePollingTrigger.Reason.MARKET_CLOSED, trigger.getReason());
+        assertEquals(2 * HOUR, trigger.getIntervalMillis());
+        assertEquals(0, AdaptivePollingTrigger.untilMarketOpen(WEDNESDAY));
+        assertEquals(2 * HOUR, meterRegistry.get("metal.price.polling.interval").gauge().value());
+    }
+
+    @Test
+    void testBudgetBoundsTheInterval() {
+        AdaptivePollingTrigger trigger = trigger(TimeUnit.MINUTES.toMillis(20));
+        trigger.record(Map.of(MetalType.GOLD, 2000.0), Double.POSITIVE_INFINITY);
+        clock.advance(HOUR);
+        trigger.record(Map.of(MetalType.GOLD, 2100.0), Double.POSITIVE_INFINITY);
+
+        assertEquals(AdaptivePollingTrigger.Reason.BUDGET, trigger.getReason());
+        assertEquals(TimeUnit.MINUTES.toMillis(20), trigger.getIntervalMillis());
+    }
+
+    private AdaptivePollingTrigger trigger(long budgetMillis) {
+        return new AdaptivePollingTrigger(HOUR, FLOOR, CEILING, 0.005, budgetMillis, meterRegistry, clock);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        void set(long time) {
+            millis = time;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.investment.metal.infrastructure.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.investment.metal.application.service.PriceRollupService;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import com.investment.metal.infrastructure.service.price.ExternalMetalPriceReader;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for IntradayBackfillService.
+ * Tests the thinning to one point per interval, the deduplication against stored ticks and the retention.
+ */
+@ExtendWith(MockitoExtension.class)
+class IntradayBackfillServiceTest {
+
+    private static final long SPACING = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long NOW = 1_700_000_100_000L;
+
+    private static final long RETENTION = TimeUnit.DAYS.toMillis(14);
+
+    @Mock
+    private ExternalMetalPriceReader priceReader;
+
+    @Mock
+    private MetalPriceRepository metalPriceRepository;
+
+    @Mock
+    private PriceRollupService priceRollupService;
+
+    @Test
+    void testStoresOnePointPerIntervalWithoutStoredTick() {
+        // one hour of minute points; the tick saved by the scheduler falls in the interval of minutes 30 to 34
+        long start = NOW - TimeUnit.HOURS.toMillis(1);
+        PriceSeries.Builder minutes = new PriceSeries.Builder(MetalType.GOLD, 60);
+        for (int i = 0; i < 60; i++) {
+            minutes.add(start + TimeUnit.MINUTES.toMillis(i), 2000 + i);
+        }
+        PriceSeries stored = new PriceSeries(MetalType.GOLD,
+                new long[]{start + TimeUnit.MINUTES.toMillis(31)}, new double[]{2031});
+        when(metalPriceRepository.findSeries(eq(MetalType.GOLD), any(), any())).thenReturn(stored);
+        when(metalPriceRepository.saveSeries(any())).thenAnswer(invocation ->
+                invocation.<PriceSeries>getArgument(0).size());
+        IntradayBackfillService service = service();
+
+        int inserted = service.store(minutes.build());
+
+        ArgumentCaptor<PriceSeries> saved = ArgumentCaptor.forClass(PriceSeries.class);
+        verify(metalPriceRepository).saveSeries(saved.capture());
+        assertEquals(inserted, saved.getValue().size());
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < saved.getValue().size(); i++) {
+            long time = saved.getValue().time(i);
+            assertTrue(Math.floorDiv(time, SPACING) > Math.floorDiv(previous, SPACING));
+            assertTrue(Math.floorDiv(time, SPACING) != Math.floorDiv(stored.time(0), SPACING));
+            previous = time;
+        }
+        long intervals = Math.floorDiv(start + TimeUnit.MINUTES.toMillis(59), SPACING)
+                - Math.floorDiv(start, SPACING) + 1;
+        assertEquals(intervals - 1, inserted);
+        verify(priceRollupService).record(saved.getValue());
+    }
+
+    @Test
+    void testSecondRunInsertsNothing() {
+        PriceSeries points = new PriceSeries(MetalType.SILVER,
+                new long[]{NOW - 2 * SPACING, NOW - SPACING}, new double[]{25, 26});
+        when(metalPriceRepository.findSeries(eq(MetalType.SILVER), any(), any())).thenReturn(points);
+
+        assertEquals(0, service().store(points));
+        verify(metalPriceRepository, never()).saveSeries(any());
+    }
+
+    @Test
+    void testSkipsPointsOlderThanRetentionAndMetalsWithoutSeries() {
+        PriceSeries old = new PriceSeries(MetalType.PLATINUM,
+                new long[]{NOW - TimeUnit.DAYS.toMillis(15)}, new double[]{900});
+        when(priceReader.takeSeries(MetalType.PLATINUM)).thenReturn(old);
+        when(priceReader.takeSeries(MetalType.GOLD))
+                .thenReturn(new PriceSeries(MetalType.GOLD, new long[0], new double[0]));
+
+        assertEquals(0, service().backfill(EnumSet.of(MetalType.GOLD, MetalType.PLATINUM)));
+        verify(metalPriceRepository, never()).findSeries(any(), any(), any());
+        verify(metalPriceRepository, never()).saveSeries(any());
+    }
+
+    @Test
+    void testCutoffFollowsConfiguredRetention() {
+        // two days old: inside the default retention, but purged by a one day retention
+        PriceSeries points = new PriceSeries(MetalType.GOLD,
+                new long[]{NOW - TimeUnit.DAYS.toMillis(2)}, new double[]{2000});
+        IntradayBackfillService service = new IntradayBackfillService(priceReader, metalPriceRepository,
+                priceRollupService, true, SPACING, TimeUnit.DAYS.toMillis(1), () -> NOW);
+
+        assertEquals(0, service.store(points));
+        verify(metalPriceRepository, never()).findSeries(any(), any(), any());
+        verify(metalPriceRepository, never()).saveSeries(any());
+    }
+
+    private IntradayBackfillService service() {
+        return new IntradayBackfillService(priceReader, metalPriceRepository, priceRollupService, true, SPACING,
+                RETENTION, () -> NOW);
+    }
+}
@@ -0,0 +1,97 @@
+package com.investment.metal.infrastructure.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for LastKnownGoodStore.
+ * Tests the reload after a restart, the recovery from an interrupted write and the handling of foreign files.
+ */
+class LastKnownGoodStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPricesAndRatesSurviveARestart() {
+        Path path = directory.resolve("lkg.bin");
+        LastKnownGoodStore store = new LastKnownGoodStore(path);
+        store.recordQuotes(Map.of(MetalType.GOLD, new PriceQuote(64000, 1000, PriceQuote.Source.PROVIDER),
+                MetalType.SILVER, new PriceQuote(800, 2000, PriceQuote.Source.FALLBACK)));
+        store.recordRates(Map.of(CurrencyType.USD, 4.5, CurrencyType.RON, 1.0), 3000);
+
+        LastKnownGoodStore restarted = new LastKnownGoodStore(path);
+
+        assertEquals(new PriceQuote(64000, 1000, PriceQuote.Source.PROVIDER), restarted.getQuote(MetalType.GOLD));
+        assertEquals(new PriceQuote(800, 2000, PriceQuote.Source.FALLBACK), restarted.getQuote(MetalType.SILVER));
+        assertEquals(4.5, restarted.getRate(CurrencyType.USD));
+        assertEquals(1.0, restarted.getRate(CurrencyType.RON));
+        assertNull(restarted.getRate(CurrencyType.EUR));
+        assertFalse(restarted.isComplete());
+    }
+
+    @Test
+    void testInterruptedWriteKeepsThePreviousValues() throws IOException {
+        Path path = directory.resolve("lkg.bin");
+        LastKnownGoodStore store = new LastKnownGoodStore(path);
+        store.recordQuotes(Map.of(MetalType.GOLD, new PriceQuote(64000, 1000, PriceQuote.Source.PROVIDER)));
+        store.recordQuotes(Map.of(MetalType.GOLD, new PriceQuote(65000, 2000, PriceQuote.Source.PROVIDER)));
+
+        // the second write went to the first slot: damage its content as a crash in the middle of it would
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 16 + 16 + 4);
+        }
+
+        assertEquals(64000, new LastKnownGoodStore(path).getQuote(MetalType.GOLD).price());
+    }
+
+    @Test
+    void testFallbackQuoteDoesNotReplaceAProviderPrice() {
+        LastKnownGoodStore store = new LastKnownGoodStore((Path) null);
+        store.recordQuotes(Map.of(MetalType.GOLD, new PriceQuote(64000, 1000, PriceQuote.Source.PROVIDER)));
+
+        store.recordQuotes(Map.of(MetalType.GOLD, new PriceQuote(60000, 2000, PriceQuote.Source.FALLBACK),
+                MetalType.PLATINUM, new PriceQuote(0, 2000, PriceQuote.Source.FALLBACK)));
+
+        assertEquals(64000, store.getQuote(MetalType.GOLD).price());
+        assertNull(store.getQuote(MetalType.PLATINUM));
+    }
+
+    @Test
+    void testForeignFileIsReplaced() throws IOException {
+        Path path = directory.resolve("lkg.bin");
+        Files.write(path, new byte[]{'n', 'o', 't', ' ', 'a', ' ', 's', 't', 'o', 'r', 'e'});
+
+        LastKnownGoodStore store = new LastKnownGoodStore(path);
+        assertTrue(store.getQuotes().isEmpty());
+
+        Map<MetalType, PriceQuote> quotes = new EnumMap<>(MetalType.class);
+        for (MetalType metalType : MetalType.values()) {
+            quotes.put(metalType, new PriceQuote(100, 1000, PriceQuote.Source.PROVIDER));
+        }
+        store.recordQuotes(quotes);
+        Map<CurrencyType, Double> rates = new EnumMap<>(CurrencyType.class);
+        for (CurrencyType currencyType : CurrencyType.values()) {
+            rates.put(currencyType, 1.0);
+        }
+        store.recordRates(rates, 1000);
+
+        assertEquals(LastKnownGoodStore.FILE_SIZE, Files.size(path));
+        assertTrue(new LastKnownGoodStore(path).isComplete());
+    }
+}
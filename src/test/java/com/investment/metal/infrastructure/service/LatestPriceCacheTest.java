@@ -0,0 +1,111 @@
+package com.investment.metal.infrastructure.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.investment.metal.domain.model.MetalType;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for LatestPriceCache.
+ * Tests the TTL, the single-flight loading and the stale-while-refresh behaviour.
+ */
+@ExtendWith(MockitoExtension.class)
+class LatestPriceCacheTest {
+
+    private static final long TTL = 60_000;
+
+    @Mock
+    private ResilientPriceService resilientPriceService;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void testFreshPriceIsServedFromMemory() {
+        when(resilientPriceService.fetchQuotes(EnumSet.of(MetalType.GOLD)))
+                .thenReturn(Map.of(MetalType.GOLD, quote(2000)));
+        LatestPriceCache cache = new LatestPriceCache(resilientPriceService, TTL, now::get);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(2000, cache.getPrice(MetalType.GOLD));
+            now.addAndGet(100);
+        }
+        verify(resilientPriceService, times(1)).fetchQuotes(any());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(resilientPriceService.fetchQuotes(EnumSet.of(MetalType.SILVER))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of(MetalType.SILVER, quote(25));
+        });
+        LatestPriceCache cache = new LatestPriceCache(resilientPriceService, TTL, now::get);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Double>> prices = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                prices.add(executor.submit(() -> cache.getPrice(MetalType.SILVER)));
+            }
+            verify(resilientPriceService, timeout(5000)).fetchQuotes(any());
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Double> price : prices) {
+                assertEquals(25, price.get(5, TimeUnit.SECONDS));
+            }
+        }
+        verify(resilientPriceService, times(1)).fetchQuotes(any());
+    }
+
+    @Test
+    void testStalePriceIsServedWhileRefreshing() {
+        when(resilientPriceService.fetchQuotes(EnumSet.of(MetalType.GOLD)))
+                .thenReturn(Map.of(MetalType.GOLD, quote(2000)))
+                .thenAnswer(invocation -> Map.of(MetalType.GOLD, quote(2100)));
+        LatestPriceCache cache = new LatestPriceCache(resilientPriceService, TTL, now::get);
+        assertEquals(2000, cache.getPrice(MetalType.GOLD));
+
+        now.addAndGet(TTL);
+        assertEquals(2000, cache.getPrice(MetalType.GOLD));
+        verify(resilientPriceService, timeout(5000).times(2)).fetchQuotes(any());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getPrice(MetalType.GOLD) != 2100 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(2100, cache.getPrice(MetalType.GOLD));
+    }
+
+    @Test
+    void testUnknownPriceIsNotCached() {
+        when(resilientPriceService.fetchQuotes(EnumSet.of(MetalType.PLATINUM)))
+                .thenReturn(Map.of(MetalType.PLATINUM, new PriceQuote(0, now.get(), PriceQuote.Source.FALLBACK)))
+                .thenReturn(Map.of(MetalType.PLATINUM, quote(900)));
+        LatestPriceCache cache = new LatestPriceCache(resilientPriceService, TTL, now::get);
+
+        assertEquals(0, cache.getPrice(MetalType.PLATINUM));
+        assertEquals(900, cache.getPrice(MetalType.PLATINUM));
+        assertEquals(Map.of(MetalType.PLATINUM, 900d), cache.getPrices(EnumSet.of(MetalType.PLATINUM)));
+        verify(resilientPriceService, times(2)).fetchQuotes(any());
+    }
+
+    private PriceQuote quote(double price) {
+        return new PriceQuote(price, now.get(), PriceQuote.Source.PROVIDER);
+    }
+}
@@ -0,0 +1,152 @@
+package com.investment.metal.infrastructure.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceServiceType;
+import com.investment.metal.infrastructure.config.ResilienceConfig;
+import com.investment.metal.infrastructure.service.price.ExternalMetalPriceReader;
+import com.investment.metal.infrastructure.service.price.HedgedPriceReader;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for PriceProviderGuard.
+ * Tests the circuit breaker of each (provider, metal) pair, the request budget and the time limit of the
+ * requests, with the registries of the application.
+ */
+class PriceProviderGuardTest {
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private PriceProviderGuard priceProviderGuard;
+
+    @BeforeEach
+    void setUp() {
+        ResilienceConfig config = new ResilienceConfig();
+        circuitBreakerRegistry = config.circuitBreakerRegistry(new SimpleMeterRegistry());
+        PriceRequestBudget budget = new PriceRequestBudget(Map.of("BLOOMBERG", 3), PriceServiceType.GALMARLEY,
+                true, HedgedPriceReader.Mode.FASTEST);
+        priceProviderGuard = new PriceProviderGuard(circuitBreakerRegistry, config.timeLimiterRegistry(200), budget);
+    }
+
+    @Test
+    void testCircuitBreakersAreKeyedByProviderAndMetal() {
+        StubReader failing = new StubReader("GALMARLEY",
+                () -> CompletableFuture.failedFuture(new RuntimeException("Provider unavailable")));
+        ExternalMetalPriceReader reader = priceProviderGuard.guard(failing);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(CompletionException.class, () -> reader.fetchPriceAsync(MetalType.GOLD).join());
+        }
+        CompletionException rejected = assertThrows(CompletionException.class,
+                () -> reader.fetchPriceAsync(MetalType.GOLD).join());
+
+        assertInstanceOf(CallNotPermittedException.class, rejected.getCause());
+        assertEquals(5, failing.calls);
+        assertEquals(CircuitBreaker.State.OPEN, state("price-api.GALMARLEY.GOLD"));
+        assertEquals(CircuitBreaker.State.CLOSED, state("price-api.GALMARLEY.SILVER"));
+        assertEquals(CircuitBreaker.State.OPEN, priceProviderGuard.getCircuitBreakerState(MetalType.GOLD));
+
+        // gold can still be read from the hedge
+        priceProviderGuard.guard(new StubReader("BLOOMBERG", () -> CompletableFuture.completedFuture(100d)));
+        assertEquals(CircuitBreaker.State.CLOSED, priceProviderGuard.getCircuitBreakerState(MetalType.GOLD));
+    }
+
+    @Test
+    void testSlowRequestFailsAtTheTimeLimit() {
+        CompletableFuture<Double> request = new CompletableFuture<>();
+        ExternalMetalPriceReader reader = priceProviderGuard.guard(new StubReader("GALMARLEY", () -> request));
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> reader.fetchPriceAsync(MetalType.GOLD).join());
+
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertTrue(request.isDone());
+        assertEquals(1, metrics("price-api.GALMARLEY.GOLD").getNumberOfFailedCalls());
+    }
+
+    @Test
+    void testCancelledRequestIsNotAFailure() {
+        CompletableFuture<Double> request = new CompletableFuture<>();
+        ExternalMetalPriceReader reader = priceProviderGuard.guard(new StubReader("GALMARLEY", () -> request));
+
+        reader.fetchPriceAsync(MetalType.GOLD).cancel(true);
+
+        assertTrue(request.isCancelled());
+        assertEquals(0, metrics("price-api.GALMARLEY.GOLD").getNumberOfFailedCalls());
+        assertEquals(0, metrics("price-api.GALMARLEY.GOLD").getNumberOfSuccessfulCalls());
+    }
+
+    @Test
+    void testRequestsOverTheBudgetAreNotSent() {
+        StubReader bloomberg = new StubReader("BLOOMBERG", () -> CompletableFuture.completedFuture(100d));
+        ExternalMetalPriceReader reader = priceProviderGuard.guard(bloomberg);
+
+        // a budget of 3 requests per hour is one batch of the metals
+        for (MetalType metalType : MetalType.values()) {
+            assertEquals(100d, reader.fetchPriceAsync(metalType).join());
+        }
+        CompletionException refused = assertThrows(CompletionException.class,
+                () -> reader.fetchPriceAsync(MetalType.GOLD).join());
+
+        assertInstanceOf(RequestNotPermitted.class, refused.getCause());
+        assertEquals(3, bloomberg.calls);
+        assertEquals(0, metrics("price-api.BLOOMBERG.GOLD").getNumberOfFailedCalls());
+    }
+
+    private CircuitBreaker.State state(String name) {
+        return circuitBreakerRegistry.circuitBreaker(name).getState();
+    }
+
+    private CircuitBreaker.Metrics metrics(String name) {
+        return circuitBreakerRegistry.circuitBreaker(name).getMetrics();
+    }
+
+    /**
+     * Answers every request with the future of a supplier.
+     */
+    private static final class StubReader implements ExternalMetalPriceReader {
+
+        private final String name;
+
+        private final Supplier<CompletableFuture<Double>> answer;
+
+        private volatile int calls;
+
+        private StubReader(String name, Supplier<CompletableFuture<Double>> answer) {
+            this.name = name;
+            this.answer = answer;
+        }
+
+        @Override
+        public CompletableFuture<Double> fetchPriceAsync(MetalType metalType) {
+            calls++;
+            return answer.get();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public CurrencyType getCurrencyType() {
+            return CurrencyType.USD;
+        }
+    }
+}
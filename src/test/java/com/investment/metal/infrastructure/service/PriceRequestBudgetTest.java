@@ -0,0 +1,51 @@
+package com.investment.metal.infrastructure.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.investment.metal.domain.model.PriceServiceType;
+import com.investment.metal.infrastructure.service.price.HedgedPriceReader;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for PriceRequestBudget.
+ * Tests which providers the polling interval is budgeted for and the validation of the budgets.
+ */
+class PriceRequestBudgetTest {
+
+    private static final Map<String, Integer> BUDGETS = Map.of("GALMARLEY", 120, "BLOOMBERG", 60);
+
+    @Test
+    void testIntervalFollowsTheProvidersPolledOnEveryUpdate() {
+        // three metals per update: 120 requests per hour allow an update every 90 s, 60 every 180 s
+        assertEquals(90_000, new PriceRequestBudget(BUDGETS, PriceServiceType.GALMARLEY, false,
+                HedgedPriceReader.Mode.MEDIAN).getShortestIntervalMillis());
+        assertEquals(90_000, new PriceRequestBudget(BUDGETS, PriceServiceType.GALMARLEY, true,
+                HedgedPriceReader.Mode.FASTEST).getShortestIntervalMillis());
+        assertEquals(180_000, new PriceRequestBudget(BUDGETS, PriceServiceType.GALMARLEY, true,
+                HedgedPriceReader.Mode.MEDIAN).getShortestIntervalMillis());
+        assertEquals(0, new PriceRequestBudget(Map.of(), PriceServiceType.GALMARLEY, true,
+                HedgedPriceReader.Mode.MEDIAN).getShortestIntervalMillis());
+    }
+
+    @Test
+    void testRateLimiterOfEachBudgetedProvider() {
+        PriceRequestBudget budget = new PriceRequestBudget(Map.of("BLOOMBERG", 60), PriceServiceType.GALMARLEY,
+                true, HedgedPriceReader.Mode.FASTEST);
+
+        assertNotNull(budget.getRateLimiter("BLOOMBERG"));
+        assertNull(budget.getRateLimiter("GALMARLEY"));
+        assertEquals(0, budget.getShortestIntervalMillis());
+    }
+
+    @Test
+    void testInvalidBudgetsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PriceRequestBudget(Map.of("GALMARLY", 120),
+                PriceServiceType.GALMARLEY, false, HedgedPriceReader.Mode.FASTEST));
+        assertThrows(IllegalArgumentException.class, () -> new PriceRequestBudget(Map.of("GALMARLEY", 0),
+                PriceServiceType.GALMARLEY, false, HedgedPriceReader.Mode.FASTEST));
+    }
+}
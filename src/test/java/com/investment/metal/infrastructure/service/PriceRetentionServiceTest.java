@@ -0,0 +1,107 @@
+package com.investment.metal.infrastructure.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.investment.metal.application.service.PriceRollupService;
+import com.investment.metal.domain.model.CandleResolution;
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.repository.MetalPriceRepository;
+import com.investment.metal.domain.repository.PriceCandleRepository;
+import com.investment.metal.infrastructure.service.archive.PriceArchiveCompactor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for PriceRetentionService.
+ * Tests the chunked deletes per metal, the isolation of a failing metal, the archiving before the deletes and
+ * the retention of the candles.
+ */
+@ExtendWith(MockitoExtension.class)
+class PriceRetentionServiceTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private static final long RETENTION = TimeUnit.DAYS.toMillis(14);
+
+    @Mock
+    private MetalPriceRepository metalPriceRepository;
+
+    @Mock
+    private PriceCandleRepository priceCandleRepository;
+
+    @Mock
+    private PriceRollupService priceRollupService;
+
+    @Mock
+    private PriceArchiveCompactor priceArchiveCompactor;
+
+    @Test
+    void testDeletesInChunksUntilAChunkIsNotFull() {
+        LocalDateTime cutoff = LocalDateTime.ofInstant(Instant.ofEpochMilli(NOW - RETENTION), ZoneId.systemDefault());
+        when(metalPriceRepository.deleteOlderThan(MetalType.GOLD, cutoff, 100)).thenReturn(100, 100, 30);
+        when(metalPriceRepository.deleteOlderThan(MetalType.SILVER, cutoff, 100)).thenReturn(0);
+        when(metalPriceRepository.deleteOlderThan(MetalType.PLATINUM, cutoff, 100)).thenReturn(100, 0);
+
+        assertEquals(330, service().purge());
+        verify(metalPriceRepository, times(3)).deleteOlderThan(MetalType.GOLD, cutoff, 100);
+        verify(metalPriceRepository, times(1)).deleteOlderThan(MetalType.SILVER, cutoff, 100);
+        verify(metalPriceRepository, times(2)).deleteOlderThan(MetalType.PLATINUM, cutoff, 100);
+    }
+
+    @Test
+    void testFailingMetalDoesNotStopTheOthers() {
+        when(metalPriceRepository.deleteOlderThan(eq(MetalType.GOLD), any(), eq(100)))
+                .thenReturn(100)
+                .thenThrow(new RuntimeException("Lock wait timeout exceeded"));
+        when(metalPriceRepository.deleteOlderThan(eq(MetalType.SILVER), any(), eq(100))).thenReturn(5);
+        when(metalPriceRepository.deleteOlderThan(eq(MetalType.PLATINUM), any(), eq(100))).thenReturn(7);
+
+        assertEquals(112, service().purge());
+    }
+
+    @Test
+    void testKeepsThePricesOfAMetalThatCouldNotBeArchived() {
+        when(priceArchiveCompactor.compact(eq(MetalType.SILVER), any()))
+                .thenThrow(new UncheckedIOException(new IOException("No space left on device")));
+        when(metalPriceRepository.deleteOlderThan(eq(MetalType.GOLD), any(), eq(100))).thenReturn(3);
+
+        assertEquals(3, service().purge());
+        verify(metalPriceRepository, never()).deleteOlderThan(eq(MetalType.SILVER), any(), eq(100));
+        verify(metalPriceRepository, times(1)).deleteOlderThan(eq(MetalType.PLATINUM), any(), eq(100));
+    }
+
+    @Test
+    void testPurgesOnlyTheCandlesOfResolutionsWithARetention() {
+        long minuteRetention = TimeUnit.DAYS.toMillis(30);
+        LocalDateTime cutoff = LocalDateTime.ofInstant(Instant.ofEpochMilli(NOW - minuteRetention),
+                ZoneId.systemDefault());
+        when(priceRollupService.getRetentionMillis(CandleResolution.MINUTE)).thenReturn(minuteRetention);
+        when(priceCandleRepository.deleteOlderThan(MetalType.GOLD, CandleResolution.MINUTE, cutoff, 100))
+                .thenReturn(100, 40);
+
+        assertEquals(140, service().purge());
+        verify(priceCandleRepository, times(1))
+                .deleteOlderThan(MetalType.SILVER, CandleResolution.MINUTE, cutoff, 100);
+        verify(priceCandleRepository, never()).deleteOlderThan(any(), eq(CandleResolution.HOUR), any(), eq(100));
+        verify(priceCandleRepository, never()).deleteOlderThan(any(), eq(CandleResolution.DAY), any(), eq(100));
+    }
+
+    private PriceRetentionService service() {
+        return new PriceRetentionService(metalPriceRepository, priceCandleRepository, priceRollupService,
+                priceArchiveCompactor, RETENTION, 100, () -> NOW);
+    }
+}
@@ -5,7 +5,6 @@ import com.investment.metal.domain.model.MetalType;
 import com.investment.metal.domain.repository.MetalPriceRepository;
 import com.investment.metal.infrastructure.service.price.ExternalMetalPriceReader;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,12 +14,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -31,10 +32,7 @@ import static org.mockito.Mockito.*;
 class ResilientPriceServiceTest {
 
     @Mock
-    private CircuitBreakerRegistry circuitBreakerRegistry;
-
-    @Mock
-    private CircuitBreaker circuitBreaker;
+    private PriceProviderGuard priceProviderGuard;
 
     @Mock
     private ExternalMetalPriceReader priceReader;
@@ -58,31 +56,31 @@ class ResilientPriceServiceTest {
     }
 
     @Test
-    void testFetchPrice_Success() {
+    void testFetchPriceAsync_Success() {
         // Given
-        when(circuitBreakerRegistry.circuitBreaker(anyString())).thenReturn(circuitBreaker);
-        when(circuitBreaker.executeSupplier(any())).thenReturn(expectedPrice);
+        doReturn(CompletableFuture.completedFuture(expectedPrice))
+                .when(priceReader).fetchPriceAsync(any());
 
         // When
-        double result = resilientPriceService.fetchPrice(testMetalType);
+        double result = resilientPriceService.fetchPriceAsync(testMetalType).join();
 
         // Then
         assertEquals(expectedPrice, result);
-        verify(circuitBreaker).executeSupplier(any());
+        verify(priceReader).fetchPriceAsync(testMetalType);
     }
 
     @Test
-    void testFetchPrice_CircuitBreakerOpen_FallbackToCache() {
+    void testFetchPriceAsync_CircuitBreakerOpen_FallbackToCache() {
         // Given
-        when(circuitBreakerRegistry.circuitBreaker(anyString())).thenReturn(circuitBreaker);
         RuntimeException circuitBreakerException = new RuntimeException("Circuit breaker is open");
-        when(circuitBreaker.executeSupplier(any())).thenThrow(circuitBreakerException);
+        doReturn(CompletableFuture.failedFuture(circuitBreakerException))
+                .when(priceReader).fetchPriceAsync(any());
         when(fallbackService.hasCachedPrice(testMetalType)).thenReturn(true);
         when(fallbackService.getCachedPrice(testMetalType)).thenReturn(1950.0);
         when(fallbackService.getCachedPriceAge(testMetalType)).thenReturn(30000L);
 
         // When
-        double result = resilientPriceService.fetchPrice(testMetalType);
+        double result = resilientPriceService.fetchPriceAsync(testMetalType).join();
 
         // Then
         assertEquals(1950.0, result);
@@ -91,21 +89,84 @@ class ResilientPriceServiceTest {
     }
 
     @Test
-    void testFetchPrice_CircuitBreakerOpen_NoFallbackAvailable() {
+    void testFetchPriceAsync_CircuitBreakerOpen_NoFallbackAvailable() {
         // Given
-        when(circuitBreakerRegistry.circuitBreaker(anyString())).thenReturn(circuitBreaker);
         RuntimeException circuitBreakerException = new RuntimeException("Circuit breaker is open");
-        when(circuitBreaker.executeSupplier(any())).thenThrow(circuitBreakerException);
+        doReturn(CompletableFuture.failedFuture(circuitBreakerException))
+                .when(priceReader).fetchPriceAsync(any());
         when(fallbackService.hasCachedPrice(testMetalType)).thenReturn(false);
 
         // When
-        double result = resilientPriceService.fetchPrice(testMetalType);
+        double result = resilientPriceService.fetchPriceAsync(testMetalType).join();
 
         // Then
         assertEquals(0.0, result);
         verify(fallbackService).hasCachedPrice(testMetalType);
     }
 
+    @Test
+    void testFetchPrices_MissingMetal_FallbackToCache() {
+        // Given
+        doReturn(CompletableFuture.completedFuture(expectedPrice))
+                .doReturn(CompletableFuture.failedFuture(new RuntimeException("Unknown symbol")))
+                .when(priceReader).fetchPriceAsync(any());
+        when(fallbackService.hasCachedPrice(MetalType.SILVER)).thenReturn(true);
+        when(fallbackService.getCachedPrice(MetalType.SILVER)).thenReturn(25.0);
+        when(fallbackService.getCachedPriceAge(MetalType.SILVER)).thenReturn(30000L);
+
+        // When
+        Map<MetalType, Double> result = resilientPriceService.fetchPrices(EnumSet.of(MetalType.GOLD, MetalType.SILVER));
+
+        // Then
+        assertEquals(Map.of(MetalType.GOLD, expectedPrice, MetalType.SILVER, 25.0), result);
+        verify(priceReader, times(2)).fetchPriceAsync(any());
+        verify(fallbackService, never()).hasCachedPrice(MetalType.GOLD);
+    }
+
+    @Test
+    void testFetchPrices_CircuitBreakerOpen_FallbackToCache() {
+        // Given
+        doReturn(CompletableFuture.failedFuture(new RuntimeException("Circuit breaker is open")))
+                .when(priceReader).fetchPriceAsync(any());
+        when(fallbackService.hasCachedPrice(testMetalType)).thenReturn(true);
+        when(fallbackService.getCachedPrice(testMetalType)).thenReturn(1950.0);
+        when(fallbackService.getCachedPriceAge(testMetalType)).thenReturn(30000L);
+
+        // When
+        Map<MetalType, Double> result = resilientPriceService.fetchPrices(EnumSet.of(testMetalType));
+
+        // Then
+        assertEquals(Map.of(testMetalType, 1950.0), result);
+    }
+
+    @Test
+    void testFetchPriceAsync_Failure_FallbackToLastKnownGood() {
+        // Given
+        doReturn(CompletableFuture.completedFuture(expectedPrice))
+                .doReturn(CompletableFuture.failedFuture(new RuntimeException("Circuit breaker is open")))
+                .when(priceReader).fetchPriceAsync(any());
+
+        // When
+        resilientPriceService.fetchPriceAsync(testMetalType).join();
+        double result = resilientPriceService.fetchPriceAsync(testMetalType).join();
+
+        // Then
+        assertEquals(expectedPrice, result);
+        verify(fallbackService, never()).hasCachedPrice(any());
+    }
+
+    @Test
+    void testCircuitBreakerStateOfEachMetal() {
+        // Given
+        when(priceProviderGuard.getCircuitBreakerState(any())).thenReturn(CircuitBreaker.State.CLOSED);
+        when(priceProviderGuard.getCircuitBreakerState(MetalType.PLATINUM)).thenReturn(CircuitBreaker.State.OPEN);
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, resilientPriceService.getCircuitBreakerState(MetalType.GOLD));
+        assertEquals(CircuitBreaker.State.OPEN, resilientPriceService.getCircuitBreakerState(MetalType.PLATINUM));
+        assertEquals(CircuitBreaker.State.OPEN, resilientPriceService.getCircuitBreakerState());
+    }
+
     @Test
     void testGetCurrencyType() {
         // Given
@@ -122,8 +183,7 @@ class ResilientPriceServiceTest {
     @Test
     void testIsCircuitBreakerOpen_WhenOpen() {
         // Given
-        when(circuitBreakerRegistry.circuitBreaker(anyString())).thenReturn(circuitBreaker);
-        when(circuitBreaker.getState()).thenReturn(CircuitBreaker.State.OPEN);
+        when(priceProviderGuard.getCircuitBreakerState(any())).thenReturn(CircuitBreaker.State.OPEN);
 
         // When
         boolean result = resilientPriceService.isCircuitBreakerOpen();
@@ -135,8 +195,7 @@ class ResilientPriceServiceTest {
     @Test
     void testIsCircuitBreakerOpen_WhenClosed() {
         // Given
-        when(circuitBreakerRegistry.circuitBreaker(anyString())).thenReturn(circuitBreaker);
-        when(circuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(priceProviderGuard.getCircuitBreakerState(any())).thenReturn(CircuitBreaker.State.CLOSED);
 
         // When
         boolean result = resilientPriceService.isCircuitBreakerOpen();
@@ -148,8 +207,7 @@ class ResilientPriceServiceTest {
     @Test
     void testGetCircuitBreakerState() {
         // Given
-        when(circuitBreakerRegistry.circuitBreaker(anyString())).thenReturn(circuitBreaker);
-        when(circuitBreaker.getState()).thenReturn(CircuitBreaker.State.HALF_OPEN);
+        when(priceProviderGuard.getCircuitBreakerState(any())).thenReturn(CircuitBreaker.State.HALF_OPEN);
 
         // When
         CircuitBreaker.State result = resilientPriceService.getCircuitBreakerState();
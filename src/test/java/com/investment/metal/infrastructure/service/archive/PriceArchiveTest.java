@@ -0,0 +1,168 @@
+package com.investment.metal.infrastructure.service.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for PriceArchive.
+ * Tests the lossless round trip of the segment encoding, its size on regular ticks, the range reads and the
+ * segments written, merged and reopened from disk across appends.
+ */
+class PriceArchiveTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testIrregularTicksAreDecodedExactly() {
+        Random random = new Random(3);
+        PriceSeries.Builder builder = new PriceSeries.Builder(MetalType.GOLD, 5000);
+        long time = START;
+        double price = 64_000;
+        for (int i = 0; i < 5000; i++) {
+            // repeated seconds, minutes, gaps of days, and arbitrary milliseconds
+            long[] gaps = {0, 1000, 60_000, 60_000, 300_000, 86_400_000L * 3, 7};
+            time += gaps[random.nextInt(gaps.length)];
+            price = random.nextInt(4) == 0 ? price : price + random.nextGaussian() * 50;
+            builder.add(time, i % 1000 == 999 ? -0.0 : price);
+        }
+        PriceSeries series = builder.build();
+        PriceArchive archive = new PriceArchive(directory, 10_000, 100);
+
+        assertEquals(series.size(), archive.append(series));
+
+        assertSameTicks(series, 0, series.size(),
+                archive.findSeries(MetalType.GOLD, Long.MIN_VALUE, Long.MAX_VALUE));
+        int from = series.indexOf(series.time(1234));
+        int to = series.indexOf(series.time(4321));
+        assertSameTicks(series, from, to, archive.findSeries(MetalType.GOLD, series.time(1234), series.time(4321)));
+    }
+
+    @Test
+    void testRegularUnchangedTicksTakeTwoBitsEach() {
+        int count = 10_000;
+        long[] times = new long[count];
+        double[] prices = new double[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = START + i * 60_000L;
+            prices[i] = 812.25;
+        }
+
+        long bytes = ArchiveSegment.encode(new PriceSeries(MetalType.SILVER, times, prices)).capacity();
+
+        assertTrue(bytes <= ArchiveSegment.HEADER_SIZE + count * 2 / 8 + Long.BYTES,
+                "Segment of " + bytes + " bytes");
+    }
+
+    @Test
+    void testAppendsRollSegmentsAndSurviveAReopen() throws IOException {
+        PriceArchive archive = new PriceArchive(directory, 4, 2);
+        archive.append(series(0, 1, 2));
+        archive.append(series(2, 3, 4, 5, 6));
+        // already archived, ignored
+        assertEquals(0, archive.append(series(1, 6)));
+
+        PriceArchive reopened = new PriceArchive(directory, 4, 2);
+
+        PriceSeries all = reopened.findSeries(MetalType.PLATINUM, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertSameTicks(series(0, 1, 2, 3, 4, 5, 6), 0, 7, all);
+        assertEquals(START + 7000, reopened.getArchivedUntil(MetalType.PLATINUM));
+        assertEquals(Long.MIN_VALUE, reopened.getArchivedUntil(MetalType.GOLD));
+        // a full segment of 0 to 3, a chunk of 4 and 5, the tail of 6
+        assertEquals(List.of(START, START + 4000, START + 6000), segmentTimes());
+    }
+
+    @Test
+    void testAppendRewritesOnlyTheTail() throws IOException {
+        PriceArchive archive = new PriceArchive(directory, 8, 2);
+        archive.append(series(0, 1, 2, 3, 4));
+        Path metalDirectory = directory.resolve(MetalType.PLATINUM.getSymbol());
+        Files.setLastModifiedTime(metalDirectory.resolve(START + ArchiveSegment.SUFFIX), FileTime.fromMillis(0));
+
+        archive.append(series(5, 6));
+
+        assertEquals(FileTime.fromMillis(0),
+                Files.getLastModifiedTime(metalDirectory.resolve(START + ArchiveSegment.SUFFIX)));
+        assertEquals(List.of(START, START + 2000, START + 4000, START + 6000), segmentTimes());
+        assertSameTicks(series(0, 1, 2, 3, 4, 5, 6), 0, 7,
+                archive.findSeries(MetalType.PLATINUM, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void testChunksLeftByAnInterruptedMergeAreDeleted() throws IOException {
+        PriceArchive archive = new PriceArchive(directory, 4, 2);
+        archive.append(series(0, 1));
+        Path metalDirectory = directory.resolve(MetalType.PLATINUM.getSymbol());
+        Path chunk = metalDirectory.resolve((START + 2000) + ArchiveSegment.SUFFIX);
+        archive.append(series(2, 3));
+        // the merge replaced the first chunk but did not delete the second one
+        ArchiveSegment.write(chunk, series(2, 3));
+
+        PriceArchive reopened = new PriceArchive(directory, 4, 2);
+
+        assertSameTicks(series(0, 1, 2, 3), 0, 4,
+                reopened.findSeries(MetalType.PLATINUM, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertFalse(Files.exists(chunk));
+    }
+
+    @Test
+    void testCorruptedSegmentIsSkipped() throws IOException {
+        new PriceArchive(directory, 2, 1).append(series(0, 1, 2, 3, 4));
+        Path first = directory.resolve(MetalType.PLATINUM.getSymbol()).resolve(START + ArchiveSegment.SUFFIX);
+        byte[] content = Files.readAllBytes(first);
+        content[content.length - 1] ^= 1;
+        Files.write(first, content);
+
+        PriceArchive reopened = new PriceArchive(directory, 2, 1);
+
+        assertSameTicks(series(2, 3, 4), 0, 3,
+                reopened.findSeries(MetalType.PLATINUM, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    /**
+     * @return first times of the archived segments, oldest first
+     */
+    private List<Long> segmentTimes() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve(MetalType.PLATINUM.getSymbol()))) {
+            return files.map(file -> file.getFileName().toString())
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - ArchiveSegment.SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * @return ticks one second apart, priced after their second
+     */
+    private static PriceSeries series(int... seconds) {
+        PriceSeries.Builder builder = new PriceSeries.Builder(MetalType.PLATINUM, seconds.length);
+        for (int second : seconds) {
+            builder.add(START + second * 1000L, 900 + second * 0.1);
+        }
+        return builder.build();
+    }
+
+    private static void assertSameTicks(PriceSeries expected, int from, int to, PriceSeries actual) {
+        assertEquals(to - from, actual.size());
+        for (int i = from; i < to; i++) {
+            assertEquals(expected.time(i), actual.time(i - from));
+            assertEquals(Double.doubleToRawLongBits(expected.price(i)),
+                    Double.doubleToRawLongBits(actual.price(i - from)));
+        }
+    }
+}
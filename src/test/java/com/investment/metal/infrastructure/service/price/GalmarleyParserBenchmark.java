@@ -0,0 +1,151 @@
+package com.investment.metal.infrastructure.service.price;
+
+import com.investment.metal.domain.model.MetalType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import kong.unirest.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares reading latestPrice.price from a Galmarley CHART_POINTS response by building the string and the
+ * JSON tree of the whole body, as before, with the streaming {@link LatestPriceParser}, with and without the
+ * chart points.
+ * Runs with the GC profiler: {@code gc.alloc.rate.norm} is the number of bytes allocated per fetch.
+ * Not part of the unit test run; start it with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GalmarleyParserBenchmark {
+
+    /**
+     * Size of the buffers the HTTP client delivers the body in
+     */
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * Chart points of a day at the 5 minute interval of the request
+     */
+    @Param({"288", "2016"})
+    private int chartPoints;
+
+    /**
+     * Whether latestPrice comes before or after the chart points in the response
+     */
+    @Param({"true", "false"})
+    private boolean latestPriceFirst;
+
+    private byte[] payload;
+
+    private List<ByteBuffer> chunks;
+
+    private final LatestPriceParser parser = new LatestPriceParser();
+
+    private final LatestPriceParser chartPointsParser = new LatestPriceParser(true);
+
+    @Setup
+    public void setUp() {
+        payload = response(chartPoints, latestPriceFirst).getBytes(StandardCharsets.UTF_8);
+        chunks = new ArrayList<>();
+        for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+            chunks.add(ByteBuffer.wrap(payload, offset, Math.min(CHUNK_SIZE, payload.length - offset)).slice());
+        }
+        if (jsonTree() != streaming()) {
+            throw new IllegalStateException("Parsers disagree");
+        }
+    }
+
+    /**
+     * The former GalmarleyPriceReader: whole body as a string, JSONP wrapper cut out, full JSON tree.
+     */
+    @Benchmark
+    public double jsonTree() {
+        String content = new String(payload, StandardCharsets.UTF_8);
+        int p1 = content.indexOf("(");
+        int p2 = content.lastIndexOf(")");
+        return new JsonNode(content.substring(p1 + 1, p2)).getObject()
+                .getJSONObject("latestPrice")
+                .getDouble("price");
+    }
+
+    @Benchmark
+    public double streaming() {
+        parser.reset();
+        for (ByteBuffer chunk : chunks) {
+            if (parser.feed(chunk.rewind())) {
+                return parser.price();
+            }
+        }
+        parser.finish();
+        return parser.price();
+    }
+
+    /**
+     * The streaming parser also reading the chart points, as when the intraday backfill is enabled.
+     */
+    @Benchmark
+    public int streamingWithChartPoints() {
+        chartPointsParser.reset();
+        for (ByteBuffer chunk : chunks) {
+            if (chartPointsParser.feed(chunk.rewind())) {
+                break;
+            }
+        }
+        chartPointsParser.finish();
+        return chartPointsParser.chartPoints(MetalType.GOLD).size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GalmarleyParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * A response with the shape of the Galmarley prices.json CHART_POINTS answer.
+     */
+    static String response(int chartPoints, boolean latestPriceFirst) {
+        String latestPrice = "\"latestPrice\":{\"securityId\":\"AUX\",\"considerationCurrency\":\"USD\","
+                + "\"price\":76543.21,\"time\":\"2020-09-01T13:40:00.000Z\"}";
+        StringBuilder json = new StringBuilder("jQuery341049419930235311216_1598937200774({");
+        if (latestPriceFirst) {
+            json.append(latestPrice).append(',');
+        }
+        json.append("\"chartPoints\":[");
+        long time = 1598937200000L;
+        for (int i = 0; i < chartPoints; i++) {
+            double price = 76000 + 500 * Math.sin(i / 30.0);
+            json.append(i > 0 ? "," : "")
+                    .append(String.format(Locale.ROOT,
+                            "{\"time\":%d,\"open\":%.2f,\"high\":%.2f,\"low\":%.2f,\"close\":%.2f,\"price\":%.2f}",
+                            time + i * 300_000L, price, price + 12.5, price - 12.5, price + 1, price));
+        }
+        json.append("],\"interval\":5,\"securityId\":\"AUX\"");
+        if (!latestPriceFirst) {
+            json.append(',').append(latestPrice);
+        }
+        return json.append("});").toString();
+    }
+}
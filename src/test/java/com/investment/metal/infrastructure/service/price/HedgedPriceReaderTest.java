@@ -0,0 +1,162 @@
+package com.investment.metal.infrastructure.service.price;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for HedgedPriceReader.
+ * Tests the fastest-wins and median modes and the latency driven hedge delay.
+ */
+class HedgedPriceReaderTest {
+
+    @Test
+    void testFastPrimaryIsNotHedged() {
+        StubReader primary = new StubReader(100, 0);
+        StubReader secondary = new StubReader(200, 0);
+        HedgedPriceReader reader = reader(HedgedPriceReader.Mode.FASTEST, 500, primary, secondary);
+        assertEquals(100, reader.fetchPrice(MetalType.GOLD));
+        assertEquals(0, secondary.calls);
+    }
+
+    @Test
+    void testSlowPrimaryIsHedgedAndCancelled() throws InterruptedException {
+        StubReader primary = new StubReader(100, 10_000);
+        StubReader secondary = new StubReader(200, 0);
+        HedgedPriceReader reader = reader(HedgedPriceReader.Mode.FASTEST, 50, primary, secondary);
+        long start = System.nanoTime();
+        assertEquals(200, reader.fetchPrice(MetalType.GOLD));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(primary.cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFailedPrimaryIsHedgedAtOnce() {
+        StubReader primary = new StubReader(Double.NaN, 0);
+        StubReader secondary = new StubReader(200, 0);
+        HedgedPriceReader reader = reader(HedgedPriceReader.Mode.FASTEST, 10_000, primary, secondary);
+        long start = System.nanoTime();
+        assertEquals(200, reader.fetchPrice(MetalType.GOLD));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void testAllProvidersFail() {
+        HedgedPriceReader reader = reader(HedgedPriceReader.Mode.FASTEST, 10,
+                new StubReader(-1, 0), new StubReader(Double.NaN, 0));
+        assertThrows(RuntimeException.class, () -> reader.fetchPrice(MetalType.GOLD));
+    }
+
+    @Test
+    void testMedianOfProviders() {
+        HedgedPriceReader reader = reader(HedgedPriceReader.Mode.MEDIAN, 0,
+                new StubReader(100, 0), new StubReader(104, 0), new StubReader(900, 0));
+        assertEquals(104, reader.fetchPrice(MetalType.GOLD));
+        assertEquals(Map.of(MetalType.GOLD, 104d, MetalType.SILVER, 104d),
+                reader.fetchPrices(EnumSet.of(MetalType.GOLD, MetalType.SILVER)));
+        assertEquals(102, HedgedPriceReader.median(new double[] {104, 100}, 2));
+    }
+
+    @Test
+    void testMedianOfProvidersAnsweringWithinTheTimeout() throws InterruptedException {
+        StubReader slow = new StubReader(900, 10_000);
+        HedgedPriceReader reader = new HedgedPriceReader(Map.of("fast", new StubReader(100, 0), "slow", slow),
+                HedgedPriceReader.Mode.MEDIAN, 0, 0.95, 100);
+        assertEquals(100, reader.fetchPrice(MetalType.GOLD));
+        assertTrue(slow.cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCancellingTheReadCancelsTheRequests() throws InterruptedException {
+        StubReader primary = new StubReader(100, 10_000);
+        HedgedPriceReader reader = reader(HedgedPriceReader.Mode.FASTEST, 10_000, primary, new StubReader(200, 0));
+        reader.fetchPriceAsync(MetalType.GOLD).cancel(true);
+        assertTrue(primary.cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testHedgeDelayFollowsPrimaryLatency() {
+        StubReader primary = new StubReader(100, 40);
+        HedgedPriceReader reader = reader(HedgedPriceReader.Mode.FASTEST, 0, primary, new StubReader(200, 0));
+        assertEquals(HedgedPriceReader.DEFAULT_DELAY_MILLIS, reader.hedgeDelayMillis());
+        for (int i = 0; i < HedgedPriceReader.MIN_SAMPLES; i++) {
+            reader.fetchPrice(MetalType.GOLD);
+        }
+        long delay = reader.hedgeDelayMillis();
+        assertTrue(delay >= 40 && delay < HedgedPriceReader.DEFAULT_DELAY_MILLIS, "delay " + delay);
+    }
+
+    @Test
+    void testLatencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(-1, histogram.percentile(0.95));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 10L);
+        }
+        long p50 = histogram.percentile(0.5);
+        long p95 = histogram.percentile(0.95);
+        assertTrue(p50 >= 500 && p50 < 500 * 1.2, "p50 " + p50);
+        assertTrue(p95 >= 950 && p95 < 950 * 1.2, "p95 " + p95);
+    }
+
+    private static HedgedPriceReader reader(HedgedPriceReader.Mode mode, long delayMillis, StubReader... readers) {
+        Map<String, ExternalMetalPriceReader> providers = new LinkedHashMap<>();
+        for (int i = 0; i < readers.length; i++) {
+            providers.put("provider" + i, readers[i]);
+        }
+        return new HedgedPriceReader(providers, mode, delayMillis, 0.95, 3000);
+    }
+
+    /**
+     * Answers a fixed price after a delay without holding a thread; NaN fails the request.
+     */
+    private static final class StubReader implements ExternalMetalPriceReader {
+
+        private final double price;
+
+        private final long delayMillis;
+
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+
+        private volatile int calls;
+
+        private StubReader(double price, long delayMillis) {
+            this.price = price;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public CompletableFuture<Double> fetchPriceAsync(MetalType metalType) {
+            calls++;
+            CompletableFuture<Double> read = new CompletableFuture<>();
+            CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(() -> {
+                if (Double.isNaN(price)) {
+                    read.completeExceptionally(new RuntimeException("Provider unavailable"));
+                } else {
+                    read.complete(price);
+                }
+            });
+            read.whenComplete((ignored, error) -> {
+                if (read.isCancelled()) {
+                    cancelled.countDown();
+                }
+            });
+            return read;
+        }
+
+        @Override
+        public CurrencyType getCurrencyType() {
+            return CurrencyType.USD;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.investment.metal.infrastructure.service.price;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.domain.model.MetalType;
+import com.investment.metal.domain.model.PriceSeries;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for LatestPriceParser.
+ * Tests the streaming extraction of latestPrice.price from Galmarley JSONP responses.
+ */
+class LatestPriceParserTest {
+
+    private static final String RESPONSE = "jQuery341049419930235311216_1598937200774({"
+            + "\"price\": 1, \"chart\": {\"price\": 2, \"points\": [{\"price\": 3}, \"latestPrice\"]},"
+            + "\"na\\\"me\": \"a:b\", \"latestPrice\": {\"time\": 1598937201386, \"nested\": {\"price\": 4},"
+            + " \"price\" : 2345.67, \"currency\": \"USD\"}, \"tail\": [5, 6]});";
+
+    @Test
+    void testReadsLatestPriceWhateverTheBufferSplit() {
+        byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        LatestPriceParser parser = new LatestPriceParser();
+        for (int split = 0; split <= bytes.length; split++) {
+            parser.reset();
+            boolean found = parser.feed(ByteBuffer.wrap(bytes, 0, split))
+                    || parser.feed(ByteBuffer.wrap(bytes, split, bytes.length - split));
+            assertTrue(found, "split at " + split);
+            assertEquals(2345.67, parser.price());
+        }
+    }
+
+    @Test
+    void testStopsReadingAfterThePrice() {
+        ByteBuffer buffer = ByteBuffer.wrap(RESPONSE.getBytes(StandardCharsets.UTF_8));
+        LatestPriceParser parser = new LatestPriceParser();
+        assertTrue(parser.feed(buffer));
+        assertTrue(buffer.hasRemaining());
+        assertTrue(StandardCharsets.UTF_8.decode(buffer).toString().startsWith(" \"currency\""));
+    }
+
+    @Test
+    void testPlainJsonAndQuotedPrice() {
+        LatestPriceParser parser = new LatestPriceParser();
+        assertTrue(parser.feed(ByteBuffer.wrap("{\"latestPrice\":{\"price\":\"31.5\"}}".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(31.5, parser.price());
+    }
+
+    @Test
+    void testPriceEndingWithTheBody() {
+        LatestPriceParser parser = new LatestPriceParser();
+        assertFalse(parser.feed(ByteBuffer.wrap("cb({\"latestPrice\":{\"price\":12".getBytes(StandardCharsets.UTF_8))));
+        assertTrue(parser.finish());
+        assertEquals(12, parser.price());
+    }
+
+    @Test
+    void testReadsChartPointsInTheSamePass() {
+        for (boolean latestPriceFirst : new boolean[]{true, false}) {
+            byte[] bytes = GalmarleyParserBenchmark.response(50, latestPriceFirst).getBytes(StandardCharsets.UTF_8);
+            LatestPriceParser parser = new LatestPriceParser(true);
+            for (int split = 0; split <= bytes.length; split += 37) {
+                parser.reset();
+                boolean found = parser.feed(ByteBuffer.wrap(bytes, 0, split))
+                        || parser.feed(ByteBuffer.wrap(bytes, split, bytes.length - split));
+                assertTrue(found, "split at " + split);
+                assertEquals(76543.21, parser.price());
+                PriceSeries points = parser.chartPoints(MetalType.GOLD);
+                assertEquals(50, points.size());
+                assertEquals(1598937200000L + 49 * 300_000L, points.time(49));
+                assertEquals(76000 + 500 * Math.sin(49 / 30.0), points.price(49), 0.005);
+            }
+        }
+    }
+
+    @Test
+    void testSkipsInvalidChartPoints() {
+        LatestPriceParser parser = new LatestPriceParser(true);
+        String response = "cb({\"chartPoints\":[{\"time\":\"2020-09-01T13:40:00Z\",\"price\":\"12.5\"},"
+                + "{\"time\":null,\"price\":3},{\"time\":1598968800,\"price\":null,\"x\":{\"price\":1}},"
+                + "{\"price\":4,\"time\":1598968800000}],\"latestPrice\":{\"price\":13}})";
+        assertTrue(parser.feed(ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8))));
+        PriceSeries points = parser.chartPoints(MetalType.GOLD);
+        assertEquals(2, points.size());
+        assertEquals(1598967600000L, points.time(0));
+        assertEquals(12.5, points.price(0));
+        assertEquals(1598968800000L, points.time(1));
+        assertEquals(4, points.price(1));
+    }
+
+    @Test
+    void testChartPointsAreNotReadUnlessAsked() {
+        LatestPriceParser parser = new LatestPriceParser();
+        assertTrue(parser.feed(ByteBuffer.wrap(GalmarleyParserBenchmark.response(50, false)
+                .getBytes(StandardCharsets.UTF_8))));
+        assertEquals(0, parser.chartPoints(MetalType.GOLD).size());
+    }
+
+    @Test
+    void testMissingOrInvalidPrice() {
+        LatestPriceParser parser = new LatestPriceParser();
+        assertFalse(parser.feed(ByteBuffer.wrap("cb({\"price\": 1, \"latest\": {\"price\": 2}})".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(parser.finish());
+
+        parser.reset();
+        assertThrows(IllegalStateException.class, () ->
+                parser.feed(ByteBuffer.wrap("cb({\"latestPrice\":{\"price\":null}})".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,110 @@
+package com.investment.metal.infrastructure.service.price;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.investment.metal.domain.model.CurrencyType;
+import com.investment.metal.domain.model.MetalType;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for ReplayPriceReader and RecordingPriceReader.
+ * Tests the replay against the clock and tick by tick, the injected failures and the recording round trip.
+ */
+class ReplayPriceReaderTest {
+
+    private static final String TICKS = """
+            # metal-investment ticks currency=USD
+            1000,GOLD,64000.0,100
+            1000,SILVER,800.0,120
+            2000,GOLD,,5000
+            3000,GOLD,64100.0,90
+            """;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(50_000);
+
+    @Test
+    void testReplaysTheLatestTickAtTheReplayTimeAndLoops() throws IOException {
+        ReplayPriceReader reader = reader(2, 0, 0);
+
+        assertEquals(64000.0, reader.fetchPriceAsync(MetalType.GOLD).join());
+        // two times faster: 1 s later the replay is at 3000, the last tick
+        now.addAndGet(1000);
+        assertEquals(64100.0, reader.fetchPriceAsync(MetalType.GOLD).join());
+        assertEquals(800.0, reader.fetchPriceAsync(MetalType.SILVER).join());
+        // the recording spans 2001 ms; the next loop starts at its first tick again
+        now.addAndGet(1001);
+        assertEquals(64000.0, reader.fetchPriceAsync(MetalType.GOLD).join());
+    }
+
+    @Test
+    void testSpeedZeroReplaysTickByTickWithRecordedFailures() throws IOException {
+        ReplayPriceReader reader = reader(0, 0, 0);
+
+        assertEquals(64000.0, reader.fetchPriceAsync(MetalType.GOLD).join());
+        assertThrows(CompletionException.class, () -> reader.fetchPriceAsync(MetalType.GOLD).join());
+        assertEquals(64100.0, reader.fetchPriceAsync(MetalType.GOLD).join());
+        assertEquals(64000.0, reader.fetchPriceAsync(MetalType.GOLD).join());
+        assertTrue(reader.fetchPriceAsync(MetalType.PLATINUM).isCompletedExceptionally());
+        assertEquals(CurrencyType.USD, reader.getCurrencyType());
+    }
+
+    @Test
+    void testInjectedFailuresAreReproducible() throws IOException {
+        List<String> first = outcomes(reader(0, 0.3, 0.2));
+        List<String> second = outcomes(reader(0, 0.3, 0.2));
+
+        assertEquals(first, second);
+        assertTrue(first.contains("hang"));
+        assertTrue(first.contains("error"));
+        assertTrue(first.contains("price"));
+    }
+
+    @Test
+    void testRecordedReadsAreReplayed() throws Exception {
+        Path file = directory.resolve("ticks.csv");
+        ReplayPriceReader source = reader(0, 0, 0);
+        try (RecordingPriceReader recorder = new RecordingPriceReader(source, file)) {
+            for (int i = 0; i < 3; i++) {
+                recorder.fetchPriceAsync(MetalType.GOLD).exceptionally(error -> null).join();
+            }
+        }
+
+        ReplayPriceReader replay = new ReplayPriceReader(file, 0, ReplayPriceReader.Latency.NONE, 0, 0, 0, 0, 1);
+
+        assertEquals(64000.0, replay.fetchPriceAsync(MetalType.GOLD).join());
+        assertTrue(replay.fetchPriceAsync(MetalType.GOLD).isCompletedExceptionally());
+        assertEquals(64100.0, replay.fetchPriceAsync(MetalType.GOLD).join());
+        assertTrue(Files.readAllLines(file).getFirst().startsWith("#"));
+    }
+
+    private ReplayPriceReader reader(double speed, double errorRate, double hangRate) throws IOException {
+        return new ReplayPriceReader(TickFile.read(new StringReader(TICKS)), speed, ReplayPriceReader.Latency.NONE,
+                0, 0, errorRate, hangRate, 7, now::get);
+    }
+
+    private static List<String> outcomes(ReplayPriceReader reader) {
+        List<String> outcomes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            CompletableFuture<Double> price = reader.fetchPriceAsync(MetalType.SILVER);
+            assertFalse(price.isCancelled());
+            outcomes.add(!price.isDone() ? "hang" : price.isCompletedExceptionally() ? "error" : "price");
+        }
+        return outcomes;
+    }
+}